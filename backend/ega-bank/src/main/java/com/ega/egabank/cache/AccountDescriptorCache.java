@@ -0,0 +1,78 @@
+package com.ega.egabank.cache;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.projection.AccountDescriptor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache des descriptions de comptes ({@link AccountDescriptor}) par IBAN.
+ * <p>
+ * Évite de relire le compte et son titulaire à chaque contrôle d'accès. Le
+ * solde n'est jamais mis en cache. Les comptes inconnus ne sont pas mis en
+ * cache ; un compte désactivé ou supprimé est invalidé immédiatement et de
+ * nouveau après validation de la transaction, pour qu'une lecture concurrente
+ * ne réinsère pas l'ancien état.
+ */
+@Component
+public class AccountDescriptorCache implements MeterBinder {
+
+    private final AccountRepository accountRepository;
+    private final BoundedCache<String, AccountDescriptor> cache;
+
+    public AccountDescriptorCache(AccountRepository accountRepository,
+            @Value("${app.cache.account-descriptor.max-entries:50000}") int maxEntries,
+            @Value("${app.cache.account-descriptor.ttl-minutes:10}") long ttlMinutes) {
+        this.accountRepository = accountRepository;
+        this.cache = new BoundedCache<>(maxEntries, TimeUnit.MINUTES.toMillis(ttlMinutes));
+    }
+
+    public Optional<AccountDescriptor> find(String numeroCompte) {
+        AccountDescriptor descriptor = cache.get(numeroCompte);
+        if (descriptor != null) {
+            return Optional.of(descriptor);
+        }
+        Optional<AccountDescriptor> loaded = accountRepository.findDescriptorByNumeroCompte(numeroCompte);
+        loaded.ifPresent(d -> cache.put(numeroCompte, d));
+        return loaded;
+    }
+
+    public void invalidate(String numeroCompte) {
+        cache.invalidate(numeroCompte);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(numeroCompte);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.cache.account.hits", cache, BoundedCache::getHitCount)
+                .description("Descriptions de comptes servies depuis le cache")
+                .register(registry);
+        FunctionCounter.builder("egabank.cache.account.misses", cache, BoundedCache::getMissCount)
+                .description("Descriptions de comptes lues en base")
+                .register(registry);
+        FunctionCounter.builder("egabank.cache.account.evictions", cache, BoundedCache::getEvictionCount)
+                .description("Descriptions de comptes évincées du cache")
+                .register(registry);
+        Gauge.builder("egabank.cache.account.size", cache, BoundedCache::size)
+                .description("Nombre de descriptions de comptes en cache")
+                .register(registry);
+    }
+}
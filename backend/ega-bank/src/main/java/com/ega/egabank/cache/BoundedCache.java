@@ -0,0 +1,178 @@
+package com.ega.egabank.cache;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache mémoire borné en nombre d'entrées, avec expiration par durée de vie.
+ * <p>
+ * Les clés sont réparties par hachage entre des segments indépendants, chacun
+ * protégé par son propre verrou : deux accès ne se bloquent que s'ils tombent
+ * dans le même segment. Chaque segment évince par ordre d'accès (LRU) au-delà
+ * de sa part de la capacité ; l'éviction est donc LRU par segment, approchée
+ * pour le cache entier. Un petit cache n'a qu'un segment (LRU exact).
+ * <p>
+ * Les entrées expirées sont ignorées puis supprimées. Les opérations sont en
+ * O(1) et ne font jamais d'E/S.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 64;
+    /** Nombre d'entrées par segment en dessous duquel le cache n'est plus découpé */
+    private static final int MIN_SEGMENT_ENTRIES = 256;
+
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Segment<K, V>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries nombre maximal d'entrées conservées
+     * @param ttlMillis durée de vie d'une entrée, 0 ou négatif pour aucune expiration
+     */
+    public BoundedCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxEntries, long ttlMillis, Clock clock) {
+        int capacite = Math.max(1, maxEntries);
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, capacite / MIN_SEGMENT_ENTRIES)));
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.segments = new Segment[count];
+        // La capacité est répartie entre les segments, au plus count - 1 entrées de plus au total
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>((capacite + count - 1) / count, evictions);
+        }
+    }
+
+    /**
+     * Retourne la valeur associée à la clé, ou null si elle est absente ou expirée
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentOf(key);
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && entry.isExpired(clock.millis())) {
+                segment.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = ttlMillis > 0 ? clock.millis() + ttlMillis : Long.MAX_VALUE;
+        Segment<K, V> segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentOf(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Supprime les entrées expirées et retourne leur nombre
+     */
+    public int purgeExpired() {
+        long now = clock.millis();
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (Iterator<Entry<V>> it = segment.values().iterator(); it.hasNext();) {
+                    if (it.next().isExpired(now)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentOf(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Segment du cache : table en ordre d'accès, à utiliser sous son propre verrou
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private final int maxEntries;
+        private final LongAdder evictions;
+
+        private Segment(int maxEntries, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.ega.egabank.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache à deux niveaux des relevés PDF générés.
+ * <p>
+ * Chaque relevé généré est écrit sur disque (fichier temporaire puis
+ * déplacement atomique) ; les plus petits sont aussi gardés en mémoire. Les
+ * deux niveaux sont des LRU bornés en octets. Un relevé lu sur disque est
+ * servi par un flux ouvert sous le verrou du cache : une éviction concurrente
+ * supprime le fichier sans interrompre sa lecture. Le flux est recopié par
+ * blocs vers la réponse, jamais chargé en entier en mémoire, et doit être lu
+ * (ou fermé) par l'appelant.
+ * <p>
+ * La clé est fournie par l'appelant et doit changer avec le contenu du relevé
+ * (voir {@code StatementService}) : une entrée n'est jamais invalidée, les
+ * versions obsolètes sortent du cache par éviction. Deux demandes simultanées
+ * d'un même relevé absent le génèrent chacune ; la dernière écriture remplace
+ * l'autre, à contenu identique.
+ */
+@Slf4j
+@Component
+public class StatementCache implements MeterBinder {
+
+    private static final String EXTENSION = ".pdf";
+    private static final String EXTENSION_TEMPORAIRE = ".tmp";
+
+    /**
+     * Écrit un relevé dans un flux
+     */
+    @FunctionalInterface
+    public interface StatementWriter {
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxMemoryBytes;
+    private final long maxEntryBytes;
+    private final long maxDiskBytes;
+
+    /** Contenus en mémoire, par ordre d'accès */
+    private final LinkedHashMap<String, byte[]> memoire = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoireOctets;
+    /** Taille des fichiers sur disque, par ordre d'accès */
+    private final LinkedHashMap<String, Long> disque = new LinkedHashMap<>(16, 0.75f, true);
+    private long disqueOctets;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatementCache(
+            @Value("${app.statement.cache.directory:data/statement-cache}") String directory,
+            @Value("${app.statement.cache.memory-max-mb:64}") long maxMemoryMb,
+            @Value("${app.statement.cache.memory-max-entry-kb:512}") long maxEntryKb,
+            @Value("${app.statement.cache.disk-max-mb:2048}") long maxDiskMb) {
+        this.directory = Paths.get(directory);
+        this.maxMemoryBytes = maxMemoryMb * 1024 * 1024;
+        this.maxEntryBytes = Math.min(maxEntryKb * 1024, this.maxMemoryBytes);
+        this.maxDiskBytes = maxDiskMb * 1024 * 1024;
+        try {
+            Files.createDirectories(this.directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire du cache des relevés inaccessible: " + directory, e);
+        }
+    }
+
+    /**
+     * Relevé de la clé, depuis la mémoire ou le disque ; sinon généré par
+     * l'écrivain, enregistré, puis servi
+     */
+    public Resource get(String cle, StatementWriter writer) throws IOException {
+        Resource cached = find(cle);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        Path temporaire = Files.createTempFile(directory, "releve-", EXTENSION_TEMPORAIRE);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaire))) {
+            writer.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+        Path fichier = directory.resolve(cle + EXTENSION);
+        Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        long taille = Files.size(fichier);
+        byte[] contenu = taille <= maxEntryBytes ? Files.readAllBytes(fichier) : null;
+        synchronized (this) {
+            putDisk(cle, taille);
+            if (contenu != null) {
+                putMemory(cle, contenu);
+                return new ByteArrayResource(contenu);
+            }
+            // Ouvert avant de rendre le verrou : une écriture suivante peut évincer ce relevé
+            return open(cle, fichier, taille);
+        }
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoireOctets;
+    }
+
+    public synchronized long getDiskBytes() {
+        return disqueOctets;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.cache.statement.memory.hits", memoryHits, LongAdder::sum)
+                .description("Relevés servis depuis la mémoire")
+                .register(registry);
+        FunctionCounter.builder("egabank.cache.statement.disk.hits", diskHits, LongAdder::sum)
+                .description("Relevés servis depuis le disque")
+                .register(registry);
+        FunctionCounter.builder("egabank.cache.statement.misses", misses, LongAdder::sum)
+                .description("Relevés générés faute d'entrée en cache")
+                .register(registry);
+        FunctionCounter.builder("egabank.cache.statement.evictions", evictions, LongAdder::sum)
+                .description("Relevés évincés du disque")
+                .register(registry);
+        Gauge.builder("egabank.cache.statement.memory.bytes", this, StatementCache::getMemoryBytes)
+                .description("Octets de relevés en mémoire")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("egabank.cache.statement.disk.bytes", this, StatementCache::getDiskBytes)
+                .description("Octets de relevés sur disque")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private synchronized Resource find(String cle) throws IOException {
+        byte[] contenu = memoire.get(cle);
+        if (contenu != null) {
+            memoryHits.increment();
+            return new ByteArrayResource(contenu);
+        }
+        Long taille = disque.get(cle);
+        if (taille != null) {
+            Path fichier = directory.resolve(cle + EXTENSION);
+            if (Files.isRegularFile(fichier)) {
+                diskHits.increment();
+                return open(cle, fichier, taille);
+            }
+            // Fichier supprimé hors de l'application
+            disque.remove(cle);
+            disqueOctets -= taille;
+        }
+        return null;
+    }
+
+    private void putMemory(String cle, byte[] contenu) {
+        byte[] ancien = memoire.put(cle, contenu);
+        memoireOctets += contenu.length - (ancien != null ? ancien.length : 0);
+        for (Iterator<Map.Entry<String, byte[]>> it = memoire.entrySet().iterator();
+                memoireOctets > maxMemoryBytes && it.hasNext();) {
+            memoireOctets -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private void putDisk(String cle, long taille) {
+        Long ancienne = disque.put(cle, taille);
+        disqueOctets += taille - (ancienne != null ? ancienne : 0);
+        for (Iterator<Map.Entry<String, Long>> it = disque.entrySet().iterator();
+                disqueOctets > maxDiskBytes && it.hasNext();) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(cle)) {
+                // Le relevé qui vient d'être écrit reste, même s'il dépasse seul la capacité
+                continue;
+            }
+            it.remove();
+            disqueOctets -= eldest.getValue();
+            evictions.increment();
+            // Les relevés servis ont été ouverts sous le verrou : la suppression n'interrompt pas leur lecture
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey() + EXTENSION));
+            } catch (IOException e) {
+                log.warn("Suppression impossible du relevé en cache {}", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private static Resource open(String cle, Path fichier, long taille) throws IOException {
+        return new OpenStatementResource(new FileInputStream(fichier.toFile()), cle + EXTENSION, taille);
+    }
+
+    /**
+     * Relevé sur disque déjà ouvert, lisible une seule fois
+     */
+    private static final class OpenStatementResource extends InputStreamResource {
+
+        private final String filename;
+        private final long taille;
+
+        OpenStatementResource(InputStream in, String filename, long taille) {
+            super(in, "relevé en cache " + filename);
+            this.filename = filename;
+            this.taille = taille;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public long contentLength() {
+            return taille;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    /**
+     * Reprend les relevés déjà sur disque, du plus ancien au plus récent, et
+     * supprime les fichiers temporaires laissés par un arrêt brutal
+     */
+    private synchronized void load() throws IOException {
+        List<Path> fichiers = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String nom = entry.getFileName().toString();
+                if (nom.endsWith(EXTENSION_TEMPORAIRE)) {
+                    Files.deleteIfExists(entry);
+                } else if (nom.endsWith(EXTENSION)) {
+                    fichiers.add(entry);
+                }
+            }
+        }
+        fichiers.sort(Comparator.comparingLong(StatementCache::lastModified));
+        for (Path fichier : fichiers) {
+            String nom = fichier.getFileName().toString();
+            putDisk(nom.substring(0, nom.length() - EXTENSION.length()), Files.size(fichier));
+        }
+        log.info("Cache des relevés - {} relevés sur disque ({} Ko)", disque.size(), disqueOctets / 1024);
+    }
+
+    private static long lastModified(Path fichier) {
+        try {
+            return Files.getLastModifiedTime(fichier).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
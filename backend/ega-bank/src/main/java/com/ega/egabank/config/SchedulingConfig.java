@@ -0,0 +1,12 @@
+package com.ega.egabank.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (purges périodiques)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,6 +2,7 @@ package com.ega.egabank.controller;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,11 +14,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.ega.egabank.cache.AccountDescriptorCache;
 
 import com.ega.egabank.dto.request.AccountRequest;
 import com.ega.egabank.dto.response.AccountResponse;
 import com.ega.egabank.dto.response.MessageResponse;
 import com.ega.egabank.dto.response.PageResponse;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.repository.projection.AccountDescriptor;
 import com.ega.egabank.service.AccountService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,19 +52,24 @@ public class AccountController {
 
     private final AccountService accountService;
     private final UserRepository userRepository;
+    private final AccountDescriptorCache accountDescriptorCache;
 
     @Operation(summary = "Récupérer tous les comptes avec pagination")
     @GetMapping
     public ResponseEntity<PageResponse<AccountResponse>> getAllAccounts(
             @Parameter(description = "Numéro de page (commence à 0)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Mode tranche : pas de total, seulement hasNext (défilement continu)")
+            @RequestParam(defaultValue = "false") boolean slice) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         boolean isAdmin = auth.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
         if (isAdmin) {
-            return ResponseEntity.ok(accountService.getAllAccounts(page, size));
+            return ResponseEntity.ok(slice
+                    ? accountService.getAllAccountsSlice(page, size)
+                    : accountService.getAllAccounts(page, size));
         } else {
             User user = userRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
@@ -89,12 +100,38 @@ public class AccountController {
         }
     }
 
+    @Operation(summary = "Suggérer des numéros de compte à partir d'un préfixe")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestAccountNumbers(
+            @Parameter(description = "Début du numéro de compte (espaces ignorés)") @RequestParam String prefix,
+            @Parameter(description = "Nombre maximal de suggestions") @RequestParam(defaultValue = "10") int limit) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (isAdmin) {
+            return ResponseEntity.ok(accountService.suggestAccountNumbers(prefix, limit));
+        }
+
+        // Un client ne se voit proposer que ses propres comptes
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (user.getClient() == null) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+        return ResponseEntity.ok(
+                accountService.suggestClientAccountNumbers(user.getClient().getId(), prefix, limit));
+    }
+
     @Operation(summary = "Récupérer un compte par son numéro IBAN")
     @GetMapping("/{numeroCompte}")
     public ResponseEntity<AccountResponse> getAccountByNumber(
-            @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte) {
+            @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
+            WebRequest webRequest) {
 
-        AccountResponse response = accountService.getAccountByNumber(numeroCompte);
+        AccountDescriptor account = accountDescriptorCache.find(numeroCompte)
+                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         boolean isAdmin = auth.getAuthorities().stream()
@@ -104,12 +141,21 @@ public class AccountController {
             User user = userRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-            if (user.getClient() == null || !user.getClient().getId().equals(response.getClientId())) {
+            if (user.getClient() == null || !user.getClient().getId().equals(account.clientId())) {
                 throw new OperationNotAllowedException("Vous n'avez pas accès à ce compte");
             }
         }
 
-        return ResponseEntity.ok(response);
+        // Le solde doit être revalidé à chaque lecture : 304 si rien n'a changé
+        String etag = accountService.getAccountETag(numeroCompte);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(accountService.getAccountByNumber(numeroCompte));
     }
 
     @Operation(summary = "Récupérer les comptes d'un client")
@@ -157,6 +203,23 @@ public class AccountController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(summary = "Répartir les crédits d'un compte à fort volume sur des sous-soldes")
+    @PutMapping("/{numeroCompte}/sharding")
+    public ResponseEntity<AccountResponse> configureSharding(
+            @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
+            @Parameter(description = "Nombre de sous-soldes (0 pour un compte classique)") @RequestParam int sousSoldes) {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (!isAdmin) {
+            throw new OperationNotAllowedException("Seul un administrateur peut partager un compte");
+        }
+
+        return ResponseEntity.ok(accountService.configureSharding(numeroCompte, sousSoldes));
+    }
+
     @Operation(summary = "Supprimer un compte")
     @DeleteMapping("/{id}")
     public ResponseEntity<MessageResponse> deleteAccount(@PathVariable Long id) {
@@ -45,9 +45,13 @@ public class ClientController {
     @GetMapping
     public ResponseEntity<PageResponse<ClientResponse>> getAllClients(
             @Parameter(description = "Numéro de page (commence à 0)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size) {
+            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Mode tranche : pas de total, seulement hasNext (défilement continu)")
+            @RequestParam(defaultValue = "false") boolean slice) {
         checkAdmin();
-        return ResponseEntity.ok(clientService.getAllClients(page, size));
+        return ResponseEntity.ok(slice
+                ? clientService.getAllClientsSlice(page, size)
+                : clientService.getAllClients(page, size));
     }
 
     @Operation(summary = "Rechercher des clients")
@@ -55,9 +59,13 @@ public class ClientController {
     public ResponseEntity<PageResponse<ClientResponse>> searchClients(
             @Parameter(description = "Terme de recherche (nom, prénom, courriel)") @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Mode tranche : pas de total, seulement hasNext (défilement continu)")
+            @RequestParam(defaultValue = "false") boolean slice) {
         checkAdmin();
-        return ResponseEntity.ok(clientService.searchClients(q, page, size));
+        return ResponseEntity.ok(slice
+                ? clientService.searchClientsSlice(q, page, size)
+                : clientService.searchClients(q, page, size));
     }
 
     @Operation(summary = "Récupérer un client par son ID")
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.ega.egabank.entity.User;
 import com.ega.egabank.entity.Account;
 import com.ega.egabank.repository.UserRepository;
+import com.ega.egabank.posting.AccountShardManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -36,6 +37,7 @@ public class DashboardController {
 
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
+    private final AccountShardManager accountShardManager;
 
     @Operation(summary = "Récupérer les statistiques du dashboard")
     @GetMapping("/stats")
@@ -54,11 +56,12 @@ public class DashboardController {
 
             Long clientId = user.getClient().getId();
             List<Account> accounts = accountRepository.findByProprietaireId(clientId);
+            accountShardManager.loadShardBalances(accounts);
 
             long totalAccounts = accounts.size();
             long activeAccounts = accounts.stream().filter(Account::getActif).count();
             BigDecimal totalBalance = accounts.stream()
-                    .map(Account::getSolde)
+                    .map(Account::getSoldeConsolide)
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
             long totalTransactions = 0;
             // Pour les transactions, c'est plus compliqué sans méthode repo dédiée, on peut
@@ -1,28 +1,46 @@
 package com.ega.egabank.controller;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ega.egabank.enums.FormatReleve;
 import com.ega.egabank.service.StatementService;
+import com.ega.egabank.statement.StatementRenderExecutor;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import com.ega.egabank.service.AccountService;
-import com.ega.egabank.dto.response.AccountResponse;
+import com.ega.egabank.cache.AccountDescriptorCache;
+import com.ega.egabank.repository.projection.AccountDescriptor;
 import com.ega.egabank.repository.UserRepository;
 import com.ega.egabank.entity.User;
 import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.ResourceNotFoundException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -35,19 +53,30 @@ import org.springframework.security.core.context.SecurityContextHolder;
 @Tag(name = "Relevés", description = "Génération et téléchargement des relevés de compte")
 public class StatementController {
 
+        /** Attributs de requête du sendfile de Tomcat (copie du fichier vers la socket par le noyau) */
+        private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+        private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+        private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+        private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
         private final StatementService statementService;
-        private final AccountService accountService;
+        private final StatementRenderExecutor statementRenderExecutor;
+        private final AccountDescriptorCache accountDescriptorCache;
         private final UserRepository userRepository;
 
-        @Operation(summary = "Télécharger le relevé de compte en PDF")
+        @Operation(summary = "Télécharger le relevé de compte en PDF, CSV, OFX ou camt.053")
         @GetMapping("/{numeroCompte}")
-        public ResponseEntity<byte[]> downloadStatement(
+        public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadStatement(
                         @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
                         @Parameter(description = "Date de début (format: yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
-                        @Parameter(description = "Date de fin (format: yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+                        @Parameter(description = "Date de fin (format: yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+                        @Parameter(description = "Format : pdf, csv, ofx ou camt053 (sinon selon l'en-tête Accept, PDF par défaut)") @RequestParam(required = false) String format,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                        HttpServletRequest request) {
 
                 // Vérification de sécurité
-                AccountResponse account = accountService.getAccountByNumber(numeroCompte);
+                AccountDescriptor account = accountDescriptorCache.find(numeroCompte)
+                                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
                 Authentication auth = SecurityContextHolder.getContext().getAuthentication();
                 boolean isAdmin = auth.getAuthorities().stream()
                                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
@@ -56,22 +85,107 @@ public class StatementController {
                         User user = userRepository.findByUsername(auth.getName())
                                         .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-                        if (user.getClient() == null || !user.getClient().getId().equals(account.getClientId())) {
+                        if (user.getClient() == null || !user.getClient().getId().equals(account.clientId())) {
                                 throw new OperationNotAllowedException("Vous n'avez pas accès à ce compte");
                         }
                 }
 
-                byte[] pdf = statementService.generateStatement(numeroCompte, debut, fin);
-
-                String filename = String.format("releve_%s_%s_%s.pdf",
+                FormatReleve formatReleve = resolveFormat(format, accept);
+                String filename = String.format("releve_%s_%s_%s.%s",
                                 numeroCompte.substring(0, 8),
                                 debut.toString(),
-                                fin.toString());
+                                fin.toString(),
+                                formatReleve.getExtension());
+
+                if (formatReleve != FormatReleve.PDF) {
+                        // Formats d'échange : écrits en flux tranche par tranche, sans mise en page
+                        StreamingResponseBody body = out -> statementService.exportStatement(numeroCompte, debut, fin,
+                                        formatReleve, out);
+                        return CompletableFuture.completedFuture(response(filename, formatReleve, body, -1));
+                }
+
+                // Relevé en cache ou généré sur disque, sur le pool dédié : le thread
+                // de la requête est libéré, une file pleine répond 429 immédiatement
+                return statementRenderExecutor.submit(() -> statementService.getStatement(numeroCompte, debut, fin))
+                                .thenApply(pdf -> response(filename, formatReleve, pdfBody(pdf, request),
+                                                contentLength(pdf)));
+        }
+
+        /**
+         * Corps d'un relevé PDF. L'API servlet ne donne pas accès au canal de la
+         * socket : un fichier sur disque est confié au sendfile de Tomcat quand le
+         * connecteur le propose (le noyau copie le fichier vers la socket, rien ne
+         * transite par la JVM) ; sinon il est copié par son canal de fichier.
+         */
+        private static StreamingResponseBody pdfBody(Resource pdf, HttpServletRequest request) {
+                if (pdf.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                        try {
+                                File file = pdf.getFile();
+                                request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+                                request.setAttribute(SENDFILE_START, 0L);
+                                request.setAttribute(SENDFILE_END, file.length());
+                                // Le connecteur écrit le fichier à la place du corps
+                                return out -> {
+                                };
+                        } catch (IOException e) {
+                                // Fichier non résolu : copie ci-dessous
+                        }
+                }
+                return out -> {
+                        if (!pdf.isFile()) {
+                                try (InputStream in = pdf.getInputStream()) {
+                                        in.transferTo(out);
+                                }
+                                return;
+                        }
+                        try (FileChannel channel = FileChannel.open(pdf.getFile().toPath(), StandardOpenOption.READ)) {
+                                WritableByteChannel target = Channels.newChannel(out);
+                                long size = channel.size();
+                                for (long position = 0; position < size;) {
+                                        position += channel.transferTo(position, size - position, target);
+                                }
+                        }
+                };
+        }
+
+        /**
+         * Le paramètre {@code format} prime ; sinon le premier type de l'en-tête
+         * Accept (par qualité décroissante) correspondant à un format connu
+         */
+        private FormatReleve resolveFormat(String format, String accept) {
+                if (format != null && !format.isBlank()) {
+                        return FormatReleve.fromCode(format)
+                                        .orElseThrow(() -> new OperationNotAllowedException(
+                                                        "Format de relevé inconnu: " + format));
+                }
+                if (accept == null || accept.isBlank()) {
+                        return FormatReleve.PDF;
+                }
+                List<MediaType> types = MediaType.parseMediaTypes(accept);
+                MimeTypeUtils.sortBySpecificity(types);
+                return types.stream()
+                                .map(type -> FormatReleve.fromMediaType(type.getType() + "/" + type.getSubtype()))
+                                .flatMap(Optional::stream)
+                                .findFirst()
+                                .orElse(FormatReleve.PDF);
+        }
 
-                return ResponseEntity.ok()
+        private ResponseEntity<StreamingResponseBody> response(String filename, FormatReleve format,
+                        StreamingResponseBody body, long contentLength) {
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
                                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                                .contentType(MediaType.APPLICATION_PDF)
-                                .contentLength(pdf.length)
-                                .body(pdf);
+                                .contentType(MediaType.parseMediaType(format.getMediaType()));
+                if (contentLength >= 0) {
+                        builder.contentLength(contentLength);
+                }
+                return builder.body(body);
+        }
+
+        private static long contentLength(Resource pdf) {
+                try {
+                        return pdf.contentLength();
+                } catch (IOException e) {
+                        return -1;
+                }
         }
 }
@@ -0,0 +1,84 @@
+package com.ega.egabank.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.ega.egabank.dto.request.StatementJobRequest;
+import com.ega.egabank.dto.response.StatementJobResponse;
+import com.ega.egabank.enums.StatutJob;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.service.StatementJobService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Contrôleur des relevés de masse (fin de mois), réservé aux administrateurs
+ */
+@RestController
+@RequestMapping("/api/statement-jobs")
+@RequiredArgsConstructor
+@Tag(name = "Relevés de masse", description = "Génération en lot des relevés de tous les comptes actifs")
+public class StatementJobController {
+
+    private final StatementJobService statementJobService;
+
+    @Operation(summary = "Soumettre un lot de relevés pour tous les comptes actifs")
+    @PostMapping
+    public ResponseEntity<StatementJobResponse> submitJob(@Valid @RequestBody StatementJobRequest request) {
+        checkAdmin();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(statementJobService.submitJob(request));
+    }
+
+    @Operation(summary = "Consulter l'état et l'avancement d'un lot de relevés")
+    @GetMapping("/{id}")
+    public ResponseEntity<StatementJobResponse> getJob(
+            @Parameter(description = "Identifiant du lot") @PathVariable Long id) {
+        checkAdmin();
+        return ResponseEntity.ok(statementJobService.getJob(id));
+    }
+
+    @Operation(summary = "Télécharger les relevés d'un lot terminé dans une archive ZIP")
+    @GetMapping("/{id}/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @Parameter(description = "Identifiant du lot") @PathVariable Long id) {
+        checkAdmin();
+
+        // Vérifié avant l'envoi de la réponse, pour que l'erreur garde son statut HTTP
+        StatementJobResponse job = statementJobService.getJob(id);
+        if (job.getStatut() != StatutJob.TERMINE) {
+            throw new OperationNotAllowedException("Le lot de relevés n'est pas terminé");
+        }
+
+        StreamingResponseBody body = out -> statementJobService.writeArchive(id, out);
+        String filename = String.format("releves_%s_%s_lot%d.zip", job.getDebut(), job.getFin(), id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    private void checkAdmin() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (!isAdmin) {
+            throw new OperationNotAllowedException("Seul un administrateur peut gérer les relevés de masse");
+        }
+    }
+}
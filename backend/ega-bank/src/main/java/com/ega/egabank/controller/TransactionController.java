@@ -1,23 +1,43 @@
 package com.ega.egabank.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
+import com.ega.egabank.dto.request.BatchTransferRequest;
 import com.ega.egabank.dto.request.OperationRequest;
 import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.BatchTransferResponse;
+import com.ega.egabank.dto.response.CursorPageResponse;
 import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.idempotency.IdempotencyStore;
+import com.ega.egabank.posting.PostingPipeline;
+import com.ega.egabank.repository.projection.AccountDescriptor;
 import com.ega.egabank.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,11 +46,9 @@ import jakarta.validation.Valid;
 import com.ega.egabank.repository.UserRepository;
 import com.ega.egabank.repository.AccountRepository;
 import com.ega.egabank.entity.User;
-import com.ega.egabank.entity.Account;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.Collections;
-import java.util.ArrayList;
 import com.ega.egabank.exception.OperationNotAllowedException;
 
 import lombok.RequiredArgsConstructor;
@@ -44,19 +62,37 @@ import lombok.RequiredArgsConstructor;
 @Tag(name = "Transactions", description = "Opérations bancaires (dépôt, retrait, virement)")
 public class TransactionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     private final TransactionService transactionService;
     private final UserRepository userRepository;
     private final AccountRepository accountRepository;
+    private final PostingPipeline postingPipeline;
+    private final IdempotencyStore idempotencyStore;
+    private final AccountDescriptorCache accountDescriptorCache;
+    private final ObjectMapper objectMapper;
+
+    /** Durée pendant laquelle le navigateur réutilise l'historique d'un compte sans le revalider */
+    @Value("${app.http.history-max-age-seconds:5}")
+    private long historyMaxAgeSeconds;
 
     @Operation(summary = "Effectuer un dépôt sur un compte")
     @PostMapping("/{numeroCompte}/deposit")
     public ResponseEntity<TransactionResponse> deposit(
             @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
-            @Valid @RequestBody OperationRequest request) {
-
-        checkAccountOwnership(numeroCompte);
-
-        TransactionResponse response = transactionService.deposit(numeroCompte, request);
+            @Valid @RequestBody OperationRequest request,
+            @Parameter(description = "Clé d'idempotence pour rejouer la requête sans nouveau dépôt")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+
+        // Une requête rejouée est servie sans nouvelle vérification : la clé est propre à l'utilisateur
+        TransactionResponse response = idempotencyStore.execute(idempotencyKey,
+                "DEPOT:" + numeroCompte + ":" + request.getMontant(), TransactionResponse.class, () -> {
+                    checkAccountOwnership(numeroCompte);
+                    return postingPipeline.isEnabled()
+                            ? postingPipeline.deposit(numeroCompte, request)
+                            : transactionService.deposit(numeroCompte, request);
+                });
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -64,17 +100,39 @@ public class TransactionController {
     @PostMapping("/{numeroCompte}/withdraw")
     public ResponseEntity<TransactionResponse> withdraw(
             @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
-            @Valid @RequestBody OperationRequest request) {
-
-        checkAccountOwnership(numeroCompte);
-
-        TransactionResponse response = transactionService.withdraw(numeroCompte, request);
+            @Valid @RequestBody OperationRequest request,
+            @Parameter(description = "Clé d'idempotence pour rejouer la requête sans nouveau retrait")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+
+        TransactionResponse response = idempotencyStore.execute(idempotencyKey,
+                "RETRAIT:" + numeroCompte + ":" + request.getMontant(), TransactionResponse.class, () -> {
+                    checkAccountOwnership(numeroCompte);
+                    return postingPipeline.isEnabled()
+                            ? postingPipeline.withdraw(numeroCompte, request)
+                            : transactionService.withdraw(numeroCompte, request);
+                });
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @Operation(summary = "Effectuer un virement entre deux comptes")
     @PostMapping("/transfer")
-    public ResponseEntity<TransactionResponse> transfer(@Valid @RequestBody TransferRequest request) {
+    public ResponseEntity<TransactionResponse> transfer(@Valid @RequestBody TransferRequest request,
+            @Parameter(description = "Clé d'idempotence pour rejouer la requête sans nouveau virement")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+
+        TransactionResponse response = idempotencyStore.execute(idempotencyKey,
+                "VIREMENT:" + request.getCompteSource() + ":" + request.getCompteDestination()
+                        + ":" + request.getMontant(),
+                TransactionResponse.class, () -> {
+                    checkTransferSourceOwnership(request);
+                    return transactionService.transfer(request);
+                });
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Effectuer un lot de virements (paie, versements groupés)")
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         boolean isAdmin = auth.getAuthorities().stream()
@@ -88,17 +146,17 @@ public class TransactionController {
                 throw new OperationNotAllowedException("Vous n'avez pas de profil client associé");
             }
 
-            Account sourceAccount = accountRepository.findByNumeroCompteWithClient(request.getCompteSource())
-                    .orElseThrow(() -> new RuntimeException("Compte source non trouvé"));
-
-            if (!sourceAccount.getProprietaire().getId().equals(user.getClient().getId())) {
+            // Tous les comptes sources du lot doivent appartenir au client, vérifiés en une requête
+            Set<String> sources = new HashSet<>();
+            request.getVirements().forEach(v -> sources.add(v.getCompteSource()));
+            if (!new HashSet<>(accountRepository.findNumerosCompteOwnedBy(user.getClient().getId(), sources))
+                    .containsAll(sources)) {
                 throw new OperationNotAllowedException(
                         "Vous ne pouvez pas effectuer de virement depuis un compte qui ne vous appartient pas");
             }
         }
 
-        TransactionResponse response = transactionService.transfer(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return ResponseEntity.ok(transactionService.transferBatch(request.getVirements()));
     }
 
     @Operation(summary = "Récupérer toutes les transactions de tous les comptes")
@@ -119,14 +177,74 @@ public class TransactionController {
             return ResponseEntity.ok(Collections.emptyList());
         }
 
-        // Récupérer les transactions de tous les comptes du client
-        List<Account> accounts = accountRepository.findByProprietaireId(user.getClient().getId());
-        List<TransactionResponse> allTransactions = new ArrayList<>();
-        for (Account acc : accounts) {
-            allTransactions.addAll(transactionService.getAllTransactionsByAccount(acc.getNumeroCompte()));
+        // Transactions de tous les comptes du client, en une seule requête
+        return ResponseEntity.ok(transactionService.getAllTransactionsByClient(user.getClient().getId()));
+    }
+
+    @Operation(summary = "Récupérer le fil des transactions de tous les comptes d'un client, page par page")
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageResponse<TransactionResponse>> getClientFeed(
+            @Parameter(description = "Client concerné (administrateur uniquement)")
+            @RequestParam(required = false) Long clientId,
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de transactions par page (plafonné)")
+            @RequestParam(defaultValue = "50") int size) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (isAdmin) {
+            if (clientId == null) {
+                throw new OperationNotAllowedException("Le client doit être précisé");
+            }
+            return ResponseEntity.ok(transactionService.getClientFeed(clientId, cursor, size));
+        }
+
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+
+        if (user.getClient() == null) {
+            return ResponseEntity.ok(CursorPageResponse.of(Collections.emptyList(), size, null));
+        }
+
+        return ResponseEntity.ok(transactionService.getClientFeed(user.getClient().getId(), cursor, size));
+    }
+
+    @Operation(summary = "Exporter toutes les transactions au format NDJSON (une transaction JSON par ligne)")
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAllTransactions() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (!isAdmin) {
+            throw new OperationNotAllowedException("Seul un administrateur peut exporter les transactions");
         }
 
-        return ResponseEntity.ok(allTransactions);
+        ObjectWriter writer = objectMapper.writerFor(TransactionResponse.class);
+        StreamingResponseBody body = out -> {
+            long[] lignes = {0};
+            try {
+                transactionService.streamAllTransactions(transaction -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(transaction));
+                        out.write('\n');
+                        if (++lignes[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     @Operation(summary = "Récupérer l'historique des transactions d'un compte sur une période")
@@ -141,7 +259,8 @@ public class TransactionController {
     @Operation(summary = "Récupérer toutes les transactions d'un compte")
     @GetMapping("/{numeroCompte}")
     public ResponseEntity<List<TransactionResponse>> getAllTransactions(
-            @PathVariable String numeroCompte) {
+            @PathVariable String numeroCompte,
+            WebRequest webRequest) {
 
         // Vérification de sécurité
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -152,15 +271,38 @@ public class TransactionController {
             User user = userRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-            Account account = accountRepository.findByNumeroCompteWithClient(numeroCompte)
+            AccountDescriptor account = accountDescriptorCache.find(numeroCompte)
                     .orElseThrow(() -> new RuntimeException("Compte non trouvé"));
 
-            if (user.getClient() == null || !account.getProprietaire().getId().equals(user.getClient().getId())) {
+            if (user.getClient() == null || !user.getClient().getId().equals(account.clientId())) {
                 throw new OperationNotAllowedException("Vous n'avez pas accès à ce compte");
             }
         }
 
-        return ResponseEntity.ok(transactionService.getAllTransactionsByAccount(numeroCompte));
+        // Historique inchangé tant qu'aucune transaction n'est ajoutée : 304 sans relire les lignes
+        String etag = transactionService.getTransactionsETag(numeroCompte);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(historyMaxAgeSeconds, TimeUnit.SECONDS)
+                        .cachePrivate()
+                        .mustRevalidate())
+                .body(transactionService.getAllTransactionsByAccount(numeroCompte));
+    }
+
+    @Operation(summary = "Récupérer l'historique d'un compte page par page (du plus récent au plus ancien)")
+    @GetMapping("/{numeroCompte}/page")
+    public ResponseEntity<CursorPageResponse<TransactionResponse>> getTransactionPage(
+            @Parameter(description = "Numéro de compte (IBAN)") @PathVariable String numeroCompte,
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de transactions par page (plafonné)")
+            @RequestParam(defaultValue = "50") int size) {
+        checkAccountOwnership(numeroCompte);
+        return ResponseEntity.ok(transactionService.getTransactionsByAccount(numeroCompte, cursor, size));
     }
 
     private void checkAccountOwnership(String numeroCompte) {
@@ -172,12 +314,35 @@ public class TransactionController {
             User user = userRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
-            Account account = accountRepository.findByNumeroCompteWithClient(numeroCompte)
+            AccountDescriptor account = accountDescriptorCache.find(numeroCompte)
                     .orElseThrow(() -> new RuntimeException("Compte non trouvé"));
 
-            if (user.getClient() == null || !account.getProprietaire().getId().equals(user.getClient().getId())) {
+            if (user.getClient() == null || !user.getClient().getId().equals(account.clientId())) {
                 throw new OperationNotAllowedException("Vous n'avez pas accès à ce compte");
             }
         }
     }
+
+    private void checkTransferSourceOwnership(TransferRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        if (!isAdmin) {
+            User user = userRepository.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+
+            if (user.getClient() == null) {
+                throw new OperationNotAllowedException("Vous n'avez pas de profil client associé");
+            }
+
+            AccountDescriptor sourceAccount = accountDescriptorCache.find(request.getCompteSource())
+                    .orElseThrow(() -> new RuntimeException("Compte source non trouvé"));
+
+            if (!user.getClient().getId().equals(sourceAccount.clientId())) {
+                throw new OperationNotAllowedException(
+                        "Vous ne pouvez pas effectuer de virement depuis un compte qui ne vous appartient pas");
+            }
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package com.ega.egabank.dto.request;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO pour un lot de virements (paie, versements groupés)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "Le lot doit contenir au moins un virement")
+    @Size(max = 10000, message = "Le lot ne peut pas dépasser 10000 virements")
+    private List<@NotNull(message = "Un virement du lot ne peut pas être vide") @Valid TransferRequest> virements;
+}
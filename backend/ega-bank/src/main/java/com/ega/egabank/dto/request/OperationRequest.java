@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,5 +23,6 @@ public class OperationRequest {
     @Positive(message = "Le montant doit être positif")
     private BigDecimal montant;
 
+    @Size(max = 255, message = "La description ne doit pas dépasser 255 caractères")
     private String description;
 }
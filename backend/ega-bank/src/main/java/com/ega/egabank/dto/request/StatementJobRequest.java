@@ -0,0 +1,25 @@
+package com.ega.egabank.dto.request;
+
+import java.time.LocalDate;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO pour la soumission d'un lot de relevés de masse
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementJobRequest {
+
+    @NotNull(message = "La date de début est obligatoire")
+    private LocalDate debut;
+
+    @NotNull(message = "La date de fin est obligatoire")
+    private LocalDate fin;
+}
@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -29,5 +30,6 @@ public class TransferRequest {
     @Positive(message = "Le montant doit être positif")
     private BigDecimal montant;
 
+    @Size(max = 255, message = "La description ne doit pas dépasser 255 caractères")
     private String description;
 }
@@ -26,6 +26,7 @@ public class AccountResponse {
     private LocalDateTime dateCreation;
     private BigDecimal solde;
     private Boolean actif;
+    private Integer sousSoldes;
     private Long clientId;
     private String clientNomComplet;
 }
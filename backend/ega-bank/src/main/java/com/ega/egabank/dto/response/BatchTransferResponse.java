@@ -0,0 +1,67 @@
+package com.ega.egabank.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de réponse pour un lot de virements : bilan global et statut de chaque virement
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+
+    private int total;
+    private int reussis;
+    private int echoues;
+    private List<LegStatus> resultats;
+
+    /**
+     * Statut d'un virement du lot, repéré par sa position dans la requête
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class LegStatus {
+
+        private int index;
+        private boolean succes;
+        private Long transactionId;
+        private String message;
+
+        public static LegStatus success(int index, Long transactionId) {
+            return LegStatus.builder()
+                    .index(index)
+                    .succes(true)
+                    .transactionId(transactionId)
+                    .build();
+        }
+
+        public static LegStatus failure(int index, String message) {
+            return LegStatus.builder()
+                    .index(index)
+                    .succes(false)
+                    .message(message)
+                    .build();
+        }
+    }
+
+    public static BatchTransferResponse of(List<LegStatus> resultats) {
+        int reussis = (int) resultats.stream().filter(LegStatus::isSucces).count();
+        return BatchTransferResponse.builder()
+                .total(resultats.size())
+                .reussis(reussis)
+                .echoues(resultats.size() - reussis)
+                .resultats(resultats)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ega.egabank.dto.response;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,5 +33,7 @@ public class ClientResponse {
     private String nationalite;
     private LocalDateTime createdAt;
     private int nombreComptes;
+    /** Solde consolidé de tous les comptes du client (renseigné sur les listes) */
+    private BigDecimal soldeTotal;
     private List<AccountResponse> comptes;
 }
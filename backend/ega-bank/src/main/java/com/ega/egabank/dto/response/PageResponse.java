@@ -8,7 +8,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * DTO de réponse paginée générique
+ * DTO de réponse paginée générique.
+ * <p>
+ * En mode tranche ({@link #ofSlice}), le nombre total d'éléments n'est pas
+ * calculé : {@code totalElements} et {@code totalPages} valent -1 et seul
+ * {@code hasNext} indique s'il reste des éléments.
  */
 @Data
 @Builder
@@ -23,6 +27,7 @@ public class PageResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    private boolean hasNext;
 
     public static <T> PageResponse<T> of(List<T> content, int pageNumber, int pageSize,
             long totalElements, int totalPages) {
@@ -34,6 +39,24 @@ public class PageResponse<T> {
                 .totalPages(totalPages)
                 .first(pageNumber == 0)
                 .last(pageNumber >= totalPages - 1)
+                .hasNext(pageNumber < totalPages - 1)
+                .build();
+    }
+
+    /**
+     * Page sans total, pour un défilement continu : la requête lit une ligne de
+     * plus que la taille de page au lieu d'exécuter un COUNT
+     */
+    public static <T> PageResponse<T> ofSlice(List<T> content, int pageNumber, int pageSize, boolean hasNext) {
+        return PageResponse.<T>builder()
+                .content(content)
+                .pageNumber(pageNumber)
+                .pageSize(pageSize)
+                .totalElements(-1)
+                .totalPages(-1)
+                .first(pageNumber == 0)
+                .last(!hasNext)
+                .hasNext(hasNext)
                 .build();
     }
 }
@@ -0,0 +1,58 @@
+package com.ega.egabank.dto.response;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.enums.StatutJob;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de réponse pour un lot de relevés de masse : état et avancement
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementJobResponse {
+
+    private Long id;
+    private LocalDate debut;
+    private LocalDate fin;
+    private StatutJob statut;
+    private String statutLibelle;
+    private long totalComptes;
+    private long comptesTraites;
+    private long comptesEnErreur;
+    /** Pourcentage des comptes traités, erreurs comprises */
+    private int progression;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime termineLe;
+
+    public static StatementJobResponse of(StatementJob job) {
+        long faits = job.getComptesTraites() + job.getComptesEnErreur();
+        // Un compte désactivé pendant le lot n'est pas traité : le lot terminé est complet
+        int progression = job.getStatut() == StatutJob.TERMINE || job.getTotalComptes() == 0
+                ? 100
+                : (int) Math.min(100, faits * 100 / job.getTotalComptes());
+        return StatementJobResponse.builder()
+                .id(job.getId())
+                .debut(job.getDebut())
+                .fin(job.getFin())
+                .statut(job.getStatut())
+                .statutLibelle(job.getStatut().getLibelle())
+                .totalComptes(job.getTotalComptes())
+                .comptesTraites(job.getComptesTraites())
+                .comptesEnErreur(job.getComptesEnErreur())
+                .progression(progression)
+                .message(job.getMessage())
+                .createdAt(job.getCreatedAt())
+                .termineLe(job.getTermineLe())
+                .build();
+    }
+}
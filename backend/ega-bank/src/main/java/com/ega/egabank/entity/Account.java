@@ -22,7 +22,10 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -43,7 +46,8 @@ import lombok.Setter;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "numero_compte", unique = true, nullable = false, length = 34)
@@ -68,6 +72,30 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
+    /**
+     * Version de l'historique des transactions, incrémentée en base dans la
+     * transaction de chaque insertion ({@code TransactionBatchWriter}) ;
+     * jamais écrite par Hibernate
+     */
+    @Column(name = "history_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long historyVersion;
+
+    /** Nombre de sous-soldes d'un compte à fort volume de crédits, 0 pour un compte classique */
+    @Column(name = "shard_count")
+    @Builder.Default
+    private Integer shardCount = 0;
+
+    /**
+     * Somme des sous-soldes, renseignée par {@code AccountShardManager} pour
+     * les comptes partagés seulement (null sinon : aucune requête au chargement)
+     */
+    @Transient
+    private BigDecimal soldeShards;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client proprietaire;
@@ -77,6 +105,10 @@ public class Account {
     @Builder.Default
     private List<Transaction> transactions = new ArrayList<>();
 
+    @OneToMany(mappedBy = "compte", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private List<AccountShard> shards = new ArrayList<>();
+
     @PrePersist
     protected void onCreate() {
         dateCreation = LocalDateTime.now();
@@ -105,6 +137,20 @@ public class Account {
         this.solde = this.solde.subtract(montant);
     }
 
+    /**
+     * Indique si les crédits du compte sont répartis sur des sous-soldes
+     */
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 0;
+    }
+
+    /**
+     * Retourne le solde consolidé : solde principal et sous-soldes
+     */
+    public BigDecimal getSoldeConsolide() {
+        return soldeShards != null ? solde.add(soldeShards) : solde;
+    }
+
     /**
      * Vérifie si le solde est suffisant pour un retrait
      */
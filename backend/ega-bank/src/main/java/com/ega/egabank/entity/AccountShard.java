@@ -0,0 +1,55 @@
+package com.ega.egabank.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Sous-solde d'un compte à fort volume de crédits.
+ * <p>
+ * Les crédits d'un compte partagé sont répartis au hasard sur ses sous-soldes
+ * pour ne pas tous se sérialiser sur la ligne du compte ; le solde réel du
+ * compte est la somme de son solde principal et de ses sous-soldes.
+ */
+@Entity
+@Table(name = "account_shards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_shard", columnNames = { "account_id", "numero" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_shard_seq")
+    @SequenceGenerator(name = "account_shard_seq", sequenceName = "account_shards_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account compte;
+
+    @Column(nullable = false)
+    private Integer numero;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal solde = BigDecimal.ZERO;
+}
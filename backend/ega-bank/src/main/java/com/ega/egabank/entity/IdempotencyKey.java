@@ -0,0 +1,51 @@
+package com.ega.egabank.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Résultat enregistré d'une opération exécutée avec une clé d'idempotence
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    /** Clé fournie par le client, préfixée par le nom de l'utilisateur */
+    @Id
+    @Column(length = 160)
+    private String cle;
+
+    /** Empreinte de l'opération (type, compte, montant) à laquelle la clé a servi */
+    @Column(nullable = false, length = 255)
+    private String empreinte;
+
+    /** Réponse sérialisée en JSON ; null tant que l'issue de l'opération n'est pas connue */
+    @Column(length = 4000)
+    private String reponse;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,89 @@
+package com.ega.egabank.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.ega.egabank.enums.StatutJob;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lot de relevés de masse : un relevé par compte actif sur une période.
+ * <p>
+ * Les comptes sont parcourus par identifiant croissant jusqu'à
+ * {@code dernierCompteId}, figé à la soumission. {@code checkpoint} est le
+ * dernier identifiant en deçà duquel tous les comptes ont été traités : un
+ * lot interrompu reprend après lui.
+ */
+@Entity
+@Table(name = "statement_jobs", indexes = {
+        @Index(name = "idx_statement_job_statut", columnList = "statut")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatementJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "statement_job_seq")
+    @SequenceGenerator(name = "statement_job_seq", sequenceName = "statement_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate debut;
+
+    @Column(nullable = false)
+    private LocalDate fin;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutJob statut;
+
+    /** Plus grand identifiant de compte au moment de la soumission */
+    @Column(name = "dernier_compte_id", nullable = false)
+    private Long dernierCompteId;
+
+    @Column(name = "total_comptes", nullable = false)
+    private long totalComptes;
+
+    @Column(name = "comptes_traites", nullable = false)
+    private long comptesTraites;
+
+    @Column(name = "comptes_en_erreur", nullable = false)
+    private long comptesEnErreur;
+
+    /** Identifiant du dernier compte de la plus longue suite de tranches terminées */
+    @Column(nullable = false)
+    private long checkpoint;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "termine_le")
+    private LocalDateTime termineLe;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
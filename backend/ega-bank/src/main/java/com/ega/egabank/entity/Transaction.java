@@ -17,6 +17,7 @@ import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -27,12 +28,16 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 /**
- * Entité représentant une transaction bancaire
+ * Entité représentant une transaction bancaire.
+ * <p>
+ * L'index composite (compte, date, id) sert les historiques, relevés et
+ * périodes d'un compte par simple parcours de plage, déjà dans l'ordre de
+ * tri ; il couvre aussi les recherches sur le seul compte.
  */
 @Entity
 @Table(name = "transactions", indexes = {
         @Index(name = "idx_transaction_date", columnList = "date_transaction"),
-        @Index(name = "idx_transaction_compte", columnList = "account_id")
+        @Index(name = "idx_transaction_compte_date", columnList = "account_id, date_transaction, id")
 })
 @Getter
 @Setter
@@ -42,7 +47,8 @@ import lombok.Setter;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Le type de transaction est obligatoire")
@@ -0,0 +1,60 @@
+package com.ega.egabank.enums;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Formats de relevé de compte : PDF pour la lecture, CSV, OFX et ISO 20022
+ * camt.053 pour les intégrations comptables
+ */
+public enum FormatReleve {
+    PDF("pdf", "application/pdf", "pdf"),
+    CSV("csv", "text/csv", "csv"),
+    OFX("ofx", "application/x-ofx", "ofx"),
+    CAMT053("camt053", "application/xml", "xml");
+
+    private final String code;
+    private final String mediaType;
+    private final String extension;
+
+    FormatReleve(String code, String mediaType, String extension) {
+        this.code = code;
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Format désigné par son code ({@code pdf}, {@code csv}, {@code ofx},
+     * {@code camt053} ou {@code camt.053}), sans tenir compte de la casse
+     */
+    public static Optional<FormatReleve> fromCode(String code) {
+        String normalise = code.trim().toLowerCase(Locale.ROOT).replace(".", "");
+        for (FormatReleve format : values()) {
+            if (format.code.equals(normalise)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<FormatReleve> fromMediaType(String mediaType) {
+        for (FormatReleve format : values()) {
+            if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,21 @@
+package com.ega.egabank.enums;
+
+/**
+ * États d'un lot de relevés de masse
+ */
+public enum StatutJob {
+    EN_ATTENTE("En attente"),
+    EN_COURS("En cours"),
+    TERMINE("Terminé"),
+    ECHOUE("Échoué");
+
+    private final String libelle;
+
+    StatutJob(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+}
@@ -18,4 +18,11 @@ public enum TypeTransaction {
     public String getLibelle() {
         return libelle;
     }
+
+    /**
+     * Vrai si l'opération diminue le solde du compte
+     */
+    public boolean isDebit() {
+        return this == RETRAIT || this == VIREMENT_SORTANT;
+    }
 }
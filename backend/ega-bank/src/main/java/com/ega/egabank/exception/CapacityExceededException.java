@@ -0,0 +1,17 @@
+package com.ega.egabank.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception levée quand une file de traitement bornée est saturée
+ */
+@Getter
+public class CapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public CapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
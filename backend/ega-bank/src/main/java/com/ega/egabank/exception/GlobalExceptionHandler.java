@@ -3,6 +3,7 @@ package com.ega.egabank.exception;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -71,6 +72,32 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
 
+        @ExceptionHandler(PostingConflictException.class)
+        public ResponseEntity<ApiError> handlePostingConflict(
+                        PostingConflictException ex, HttpServletRequest request) {
+                log.warn("Conflit d'imputation: {}", ex.getMessage());
+                ApiError error = ApiError.of(
+                                HttpStatus.CONFLICT.value(),
+                                "Conflict",
+                                ex.getMessage(),
+                                request.getRequestURI());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+
+        @ExceptionHandler(CapacityExceededException.class)
+        public ResponseEntity<ApiError> handleCapacityExceeded(
+                        CapacityExceededException ex, HttpServletRequest request) {
+                log.warn("Capacité dépassée: {}", ex.getMessage());
+                ApiError error = ApiError.of(
+                                HttpStatus.TOO_MANY_REQUESTS.value(),
+                                "Too Many Requests",
+                                ex.getMessage(),
+                                request.getRequestURI());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                                .body(error);
+        }
+
         @ExceptionHandler(MethodArgumentNotValidException.class)
         public ResponseEntity<ApiError> handleValidationErrors(
                         MethodArgumentNotValidException ex, HttpServletRequest request) {
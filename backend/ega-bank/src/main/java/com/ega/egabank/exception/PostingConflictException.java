@@ -0,0 +1,15 @@
+package com.ega.egabank.exception;
+
+/**
+ * Exception levée quand une imputation n'a pas pu aboutir à cause d'écritures concurrentes
+ */
+public class PostingConflictException extends RuntimeException {
+
+    public PostingConflictException(String message) {
+        super(message);
+    }
+
+    public PostingConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
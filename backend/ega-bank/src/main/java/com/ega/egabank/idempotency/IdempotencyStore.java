@@ -0,0 +1,389 @@
+package com.ega.egabank.idempotency;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ega.egabank.cache.BoundedCache;
+import com.ega.egabank.entity.IdempotencyKey;
+import com.ega.egabank.exception.CapacityExceededException;
+import com.ega.egabank.exception.InsufficientBalanceException;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.PostingConflictException;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécution idempotente des opérations identifiées par un en-tête
+ * {@code Idempotency-Key}.
+ * <p>
+ * La réponse sérialisée de la première exécution est conservée dans un cache
+ * mémoire borné à durée de vie limitée, et dans la table
+ * {@code idempotency_keys} qui prend le relais après éviction ou redémarrage.
+ * Une requête rejouée est servie depuis le cache sans aucun accès aux comptes.
+ * Les doublons concurrents d'une même clé attendent l'exécution en cours au
+ * lieu de s'exécuter à leur tour. Les clés sont propres à chaque utilisateur
+ * et liées à l'opération pour laquelle elles ont servi la première fois.
+ * <p>
+ * La clé est réservée en table avant l'exécution, puis sa réponse est
+ * enregistrée dans la transaction de l'imputation ({@link #withinPosting}) :
+ * l'imputation et sa clé sont validées ensemble. Une opération rejetée avant
+ * ou pendant l'imputation (compte inconnu, solde insuffisant...) libère la
+ * clé ; si l'imputation a commencé et que son issue est inconnue (erreur
+ * technique, échec du commit), la clé reste réservée et toute relance est
+ * refusée jusqu'à l'expiration de la clé, au lieu d'imputer une seconde fois.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final BoundedCache<String, StoredResponse> cache;
+    private final long durableTtlHours;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadLocal<PendingCall> current = new ThreadLocal<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder durableReplays = new LongAdder();
+    private final LongAdder concurrentWaits = new LongAdder();
+    private final LongAdder unknownOutcomes = new LongAdder();
+
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.idempotency.cache.max-entries:100000}") int maxEntries,
+            @Value("${app.idempotency.cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${app.idempotency.durable-ttl-hours:24}") long durableTtlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.cache = new BoundedCache<>(maxEntries, ttlMinutes * 60_000);
+        this.durableTtlHours = durableTtlHours;
+    }
+
+    /**
+     * Exécute l'opération une seule fois pour une clé donnée ; sans clé,
+     * l'opération est exécutée directement
+     *
+     * @param key valeur de l'en-tête Idempotency-Key, éventuellement null
+     * @param empreinte description de l'opération (type, compte, montant)
+     */
+    public <T> T execute(String key, String empreinte, Class<T> type, Supplier<T> operation) {
+        if (key == null || key.isBlank()) {
+            return operation.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new OperationNotAllowedException(
+                    "La clé d'idempotence ne doit pas dépasser " + MAX_KEY_LENGTH + " caractères");
+        }
+        String scopedKey = currentUsername() + ":" + key;
+
+        StoredResponse cached = cache.get(scopedKey);
+        if (cached != null) {
+            return replay(cached, empreinte, type);
+        }
+
+        CompletableFuture<StoredResponse> ours = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, ours);
+        if (running != null) {
+            concurrentWaits.increment();
+            return replay(await(running), empreinte, type);
+        }
+
+        try {
+            StoredResponse stored = findDurable(scopedKey);
+            if (stored == null) {
+                stored = executeOnce(scopedKey, empreinte, type, operation);
+            } else {
+                durableReplays.increment();
+            }
+            cache.put(scopedKey, stored);
+            ours.complete(stored);
+            return replay(stored, empreinte, type);
+        } catch (RuntimeException e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, ours);
+        }
+    }
+
+    /**
+     * Opération exécutée sous une clé sur le thread courant, null sinon
+     */
+    public PendingCall currentCall() {
+        return current.get();
+    }
+
+    /**
+     * Exécute une opération sur le thread courant pour le compte d'une
+     * opération sous clé (imputation reprise par un autre thread)
+     */
+    public <T> T bind(PendingCall call, Supplier<T> operation) {
+        PendingCall previous = current.get();
+        current.set(call);
+        try {
+            return operation.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Encadre le travail d'une imputation exécuté dans sa transaction : la
+     * réponse de l'opération sous clé y est enregistrée avant le commit
+     */
+    public <T> Supplier<T> withinPosting(PendingCall call, Supplier<T> work) {
+        return () -> {
+            started(call);
+            return record(call, work.get());
+        };
+    }
+
+    /**
+     * Signale que l'imputation de l'opération a commencé : un échec technique
+     * laisse désormais son issue inconnue
+     */
+    public void started(PendingCall call) {
+        if (call != null) {
+            call.started = true;
+        }
+    }
+
+    /**
+     * Enregistre la réponse de l'opération dans la transaction courante ; sans
+     * effet pour un résultat d'un autre type (paquet d'un lot, par exemple)
+     */
+    public <T> T record(PendingCall call, T result) {
+        if (call == null || !call.type.isInstance(result)) {
+            return result;
+        }
+        String json = serialize(result);
+        idempotencyKeyRepository.complete(call.scopedKey, json);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    call.json = json;
+                }
+            });
+        } else {
+            call.json = json;
+        }
+        return result;
+    }
+
+    /**
+     * Supprime les résultats enregistrés au-delà de leur durée de conservation
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        cache.purgeExpired();
+        int supprimes = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(durableTtlHours));
+        if (supprimes > 0) {
+            log.info("{} clés d'idempotence expirées supprimées", supprimes);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.idempotency.hits", cache, BoundedCache::getHitCount)
+                .description("Requêtes rejouées servies depuis le cache mémoire")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.misses", cache, BoundedCache::getMissCount)
+                .description("Clés absentes du cache mémoire")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.evictions", cache, BoundedCache::getEvictionCount)
+                .description("Entrées évincées du cache mémoire")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.executions", executions, LongAdder::sum)
+                .description("Opérations exécutées avec une nouvelle clé")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.durable.replays", durableReplays, LongAdder::sum)
+                .description("Requêtes rejouées servies depuis la table")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.waits", concurrentWaits, LongAdder::sum)
+                .description("Doublons concurrents ayant attendu l'exécution en cours")
+                .register(registry);
+        FunctionCounter.builder("egabank.idempotency.unknown", unknownOutcomes, LongAdder::sum)
+                .description("Opérations d'issue inconnue dont la clé reste réservée")
+                .register(registry);
+        Gauge.builder("egabank.idempotency.cache.size", cache, BoundedCache::size)
+                .description("Nombre de réponses en cache mémoire")
+                .register(registry);
+    }
+
+    private <T> T replay(StoredResponse stored, String empreinte, Class<T> type) {
+        if (!stored.empreinte().equals(empreinte)) {
+            throw new OperationNotAllowedException(
+                    "La clé d'idempotence a déjà été utilisée pour une autre opération");
+        }
+        try {
+            return objectMapper.readValue(stored.json(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse enregistrée illisible", e);
+        }
+    }
+
+    private <T> StoredResponse executeOnce(String scopedKey, String empreinte, Class<T> type,
+            Supplier<T> operation) {
+        reserve(scopedKey, empreinte);
+        PendingCall call = new PendingCall(scopedKey, type);
+        PendingCall previous = current.get();
+        current.set(call);
+        T result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            if (!call.started || isRejection(e)) {
+                release(scopedKey);
+            } else {
+                unknownOutcomes.increment();
+                log.error("Issue inconnue de l'opération de clé {}, clé conservée", scopedKey, e);
+            }
+            throw e;
+        } finally {
+            restore(previous);
+        }
+        executions.increment();
+
+        String json = call.json;
+        if (json == null) {
+            // Opération sans imputation encadrée : réponse enregistrée après coup
+            json = serialize(result);
+            saveDurable(scopedKey, json);
+        }
+        return new StoredResponse(empreinte, json);
+    }
+
+    private StoredResponse findDurable(String scopedKey) {
+        IdempotencyKey key = idempotencyKeyRepository.findById(scopedKey).orElse(null);
+        if (key == null) {
+            return null;
+        }
+        if (key.getReponse() == null) {
+            throw pending();
+        }
+        return new StoredResponse(key.getEmpreinte(), key.getReponse());
+    }
+
+    private void reserve(String scopedKey, String empreinte) {
+        try {
+            idempotencyKeyRepository.insertPending(scopedKey, empreinte, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            // Réservée entre-temps par une autre instance
+            throw pending();
+        }
+    }
+
+    private void release(String scopedKey) {
+        try {
+            idempotencyKeyRepository.deletePending(scopedKey);
+        } catch (DataAccessException e) {
+            log.warn("Impossible de libérer la clé d'idempotence {}", scopedKey, e);
+        }
+    }
+
+    private void saveDurable(String scopedKey, String json) {
+        try {
+            idempotencyKeyRepository.complete(scopedKey, json);
+        } catch (DataAccessException e) {
+            // L'opération est déjà validée : le cache mémoire suffit à dédoublonner les relances proches
+            log.warn("Impossible d'enregistrer la clé d'idempotence {}", scopedKey, e);
+        }
+    }
+
+    private void restore(PendingCall previous) {
+        if (previous != null) {
+            current.set(previous);
+        } else {
+            current.remove();
+        }
+    }
+
+    private static PostingConflictException pending() {
+        return new PostingConflictException("Opération en cours ou d'issue inconnue pour cette clé "
+                + "d'idempotence, consultez l'historique du compte avant de réessayer");
+    }
+
+    /**
+     * Rejets métier : l'imputation a été annulée sans effet, la clé peut resservir
+     */
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof ResourceNotFoundException
+                || e instanceof InsufficientBalanceException
+                || e instanceof OperationNotAllowedException
+                || e instanceof PostingConflictException
+                || e instanceof CapacityExceededException;
+    }
+
+    private String serialize(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse non sérialisable", e);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Échec de l'opération", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de l'opération interrompue", e);
+        }
+    }
+
+    private String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonyme";
+    }
+
+    private record StoredResponse(String empreinte, String json) {
+    }
+
+    /**
+     * Opération sous clé en cours d'exécution
+     */
+    public static final class PendingCall {
+
+        private final String scopedKey;
+        private final Class<?> type;
+        private volatile boolean started;
+        /** Réponse enregistrée, renseignée au commit de l'imputation */
+        private volatile String json;
+
+        private PendingCall(String scopedKey, Class<?> type) {
+            this.scopedKey = scopedKey;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ega.egabank.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import com.ega.egabank.enums.TypeTransaction;
+
+/**
+ * Enregistrement binaire du journal des imputations.
+ * <p>
+ * Une imputation ({@link Kind#POSTING}) décrit une ligne de transaction :
+ * montants en centimes, horodatage en millisecondes. Les marqueurs
+ * {@link Kind#COMMIT} et {@link Kind#ABORT} indiquent l'issue de la
+ * transaction base de données d'une requête ; seul leur identifiant de
+ * requête est renseigné.
+ */
+public record JournalRecord(
+        Kind kind,
+        UUID requestId,
+        long transactionId,
+        long accountId,
+        TypeTransaction type,
+        long montant,
+        long soldeAvant,
+        long soldeApres,
+        long timestamp,
+        String description,
+        String compteDestination) {
+
+    /** Valeur des soldes absents */
+    public static final long NO_BALANCE = Long.MIN_VALUE;
+
+    private static final int MAX_TEXT_BYTES = 1024;
+
+    public enum Kind {
+        POSTING, COMMIT, ABORT
+    }
+
+    public static JournalRecord marker(Kind kind, UUID requestId) {
+        return new JournalRecord(kind, requestId, 0, 0, null, 0, NO_BALANCE, NO_BALANCE, 0, null, null);
+    }
+
+    /**
+     * Taille maximale du corps encodé
+     */
+    static int maxBodySize() {
+        return 1 + 16 + 8 + 8 + 1 + 8 * 4 + 2 * (2 + MAX_TEXT_BYTES);
+    }
+
+    /**
+     * Encode le corps de l'enregistrement (sans en-tête ni somme de contrôle)
+     */
+    void encode(ByteBuffer buffer) {
+        buffer.put((byte) kind.ordinal());
+        buffer.putLong(requestId.getMostSignificantBits());
+        buffer.putLong(requestId.getLeastSignificantBits());
+        if (kind != Kind.POSTING) {
+            return;
+        }
+        buffer.putLong(transactionId);
+        buffer.putLong(accountId);
+        // Le rang de l'énumération est stocké : les valeurs existantes ne doivent pas être réordonnées
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(montant);
+        buffer.putLong(soldeAvant);
+        buffer.putLong(soldeApres);
+        buffer.putLong(timestamp);
+        putText(buffer, description);
+        putText(buffer, compteDestination);
+    }
+
+    static JournalRecord decode(ByteBuffer buffer) {
+        Kind kind = Kind.values()[buffer.get()];
+        UUID requestId = new UUID(buffer.getLong(), buffer.getLong());
+        if (kind != Kind.POSTING) {
+            return marker(kind, requestId);
+        }
+        return new JournalRecord(kind, requestId,
+                buffer.getLong(),
+                buffer.getLong(),
+                TypeTransaction.values()[buffer.get()],
+                buffer.getLong(),
+                buffer.getLong(),
+                buffer.getLong(),
+                buffer.getLong(),
+                getText(buffer),
+                getText(buffer));
+    }
+
+    private static void putText(ByteBuffer buffer, String text) {
+        if (text == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_TEXT_BYTES);
+        // Coupure à la limite d'un caractère : un octet de continuation (10xxxxxx) ne commence pas un caractère
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private static String getText(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,265 @@
+package com.ega.egabank.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal segmenté en mémoire mappée, en ajout seul.
+ * <p>
+ * Chaque segment est un fichier de taille fixe, préalloué et projeté en
+ * mémoire ({@link MappedByteBuffer}). Un enregistrement est encadré par sa
+ * longueur et une somme de contrôle CRC32C ; une longueur nulle marque la fin
+ * des données d'un segment. À l'ouverture, les segments existants sont relus
+ * jusqu'au premier enregistrement incomplet ou corrompu (écriture interrompue)
+ * et leur contenu est exposé par {@link #recovered()} ; l'écriture reprend
+ * dans un nouveau segment.
+ * <p>
+ * L'appelant signale par {@link #release(long)} les imputations appliquées en
+ * base ; un segment plein dont toutes les imputations sont appliquées est
+ * supprimé. Les méthodes sont synchronisées.
+ */
+@Slf4j
+public class PostingJournal implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int FRAME_OVERHEAD = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final List<Path> recoveredFiles = new ArrayList<>();
+    private final List<JournalRecord> recovered = new ArrayList<>();
+    private final ByteBuffer scratch;
+
+    private Segment current;
+
+    public PostingJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.scratch = ByteBuffer.allocate(JournalRecord.maxBodySize());
+        if (segmentSize < JournalRecord.maxBodySize() + FRAME_OVERHEAD * 2) {
+            throw new IllegalArgumentException("Taille de segment trop petite: " + segmentSize);
+        }
+        try {
+            Files.createDirectories(directory);
+            long next = recover();
+            current = openSegment(next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le journal " + directory, e);
+        }
+    }
+
+    /**
+     * Enregistrements relus à l'ouverture, dans l'ordre d'écriture
+     */
+    public List<JournalRecord> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Supprime les segments relus à l'ouverture, une fois leur contenu rejoué
+     */
+    public synchronized void deleteRecovered() {
+        for (Path path : recoveredFiles) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Impossible de supprimer le segment {}", path, e);
+            }
+        }
+        recoveredFiles.clear();
+        recovered.clear();
+    }
+
+    /**
+     * Ajoute un enregistrement et retourne l'index du segment qui le contient.
+     * L'enregistrement n'est durable qu'après {@link #force()}.
+     */
+    public synchronized long append(JournalRecord record) {
+        scratch.clear();
+        record.encode(scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+
+        // Garder la place d'une longueur nulle de fin de segment
+        if (current.buffer.remaining() < length + FRAME_OVERHEAD + Integer.BYTES) {
+            rotate();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(scratch.duplicate());
+        MappedByteBuffer buffer = current.buffer;
+        buffer.putInt(length);
+        buffer.put(scratch);
+        buffer.putInt((int) crc.getValue());
+        if (record.kind() == JournalRecord.Kind.POSTING) {
+            current.pending++;
+        }
+        return current.index;
+    }
+
+    /**
+     * Force sur disque les enregistrements ajoutés depuis le dernier appel
+     */
+    public synchronized void force() {
+        int position = current.buffer.position();
+        if (position > current.forced) {
+            current.buffer.force(current.forced, position - current.forced);
+            current.forced = position;
+        }
+    }
+
+    /**
+     * Signale qu'une imputation du segment donné est appliquée en base ou abandonnée
+     */
+    public synchronized void release(long segmentIndex) {
+        Segment segment = segments.get(segmentIndex);
+        if (segment == null) {
+            return;
+        }
+        segment.pending--;
+        if (segment.pending <= 0 && segment != current) {
+            deleteSegment(segment);
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        for (Segment segment : segments.values()) {
+            closeQuietly(segment);
+        }
+        segments.clear();
+    }
+
+    private long recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                            && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long next = 0;
+        for (Path path : files) {
+            next = Math.max(next, indexOf(path) + 1);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int count = readSegment(buffer, path);
+                log.info("Segment de journal {} relu: {} enregistrement(s)", path.getFileName(), count);
+            }
+            recoveredFiles.add(path);
+        }
+        return next;
+    }
+
+    private int readSegment(ByteBuffer buffer, Path path) {
+        int count = 0;
+        while (buffer.remaining() >= FRAME_OVERHEAD) {
+            int length = buffer.getInt();
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+                log.warn("Enregistrement tronqué dans {} à la position {}", path, buffer.position() - Integer.BYTES);
+                break;
+            }
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            int expected = buffer.getInt();
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != expected) {
+                log.warn("Somme de contrôle invalide dans {} à la position {}", path,
+                        buffer.position() - length - FRAME_OVERHEAD);
+                break;
+            }
+            recovered.add(JournalRecord.decode(body));
+            count++;
+        }
+        return count;
+    }
+
+    private void rotate() {
+        force();
+        Segment previous = current;
+        current = openSegment(previous.index + 1);
+        if (previous.pending <= 0) {
+            deleteSegment(previous);
+        }
+    }
+
+    private Segment openSegment(long index) {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, index, SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            Segment segment = new Segment(index, path, channel, buffer);
+            segments.put(index, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de créer le segment " + path, e);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.index);
+        closeQuietly(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le segment {}", segment.path, e);
+        }
+    }
+
+    private void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Impossible de fermer le segment {}", segment.path, e);
+        }
+    }
+
+    private static long indexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static final class Segment {
+
+        private final long index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int forced;
+        private int pending;
+
+        private Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
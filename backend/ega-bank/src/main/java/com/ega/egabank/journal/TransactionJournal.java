@@ -0,0 +1,476 @@
+package com.ega.egabank.journal;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal d'écriture anticipée des transactions (optionnel,
+ * {@code app.journal.enabled}).
+ * <p>
+ * Les lignes de transaction d'une imputation reçoivent leur identifiant
+ * immédiatement, puis sont écrites dans le {@link PostingJournal} et forcées
+ * sur disque juste avant la validation de la transaction base de données qui
+ * modifie les soldes : la réponse n'est rendue qu'une fois le journal durable.
+ * L'insertion des lignes dans la table {@code transactions} est ensuite faite
+ * par lots, de façon asynchrone, par un thread dédié ; une ligne peut donc
+ * apparaître dans les historiques quelques millisecondes après la réponse.
+ * <p>
+ * Après validation (resp. annulation), un marqueur COMMIT (resp. ABORT) est
+ * ajouté au journal, sans être forcé sur disque. Au démarrage, le journal est
+ * rejoué : les lignes validées absentes de la base sont insérées. Une
+ * imputation sans marqueur (arrêt avant que le marqueur n'atteigne le disque)
+ * est considérée validée si le solde qu'elle annonce est celui que le compte a
+ * ensuite réellement eu. Les lignes sans solde (crédits de sous-solde), dont
+ * la validation ne pourrait pas être prouvée ainsi, ne sont pas journalisées :
+ * elles sont insérées dans la transaction de l'imputation.
+ * <p>
+ * L'insertion différée d'un lot est tentée au plus {@code max-attempts} fois,
+ * puis ligne par ligne ; une ligne encore refusée est mise de côté (« lettre
+ * morte ») : comptée, signalée en erreur et conservée dans le journal pour le
+ * rejeu du prochain démarrage.
+ */
+@Slf4j
+@Component
+public class TransactionJournal implements MeterBinder {
+
+    /** Attente maximale entre deux tentatives d'insertion */
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final AccountRepository accountRepository;
+    private final AccountShardManager accountShardManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int batchSize;
+    private final long maxWaitMillis;
+    private final int maxAttempts;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+
+    private PostingJournal journal;
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionJournal(TransactionBatchWriter transactionBatchWriter,
+            AccountRepository accountRepository,
+            AccountShardManager accountShardManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.journal.enabled:false}") boolean enabled,
+            @Value("${app.journal.directory:data/journal}") String directory,
+            @Value("${app.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${app.journal.batch-size:500}") int batchSize,
+            @Value("${app.journal.max-wait-ms:10}") long maxWaitMillis,
+            @Value("${app.journal.max-attempts:10}") int maxAttempts) {
+        this.transactionBatchWriter = transactionBatchWriter;
+        this.accountRepository = accountRepository;
+        this.accountShardManager = accountShardManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        journal = new PostingJournal(directory, segmentSize);
+        replay(journal.recovered());
+        journal.deleteRecovered();
+
+        running = true;
+        writer = new Thread(this::run, "transaction-journal");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Journal des imputations actif dans {}", directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            // Le thread d'écriture utilise encore les segments : ils sont laissés tels quels pour le rejeu
+            log.warn("Thread d'écriture du journal toujours actif à l'arrêt, {} ligne(s) rejouée(s) au démarrage",
+                    queue.size());
+            return;
+        }
+        journal.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journalise les lignes de transaction de l'imputation en cours. Les lignes
+     * reçoivent leur identifiant immédiatement ; elles sont écrites dans le
+     * journal avant la validation de la transaction courante et insérées en
+     * base après celle-ci. Les lignes sans solde sont insérées immédiatement,
+     * dans la transaction courante.
+     */
+    public void record(List<Transaction> transactions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("La journalisation requiert une transaction active");
+        }
+        transactionBatchWriter.allocateIds(transactions);
+        for (Transaction transaction : transactions) {
+            if (transaction.getDateTransaction() == null) {
+                transaction.setDateTransaction(LocalDateTime.now());
+            }
+        }
+
+        // Sans solde, la validation ne serait pas prouvable au rejeu : insertion dans la transaction
+        Map<Boolean, List<Transaction>> parSolde = transactions.stream()
+                .collect(Collectors.partitioningBy(t -> t.getSoldeApres() != null));
+        if (!parSolde.get(false).isEmpty()) {
+            transactionBatchWriter.insertWithIds(parSolde.get(false));
+        }
+        if (parSolde.get(true).isEmpty()) {
+            return;
+        }
+
+        RequestEntries entries = (RequestEntries) TransactionSynchronizationManager.getResource(this);
+        if (entries == null) {
+            entries = new RequestEntries(UUID.randomUUID());
+            TransactionSynchronizationManager.bindResource(this, entries);
+            TransactionSynchronizationManager.registerSynchronization(entries);
+        }
+        entries.transactions.addAll(parSolde.get(true));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.journal.records", journaled, LongAdder::sum)
+                .description("Lignes de transaction écrites dans le journal")
+                .register(registry);
+        FunctionCounter.builder("egabank.journal.applied", applied, LongAdder::sum)
+                .description("Lignes de transaction insérées en base depuis le journal")
+                .register(registry);
+        FunctionCounter.builder("egabank.journal.replayed", replayed, LongAdder::sum)
+                .description("Lignes de transaction rejouées au démarrage")
+                .register(registry);
+        FunctionCounter.builder("egabank.journal.failures", failures, LongAdder::sum)
+                .description("Échecs d'insertion en base des lignes journalisées")
+                .register(registry);
+        FunctionCounter.builder("egabank.journal.dead.letters", deadLetters, LongAdder::sum)
+                .description("Lignes journalisées abandonnées après épuisement des tentatives")
+                .register(registry);
+        Gauge.builder("egabank.journal.backlog", queue, BlockingQueue::size)
+                .description("Lignes journalisées en attente d'insertion en base")
+                .register(registry);
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < batchSize) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                apply(batch);
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insère le lot en base, avec au plus {@code maxAttempts} tentatives
+     * espacées d'une attente croissante plafonnée, puis ligne par ligne pour
+     * isoler une ligne refusée. L'arrêt de l'application interrompt les
+     * tentatives ; les lignes non insérées restent alors dans le journal et
+     * sont rejouées au démarrage.
+     */
+    private void apply(List<Pending> batch) throws InterruptedException {
+        List<Transaction> transactions = batch.stream().map(Pending::transaction).toList();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> transactionBatchWriter.insertWithIds(transactions));
+                applied.add(transactions.size());
+                batch.forEach(p -> journal.release(p.segment()));
+                if (attempt > 1) {
+                    log.info("Lignes journalisées insérées après {} tentatives", attempt);
+                }
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                if (!running) {
+                    log.error("Insertion de {} lignes journalisées impossible à l'arrêt, rejeu au prochain démarrage",
+                            transactions.size(), e);
+                    return;
+                }
+                if (attempt == maxAttempts) {
+                    log.error("Échec d'insertion de {} lignes journalisées après {} tentatives, insertion ligne "
+                            + "par ligne", transactions.size(), attempt, e);
+                    break;
+                }
+                long attente = Math.min(MAX_BACKOFF_MILLIS, 100L << Math.min(attempt - 1, 10));
+                log.warn("Échec d'insertion de {} lignes journalisées (tentative {}), nouvelle tentative dans {} ms",
+                        transactions.size(), attempt, attente, e);
+                Thread.sleep(attente);
+            }
+        }
+        batch.forEach(this::applySingle);
+    }
+
+    /**
+     * Insère une ligne seule ; refusée, elle passe en lettre morte : son segment
+     * n'est pas libéré, elle sera rejouée au prochain démarrage
+     */
+    private void applySingle(Pending pending) {
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> transactionBatchWriter.insertWithIds(List.of(pending.transaction())));
+            applied.increment();
+            journal.release(pending.segment());
+        } catch (RuntimeException e) {
+            failures.increment();
+            deadLetters.increment();
+            log.error("Ligne journalisée {} (compte {}) non insérée, conservée dans le journal pour le rejeu",
+                    pending.transaction().getId(), pending.transaction().getCompte().getId(), e);
+        }
+    }
+
+    private void replay(List<JournalRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<UUID, JournalRecord.Kind> issues = new HashMap<>();
+        List<JournalRecord> postings = new ArrayList<>();
+        for (JournalRecord record : records) {
+            if (record.kind() == JournalRecord.Kind.POSTING) {
+                postings.add(record);
+            } else {
+                issues.put(record.requestId(), record.kind());
+            }
+        }
+
+        // Requêtes sans marqueur : confirmées si l'une de leurs lignes porteuses de solde l'est
+        Map<UUID, Boolean> confirmations = new HashMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            JournalRecord posting = postings.get(i);
+            if (issues.containsKey(posting.requestId()) || posting.soldeApres() == JournalRecord.NO_BALANCE) {
+                continue;
+            }
+            boolean confirmed = isConfirmed(posting, postings.subList(i + 1, postings.size()));
+            confirmations.merge(posting.requestId(), confirmed, Boolean::logicalOr);
+        }
+
+        List<JournalRecord> committed = new ArrayList<>();
+        Set<UUID> unprovable = new HashSet<>();
+        for (JournalRecord posting : postings) {
+            JournalRecord.Kind issue = issues.get(posting.requestId());
+            if (issue == JournalRecord.Kind.COMMIT
+                    || (issue == null && confirmations.getOrDefault(posting.requestId(), false))) {
+                committed.add(posting);
+            } else if (issue == null && !confirmations.containsKey(posting.requestId())) {
+                unprovable.add(posting.requestId());
+            }
+        }
+        if (!unprovable.isEmpty()) {
+            // Journaux antérieurs à l'insertion immédiate des lignes sans solde : validation improuvable
+            log.warn("{} imputation(s) sans marqueur ni solde ignorée(s) au rejeu: {}", unprovable.size(), unprovable);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> existing = new HashSet<>();
+            Set<Long> accounts = new HashSet<>();
+            for (int from = 0; from < committed.size(); from += batchSize) {
+                List<JournalRecord> chunk = committed.subList(from, Math.min(from + batchSize, committed.size()));
+                existing.addAll(transactionBatchWriter.findExistingIds(
+                        chunk.stream().map(JournalRecord::transactionId).toList()));
+                accountRepository.findAllById(chunk.stream().map(JournalRecord::accountId).collect(Collectors.toSet()))
+                        .forEach(a -> accounts.add(a.getId()));
+            }
+
+            List<Transaction> missing = new ArrayList<>();
+            for (JournalRecord record : committed) {
+                if (existing.contains(record.transactionId())) {
+                    continue;
+                }
+                if (!accounts.contains(record.accountId())) {
+                    log.warn("Ligne journalisée {} ignorée: compte {} introuvable",
+                            record.transactionId(), record.accountId());
+                    continue;
+                }
+                missing.add(toTransaction(record));
+            }
+            transactionBatchWriter.insertWithIds(missing);
+            replayed.add(missing.size());
+            log.info("Journal rejoué: {} imputation(s) relue(s), {} ligne(s) insérée(s)",
+                    postings.size(), missing.size());
+        });
+    }
+
+    /**
+     * Une imputation sans marqueur est validée si une imputation ultérieure du
+     * même compte part de son solde final, ou, à défaut, si le compte a
+     * aujourd'hui ce solde final. Les crédits de sous-solde, sans solde, ne
+     * participent pas à ce chaînage.
+     */
+    private boolean isConfirmed(JournalRecord posting, List<JournalRecord> later) {
+        for (JournalRecord next : later) {
+            if (next.accountId() == posting.accountId() && next.soldeAvant() != JournalRecord.NO_BALANCE) {
+                return next.soldeAvant() == posting.soldeApres();
+            }
+        }
+        return accountRepository.findById(posting.accountId())
+                .map(a -> {
+                    accountShardManager.loadShardBalance(a);
+                    return toMinor(a.getSoldeConsolide()) == posting.soldeApres();
+                })
+                .orElse(false);
+    }
+
+    private Transaction toTransaction(JournalRecord record) {
+        return Transaction.builder()
+                .id(record.transactionId())
+                .type(record.type())
+                .montant(fromMinor(record.montant()))
+                .soldeAvant(fromMinor(record.soldeAvant()))
+                .soldeApres(fromMinor(record.soldeApres()))
+                .dateTransaction(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()),
+                        ZoneId.systemDefault()))
+                .description(record.description())
+                .compteDestination(record.compteDestination())
+                .compte(Account.builder().id(record.accountId()).build())
+                .build();
+    }
+
+    private static JournalRecord toRecord(UUID requestId, Transaction t) {
+        return new JournalRecord(JournalRecord.Kind.POSTING, requestId,
+                t.getId(),
+                t.getCompte().getId(),
+                t.getType(),
+                toMinor(t.getMontant()),
+                toMinor(t.getSoldeAvant()),
+                toMinor(t.getSoldeApres()),
+                t.getDateTransaction().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                t.getDescription(),
+                t.getCompteDestination());
+    }
+
+    private static long toMinor(BigDecimal montant) {
+        return montant == null ? JournalRecord.NO_BALANCE : montant.movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromMinor(long minor) {
+        return minor == JournalRecord.NO_BALANCE ? null : BigDecimal.valueOf(minor, 2);
+    }
+
+    /**
+     * Lignes journalisées par une transaction base de données, et suivi de son issue
+     */
+    private final class RequestEntries implements TransactionSynchronization {
+
+        private final UUID requestId;
+        private final List<Transaction> transactions = new ArrayList<>();
+        private final List<Long> segments = new ArrayList<>();
+
+        private RequestEntries(UUID requestId) {
+            this.requestId = requestId;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Écriture anticipée : le journal est durable avant que les soldes ne soient validés
+            for (Transaction transaction : transactions) {
+                segments.add(journal.append(toRecord(requestId, transaction)));
+            }
+            journal.force();
+            journaled.add(transactions.size());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionJournal.this);
+            if (segments.isEmpty()) {
+                return;
+            }
+            if (status == STATUS_COMMITTED) {
+                journal.append(JournalRecord.marker(JournalRecord.Kind.COMMIT, requestId));
+                for (int i = 0; i < transactions.size(); i++) {
+                    queue.add(new Pending(transactions.get(i), segments.get(i)));
+                }
+            } else {
+                journal.append(JournalRecord.marker(JournalRecord.Kind.ABORT, requestId));
+                segments.forEach(journal::release);
+            }
+        }
+    }
+
+    private record Pending(Transaction transaction, long segment) {
+    }
+}
@@ -24,8 +24,9 @@ public class AccountMapper {
                 .typeCompte(account.getTypeCompte())
                 .typeCompteLibelle(account.getTypeCompte().getLibelle())
                 .dateCreation(account.getDateCreation())
-                .solde(account.getSolde())
+                .solde(account.getSoldeConsolide())
                 .actif(account.getActif())
+                .sousSoldes(account.getShardCount())
                 .clientId(account.getProprietaire() != null ? account.getProprietaire().getId() : null)
                 .clientNomComplet(account.getProprietaire() != null
                         ? account.getProprietaire().getNomComplet()
@@ -1,7 +1,9 @@
 package com.ega.egabank.mapper;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
@@ -10,6 +12,7 @@ import com.ega.egabank.dto.request.ClientRequest;
 import com.ega.egabank.dto.response.AccountResponse;
 import com.ega.egabank.dto.response.ClientResponse;
 import com.ega.egabank.entity.Client;
+import com.ega.egabank.repository.projection.ClientAccountSummary;
 
 /**
  * Mapper pour les entités Client
@@ -73,6 +76,28 @@ public class ClientMapper {
                 .build();
     }
 
+    /**
+     * Convertit une entité Client en ClientResponse à partir des agrégats de
+     * ses comptes, sans initialiser la collection des comptes
+     */
+    public ClientResponse toResponse(Client client, ClientAccountSummary resume) {
+        return ClientResponse.builder()
+                .id(client.getId())
+                .nom(client.getNom())
+                .prenom(client.getPrenom())
+                .nomComplet(client.getNomComplet())
+                .dateNaissance(client.getDateNaissance())
+                .sexe(client.getSexe())
+                .adresse(client.getAdresse())
+                .telephone(client.getTelephone())
+                .courriel(client.getCourriel())
+                .nationalite(client.getNationalite())
+                .createdAt(client.getCreatedAt())
+                .nombreComptes(resume != null ? resume.nombreComptes().intValue() : 0)
+                .soldeTotal(resume != null ? resume.soldeTotal() : BigDecimal.ZERO)
+                .build();
+    }
+
     /**
      * Convertit une entité Client en ClientResponse (avec les comptes)
      */
@@ -101,11 +126,12 @@ public class ClientMapper {
     }
 
     /**
-     * Convertit une liste de Client en liste de ClientResponse
+     * Convertit une page de clients à partir des agrégats de leurs comptes,
+     * indexés par identifiant de client
      */
-    public List<ClientResponse> toResponseList(List<Client> clients) {
+    public List<ClientResponse> toResponseList(List<Client> clients, Map<Long, ClientAccountSummary> resumes) {
         return clients.stream()
-                .map(this::toResponse)
+                .map(client -> toResponse(client, resumes.get(client.getId())))
                 .collect(Collectors.toList());
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 
 import com.ega.egabank.dto.response.TransactionResponse;
 import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.repository.projection.TransactionView;
 
 /**
  * Mapper pour les entités Transaction
@@ -18,6 +19,60 @@ public class TransactionMapper {
      * Convertit une entité Transaction en TransactionResponse
      */
     public TransactionResponse toResponse(Transaction transaction) {
+        TransactionResponse response = toResponseWithoutAccount(transaction);
+        response.setNumeroCompte(transaction.getCompte() != null
+                ? transaction.getCompte().getNumeroCompte()
+                : null);
+        return response;
+    }
+
+    /**
+     * Convertit une Transaction dont le numéro de compte est déjà connu,
+     * sans accéder à l'association (éventuellement non chargée) vers le compte
+     */
+    public TransactionResponse toResponse(Transaction transaction, String numeroCompte) {
+        TransactionResponse response = toResponseWithoutAccount(transaction);
+        response.setNumeroCompte(numeroCompte);
+        return response;
+    }
+
+    /**
+     * Convertit une liste de Transaction en liste de TransactionResponse
+     */
+    public List<TransactionResponse> toResponseList(List<Transaction> transactions) {
+        return transactions.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convertit le modèle de lecture d'une transaction (projection)
+     */
+    public TransactionResponse toResponse(TransactionView view) {
+        return TransactionResponse.builder()
+                .id(view.id())
+                .type(view.type())
+                .typeLibelle(view.type().getLibelle())
+                .montant(view.montant())
+                .dateTransaction(view.dateTransaction())
+                .description(view.description())
+                .compteDestination(view.compteDestination())
+                .soldeAvant(view.soldeAvant())
+                .soldeApres(view.soldeApres())
+                .numeroCompte(view.numeroCompte())
+                .build();
+    }
+
+    /**
+     * Convertit une liste de modèles de lecture en liste de TransactionResponse
+     */
+    public List<TransactionResponse> toResponseListFromViews(List<TransactionView> views) {
+        return views.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    private TransactionResponse toResponseWithoutAccount(Transaction transaction) {
         return TransactionResponse.builder()
                 .id(transaction.getId())
                 .type(transaction.getType())
@@ -28,18 +83,6 @@ public class TransactionMapper {
                 .compteDestination(transaction.getCompteDestination())
                 .soldeAvant(transaction.getSoldeAvant())
                 .soldeApres(transaction.getSoldeApres())
-                .numeroCompte(transaction.getCompte() != null
-                        ? transaction.getCompte().getNumeroCompte()
-                        : null)
                 .build();
     }
-
-    /**
-     * Convertit une liste de Transaction en liste de TransactionResponse
-     */
-    public List<TransactionResponse> toResponseList(List<Transaction> transactions) {
-        return transactions.stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-    }
 }
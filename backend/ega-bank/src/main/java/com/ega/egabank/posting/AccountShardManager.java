@@ -0,0 +1,215 @@
+package com.ega.egabank.posting;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.AccountShard;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.AccountShardRepository;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gestion des comptes partagés en sous-soldes.
+ * <p>
+ * Un compte partagé reçoit ses crédits sur l'un de ses K sous-soldes, choisi
+ * au hasard, par une mise à jour conditionnelle qui ne touche ni la ligne du
+ * compte ni les autres sous-soldes : les crédits concurrents ne se sérialisent
+ * plus que par sous-solde. Les débits s'appliquent au solde principal ; s'il
+ * ne suffit pas, les sous-soldes sont verrouillés et reversés dans le solde
+ * principal avant le contrôle de provision. Le solde consolidé
+ * ({@link Account#getSoldeConsolide()}) n'est pas lu au chargement du compte :
+ * la somme des sous-soldes est lue à la demande, pour les seuls comptes
+ * partagés, sous le verrou des sous-soldes lors d'un débit. En revanche, les
+ * crédits concurrents n'étant pas sérialisés, aucun solde avant/après ne peut
+ * être attribué à l'un d'eux : leurs lignes de transaction n'en portent pas.
+ * <p>
+ * La liste des comptes partagés est conservée en mémoire pour que le choix du
+ * chemin d'imputation ne coûte aucune requête.
+ */
+@Slf4j
+@Component
+public class AccountShardManager implements MeterBinder {
+
+    public static final int MAX_SHARDS = 64;
+
+    private final AccountRepository accountRepository;
+    private final AccountShardRepository accountShardRepository;
+    private final Map<String, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder shardedCredits = new LongAdder();
+    private final LongAdder folds = new LongAdder();
+
+    public AccountShardManager(AccountRepository accountRepository, AccountShardRepository accountShardRepository) {
+        this.accountRepository = accountRepository;
+        this.accountShardRepository = accountShardRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        accountRepository.findByShardCountGreaterThan(0)
+                .forEach(a -> shardCounts.put(a.getNumeroCompte(), a.getShardCount()));
+        if (!shardCounts.isEmpty()) {
+            log.info("{} compte(s) partagé(s) en sous-soldes", shardCounts.size());
+        }
+    }
+
+    public boolean isSharded(String numeroCompte) {
+        return shardCounts.containsKey(numeroCompte);
+    }
+
+    /**
+     * Crédite un sous-solde choisi au hasard et retourne l'identifiant du compte.
+     * Doit être appelé dans une transaction.
+     */
+    public Long credit(String numeroCompte, BigDecimal montant) {
+        AccountBalanceView compte = accountRepository.findBalanceByNumeroCompte(numeroCompte)
+                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+        if (!compte.getActif()) {
+            throw new OperationNotAllowedException("Le compte " + numeroCompte + " est inactif");
+        }
+
+        Integer count = shardCounts.get(numeroCompte);
+        int numero = ThreadLocalRandom.current().nextInt(count != null ? count : 1);
+        if (count != null && accountShardRepository.credit(compte.getId(), numero, montant) > 0) {
+            shardedCredits.increment();
+        } else if (accountRepository.creditIfActive(numeroCompte, montant) == 0) {
+            // Partage retiré entre-temps, puis compte désactivé avant le crédit du solde principal
+            throw new OperationNotAllowedException("Le compte " + numeroCompte + " est inactif");
+        }
+        return compte.getId();
+    }
+
+    /**
+     * Renseigne la somme des sous-soldes d'un compte partagé, pour la lecture
+     * de son solde consolidé ; sans effet sur un compte classique
+     */
+    public void loadShardBalance(Account account) {
+        if (account.isSharded()) {
+            account.setSoldeShards(accountShardRepository.sumByAccountId(account.getId()));
+        }
+    }
+
+    public void loadShardBalances(Collection<Account> accounts) {
+        accounts.forEach(this::loadShardBalance);
+    }
+
+    /**
+     * Verrouille les sous-soldes d'un compte partagé avant un débit : ils sont
+     * reversés dans le solde principal si celui-ci ne couvre pas le montant,
+     * sinon leur somme est lue sous le verrou. Les soldes avant/après du débit
+     * sont ainsi exacts jusqu'à la validation.
+     */
+    public void ensureFunds(Account account, BigDecimal montant) {
+        if (!account.isSharded()) {
+            return;
+        }
+        List<AccountShard> shards = accountShardRepository.findAllForUpdateByAccountId(account.getId());
+        if (account.soldeEstSuffisant(montant)) {
+            account.setSoldeShards(sum(shards));
+        } else {
+            fold(account, shards);
+        }
+    }
+
+    /**
+     * Verrouille les sous-soldes d'un compte partagé et renseigne leur somme,
+     * stable jusqu'à la validation (contrôle du solde avant suppression)
+     */
+    public void lockShardBalance(Account account) {
+        if (account.isSharded()) {
+            account.setSoldeShards(sum(accountShardRepository.findAllForUpdateByAccountId(account.getId())));
+        }
+    }
+
+    /**
+     * Modifie le nombre de sous-soldes du compte (0 pour revenir à un compte classique).
+     * Les sous-soldes existants sont d'abord reversés dans le solde principal.
+     * Le compte doit être verrouillé par l'appelant.
+     */
+    public void reconfigure(Account account, int shardCount) {
+        if (shardCount < 0 || shardCount > MAX_SHARDS) {
+            throw new OperationNotAllowedException(
+                    "Le nombre de sous-soldes doit être compris entre 0 et " + MAX_SHARDS);
+        }
+        fold(account, accountShardRepository.findAllForUpdateByAccountId(account.getId()));
+        account.getShards().clear();
+        accountRepository.flush();
+        for (int numero = 0; numero < shardCount; numero++) {
+            account.getShards().add(AccountShard.builder()
+                    .compte(account)
+                    .numero(numero)
+                    .build());
+        }
+        account.setShardCount(shardCount);
+        accountRepository.save(account);
+
+        String numeroCompte = account.getNumeroCompte();
+        afterCommit(() -> {
+            if (shardCount > 0) {
+                shardCounts.put(numeroCompte, shardCount);
+            } else {
+                shardCounts.remove(numeroCompte);
+            }
+        });
+        log.info("Compte {} partagé en {} sous-soldes", numeroCompte, shardCount);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.posting.shard.credits", shardedCredits, LongAdder::sum)
+                .description("Crédits imputés sur un sous-solde")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.shard.folds", folds, LongAdder::sum)
+                .description("Reversements des sous-soldes dans le solde principal")
+                .register(registry);
+    }
+
+    private void fold(Account account, List<AccountShard> shards) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountShard shard : shards) {
+            total = total.add(shard.getSolde());
+            shard.setSolde(BigDecimal.ZERO);
+        }
+        account.crediter(total);
+        account.setSoldeShards(BigDecimal.ZERO);
+        folds.increment();
+        log.debug("Sous-soldes du compte {} reversés: {}", account.getNumeroCompte(), total);
+    }
+
+    private static BigDecimal sum(List<AccountShard> shards) {
+        return shards.stream()
+                .map(AccountShard::getSolde)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
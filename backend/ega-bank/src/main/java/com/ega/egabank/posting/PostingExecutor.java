@@ -0,0 +1,182 @@
+package com.ega.egabank.posting;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.exception.PostingConflictException;
+import com.ega.egabank.idempotency.IdempotencyStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécute les imputations selon la stratégie de concurrence configurée.
+ * <p>
+ * L'exécuteur porte la frontière transactionnelle : en mode
+ * {@link PostingMode#LOCK} la transaction s'exécute sous les verrous des
+ * comptes concernés, en mode {@link PostingMode#OPTIMISTIC} chaque tentative
+ * s'exécute dans une nouvelle transaction et est rejouée (relecture des
+ * comptes incluse) en cas de conflit de version, avec une attente aléatoire
+ * croissante et un nombre de tentatives borné. En mode
+ * {@link PostingMode#ATOMIC}, la base garantit seule l'atomicité de chaque
+ * mise à jour de solde : aucun verrou applicatif n'est pris.
+ * <p>
+ * Si l'appelant a déjà ouvert une transaction, l'imputation s'y joint : la
+ * relance optimiste n'est alors pas possible et le conflit est propagé.
+ * <p>
+ * Lorsque l'imputation est exécutée sous une clé d'idempotence, sa réponse
+ * est enregistrée dans la même transaction ({@link IdempotencyStore}).
+ */
+@Slf4j
+@Component
+public class PostingExecutor implements MeterBinder {
+
+    private final PostingLockManager postingLockManager;
+    private final IdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final PostingMode mode;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public PostingExecutor(PostingLockManager postingLockManager,
+            IdempotencyStore idempotencyStore,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.posting.mode:LOCK}") PostingMode mode,
+            @Value("${app.posting.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${app.posting.optimistic.base-backoff-ms:5}") long baseBackoffMillis,
+            @Value("${app.posting.optimistic.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.postingLockManager = postingLockManager;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = mode;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        log.info("Mode d'imputation: {}", mode);
+    }
+
+    /**
+     * Exécute une imputation portant sur les comptes fournis
+     */
+    public <T> T execute(Collection<String> numerosCompte, Supplier<T> work) {
+        Supplier<T> posting = recorded(work);
+        return switch (mode) {
+            case OPTIMISTIC -> executeOptimistic(posting);
+            case ATOMIC -> inTransaction(posting);
+            case LOCK -> postingLockManager.executeLocked(numerosCompte, () -> inTransaction(posting));
+        };
+    }
+
+    /**
+     * Exécute une imputation qui relit puis réécrit l'entité compte (comptes
+     * partagés en sous-soldes). En mode {@link PostingMode#ATOMIC}, aucun
+     * verrou ne protège ce chemin : elle s'exécute alors sous relance
+     * optimiste, la colonne de version détectant les écritures concurrentes.
+     */
+    public <T> T executeReadModifyWrite(Collection<String> numerosCompte, Supplier<T> work) {
+        return mode == PostingMode.ATOMIC ? executeOptimistic(recorded(work)) : execute(numerosCompte, work);
+    }
+
+    /**
+     * Verrou pris pour ce compte par {@link #execute} : indice du verrou en
+     * mode {@link PostingMode#LOCK}, -1 dans les autres modes (aucun verrou)
+     */
+    public int lockStripeOf(String numeroCompte) {
+        return mode == PostingMode.LOCK ? postingLockManager.stripeOf(numeroCompte) : -1;
+    }
+
+    public PostingMode getMode() {
+        return mode;
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.posting.optimistic.conflicts", conflicts, LongAdder::sum)
+                .description("Conflits de version détectés lors des imputations")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.optimistic.retries", retries, LongAdder::sum)
+                .description("Imputations rejouées après un conflit de version")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.optimistic.exhausted", exhausted, LongAdder::sum)
+                .description("Imputations abandonnées après épuisement des tentatives")
+                .register(registry);
+        Gauge.builder("egabank.posting.mode", () -> 1)
+                .description("Mode d'imputation actif")
+                .tag("mode", mode.name())
+                .register(registry);
+    }
+
+    private <T> Supplier<T> recorded(Supplier<T> work) {
+        IdempotencyStore.PendingCall call = idempotencyStore.currentCall();
+        return call != null ? idempotencyStore.withinPosting(call, work) : work;
+    }
+
+    private <T> T executeOptimistic(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Imputation abandonnée après {} conflits de version", attempt);
+                    throw new PostingConflictException(
+                            "Le compte est en cours de modification, veuillez réessayer", e);
+                }
+                retries.increment();
+                log.debug("Conflit de version (tentative {}/{}), nouvelle tentative", attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PostingConflictException("Imputation interrompue pendant l'attente de relance", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ega.egabank.posting;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gestionnaire de verrous d'imputation par compte.
+ * <p>
+ * Un pool fixe de verrous est partagé entre tous les comptes : chaque numéro
+ * de compte est associé à un verrou (« stripe ») par hachage. Deux comptes
+ * différents peuvent donc être imputés en parallèle tant qu'ils ne tombent pas
+ * sur le même verrou. Les verrous d'une même opération sont toujours pris dans
+ * l'ordre croissant des indices, ce qui exclut tout interblocage entre
+ * virements croisés.
+ * <p>
+ * Lorsqu'une transaction Spring est active, les verrous sont libérés après
+ * sa fin (commit ou rollback) : aucun autre thread ne peut relire un solde
+ * avant que la modification précédente ne soit visible en base.
+ */
+@Slf4j
+@Component
+public class PostingLockManager implements MeterBinder {
+
+    private final ReentrantLock[] stripes;
+    private final LongAdder[] contentions;
+    private final LongAdder[] waitNanos;
+    private final int mask;
+
+    public PostingLockManager(@Value("${app.posting.lock-stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Le nombre de verrous doit être positif");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        this.contentions = new LongAdder[size];
+        this.waitNanos = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+            contentions[i] = new LongAdder();
+            waitNanos[i] = new LongAdder();
+        }
+        this.mask = size - 1;
+        log.info("Gestionnaire de verrous d'imputation initialisé avec {} verrous", size);
+    }
+
+    /**
+     * Exécute une opération en détenant les verrous de tous les comptes fournis
+     */
+    public <T> T executeLocked(Collection<String> numerosCompte, Supplier<T> action) {
+        int[] indices = stripeIndices(numerosCompte);
+        acquire(indices);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Libération différée : le verrou couvre le commit de la transaction
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(indices);
+                }
+            });
+            return action.get();
+        }
+
+        try {
+            return action.get();
+        } finally {
+            release(indices);
+        }
+    }
+
+    /**
+     * Retourne l'indice du verrou associé à un numéro de compte
+     */
+    public int stripeOf(String numeroCompte) {
+        int h = numeroCompte.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Nombre d'acquisitions ayant dû attendre sur le verrou indiqué
+     */
+    public long getContentionCount(int stripe) {
+        return contentions[stripe].sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < stripes.length; i++) {
+            String stripe = String.valueOf(i);
+            FunctionCounter.builder("egabank.posting.lock.contentions", contentions[i], LongAdder::sum)
+                    .description("Acquisitions de verrou d'imputation ayant dû attendre")
+                    .tag("stripe", stripe)
+                    .register(registry);
+            FunctionCounter.builder("egabank.posting.lock.wait", waitNanos[i],
+                    adder -> adder.sum() / (double) TimeUnit.SECONDS.toNanos(1))
+                    .description("Temps cumulé d'attente sur le verrou d'imputation")
+                    .baseUnit("seconds")
+                    .tag("stripe", stripe)
+                    .register(registry);
+        }
+    }
+
+    private int[] stripeIndices(Collection<String> numerosCompte) {
+        return numerosCompte.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private void acquire(int[] indices) {
+        for (int index : indices) {
+            ReentrantLock lock = stripes[index];
+            if (!lock.tryLock()) {
+                contentions[index].increment();
+                long start = System.nanoTime();
+                lock.lock();
+                waitNanos[index].add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void release(int[] indices) {
+        for (int i = indices.length - 1; i >= 0; i--) {
+            stripes[indices[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ega.egabank.posting;
+
+/**
+ * Stratégies de contrôle de concurrence pour les imputations
+ */
+public enum PostingMode {
+
+    /**
+     * Verrous applicatifs par compte (pessimiste), tenus jusqu'au commit
+     */
+    LOCK,
+
+    /**
+     * Contrôle optimiste par colonne de version, avec relance automatique
+     */
+    OPTIMISTIC,
+
+    /**
+     * Mise à jour conditionnelle du solde en une seule requête, sans verrou applicatif
+     */
+    ATOMIC
+}
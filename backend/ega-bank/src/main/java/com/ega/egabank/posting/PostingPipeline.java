@@ -0,0 +1,445 @@
+package com.ega.egabank.posting;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.dto.request.OperationRequest;
+import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.exception.CapacityExceededException;
+import com.ega.egabank.exception.InsufficientBalanceException;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.idempotency.IdempotencyStore;
+import com.ega.egabank.journal.TransactionJournal;
+import com.ega.egabank.mapper.TransactionMapper;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
+import com.ega.egabank.service.TransactionService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pipeline d'imputation groupée (« group commit ») pour les dépôts et retraits.
+ * <p>
+ * Les demandes sont placées dans une file bornée. Un unique thread
+ * d'écriture prélève jusqu'à {@code batch-size} demandes ou attend au plus
+ * {@code max-wait-ms}, puis les applique dans une seule transaction : les
+ * comptes sont chargés une fois (verrou d'écriture en base) et les lignes de
+ * transaction sont insérées par lots JDBC. L'ordre de la file est conservé,
+ * donc l'ordre des imputations par compte aussi.
+ * <p>
+ * Une demande invalide (compte inconnu, inactif, solde insuffisant) est
+ * rejetée seule sans affecter le reste du lot. Si le lot entier échoue
+ * (erreur base de données, conflit), chaque demande est rejouée
+ * individuellement par {@link TransactionService}.
+ * <p>
+ * Une demande encore en file après {@code await-timeout-ms} en est retirée et
+ * rejetée ; une demande déjà prélevée par le thread d'écriture est attendue
+ * jusqu'à son issue, qui n'est jamais inconnue de l'appelant : une relance ne
+ * peut donc pas imputer deux fois la même opération. À l'arrêt
+ * du thread d'écriture, même sur une erreur fatale, les demandes restées en
+ * file sont rejetées : aucun appelant n'attend une demande qui ne sera
+ * jamais traitée.
+ * <p>
+ * La réponse d'une demande faite sous clé d'idempotence est enregistrée dans
+ * la transaction du lot, ou dans celle de son imputation unitaire en repli.
+ * <p>
+ * Lorsque le journal des imputations est actif, les lignes du lot y sont
+ * journalisées comme celles des imputations unitaires, au lieu d'être
+ * insérées directement.
+ */
+@Slf4j
+@Component
+public class PostingPipeline implements MeterBinder {
+
+    private final TransactionService transactionService;
+    private final AccountRepository accountRepository;
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final TransactionMapper transactionMapper;
+    private final PostingExecutor postingExecutor;
+    private final AccountShardManager accountShardManager;
+    private final TransactionJournal transactionJournal;
+    private final IdempotencyStore idempotencyStore;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final long awaitTimeoutMillis;
+    private final BlockingQueue<PendingPosting> queue;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder postings = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public PostingPipeline(TransactionService transactionService,
+            AccountRepository accountRepository,
+            TransactionBatchWriter transactionBatchWriter,
+            TransactionMapper transactionMapper,
+            PostingExecutor postingExecutor,
+            AccountShardManager accountShardManager,
+            TransactionJournal transactionJournal,
+            IdempotencyStore idempotencyStore,
+            @Value("${app.posting.pipeline.enabled:false}") boolean enabled,
+            @Value("${app.posting.pipeline.capacity:10000}") int capacity,
+            @Value("${app.posting.pipeline.batch-size:500}") int batchSize,
+            @Value("${app.posting.pipeline.max-wait-ms:5}") long maxWaitMillis,
+            @Value("${app.posting.pipeline.await-timeout-ms:30000}") long awaitTimeoutMillis) {
+        this.transactionService = transactionService;
+        this.accountRepository = accountRepository;
+        this.transactionBatchWriter = transactionBatchWriter;
+        this.transactionMapper = transactionMapper;
+        this.postingExecutor = postingExecutor;
+        this.accountShardManager = accountShardManager;
+        this.transactionJournal = transactionJournal;
+        this.idempotencyStore = idempotencyStore;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "posting-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Pipeline d'imputation groupée démarré (lot: {}, attente max: {} ms)",
+                batchSize, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // Le thread d'écriture vide la file avant de s'arrêter
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Effectue un dépôt via le pipeline et attend son résultat
+     */
+    public TransactionResponse deposit(String numeroCompte, OperationRequest request) {
+        return await(enqueue(numeroCompte, TypeTransaction.DEPOT, request));
+    }
+
+    /**
+     * Effectue un retrait via le pipeline et attend son résultat
+     */
+    public TransactionResponse withdraw(String numeroCompte, OperationRequest request) {
+        return await(enqueue(numeroCompte, TypeTransaction.RETRAIT, request));
+    }
+
+    /**
+     * Place une demande de dépôt ou de retrait dans la file
+     */
+    public CompletableFuture<TransactionResponse> submit(String numeroCompte, TypeTransaction type,
+            OperationRequest request) {
+        return enqueue(numeroCompte, type, request).future();
+    }
+
+    private PendingPosting enqueue(String numeroCompte, TypeTransaction type, OperationRequest request) {
+        if (type != TypeTransaction.DEPOT && type != TypeTransaction.RETRAIT) {
+            throw new IllegalArgumentException("Seuls les dépôts et retraits passent par le pipeline");
+        }
+        if (!running) {
+            throw new IllegalStateException("Le pipeline d'imputation n'est pas démarré");
+        }
+        PendingPosting posting = new PendingPosting(numeroCompte, type, request, idempotencyStore.currentCall(),
+                new CompletableFuture<>());
+        if (!queue.offer(posting)) {
+            rejections.increment();
+            throw new CapacityExceededException("File d'imputation saturée, veuillez réessayer", 1);
+        }
+        // Arrêt concurrent : le thread d'écriture a pu vider la file et se terminer avant l'ajout
+        if (!running && queue.remove(posting)) {
+            throw new IllegalStateException("Le pipeline d'imputation est arrêté");
+        }
+        idempotencyStore.started(posting.idempotence());
+        return posting;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("egabank.posting.pipeline.queue", queue, BlockingQueue::size)
+                .description("Demandes d'imputation en attente dans le pipeline")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.pipeline.batches", batches, LongAdder::sum)
+                .description("Lots appliqués par le pipeline")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.pipeline.postings", postings, LongAdder::sum)
+                .description("Demandes traitées par le pipeline")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.pipeline.fallbacks", fallbacks, LongAdder::sum)
+                .description("Lots rejoués en imputation unitaire après échec")
+                .register(registry);
+        FunctionCounter.builder("egabank.posting.pipeline.rejections", rejections, LongAdder::sum)
+                .description("Demandes refusées car la file était pleine")
+                .register(registry);
+    }
+
+    private void run() {
+        try {
+            loop();
+        } finally {
+            running = false;
+            List<PendingPosting> restantes = new ArrayList<>();
+            queue.drainTo(restantes);
+            if (!restantes.isEmpty()) {
+                log.error("Pipeline d'imputation arrêté, {} demande(s) rejetée(s)", restantes.size());
+                IllegalStateException arret = new IllegalStateException("Le pipeline d'imputation est arrêté");
+                restantes.forEach(p -> p.future().completeExceptionally(arret));
+            }
+        }
+    }
+
+    private void loop() {
+        List<PendingPosting> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPosting first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingPosting next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.future().completeExceptionally(e));
+                return;
+            } catch (Throwable e) {
+                log.error("Erreur inattendue du pipeline d'imputation", e);
+                batch.forEach(p -> p.future().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<PendingPosting> batch) {
+        batches.increment();
+        postings.add(batch.size());
+
+        Set<String> numerosCompte = batch.stream()
+                .map(PendingPosting::numeroCompte)
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        List<Outcome> outcomes;
+        try {
+            outcomes = postingExecutor.execute(numerosCompte, () -> applyBatch(batch, numerosCompte));
+        } catch (RuntimeException e) {
+            log.warn("Échec du lot de {} imputations, repli sur l'imputation unitaire: {}",
+                    batch.size(), e.getMessage());
+            fallbacks.increment();
+            batch.forEach(this::applyIndividually);
+            return;
+        }
+
+        // Les appelants ne sont notifiés qu'après le commit du lot
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.error() != null) {
+                batch.get(i).future().completeExceptionally(outcome.error());
+            } else {
+                batch.get(i).future().complete(outcome.response());
+            }
+        }
+    }
+
+    private List<Outcome> applyBatch(List<PendingPosting> batch, Set<String> numerosCompte) {
+        Map<String, Account> comptes = accountRepository.findAllForUpdateByNumeroCompteIn(numerosCompte).stream()
+                .collect(Collectors.toMap(Account::getNumeroCompte, Function.identity()));
+
+        List<Transaction> lignes = new ArrayList<>(batch.size());
+        Transaction[] parDemande = new Transaction[batch.size()];
+        RuntimeException[] erreurs = new RuntimeException[batch.size()];
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingPosting posting = batch.get(i);
+            try {
+                parDemande[i] = apply(posting, comptes.get(posting.numeroCompte()));
+                lignes.add(parDemande[i]);
+            } catch (RuntimeException e) {
+                erreurs[i] = e;
+            }
+        }
+
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.record(lignes);
+        } else {
+            transactionBatchWriter.insertAll(lignes);
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (erreurs[i] != null) {
+                outcomes.add(new Outcome(null, erreurs[i]));
+                continue;
+            }
+            PendingPosting posting = batch.get(i);
+            TransactionResponse response = transactionMapper.toResponse(parDemande[i], posting.numeroCompte());
+            // Réponse des demandes sous clé d'idempotence validée avec le lot
+            outcomes.add(new Outcome(idempotencyStore.record(posting.idempotence(), response), null));
+        }
+        return outcomes;
+    }
+
+    private Transaction apply(PendingPosting posting, Account account) {
+        String numeroCompte = posting.numeroCompte();
+        BigDecimal montant = posting.request().getMontant();
+
+        if (account == null) {
+            throw new ResourceNotFoundException("Compte", "numéro", numeroCompte);
+        }
+        if (!account.getActif()) {
+            throw new OperationNotAllowedException("Le compte " + numeroCompte + " est inactif");
+        }
+
+        String description = posting.request().getDescription();
+        if (posting.type() == TypeTransaction.RETRAIT) {
+            accountShardManager.ensureFunds(account, montant);
+        } else {
+            accountShardManager.lockShardBalance(account);
+        }
+        BigDecimal soldeAvant = account.getSoldeConsolide();
+        if (posting.type() == TypeTransaction.RETRAIT) {
+            if (!account.soldeEstSuffisant(montant)) {
+                throw new InsufficientBalanceException(numeroCompte, account.getSolde(), montant);
+            }
+            account.debiter(montant);
+            description = description != null ? description : "Retrait";
+        } else {
+            account.crediter(montant);
+            description = description != null ? description : "Dépôt";
+        }
+
+        return Transaction.builder()
+                .type(posting.type())
+                .montant(montant)
+                .description(description)
+                .soldeAvant(soldeAvant)
+                .soldeApres(account.getSoldeConsolide())
+                .dateTransaction(LocalDateTime.now())
+                .compte(account)
+                .build();
+    }
+
+    private void applyIndividually(PendingPosting posting) {
+        try {
+            Supplier<TransactionResponse> imputation = () -> posting.type() == TypeTransaction.RETRAIT
+                    ? transactionService.withdraw(posting.numeroCompte(), posting.request())
+                    : transactionService.deposit(posting.numeroCompte(), posting.request());
+            posting.future().complete(posting.idempotence() != null
+                    ? idempotencyStore.bind(posting.idempotence(), imputation)
+                    : imputation.get());
+        } catch (RuntimeException e) {
+            posting.future().completeExceptionally(e);
+        }
+    }
+
+    private TransactionResponse await(PendingPosting posting) {
+        try {
+            return posting.future().get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (queue.remove(posting)) {
+                // Retirée de la file avant tout traitement : la demande peut être renvoyée sans risque
+                rejections.increment();
+                throw new CapacityExceededException("File d'imputation saturée, veuillez réessayer", 1);
+            }
+            log.warn("Imputation toujours en cours après {} ms, attente de son issue", awaitTimeoutMillis);
+            return awaitOutcome(posting);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            if (queue.remove(posting)) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attente de l'imputation interrompue", e);
+            }
+            try {
+                return awaitOutcome(posting);
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Attend sans limite une demande prélevée par le thread d'écriture : le lot
+     * se termine toujours, par une validation, un rejet ou l'arrêt du pipeline
+     */
+    private TransactionResponse awaitOutcome(PendingPosting posting) {
+        try {
+            return posting.future().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException("Échec de l'imputation", cause);
+    }
+
+    private record PendingPosting(String numeroCompte, TypeTransaction type, OperationRequest request,
+            IdempotencyStore.PendingCall idempotence, CompletableFuture<TransactionResponse> future) {
+    }
+
+    private record Outcome(TransactionResponse response, RuntimeException error) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.ega.egabank.repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import com.ega.egabank.repository.projection.AccountBalanceView;
+
+/**
+ * Mises à jour conditionnelles du solde qui retournent le nouvel état du
+ * compte (mode d'imputation ATOMIC). Fragment de {@link AccountRepository}.
+ */
+public interface AccountBalanceUpdates {
+
+    /**
+     * Débite le compte si et seulement s'il est actif et que le solde couvre le
+     * montant, et retourne son nouvel état. Vide si aucune ligne n'a été modifiée.
+     */
+    Optional<AccountBalanceView> debitReturningBalance(String numeroCompte, BigDecimal montant);
+
+    /**
+     * Crédite le compte s'il est actif et retourne son nouvel état. Vide si
+     * aucune ligne n'a été modifiée.
+     */
+    Optional<AccountBalanceView> creditReturningBalance(String numeroCompte, BigDecimal montant);
+}
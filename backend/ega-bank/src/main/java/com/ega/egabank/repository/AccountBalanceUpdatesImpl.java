@@ -0,0 +1,104 @@
+package com.ega.egabank.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implémentation des mises à jour conditionnelles du solde.
+ * <p>
+ * Sur H2 ({@code app.posting.atomic.final-table=true}), une seule requête :
+ * {@code SELECT ... FROM FINAL TABLE (UPDATE ...)}, équivalent de
+ * {@code UPDATE ... RETURNING}. Sur une base qui ne connaît pas cette table
+ * delta, la mise à jour conditionnelle retourne son nombre de lignes, puis le
+ * compte est relu dans la même transaction, sous le verrou de ligne posé par
+ * la mise à jour.
+ * <p>
+ * Ces requêtes contournent le contexte de persistance : les modifications en
+ * attente sont écrites avant, et le compte modifié, s'il y est chargé, est
+ * relu après, pour qu'aucune lecture ultérieure de la transaction ne serve un
+ * solde ou une version périmés.
+ */
+class AccountBalanceUpdatesImpl implements AccountBalanceUpdates {
+
+    private static final String SET_DEBIT = "solde = solde - :montant, version = COALESCE(version, 0) + 1, "
+            + "updated_at = LOCALTIMESTAMP WHERE numero_compte = :numero AND actif = TRUE AND solde >= :montant";
+    private static final String SET_CREDIT = "solde = solde + :montant, version = COALESCE(version, 0) + 1, "
+            + "updated_at = LOCALTIMESTAMP WHERE numero_compte = :numero AND actif = TRUE";
+
+    private final EntityManager entityManager;
+    private final boolean finalTable;
+
+    AccountBalanceUpdatesImpl(EntityManager entityManager,
+            @Value("${app.posting.atomic.final-table:true}") boolean finalTable) {
+        this.entityManager = entityManager;
+        this.finalTable = finalTable;
+    }
+
+    @Override
+    public Optional<AccountBalanceView> debitReturningBalance(String numeroCompte, BigDecimal montant) {
+        return update(SET_DEBIT, numeroCompte, montant);
+    }
+
+    @Override
+    public Optional<AccountBalanceView> creditReturningBalance(String numeroCompte, BigDecimal montant) {
+        return update(SET_CREDIT, numeroCompte, montant);
+    }
+
+    private Optional<AccountBalanceView> update(String set, String numeroCompte, BigDecimal montant) {
+        entityManager.flush();
+        List<?> lignes;
+        if (finalTable) {
+            lignes = entityManager.createNativeQuery(
+                    "SELECT id, solde, actif FROM FINAL TABLE (UPDATE accounts SET " + set + ")")
+                    .setParameter("numero", numeroCompte)
+                    .setParameter("montant", montant)
+                    .getResultList();
+        } else {
+            int modifiees = entityManager.createNativeQuery("UPDATE accounts SET " + set)
+                    .setParameter("numero", numeroCompte)
+                    .setParameter("montant", montant)
+                    .executeUpdate();
+            lignes = modifiees == 0 ? List.of() : entityManager.createNativeQuery(
+                    "SELECT id, solde, actif FROM accounts WHERE numero_compte = :numero")
+                    .setParameter("numero", numeroCompte)
+                    .getResultList();
+        }
+        if (lignes.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] ligne = (Object[]) lignes.get(0);
+        Solde solde = new Solde(((Number) ligne[0]).longValue(), (BigDecimal) ligne[1], (Boolean) ligne[2]);
+        // Instance déjà chargée dans la transaction, sinon mandataire non initialisé (aucune requête)
+        Account compte = entityManager.getReference(Account.class, solde.id());
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(compte)) {
+            entityManager.refresh(compte);
+        }
+        return Optional.of(solde);
+    }
+
+    private record Solde(Long id, BigDecimal solde, Boolean actif) implements AccountBalanceView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public BigDecimal getSolde() {
+            return solde;
+        }
+
+        @Override
+        public Boolean getActif() {
+            return actif;
+        }
+    }
+}
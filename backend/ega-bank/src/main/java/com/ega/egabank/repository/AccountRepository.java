@@ -1,24 +1,46 @@
 package com.ega.egabank.repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ega.egabank.entity.Account;
 import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+import com.ega.egabank.repository.projection.AccountDescriptor;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.repository.projection.PeriodBalances;
+import com.ega.egabank.repository.projection.TransactionHistoryVersion;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository pour la gestion des comptes bancaires
  */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountBalanceUpdates {
+
+    /** Montant d'une transaction signé selon son sens (débit négatif) */
+    String SIGNED_AMOUNT = "CASE WHEN t.type IN (com.ega.egabank.enums.TypeTransaction.RETRAIT, "
+            + "com.ega.egabank.enums.TypeTransaction.VIREMENT_SORTANT) THEN -t.montant ELSE t.montant END";
 
     Optional<Account> findByNumeroCompte(String numeroCompte);
 
@@ -28,6 +50,11 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Page<Account> findByProprietaireId(Long clientId, Pageable pageable);
 
+    /**
+     * Tous les comptes, par tranche (sans requête de comptage)
+     */
+    Slice<Account> findAllBy(Pageable pageable);
+
     List<Account> findByTypeCompte(TypeCompte typeCompte);
 
     @Query("SELECT a FROM Account a WHERE a.actif = true")
@@ -36,15 +63,125 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a LEFT JOIN FETCH a.proprietaire WHERE a.numeroCompte = :numero")
     Optional<Account> findByNumeroCompteWithClient(@Param("numero") String numeroCompte);
 
+    @Query("SELECT new com.ega.egabank.repository.projection.AccountDescriptor("
+            + "a.id, a.numeroCompte, p.id, a.actif, a.typeCompte) "
+            + "FROM Account a LEFT JOIN a.proprietaire p WHERE a.numeroCompte = :numero")
+    Optional<AccountDescriptor> findDescriptorByNumeroCompte(@Param("numero") String numeroCompte);
+
+    /**
+     * Marqueurs de version d'un compte pour le calcul de son ETag : une seule
+     * requête, la dernière transaction étant lue en tête de l'index (compte, date, id)
+     */
+    @Query("SELECT new com.ega.egabank.repository.projection.AccountVersion("
+            + "a.id, a.version, a.updatedAt, "
+            + "(SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s WHERE s.compte.id = a.id), "
+            + "(SELECT t.id FROM Transaction t WHERE t.compte.id = a.id "
+            + "ORDER BY t.dateTransaction DESC, t.id DESC LIMIT 1), "
+            + "p.nom, p.prenom) "
+            + "FROM Account a LEFT JOIN a.proprietaire p WHERE a.numeroCompte = :numero")
+    Optional<AccountVersion> findVersionByNumeroCompte(@Param("numero") String numeroCompte);
+
+    /**
+     * Soldes d'ouverture et de clôture d'une période, en une requête : solde
+     * consolidé actuel (principal et sous-soldes) moins les mouvements signés
+     * depuis le début de la période, puis plus ceux de la période. Les deux
+     * sommes parcourent l'index (compte, date, id) à partir du début de la
+     * période ; aucune ne dépend des soldes avant/après des lignes.
+     */
+    @Query("SELECT new com.ega.egabank.repository.projection.PeriodBalances("
+            + "a.solde + (SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s WHERE s.compte.id = a.id) "
+            + "- (SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM Transaction t "
+            + "WHERE t.compte.id = a.id AND t.dateTransaction >= :debut), "
+            + "(SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM Transaction t "
+            + "WHERE t.compte.id = a.id AND t.dateTransaction BETWEEN :debut AND :fin)) "
+            + "FROM Account a WHERE a.id = :compteId")
+    Optional<PeriodBalances> findPeriodBalancesById(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Marqueurs de version de l'historique d'un compte pour le calcul de son
+     * ETag : lus sur la ligne du compte et en tête de l'index (compte, date,
+     * id), sans parcourir l'historique
+     */
+    @Query("SELECT new com.ega.egabank.repository.projection.TransactionHistoryVersion("
+            + "a.id, a.version, a.historyVersion, "
+            + "(SELECT t.id FROM Transaction t WHERE t.compte.id = a.id "
+            + "ORDER BY t.dateTransaction DESC, t.id DESC LIMIT 1)) "
+            + "FROM Account a WHERE a.id = :compteId")
+    Optional<TransactionHistoryVersion> findHistoryVersionById(@Param("compteId") Long compteId);
+
+    /**
+     * Numéros de tous les comptes, lus en flux pour la construction de l'index
+     * des suggestions (à consommer dans une transaction)
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.numeroCompte FROM Account a")
+    Stream<String> streamNumerosCompte();
+
+    @Query("SELECT a.numeroCompte FROM Account a WHERE a.numeroCompte LIKE CONCAT(:prefixe, '%') "
+            + "ORDER BY a.numeroCompte")
+    List<String> findNumerosCompteStartingWith(@Param("prefixe") String prefixe, Pageable pageable);
+
+    @Query("SELECT a.numeroCompte FROM Account a WHERE a.proprietaire.id = :clientId "
+            + "AND a.numeroCompte LIKE CONCAT(:prefixe, '%') ORDER BY a.numeroCompte")
+    List<String> findNumerosCompteOfClientStartingWith(@Param("clientId") Long clientId,
+            @Param("prefixe") String prefixe, Pageable pageable);
+
+    List<Account> findByShardCountGreaterThan(int shardCount);
+
     @Query("SELECT COUNT(a) FROM Account a WHERE a.proprietaire.id = :clientId")
     long countByClientId(@Param("clientId") Long clientId);
 
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM Account a")
+    long findMaxId();
+
+    @Query("SELECT COUNT(a) FROM Account a WHERE a.actif = true AND a.id <= :maxId")
+    long countActiveUpTo(@Param("maxId") Long maxId);
+
+    /**
+     * Identifiants des comptes actifs suivant {@code apres}, par ordre
+     * croissant : parcours par position des relevés de masse
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.actif = true AND a.id > :apres AND a.id <= :maxId ORDER BY a.id")
+    List<Long> findActiveIdsAfter(@Param("apres") Long apres, @Param("maxId") Long maxId, Limit limit);
+
+    @Query("SELECT a FROM Account a JOIN FETCH a.proprietaire WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllWithClientByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Charge plusieurs comptes en posant un verrou d'écriture sur leurs lignes
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.numeroCompte IN :numeros")
+    List<Account> findAllForUpdateByNumeroCompteIn(@Param("numeros") Collection<String> numerosCompte);
+
+    @Query("SELECT a.numeroCompte FROM Account a WHERE a.proprietaire.id = :clientId AND a.numeroCompte IN :numeros")
+    List<String> findNumerosCompteOwnedBy(@Param("clientId") Long clientId,
+            @Param("numeros") Collection<String> numerosCompte);
+
+    @Query("SELECT a.id AS id, a.solde AS solde, a.actif AS actif FROM Account a WHERE a.numeroCompte = :numero")
+    Optional<AccountBalanceView> findBalanceByNumeroCompte(@Param("numero") String numeroCompte);
+
+    /**
+     * Crédite le compte s'il est actif. Retourne le nombre de lignes modifiées (0 ou 1).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.solde = a.solde + :montant, " +
+            "a.version = COALESCE(a.version, 0) + 1, a.updatedAt = LOCAL DATETIME " +
+            "WHERE a.numeroCompte = :numero AND a.actif = true")
+    int creditIfActive(@Param("numero") String numeroCompte, @Param("montant") BigDecimal montant);
+
     // Méthodes pour les statistiques du dashboard
     long countByActifTrue();
 
-    @Query("SELECT COALESCE(SUM(a.solde), 0) FROM Account a")
+    @Query("SELECT COALESCE(SUM(a.solde), 0) " +
+            "+ (SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s) FROM Account a")
     BigDecimal sumAllBalances();
 
-    @Query("SELECT COALESCE(SUM(a.solde), 0) FROM Account a WHERE a.actif = true")
+    @Query("SELECT COALESCE(SUM(a.solde), 0) " +
+            "+ (SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s WHERE s.compte.actif = true) " +
+            "FROM Account a WHERE a.actif = true")
     BigDecimal sumActiveBalances();
 }
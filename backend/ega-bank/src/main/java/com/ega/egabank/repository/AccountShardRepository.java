@@ -0,0 +1,41 @@
+package com.ega.egabank.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ega.egabank.entity.AccountShard;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository des sous-soldes des comptes partagés
+ */
+@Repository
+public interface AccountShardRepository extends JpaRepository<AccountShard, Long> {
+
+    /**
+     * Crédite un sous-solde en une requête. Retourne le nombre de lignes modifiées (0 ou 1).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AccountShard s SET s.solde = s.solde + :montant " +
+            "WHERE s.compte.id = :accountId AND s.numero = :numero")
+    int credit(@Param("accountId") Long accountId, @Param("numero") int numero,
+            @Param("montant") BigDecimal montant);
+
+    /**
+     * Charge les sous-soldes d'un compte en posant un verrou d'écriture sur leurs lignes
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountShard s WHERE s.compte.id = :accountId ORDER BY s.numero")
+    List<AccountShard> findAllForUpdateByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s WHERE s.compte.id = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+}
@@ -1,15 +1,26 @@
 package com.ega.egabank.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ega.egabank.entity.Client;
+import com.ega.egabank.repository.projection.ClientAccountSummary;
+import com.ega.egabank.repository.projection.ClientSearchEntry;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository pour la gestion des clients
@@ -27,6 +38,39 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
             "LOWER(c.courriel) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Client> search(@Param("search") String search, Pageable pageable);
 
+    /**
+     * Recherche par tranche : aucune requête de comptage n'est exécutée
+     */
+    @Query("SELECT c FROM Client c WHERE " +
+            "LOWER(c.nom) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.prenom) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+            "LOWER(c.courriel) LIKE LOWER(CONCAT('%', :search, '%'))")
+    Slice<Client> searchSlice(@Param("search") String search, Pageable pageable);
+
+    /**
+     * Tous les clients, par tranche (sans requête de comptage)
+     */
+    Slice<Client> findAllBy(Pageable pageable);
+
+    /**
+     * Nombre de comptes et solde total de chaque client d'une page, en une
+     * seule requête groupée. Un client sans compte n'a pas de ligne.
+     */
+    @Query("SELECT new com.ega.egabank.repository.projection.ClientAccountSummary("
+            + "a.proprietaire.id, COUNT(a), SUM(a.solde) + "
+            + "(SELECT COALESCE(SUM(s.solde), 0) FROM AccountShard s WHERE s.compte.proprietaire.id = a.proprietaire.id)) "
+            + "FROM Account a WHERE a.proprietaire.id IN :clientIds GROUP BY a.proprietaire.id")
+    List<ClientAccountSummary> findAccountSummaries(@Param("clientIds") Collection<Long> clientIds);
+
+    /**
+     * Champs indexés de tous les clients, pour la construction de l'index de
+     * recherche. Le flux doit être fermé et consommé dans une transaction.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ega.egabank.repository.projection.ClientSearchEntry(c.id, c.nom, c.prenom, c.courriel) "
+            + "FROM Client c")
+    Stream<ClientSearchEntry> streamSearchEntries();
+
     @Query("SELECT c FROM Client c LEFT JOIN FETCH c.comptes WHERE c.id = :id")
     Optional<Client> findByIdWithAccounts(@Param("id") Long id);
 }
@@ -0,0 +1,50 @@
+package com.ega.egabank.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ega.egabank.entity.IdempotencyKey;
+
+/**
+ * Repository des résultats d'opérations idempotentes
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Réserve une clé avant l'exécution de l'opération ; échoue si la clé existe déjà
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (cle, empreinte, created_at) "
+            + "VALUES (:cle, :empreinte, :createdAt)", nativeQuery = true)
+    int insertPending(@Param("cle") String cle, @Param("empreinte") String empreinte,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Enregistre la réponse d'une clé réservée, dans la transaction de l'appelant
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.reponse = :reponse WHERE k.cle = :cle AND k.reponse IS NULL")
+    int complete(@Param("cle") String cle, @Param("reponse") String reponse);
+
+    /**
+     * Libère une clé réservée dont l'opération a été rejetée sans effet
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.cle = :cle AND k.reponse IS NULL")
+    int deletePending(@Param("cle") String cle);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :limite")
+    int deleteCreatedBefore(@Param("limite") LocalDateTime limite);
+}
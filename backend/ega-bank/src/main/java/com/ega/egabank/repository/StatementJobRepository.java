@@ -0,0 +1,19 @@
+package com.ega.egabank.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.enums.StatutJob;
+
+/**
+ * Repository des lots de relevés de masse
+ */
+@Repository
+public interface StatementJobRepository extends JpaRepository<StatementJob, Long> {
+
+    List<StatementJob> findByStatutInOrderByIdAsc(Collection<StatutJob> statuts);
+}
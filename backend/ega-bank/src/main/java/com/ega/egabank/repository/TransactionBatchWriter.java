@@ -0,0 +1,175 @@
+package com.ega.egabank.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ega.egabank.entity.Transaction;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Écriture des transactions par lots JDBC.
+ * <p>
+ * Utilisé par les chemins d'imputation groupée : les entités sont persistées
+ * dans la transaction en cours et Hibernate regroupe les insertions en lots
+ * JDBC (identifiants issus d'une séquence allouée par blocs, donc connus avant
+ * l'insertion). Chaque lot est écrit puis détaché pour borner la mémoire du
+ * contexte de persistance ; les comptes déjà chargés restent attachés.
+ * <p>
+ * Le journal des imputations alloue les identifiants à l'avance
+ * ({@link #allocateIds(List)}) et insère les lignes plus tard, hors contexte
+ * de persistance ({@link #insertWithIds(List)}).
+ */
+@Repository
+public class TransactionBatchWriter {
+
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO transactions "
+            + "(id, type_transaction, montant, date_transaction, description, compte_destination, "
+            + "solde_avant, solde_apres, account_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String BUMP_HISTORY_SQL =
+            "UPDATE accounts SET history_version = history_version + 1 WHERE id = ?";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public TransactionBatchWriter(EntityManager entityManager, JdbcTemplate jdbcTemplate,
+            @Value("${app.posting.jdbc-batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Insère les transactions par lots et renseigne leurs identifiants générés
+     */
+    public void insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            for (int from = 0; from < transactions.size(); from += batchSize) {
+                List<Transaction> chunk = transactions.subList(from,
+                        Math.min(from + batchSize, transactions.size()));
+                chunk.forEach(entityManager::persist);
+                entityManager.flush();
+                chunk.forEach(entityManager::detach);
+            }
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        markHistoryChanged(transactions);
+    }
+
+    /**
+     * Attribue aux transactions un identifiant issu du générateur de l'entité, sans les insérer
+     */
+    public void allocateIds(List<Transaction> transactions) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(Transaction.class)
+                .getGenerator();
+        for (Transaction transaction : transactions) {
+            transaction.setId((Long) generator.generate(session, transaction, null, EventType.INSERT));
+        }
+    }
+
+    /**
+     * Insère par lots JDBC des transactions dont l'identifiant est déjà attribué
+     */
+    public void insertWithIds(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_WITH_ID_SQL, transactions, batchSize, (ps, t) -> {
+            ps.setLong(1, t.getId());
+            ps.setString(2, t.getType().name());
+            ps.setBigDecimal(3, t.getMontant());
+            ps.setTimestamp(4, Timestamp.valueOf(t.getDateTransaction()));
+            ps.setString(5, t.getDescription());
+            if (t.getCompteDestination() != null) {
+                ps.setString(6, t.getCompteDestination());
+            } else {
+                ps.setNull(6, Types.VARCHAR);
+            }
+            ps.setBigDecimal(7, t.getSoldeAvant());
+            ps.setBigDecimal(8, t.getSoldeApres());
+            ps.setLong(9, t.getCompte().getId());
+        });
+        markHistoryChanged(transactions);
+    }
+
+    /**
+     * Incrémente la version de l'historique des comptes de ces transactions.
+     * Dans une transaction, les comptes sont accumulés puis mis à jour une
+     * seule fois chacun juste avant la validation, dans l'ordre de leurs
+     * identifiants (verrous de ligne pris dans un ordre constant).
+     */
+    public void markHistoryChanged(Collection<Transaction> transactions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpHistoryVersions(comptes(transactions, new TreeSet<>()));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> comptes = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (comptes == null) {
+            Set<Long> aMarquer = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, aMarquer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    bumpHistoryVersions(aMarquer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionBatchWriter.this);
+                }
+            });
+            comptes = aMarquer;
+        }
+        comptes(transactions, comptes);
+    }
+
+    /**
+     * Retourne, parmi les identifiants fournis, ceux déjà présents en base
+     */
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                "SELECT id FROM transactions WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class);
+    }
+
+    private void bumpHistoryVersions(Set<Long> comptes) {
+        if (!comptes.isEmpty()) {
+            jdbcTemplate.batchUpdate(BUMP_HISTORY_SQL, comptes, comptes.size(), (ps, id) -> ps.setLong(1, id));
+        }
+    }
+
+    private static Set<Long> comptes(Collection<Transaction> transactions, Set<Long> comptes) {
+        for (Transaction transaction : transactions) {
+            comptes.add(transaction.getCompte().getId());
+        }
+        return comptes;
+    }
+}
@@ -1,17 +1,26 @@
 package com.ega.egabank.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ega.egabank.entity.Transaction;
 import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.repository.projection.TransactionView;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository pour la gestion des transactions
@@ -19,18 +28,30 @@ import com.ega.egabank.enums.TypeTransaction;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    /**
+     * Projection des lectures vers le modèle {@link TransactionView}, avec le
+     * numéro de compte joint. Les requêtes par compte filtrent sur
+     * {@code t.compte.id} (colonne {@code account_id}) plutôt que sur le compte
+     * joint, pour que la plage soit lue dans l'index (compte, date, id).
+     */
+    String VIEW_SELECT = "SELECT new com.ega.egabank.repository.projection.TransactionView("
+            + "t.id, t.type, t.montant, t.dateTransaction, t.description, t.compteDestination, "
+            + "t.soldeAvant, t.soldeApres, c.numeroCompte) "
+            + "FROM Transaction t JOIN t.compte c ";
+
+    String VIEW_ORDER = " ORDER BY t.dateTransaction DESC, t.id DESC";
+
+    String AFTER_POSITION = " AND (t.dateTransaction < :date OR (t.dateTransaction = :date AND t.id < :id))";
+
+    String CHRONOLOGICAL_ORDER = " ORDER BY t.dateTransaction, t.id";
+
+    String AFTER_POSITION_CHRONOLOGICAL =
+            " AND (t.dateTransaction > :date OR (t.dateTransaction = :date AND t.id > :id))";
+
     List<Transaction> findByCompteIdOrderByDateTransactionDesc(Long compteId);
 
     Page<Transaction> findByCompteId(Long compteId, Pageable pageable);
 
-    @Query("SELECT t FROM Transaction t WHERE t.compte.numeroCompte = :numero " +
-            "AND t.dateTransaction BETWEEN :debut AND :fin " +
-            "ORDER BY t.dateTransaction DESC")
-    List<Transaction> findByCompteAndPeriod(
-            @Param("numero") String numeroCompte,
-            @Param("debut") LocalDateTime debut,
-            @Param("fin") LocalDateTime fin);
-
     @Query("SELECT t FROM Transaction t WHERE t.compte.numeroCompte = :numero " +
             "ORDER BY t.dateTransaction DESC")
     Page<Transaction> findByNumeroCompte(@Param("numero") String numeroCompte, Pageable pageable);
@@ -51,4 +72,150 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      * Récupère toutes les transactions avec pagination
      */
     Page<Transaction> findAllByOrderByDateTransactionDesc(Pageable pageable);
+
+    /**
+     * Toutes les transactions d'un compte, par (date, id) décroissants
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId" + VIEW_ORDER)
+    List<TransactionView> findViewsByCompteId(@Param("compteId") Long compteId);
+
+    /**
+     * Transactions d'un compte sur une période
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId AND t.dateTransaction BETWEEN :debut AND :fin"
+            + VIEW_ORDER)
+    List<TransactionView> findViewsByCompteIdAndPeriod(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Première tranche d'une période d'un compte, par (date, id) décroissants
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId AND t.dateTransaction BETWEEN :debut AND :fin"
+            + VIEW_ORDER)
+    List<TransactionView> findFirstPeriodChunkByCompteId(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            Limit limit);
+
+    /**
+     * Transactions d'une période pour plusieurs comptes en une requête,
+     * regroupées par compte puis les plus récentes d'abord : une tranche de
+     * relevés de masse est lue d'un seul parcours de l'index (compte, date, id)
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id IN :compteIds AND t.dateTransaction BETWEEN :debut AND :fin"
+            + " ORDER BY t.compte.id, t.dateTransaction DESC, t.id DESC")
+    List<TransactionView> findPeriodByCompteIdIn(
+            @Param("compteIds") Collection<Long> compteIds,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Tranche d'une période d'un compte suivant la position (date, id) : le
+     * relevé en flux parcourt la période sans jamais la charger en entier
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId AND t.dateTransaction BETWEEN :debut AND :fin"
+            + AFTER_POSITION + VIEW_ORDER)
+    List<TransactionView> findPeriodChunkByCompteIdAfter(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            @Param("date") LocalDateTime dateTransaction,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Première tranche d'une période d'un compte, par ordre chronologique
+     * (relevés au format d'échange)
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId AND t.dateTransaction BETWEEN :debut AND :fin"
+            + CHRONOLOGICAL_ORDER)
+    List<TransactionView> findFirstChronologicalChunkByCompteId(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            Limit limit);
+
+    /**
+     * Tranche chronologique d'une période d'un compte suivant la position (date, id)
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId AND t.dateTransaction BETWEEN :debut AND :fin"
+            + AFTER_POSITION_CHRONOLOGICAL + CHRONOLOGICAL_ORDER)
+    List<TransactionView> findChronologicalChunkByCompteIdAfter(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin,
+            @Param("date") LocalDateTime dateTransaction,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Plus grand identifiant de transaction d'un compte sur une période, null
+     * si la période est vide : change dès qu'une écriture tombe dans la période
+     */
+    @Query("SELECT MAX(t.id) FROM Transaction t WHERE t.compte.id = :compteId "
+            + "AND t.dateTransaction BETWEEN :debut AND :fin")
+    Long findMaxIdByCompteIdAndPeriod(
+            @Param("compteId") Long compteId,
+            @Param("debut") LocalDateTime debut,
+            @Param("fin") LocalDateTime fin);
+
+    /**
+     * Toutes les transactions de tous les comptes
+     */
+    @Query(VIEW_SELECT + VIEW_ORDER)
+    List<TransactionView> findAllViews();
+
+    /**
+     * Première page de l'historique d'un compte, par (date, id) décroissants
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId" + VIEW_ORDER)
+    List<TransactionView> findFirstPageByCompteId(@Param("compteId") Long compteId, Limit limit);
+
+    /**
+     * Page suivant la position (date, id) de l'historique d'un compte : la
+     * requête reprend après la dernière ligne lue, quel que soit le rang de la page
+     */
+    @Query(VIEW_SELECT + "WHERE t.compte.id = :compteId" + AFTER_POSITION + VIEW_ORDER)
+    List<TransactionView> findPageByCompteIdAfter(
+            @Param("compteId") Long compteId,
+            @Param("date") LocalDateTime dateTransaction,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Toutes les transactions des comptes d'un client, par (date, id) décroissants
+     */
+    @Query(VIEW_SELECT + "WHERE c.proprietaire.id = :clientId" + VIEW_ORDER)
+    List<TransactionView> findAllByClientId(@Param("clientId") Long clientId);
+
+    /**
+     * Première page du fil des transactions de tous les comptes d'un client
+     */
+    @Query(VIEW_SELECT + "WHERE c.proprietaire.id = :clientId" + VIEW_ORDER)
+    List<TransactionView> findFirstFeedPageByClientId(@Param("clientId") Long clientId, Limit limit);
+
+    /**
+     * Page du fil d'un client suivant la position (date, id)
+     */
+    @Query(VIEW_SELECT + "WHERE c.proprietaire.id = :clientId" + AFTER_POSITION + VIEW_ORDER)
+    List<TransactionView> findFeedPageByClientIdAfter(
+            @Param("clientId") Long clientId,
+            @Param("date") LocalDateTime dateTransaction,
+            @Param("id") Long id,
+            Limit limit);
+
+    /**
+     * Parcourt toutes les transactions par date décroissante. Les lignes sont
+     * lues par blocs du curseur JDBC ; le flux doit être fermé et consommé dans
+     * une transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(VIEW_SELECT + VIEW_ORDER)
+    Stream<TransactionView> streamAllForExport();
 }
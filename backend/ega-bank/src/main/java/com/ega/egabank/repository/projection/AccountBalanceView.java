@@ -0,0 +1,15 @@
+package com.ega.egabank.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection légère de l'état d'un compte (sans chargement de l'entité)
+ */
+public interface AccountBalanceView {
+
+    Long getId();
+
+    BigDecimal getSolde();
+
+    Boolean getActif();
+}
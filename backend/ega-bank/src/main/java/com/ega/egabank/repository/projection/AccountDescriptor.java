@@ -0,0 +1,15 @@
+package com.ega.egabank.repository.projection;
+
+import com.ega.egabank.enums.TypeCompte;
+
+/**
+ * Description immuable d'un compte, sans son solde : identifiant, titulaire,
+ * état et type. Sert aux contrôles d'accès et de résolution par IBAN.
+ */
+public record AccountDescriptor(
+        Long id,
+        String numeroCompte,
+        Long clientId,
+        Boolean actif,
+        TypeCompte typeCompte) {
+}
@@ -0,0 +1,18 @@
+package com.ega.egabank.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Marqueurs de version d'un compte, lus sans charger l'entité : tout ce qui
+ * peut changer la représentation du compte renvoyée au client
+ */
+public record AccountVersion(
+        Long id,
+        Long version,
+        LocalDateTime updatedAt,
+        BigDecimal soldeShards,
+        Long derniereTransactionId,
+        String nomTitulaire,
+        String prenomTitulaire) {
+}
@@ -0,0 +1,13 @@
+package com.ega.egabank.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Agrégats des comptes d'un client : nombre de comptes et solde consolidé
+ * total (soldes principaux et sous-soldes)
+ */
+public record ClientAccountSummary(
+        Long clientId,
+        Long nombreComptes,
+        BigDecimal soldeTotal) {
+}
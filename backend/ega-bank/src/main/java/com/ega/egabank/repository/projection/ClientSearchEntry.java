@@ -0,0 +1,11 @@
+package com.ega.egabank.repository.projection;
+
+/**
+ * Champs d'un client indexés pour la recherche plein texte
+ */
+public record ClientSearchEntry(
+        Long id,
+        String nom,
+        String prenom,
+        String courriel) {
+}
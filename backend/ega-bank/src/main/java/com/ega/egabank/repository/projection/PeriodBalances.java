@@ -0,0 +1,16 @@
+package com.ega.egabank.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Soldes d'ouverture et de clôture d'un relevé, déduits des mouvements et non
+ * des soldes portés par les lignes : les crédits de sous-solde n'en ont pas
+ */
+public record PeriodBalances(
+        BigDecimal soldeOuverture,
+        BigDecimal mouvementsPeriode) {
+
+    public BigDecimal soldeCloture() {
+        return soldeOuverture.add(mouvementsPeriode);
+    }
+}
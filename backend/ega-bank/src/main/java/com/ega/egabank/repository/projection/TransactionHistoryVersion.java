@@ -0,0 +1,13 @@
+package com.ega.egabank.repository.projection;
+
+/**
+ * Marqueurs de version de l'historique d'un compte : la version du compte,
+ * la version de son historique (incrémentée à chaque insertion, y compris à
+ * une date antérieure à la dernière transaction) et la dernière transaction
+ */
+public record TransactionHistoryVersion(
+        Long id,
+        Long version,
+        Long historyVersion,
+        Long derniereTransactionId) {
+}
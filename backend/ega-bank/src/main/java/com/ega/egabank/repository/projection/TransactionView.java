@@ -0,0 +1,22 @@
+package com.ega.egabank.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.ega.egabank.enums.TypeTransaction;
+
+/**
+ * Modèle de lecture d'une transaction, chargé directement par projection :
+ * pas d'entité hydratée ni suivie, numéro de compte obtenu par jointure SQL
+ */
+public record TransactionView(
+        Long id,
+        TypeTransaction type,
+        BigDecimal montant,
+        LocalDateTime dateTransaction,
+        String description,
+        String compteDestination,
+        BigDecimal soldeAvant,
+        BigDecimal soldeApres,
+        String numeroCompte) {
+}
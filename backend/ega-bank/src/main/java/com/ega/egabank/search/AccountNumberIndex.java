@@ -0,0 +1,348 @@
+package com.ega.egabank.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.repository.AccountRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index trié en mémoire des numéros de compte, pour la suggestion par préfixe.
+ * <p>
+ * Les IBAN générés ont un format fixe ({@code TG} + 2 chiffres de contrôle +
+ * {@code EGA00001} + 11 chiffres) : leurs 13 chiffres variables sont codés sur
+ * un long et rangés dans un tableau trié. L'ordre numérique des codes est
+ * l'ordre alphabétique des IBAN, et un préfixe saisi correspond à un
+ * intervalle de codes : une suggestion est une recherche dichotomique suivie
+ * de la lecture des k codes suivants. Les numéros hors de ce format (comptes
+ * importés) sont conservés à part dans un ensemble trié.
+ * <p>
+ * L'index est construit au démarrage de l'application puis tenu à jour après
+ * validation des créations et suppressions de comptes. Tant qu'il n'est pas
+ * prêt, la suggestion passe par la base.
+ */
+@Slf4j
+@Component
+public class AccountNumberIndex implements MeterBinder {
+
+    /** Gabarit des IBAN générés : {@code #} désigne un chiffre variable */
+    static final String GABARIT = "TG##EGA00001###########";
+
+    private static final int CHIFFRES = 13;
+    private static final long[] PUISSANCES = new long[CHIFFRES + 1];
+
+    static {
+        PUISSANCES[0] = 1;
+        for (int i = 1; i <= CHIFFRES; i++) {
+            PUISSANCES[i] = PUISSANCES[i - 1] * 10;
+        }
+    }
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Codes des IBAN au format généré, triés, sur les {@link #taille} premières cases */
+    private long[] codes = new long[1024];
+    private int taille;
+    /** Numéros hors du format généré */
+    private final NavigableSet<String> autres = new TreeSet<>();
+    private volatile boolean ready;
+
+    private final LongAdder queries = new LongAdder();
+
+    public AccountNumberIndex(AccountRepository accountRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.search.account-suggest.enabled:true}") boolean enabled) {
+        this.accountRepository = accountRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Construit l'index une fois l'application démarrée (après le chargement
+     * des données initiales)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long debut = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            codes = new long[1024];
+            taille = 0;
+            autres.clear();
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<String> numeros = accountRepository.streamNumerosCompte()) {
+                    numeros.forEach(this::append);
+                }
+            });
+            // Tri unique puis suppression des doublons sur place
+            Arrays.sort(codes, 0, taille);
+            int distinct = 0;
+            for (int i = 0; i < taille; i++) {
+                if (distinct == 0 || codes[distinct - 1] != codes[i]) {
+                    codes[distinct++] = codes[i];
+                }
+            }
+            taille = distinct;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index des numéros de compte construit - {} numéros ({} hors format) en {} ms",
+                taille + autres.size(), autres.size(), (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Au plus {@code limit} numéros de compte commençant par le préfixe
+     * (normalisé, voir {@link #normaliser}), dans l'ordre alphabétique
+     */
+    public List<String> suggest(String prefixe, int limit) {
+        queries.increment();
+        lock.readLock().lock();
+        try {
+            List<String> generes = new ArrayList<>(Math.min(limit, 64));
+            long[] plage = plage(prefixe);
+            if (plage != null) {
+                for (int i = borneInferieure(plage[0]); i < taille && codes[i] < plage[1]
+                        && generes.size() < limit; i++) {
+                    generes.add(decoder(codes[i]));
+                }
+            }
+            if (autres.isEmpty()) {
+                return generes;
+            }
+
+            // Fusion avec les numéros hors format, triés eux aussi
+            Iterator<String> horsFormat = autres.subSet(prefixe, true, prefixe + Character.MAX_VALUE, false)
+                    .iterator();
+            List<String> resultat = new ArrayList<>(Math.min(limit, 64));
+            int i = 0;
+            String suivant = horsFormat.hasNext() ? horsFormat.next() : null;
+            while (resultat.size() < limit && (i < generes.size() || suivant != null)) {
+                if (suivant == null || (i < generes.size() && generes.get(i).compareTo(suivant) < 0)) {
+                    resultat.add(generes.get(i++));
+                } else {
+                    resultat.add(suivant);
+                    suivant = horsFormat.hasNext() ? horsFormat.next() : null;
+                }
+            }
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute un numéro de compte après validation de la transaction en cours
+     */
+    public void add(String numeroCompte) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                long code = coder(numeroCompte);
+                if (code < 0) {
+                    autres.add(numeroCompte);
+                    return;
+                }
+                int position = Arrays.binarySearch(codes, 0, taille, code);
+                if (position >= 0) {
+                    return;
+                }
+                position = -position - 1;
+                if (taille == codes.length) {
+                    codes = Arrays.copyOf(codes, codes.length * 2);
+                }
+                System.arraycopy(codes, position, codes, position + 1, taille - position);
+                codes[position] = code;
+                taille++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retire un numéro de compte après validation de la transaction en cours
+     */
+    public void remove(String numeroCompte) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                long code = coder(numeroCompte);
+                if (code < 0) {
+                    autres.remove(numeroCompte);
+                    return;
+                }
+                int position = Arrays.binarySearch(codes, 0, taille, code);
+                if (position >= 0) {
+                    System.arraycopy(codes, position + 1, codes, position, taille - position - 1);
+                    taille--;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return taille + autres.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("egabank.search.accounts.indexed", this, AccountNumberIndex::size)
+                .description("Nombre de numéros de compte dans l'index des suggestions")
+                .register(registry);
+        FunctionCounter.builder("egabank.search.accounts.suggestions", queries, LongAdder::sum)
+                .description("Suggestions de numéros de compte servies par l'index")
+                .register(registry);
+    }
+
+    /**
+     * Préfixe saisi sans espaces (l'affichage groupe les IBAN par 4) et en
+     * majuscules ; null s'il contient autre chose que des lettres et des chiffres
+     */
+    public static String normaliser(String prefixe) {
+        if (prefixe == null) {
+            return null;
+        }
+        String normalise = prefixe.replaceAll("\\s", "").toUpperCase(Locale.ROOT);
+        return normalise.matches("[A-Z0-9]*") ? normalise : null;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Ajout en fin de tableau, sans tri (construction)
+     */
+    private void append(String numeroCompte) {
+        long code = coder(numeroCompte);
+        if (code < 0) {
+            autres.add(numeroCompte);
+            return;
+        }
+        if (taille == codes.length) {
+            codes = Arrays.copyOf(codes, codes.length * 2);
+        }
+        codes[taille++] = code;
+    }
+
+    /**
+     * Première position dont le code est supérieur ou égal à la borne
+     */
+    private int borneInferieure(long borne) {
+        int position = Arrays.binarySearch(codes, 0, taille, borne);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Code des 13 chiffres variables d'un IBAN au format généré ; -1 pour tout
+     * autre numéro
+     */
+    static long coder(String numeroCompte) {
+        if (numeroCompte == null || numeroCompte.length() != GABARIT.length()) {
+            return -1;
+        }
+        long code = 0;
+        for (int i = 0; i < GABARIT.length(); i++) {
+            char attendu = GABARIT.charAt(i);
+            char c = numeroCompte.charAt(i);
+            if (attendu == '#') {
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                code = code * 10 + (c - '0');
+            } else if (c != attendu) {
+                return -1;
+            }
+        }
+        return code;
+    }
+
+    static String decoder(long code) {
+        char[] numero = GABARIT.toCharArray();
+        for (int i = numero.length - 1; i >= 0; i--) {
+            if (numero[i] == '#') {
+                numero[i] = (char) ('0' + code % 10);
+                code /= 10;
+            }
+        }
+        return new String(numero);
+    }
+
+    /**
+     * Intervalle [début, fin[ des codes dont l'IBAN commence par le préfixe ;
+     * null si aucun IBAN au format généré ne peut commencer par lui
+     */
+    static long[] plage(String prefixe) {
+        if (prefixe.length() > GABARIT.length()) {
+            return null;
+        }
+        long valeur = 0;
+        int saisis = 0;
+        for (int i = 0; i < prefixe.length(); i++) {
+            char attendu = GABARIT.charAt(i);
+            char c = prefixe.charAt(i);
+            if (attendu == '#') {
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                valeur = valeur * 10 + (c - '0');
+                saisis++;
+            } else if (c != attendu) {
+                return null;
+            }
+        }
+        long pas = PUISSANCES[CHIFFRES - saisis];
+        return new long[] { valeur * pas, (valeur + 1) * pas };
+    }
+}
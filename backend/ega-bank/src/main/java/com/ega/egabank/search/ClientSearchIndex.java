@@ -0,0 +1,520 @@
+package com.ega.egabank.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.ClientSearchEntry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index inversé en mémoire des trigrammes du nom, du prénom et du courriel des
+ * clients.
+ * <p>
+ * Le socle de l'index numérote les clients dans l'ordre (nom, prénom, id) : ses
+ * listes de trigrammes portent ces rangs, croissants. Une recherche parcourt
+ * la plus courte liste du terme dans l'ordre, cherche chaque rang dans les
+ * autres listes par galop et vérifie la sous-chaîne : les correspondances
+ * sortent déjà triées, et le parcours s'arrête dès que la page, la présence
+ * d'une page suivante et, en mode page, le total plafonné à {@code max-count}
+ * sont acquis. Seuls les clients de la page sont lus en base. Les termes de
+ * moins de trois caractères ne sont pas servis par l'index.
+ * <p>
+ * Les clients créés ou modifiés après la construction du socle sont indexés à
+ * part, par identifiant, et fusionnés au résultat ; les clients retirés du
+ * socle y sont marqués. Le socle est renuméroté en mémoire quand ces ajouts
+ * dépassent un huitième de sa taille.
+ * <p>
+ * L'index est construit au démarrage de l'application puis tenu à jour après
+ * validation des créations, modifications et suppressions de clients. Tant
+ * qu'il n'est pas prêt, la recherche passe par la base.
+ */
+@Slf4j
+@Component
+public class ClientSearchIndex implements MeterBinder {
+
+    private static final int GRAM = 3;
+    /** Nombre d'ajouts en dessous duquel le socle n'est jamais renuméroté */
+    private static final int MIN_AJOUTS_RENUMEROTATION = 4096;
+
+    private static final Comparator<Document> ORDRE = Comparator
+            .comparing((Document d) -> d.nom, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(d -> d.prenom, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(d -> d.id);
+
+    private final ClientRepository clientRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final boolean enabled;
+    private final int maxCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Listes du socle : rangs croissants dans l'ordre (nom, prénom, id) */
+    private Map<Long, IntPostingList> socle = new HashMap<>();
+    /** Identifiant du client de chaque rang du socle */
+    private int[] idsParRang = new int[0];
+    /** Rangs du socle dont le client a été modifié ou supprimé depuis la numérotation */
+    private BitSet retires = new BitSet();
+    /** Listes des clients ajoutés ou modifiés depuis la numérotation, par identifiant */
+    private final Map<Long, IntPostingList> ajouts = new HashMap<>();
+    private int ajoutCount;
+    /** Documents indexés par identifiant de client (identifiants denses, issus d'une séquence) */
+    private Document[] documents = new Document[1024];
+    /** Rang de chaque document dans le socle, -1 s'il n'y figure pas */
+    private int[] rangs = new int[1024];
+    private TextArena textes = new TextArena();
+    private int documentCount;
+    private volatile boolean ready;
+
+    private final LongAdder queries = new LongAdder();
+
+    /**
+     * Résultat d'une recherche : identifiants de la page, dans l'ordre, nombre
+     * de correspondances (plafonné) et présence d'une page suivante
+     */
+    public record Hits(List<Long> ids, int total, boolean hasNext) {
+    }
+
+    public ClientSearchIndex(ClientRepository clientRepository, PlatformTransactionManager transactionManager,
+            @Value("${app.search.client-index.enabled:true}") boolean enabled,
+            @Value("${app.search.client-index.max-count:1000}") int maxCount) {
+        this.clientRepository = clientRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * Construit l'index une fois l'application démarrée (après le chargement
+     * des données initiales)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long debut = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            ajouts.clear();
+            ajoutCount = 0;
+            documents = new Document[1024];
+            rangs = new int[1024];
+            textes = new TextArena();
+            documentCount = 0;
+            boolean complet = readOnlyTemplate.execute(status -> {
+                try (Stream<ClientSearchEntry> entries = clientRepository.streamSearchEntries()) {
+                    return entries.allMatch(this::store);
+                }
+            });
+            renumeroter();
+            ready = complet;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche des clients {} - {} clients, {} trigrammes en {} ms",
+                ready ? "construit" : "désactivé", documentCount, socle.size(),
+                (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indique si l'index peut servir ce terme (index prêt, au moins un trigramme)
+     */
+    public boolean canServe(String search) {
+        return ready && search != null && search.length() >= GRAM;
+    }
+
+    /**
+     * Clients dont le nom, le prénom ou le courriel contient le terme (sans
+     * distinction de casse), triés par (nom, prénom). Le total est compté
+     * jusqu'à {@code max-count} au plus.
+     */
+    public Hits search(String search, int offset, int limit) {
+        return search(search, offset, limit, Math.max(maxCount, offset + limit + 1));
+    }
+
+    /**
+     * Comme {@link #search(String, int, int)}, sans comptage : le parcours
+     * s'arrête à la première correspondance après la page
+     */
+    public Hits searchSlice(String search, int offset, int limit) {
+        return search(search, offset, limit, offset + limit + 1);
+    }
+
+    /**
+     * Indexe (ou réindexe) un client après validation de la transaction en cours
+     */
+    public void update(Client client) {
+        ClientSearchEntry entry = new ClientSearchEntry(client.getId(), client.getNom(), client.getPrenom(),
+                client.getCourriel());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(entry.id());
+                if (!store(entry)) {
+                    ready = false;
+                    return;
+                }
+                int id = entry.id().intValue();
+                for (long gram : Document.trigrams(textes.get(id))) {
+                    ajouts.computeIfAbsent(gram, g -> new IntPostingList()).add(id);
+                }
+                if (++ajoutCount > Math.max(MIN_AJOUTS_RENUMEROTATION, idsParRang.length / 8)) {
+                    renumeroter();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Retire un client de l'index après validation de la transaction en cours
+     */
+    public void remove(Long clientId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(clientId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("egabank.search.clients.indexed", this, ClientSearchIndex::size)
+                .description("Nombre de clients dans l'index de recherche")
+                .register(registry);
+        FunctionCounter.builder("egabank.search.clients.queries", queries, LongAdder::sum)
+                .description("Recherches de clients servies par l'index")
+                .register(registry);
+    }
+
+    /**
+     * Parcourt les correspondances dans l'ordre jusqu'à en avoir {@code plafond}
+     */
+    private Hits search(String search, int offset, int limit, int plafond) {
+        queries.increment();
+        String terme = search.toLowerCase(Locale.ROOT);
+        long[] grams = trigrams(terme);
+        // Un terme de trois caractères est exactement son trigramme : rien à vérifier
+        boolean verifier = terme.length() > GRAM;
+        byte[] motif = terme.getBytes(StandardCharsets.UTF_8);
+        Collecte collecte = new Collecte(offset, offset + limit, plafond);
+
+        lock.readLock().lock();
+        try {
+            List<Document> recents = correspondancesRecentes(grams, verifier, motif);
+            int suivant = 0;
+
+            IntPostingList[] listes = listes(socle, grams);
+            if (listes != null) {
+                IntPostingList pilote = listes[0];
+                int[] positions = new int[listes.length];
+                parcours:
+                for (int p = 0; p < pilote.size(); p++) {
+                    int rang = pilote.get(p);
+                    for (int l = 1; l < listes.length; l++) {
+                        positions[l] = listes[l].seek(positions[l], rang);
+                        if (positions[l] == listes[l].size()) {
+                            break parcours;
+                        }
+                        if (listes[l].get(positions[l]) != rang) {
+                            continue parcours;
+                        }
+                    }
+                    int id = idsParRang[rang];
+                    if (retires.get(rang) || (verifier && !textes.contains(id, motif))) {
+                        continue;
+                    }
+                    Document document = documents[id];
+                    // Fusion avec les ajouts récents, triés
+                    while (suivant < recents.size() && ORDRE.compare(recents.get(suivant), document) < 0) {
+                        if (!collecte.add(recents.get(suivant++))) {
+                            break parcours;
+                        }
+                    }
+                    if (!collecte.add(document)) {
+                        break;
+                    }
+                }
+            }
+            while (suivant < recents.size() && collecte.add(recents.get(suivant++))) {
+                // Ajouts récents au-delà de la dernière correspondance du socle
+            }
+            return collecte.hits();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Correspondances parmi les clients ajoutés depuis la numérotation, triées
+     */
+    private List<Document> correspondancesRecentes(long[] grams, boolean verifier, byte[] motif) {
+        IntPostingList[] listes = listes(ajouts, grams);
+        if (listes == null) {
+            return List.of();
+        }
+        int[] candidats = listes[0].toArray();
+        int count = candidats.length;
+        for (int i = 1; i < listes.length && count > 0; i++) {
+            count = listes[i].retainIn(candidats, count);
+        }
+        List<Document> recents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (!verifier || textes.contains(candidats[i], motif)) {
+                recents.add(documents[candidats[i]]);
+            }
+        }
+        recents.sort(ORDRE);
+        return recents;
+    }
+
+    /**
+     * Listes des trigrammes, de la plus courte à la plus longue ; null si l'un d'eux est absent
+     */
+    private static IntPostingList[] listes(Map<Long, IntPostingList> postings, long[] grams) {
+        IntPostingList[] listes = new IntPostingList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            listes[i] = postings.get(grams[i]);
+            if (listes[i] == null) {
+                return null;
+            }
+        }
+        Arrays.sort(listes, Comparator.comparingInt(IntPostingList::size));
+        return listes;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Enregistre le document et son texte, sans l'indexer ; retourne false si
+     * son identifiant dépasse la capacité d'un int
+     */
+    private boolean store(ClientSearchEntry entry) {
+        if (entry.id() == null || entry.id() > Integer.MAX_VALUE) {
+            log.warn("Identifiant client {} hors de la capacité de l'index de recherche", entry.id());
+            return false;
+        }
+        Document document = new Document(entry);
+        if (document.id >= documents.length) {
+            int capacite = Math.max(document.id + 1, documents.length * 2);
+            documents = Arrays.copyOf(documents, capacite);
+            rangs = Arrays.copyOf(rangs, capacite);
+        }
+        if (documents[document.id] == null) {
+            documentCount++;
+        }
+        documents[document.id] = document;
+        rangs[document.id] = -1;
+        textes.put(document.id, Document.texte(entry));
+        return true;
+    }
+
+    /**
+     * Numérote tous les documents dans l'ordre (nom, prénom, id) et reconstruit
+     * le socle ; les ajouts récents y sont intégrés
+     */
+    private void renumeroter() {
+        List<Document> tries = new ArrayList<>(documentCount);
+        for (Document document : documents) {
+            if (document != null) {
+                tries.add(document);
+            }
+        }
+        tries.sort(ORDRE);
+
+        Map<Long, IntPostingList> listes = new HashMap<>();
+        idsParRang = new int[tries.size()];
+        for (int rang = 0; rang < tries.size(); rang++) {
+            int id = tries.get(rang).id;
+            idsParRang[rang] = id;
+            rangs[id] = rang;
+            // Rangs croissants : chaque ajout se fait en fin de liste
+            for (long gram : Document.trigrams(textes.get(id))) {
+                listes.computeIfAbsent(gram, g -> new IntPostingList()).add(rang);
+            }
+        }
+        socle = listes;
+        retires = new BitSet(tries.size());
+        ajouts.clear();
+        ajoutCount = 0;
+    }
+
+    private void removeDocument(Long clientId) {
+        if (clientId == null || clientId > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = clientId.intValue();
+        Document document = id < documents.length ? documents[id] : null;
+        if (document == null) {
+            return;
+        }
+        if (rangs[id] >= 0) {
+            retires.set(rangs[id]);
+        } else {
+            for (long gram : Document.trigrams(textes.get(id))) {
+                IntPostingList liste = ajouts.get(gram);
+                if (liste != null) {
+                    liste.remove(id);
+                    if (liste.isEmpty()) {
+                        ajouts.remove(gram);
+                    }
+                }
+            }
+            ajoutCount--;
+        }
+        documents[id] = null;
+        rangs[id] = -1;
+        textes.remove(id);
+        documentCount--;
+    }
+
+    /**
+     * Trigrammes distincts de textes, chacun codé sur un long (trois caractères de 16 bits)
+     */
+    static long[] trigrams(String... textes) {
+        int total = 0;
+        for (String texte : textes) {
+            total += Math.max(0, texte.length() - GRAM + 1);
+        }
+        long[] grams = new long[total];
+        int n = 0;
+        for (String texte : textes) {
+            for (int i = 0; i + GRAM <= texte.length(); i++) {
+                grams[n++] = ((long) texte.charAt(i) << 32) | ((long) texte.charAt(i + 1) << 16)
+                        | texte.charAt(i + 2);
+            }
+        }
+        // Tri puis suppression des doublons sur place
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == n ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Page d'une recherche, alimentée par les correspondances dans l'ordre
+     */
+    private static final class Collecte {
+
+        private final int offset;
+        private final int fin;
+        private final int plafond;
+        private final List<Long> ids = new ArrayList<>();
+        private int count;
+
+        private Collecte(int offset, int fin, int plafond) {
+            this.offset = offset;
+            this.fin = fin;
+            this.plafond = plafond;
+        }
+
+        /**
+         * Compte la correspondance suivante ; retourne false une fois le plafond atteint
+         */
+        private boolean add(Document document) {
+            if (count >= plafond) {
+                return false;
+            }
+            if (count >= offset && count < fin) {
+                ids.add((long) document.id);
+            }
+            return ++count < plafond;
+        }
+
+        private Hits hits() {
+            return new Hits(ids, count, count > fin);
+        }
+    }
+
+    private static final class Document {
+
+        /** Sépare les champs dans le texte indexé ; un terme saisi ne le contient pas */
+        private static final char SEPARATEUR = '\u0000';
+
+        private final int id;
+        private final String nom;
+        private final String prenom;
+
+        private Document(ClientSearchEntry entry) {
+            this.id = entry.id().intValue();
+            this.nom = entry.nom();
+            this.prenom = entry.prenom();
+        }
+
+        /**
+         * Nom, prénom et courriel en minuscules, séparés : une seule recherche de sous-chaîne
+         */
+        private static String texte(ClientSearchEntry entry) {
+            return lower(entry.nom()) + SEPARATEUR + lower(entry.prenom()) + SEPARATEUR + lower(entry.courriel());
+        }
+
+        private static long[] trigrams(String texte) {
+            // Par champ : aucun trigramme ne chevauche deux champs
+            return ClientSearchIndex.trigrams(texte.split(String.valueOf(SEPARATEUR), -1));
+        }
+
+        private static String lower(String valeur) {
+            return valeur == null ? "" : valeur.toLowerCase(Locale.ROOT);
+        }
+    }
+}
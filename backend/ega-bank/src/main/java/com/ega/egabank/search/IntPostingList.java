@@ -0,0 +1,99 @@
+package com.ega.egabank.search;
+
+import java.util.Arrays;
+
+/**
+ * Liste triée et sans doublon d'identifiants {@code int}, stockée dans un
+ * tableau primitif. Les ajouts d'identifiants croissants (cas des nouveaux
+ * clients) se font en fin de tableau ; les autres ajouts et les retraits
+ * décalent le tableau.
+ */
+final class IntPostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+
+    void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            insertAt(-position - 1, id);
+            return;
+        }
+        insertAt(size, id);
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    int get(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Première position, à partir de {@code from}, dont l'identifiant est
+     * supérieur ou égal à {@code target} ({@link #size()} s'il n'y en a pas).
+     * Recherche par galop : le coût dépend de l'écart, pas de la longueur.
+     */
+    int seek(int from, int target) {
+        int step = 1;
+        int to = from;
+        while (to < size && ids[to] < target) {
+            from = to + 1;
+            to += step;
+            step <<= 1;
+        }
+        int position = Arrays.binarySearch(ids, from, Math.min(to + 1, size), target);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Intersection de {@code candidates} (trié) avec cette liste, dans le
+     * tableau {@code candidates} ; retourne le nombre d'éléments conservés.
+     * Chaque candidat est cherché par galop à partir de la position du
+     * précédent : le coût dépend des écarts, pas de la longueur de la liste.
+     */
+    int retainIn(int[] candidates, int count) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < size; i++) {
+            int candidate = candidates[i];
+            from = seek(from, candidate);
+            if (from < size && ids[from] == candidate) {
+                candidates[kept++] = candidate;
+                from++;
+            }
+        }
+        return kept;
+    }
+
+    private void insertAt(int position, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ega.egabank.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Textes indexés (UTF-8) de tous les documents, à la suite dans un seul
+ * tableau d'octets : la vérification d'une sous-chaîne sur des identifiants
+ * croissants parcourt la mémoire dans l'ordre, sans déréférencer d'objet.
+ * <p>
+ * Un texte remplacé ou retiré laisse un trou, récupéré par compactage quand
+ * il faut agrandir le tableau et que les trous en occupent plus de la moitié.
+ */
+final class TextArena {
+
+    private byte[] octets = new byte[1 << 16];
+    private int taille;
+    private int utiles;
+    private int[] debuts = new int[1024];
+    private int[] longueurs = new int[1024];
+
+    void put(int id, String texte) {
+        remove(id);
+        byte[] encode = texte.getBytes(StandardCharsets.UTF_8);
+        if (id >= debuts.length) {
+            int capacite = Math.max(id + 1, debuts.length * 2);
+            debuts = Arrays.copyOf(debuts, capacite);
+            longueurs = Arrays.copyOf(longueurs, capacite);
+        }
+        reserve(encode.length);
+        System.arraycopy(encode, 0, octets, taille, encode.length);
+        debuts[id] = taille;
+        // Longueur décalée de 1 : 0 signifie « aucun texte »
+        longueurs[id] = encode.length + 1;
+        taille += encode.length;
+        utiles += encode.length;
+    }
+
+    void remove(int id) {
+        if (id < longueurs.length && longueurs[id] > 0) {
+            utiles -= longueurs[id] - 1;
+            longueurs[id] = 0;
+        }
+    }
+
+    String get(int id) {
+        return new String(octets, debuts[id], longueurs[id] - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indique si le texte du document contient le motif (octets UTF-8). Une
+     * correspondance d'octets UTF-8 est toujours une correspondance de caractères.
+     */
+    boolean contains(int id, byte[] motif) {
+        int debut = debuts[id];
+        int dernier = debut + longueurs[id] - 1 - motif.length;
+        byte premier = motif[0];
+        suivant:
+        for (int i = debut; i <= dernier; i++) {
+            if (octets[i] != premier) {
+                continue;
+            }
+            for (int j = 1; j < motif.length; j++) {
+                if (octets[i + j] != motif[j]) {
+                    continue suivant;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void reserve(int longueur) {
+        if (taille + longueur <= octets.length) {
+            return;
+        }
+        if (taille - utiles > taille / 2) {
+            compact();
+        }
+        if (taille + longueur > octets.length) {
+            octets = Arrays.copyOf(octets, Math.max(taille + longueur, octets.length + (octets.length >> 1)));
+        }
+    }
+
+    /**
+     * Recopie les textes vivants, dans l'ordre des identifiants
+     */
+    private void compact() {
+        byte[] compacte = new byte[Math.max(octets.length, utiles)];
+        int position = 0;
+        for (int id = 0; id < debuts.length; id++) {
+            if (longueurs[id] > 0) {
+                int longueur = longueurs[id] - 1;
+                System.arraycopy(octets, debuts[id], compacte, position, longueur);
+                debuts[id] = position;
+                position += longueur;
+            }
+        }
+        octets = compacte;
+        taille = position;
+    }
+}
@@ -13,13 +13,38 @@ public interface AccountService {
 
     PageResponse<AccountResponse> getAllAccounts(int page, int size);
 
+    /**
+     * Comme {@link #getAllAccounts(int, int)}, sans calcul du nombre total de comptes
+     */
+    PageResponse<AccountResponse> getAllAccountsSlice(int page, int size);
+
     AccountResponse getAccountByNumber(String numeroCompte);
 
+    /**
+     * ETag fort de la représentation d'un compte, calculé sans charger l'entité
+     */
+    String getAccountETag(String numeroCompte);
+
     List<AccountResponse> getAccountsByClient(Long clientId);
 
+    /**
+     * Numéros de compte commençant par le préfixe (espaces ignorés), dans l'ordre alphabétique
+     */
+    List<String> suggestAccountNumbers(String prefix, int limit);
+
+    /**
+     * Comme {@link #suggestAccountNumbers(String, int)}, restreint aux comptes du client
+     */
+    List<String> suggestClientAccountNumbers(Long clientId, String prefix, int limit);
+
     AccountResponse createAccount(AccountRequest request);
 
     void deleteAccount(Long id);
 
     void deactivateAccount(Long id);
+
+    /**
+     * Répartit les crédits du compte sur des sous-soldes (0 pour revenir à un compte classique)
+     */
+    AccountResponse configureSharding(String numeroCompte, int shardCount);
 }
@@ -13,6 +13,16 @@ public interface ClientService {
 
     PageResponse<ClientResponse> searchClients(String search, int page, int size);
 
+    /**
+     * Comme {@link #getAllClients(int, int)}, sans calcul du nombre total de clients
+     */
+    PageResponse<ClientResponse> getAllClientsSlice(int page, int size);
+
+    /**
+     * Comme {@link #searchClients(String, int, int)}, sans calcul du nombre total de résultats
+     */
+    PageResponse<ClientResponse> searchClientsSlice(String search, int page, int size);
+
     ClientResponse getClientById(Long id);
 
     ClientResponse getClientWithAccounts(Long id);
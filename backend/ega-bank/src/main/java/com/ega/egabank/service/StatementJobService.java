@@ -0,0 +1,27 @@
+package com.ega.egabank.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.ega.egabank.dto.request.StatementJobRequest;
+import com.ega.egabank.dto.response.StatementJobResponse;
+
+/**
+ * Service des lots de relevés de masse (un relevé par compte actif)
+ */
+public interface StatementJobService {
+
+    /**
+     * Enregistre un lot pour les comptes actifs à cet instant ; il est
+     * exécuté en arrière-plan après validation de la transaction
+     */
+    StatementJobResponse submitJob(StatementJobRequest request);
+
+    StatementJobResponse getJob(Long id);
+
+    /**
+     * Écrit en flux une archive ZIP des relevés d'un lot terminé, fichier
+     * par fichier. Le flux n'est pas fermé.
+     */
+    void writeArchive(Long id, OutputStream out) throws IOException;
+}
@@ -1,6 +1,14 @@
 package com.ega.egabank.service;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.Iterator;
+
+import org.springframework.core.io.Resource;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.repository.projection.TransactionView;
 
 /**
  * Service pour la génération de relevés de compte
@@ -8,4 +16,35 @@ import java.time.LocalDate;
 public interface StatementService {
 
     byte[] generateStatement(String numeroCompte, LocalDate debut, LocalDate fin);
+
+    /**
+     * Écrit le relevé au fil de l'eau dans le flux, sans le construire en
+     * mémoire : les transactions de la période sont lues par tranches. Le flux
+     * n'est pas fermé.
+     */
+    void writeStatement(String numeroCompte, LocalDate debut, LocalDate fin, OutputStream out);
+
+    /**
+     * Met en page le relevé d'un compte déjà chargé (titulaire compris) à
+     * partir de ses transactions de la période, les plus récentes d'abord.
+     * Utilisé par les relevés de masse, qui lisent les transactions de
+     * plusieurs comptes en une requête. Le flux n'est pas fermé.
+     */
+    void renderStatement(Account account, LocalDate debut, LocalDate fin, Iterator<TransactionView> transactions,
+            OutputStream out);
+
+    /**
+     * Écrit le relevé dans un format d'échange (CSV, OFX, camt.053) en
+     * parcourant les transactions de la période par tranches, par ordre
+     * chronologique. Le flux n'est pas fermé.
+     */
+    void exportStatement(String numeroCompte, LocalDate debut, LocalDate fin, FormatReleve format,
+            OutputStream out);
+
+    /**
+     * Relevé servi depuis le cache (mémoire ou disque), généré à la première
+     * demande. Une écriture dans la période ou une variation du solde du
+     * compte donne une nouvelle entrée.
+     */
+    Resource getStatement(String numeroCompte, LocalDate debut, LocalDate fin);
 }
@@ -2,9 +2,12 @@ package com.ega.egabank.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.ega.egabank.dto.request.OperationRequest;
 import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.BatchTransferResponse;
+import com.ega.egabank.dto.response.CursorPageResponse;
 import com.ega.egabank.dto.response.TransactionResponse;
 
 /**
@@ -18,12 +21,46 @@ public interface TransactionService {
 
     TransactionResponse transfer(TransferRequest request);
 
+    /**
+     * Exécute un lot de virements par paquets et retourne le statut de chaque virement
+     */
+    BatchTransferResponse transferBatch(List<TransferRequest> virements);
+
     List<TransactionResponse> getTransactionHistory(String numeroCompte, LocalDate debut, LocalDate fin);
 
     List<TransactionResponse> getAllTransactionsByAccount(String numeroCompte);
 
+    /**
+     * ETag fort de l'historique complet d'un compte : il change avec chaque
+     * nouvelle transaction. Calculé sans charger de transaction.
+     */
+    String getTransactionsETag(String numeroCompte);
+
+    /**
+     * Récupère une page de l'historique d'un compte, du plus récent au plus ancien.
+     * Le curseur est celui renvoyé par la page précédente (null pour la première page).
+     */
+    CursorPageResponse<TransactionResponse> getTransactionsByAccount(String numeroCompte, String cursor, int size);
+
+    /**
+     * Récupère les transactions de tous les comptes d'un client, de la plus récente à la plus ancienne
+     */
+    List<TransactionResponse> getAllTransactionsByClient(Long clientId);
+
+    /**
+     * Récupère une page du fil des transactions de tous les comptes d'un client,
+     * en une seule requête quel que soit le nombre de comptes
+     */
+    CursorPageResponse<TransactionResponse> getClientFeed(Long clientId, String cursor, int size);
+
     /**
      * Récupère toutes les transactions de tous les comptes
      */
     List<TransactionResponse> getAllTransactions();
+
+    /**
+     * Transmet une à une toutes les transactions de tous les comptes, sans les
+     * conserver en mémoire, et retourne leur nombre
+     */
+    long streamAllTransactions(Consumer<TransactionResponse> consumer);
 }
@@ -6,10 +6,13 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.AccountRequest;
 import com.ega.egabank.dto.response.AccountResponse;
 import com.ega.egabank.dto.response.PageResponse;
@@ -19,9 +22,14 @@ import com.ega.egabank.exception.AccountGenerationException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.mapper.AccountMapper;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.posting.PostingExecutor;
 import com.ega.egabank.repository.AccountRepository;
 import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.search.AccountNumberIndex;
 import com.ega.egabank.service.AccountService;
+import com.ega.egabank.util.ETags;
 import com.ega.egabank.util.IbanGenerator;
 
 import lombok.RequiredArgsConstructor;
@@ -36,10 +44,16 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class AccountServiceImpl implements AccountService {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final AccountRepository accountRepository;
     private final ClientRepository clientRepository;
     private final AccountMapper accountMapper;
     private final IbanGenerator ibanGenerator;
+    private final PostingExecutor postingExecutor;
+    private final AccountShardManager accountShardManager;
+    private final AccountDescriptorCache accountDescriptorCache;
+    private final AccountNumberIndex accountNumberIndex;
 
     @Override
     @Transactional(readOnly = true)
@@ -48,6 +62,7 @@ public class AccountServiceImpl implements AccountService {
         Pageable pageable = PageRequest.of(page, size, Sort.by("dateCreation").descending());
         // Retourner tous les comptes (actifs et inactifs)
         Page<Account> accountPage = accountRepository.findAll(pageable);
+        accountShardManager.loadShardBalances(accountPage.getContent());
 
         return PageResponse.of(
                 accountMapper.toResponseList(accountPage.getContent()),
@@ -57,14 +72,39 @@ public class AccountServiceImpl implements AccountService {
                 accountPage.getTotalPages());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<AccountResponse> getAllAccountsSlice(int page, int size) {
+        log.debug("Récupération de tous les comptes par tranche - page: {}, size: {}", page, size);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("dateCreation").descending());
+        Slice<Account> accountSlice = accountRepository.findAllBy(pageable);
+        accountShardManager.loadShardBalances(accountSlice.getContent());
+
+        return PageResponse.ofSlice(
+                accountMapper.toResponseList(accountSlice.getContent()),
+                accountSlice.getNumber(),
+                accountSlice.getSize(),
+                accountSlice.hasNext());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public AccountResponse getAccountByNumber(String numeroCompte) {
         log.debug("Récupération du compte: {}", numeroCompte);
         Account account = findAccountByNumber(numeroCompte);
+        accountShardManager.loadShardBalance(account);
         return accountMapper.toResponse(account);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getAccountETag(String numeroCompte) {
+        AccountVersion version = accountRepository.findVersionByNumeroCompte(numeroCompte)
+                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+        return ETags.strong(version.id(), version.version(), version.updatedAt(), version.soldeShards(),
+                version.derniereTransactionId(), version.nomTitulaire(), version.prenomTitulaire());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<AccountResponse> getAccountsByClient(Long clientId) {
@@ -76,9 +116,36 @@ public class AccountServiceImpl implements AccountService {
         }
 
         List<Account> accounts = accountRepository.findByProprietaireId(clientId);
+        accountShardManager.loadShardBalances(accounts);
         return accountMapper.toResponseList(accounts);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> suggestAccountNumbers(String prefix, int limit) {
+        String prefixe = AccountNumberIndex.normaliser(prefix);
+        if (prefixe == null) {
+            return List.of();
+        }
+        int taille = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        if (accountNumberIndex.isReady()) {
+            return accountNumberIndex.suggest(prefixe, taille);
+        }
+        return accountRepository.findNumerosCompteStartingWith(prefixe, PageRequest.of(0, taille));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> suggestClientAccountNumbers(Long clientId, String prefix, int limit) {
+        String prefixe = AccountNumberIndex.normaliser(prefix);
+        if (prefixe == null) {
+            return List.of();
+        }
+        // Quelques comptes par client : la requête indexée suffit
+        int taille = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        return accountRepository.findNumerosCompteOfClientStartingWith(clientId, prefixe, PageRequest.of(0, taille));
+    }
+
     @Override
     public AccountResponse createAccount(AccountRequest request) {
         log.info("Création d'un nouveau compte de type {} pour le client {}",
@@ -101,6 +168,7 @@ public class AccountServiceImpl implements AccountService {
                 .build();
 
         account = accountRepository.save(account);
+        accountNumberIndex.add(numeroCompte);
         log.info("Compte créé avec succès - numéro: {}", numeroCompte);
 
         return accountMapper.toResponse(account);
@@ -113,13 +181,16 @@ public class AccountServiceImpl implements AccountService {
         Account account = accountRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Compte", "id", id));
 
-        // Vérifier que le solde est nul
-        if (account.getSolde().compareTo(BigDecimal.ZERO) != 0) {
+        // Vérifier que le solde est nul, sous-soldes verrouillés
+        accountShardManager.lockShardBalance(account);
+        if (account.getSoldeConsolide().compareTo(BigDecimal.ZERO) != 0) {
             throw new OperationNotAllowedException(
-                    "Impossible de supprimer le compte: le solde n'est pas nul (" + account.getSolde() + ")");
+                    "Impossible de supprimer le compte: le solde n'est pas nul (" + account.getSoldeConsolide() + ")");
         }
 
         accountRepository.delete(account);
+        accountDescriptorCache.invalidate(account.getNumeroCompte());
+        accountNumberIndex.remove(account.getNumeroCompte());
         log.info("Compte supprimé avec succès - id: {}", id);
     }
 
@@ -132,10 +203,26 @@ public class AccountServiceImpl implements AccountService {
 
         account.setActif(false);
         accountRepository.save(account);
+        accountDescriptorCache.invalidate(account.getNumeroCompte());
 
         log.info("Compte désactivé avec succès - id: {}", id);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public AccountResponse configureSharding(String numeroCompte, int shardCount) {
+        log.info("Partage du compte {} en {} sous-soldes", numeroCompte, shardCount);
+
+        // Sous le verrou d'imputation du compte : aucun débit ne peut reverser les sous-soldes en parallèle
+        return postingExecutor.execute(List.of(numeroCompte), () -> {
+            Account account = accountRepository.findAllForUpdateByNumeroCompteIn(List.of(numeroCompte)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+            accountShardManager.reconfigure(account, shardCount);
+            return accountMapper.toResponse(account);
+        });
+    }
+
     private Account findAccountByNumber(String numeroCompte) {
         return accountRepository.findByNumeroCompteWithClient(numeroCompte)
                 .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
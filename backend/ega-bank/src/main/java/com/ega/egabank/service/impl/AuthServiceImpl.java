@@ -16,6 +16,7 @@ import com.ega.egabank.exception.DuplicateResourceException;
 import com.ega.egabank.exception.InvalidTokenException;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.repository.UserRepository;
+import com.ega.egabank.search.ClientSearchIndex;
 import com.ega.egabank.security.JwtTokenProvider;
 import com.ega.egabank.service.AuthService;
 
@@ -36,6 +37,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtTokenProvider tokenProvider;
     private final AuthenticationManager authenticationManager;
     private final com.ega.egabank.repository.ClientRepository clientRepository;
+    private final ClientSearchIndex clientSearchIndex;
 
     @Override
     public AuthResponse register(RegisterRequest request) {
@@ -73,6 +75,7 @@ public class AuthServiceImpl implements AuthService {
                 .build();
 
         client = clientRepository.save(client);
+        clientSearchIndex.update(client);
         user.setClient(client);
 
         user = userRepository.save(user);
@@ -1,14 +1,21 @@
 package com.ega.egabank.service.impl;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.ClientRequest;
 import com.ega.egabank.dto.response.ClientResponse;
 import com.ega.egabank.dto.response.PageResponse;
@@ -17,8 +24,11 @@ import com.ega.egabank.exception.DuplicateResourceException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.mapper.ClientMapper;
+import com.ega.egabank.posting.AccountShardManager;
 import com.ega.egabank.repository.ClientRepository;
 import com.ega.egabank.repository.UserRepository;
+import com.ega.egabank.repository.projection.ClientAccountSummary;
+import com.ega.egabank.search.ClientSearchIndex;
 import com.ega.egabank.service.ClientService;
 
 import lombok.RequiredArgsConstructor;
@@ -36,6 +46,9 @@ public class ClientServiceImpl implements ClientService {
     private final ClientRepository clientRepository;
     private final ClientMapper clientMapper;
     private final UserRepository userRepository;
+    private final AccountDescriptorCache accountDescriptorCache;
+    private final ClientSearchIndex clientSearchIndex;
+    private final AccountShardManager accountShardManager;
 
     @Override
     @Transactional(readOnly = true)
@@ -45,7 +58,7 @@ public class ClientServiceImpl implements ClientService {
         Page<Client> clientPage = clientRepository.findAll(pageable);
 
         return PageResponse.of(
-                clientMapper.toResponseList(clientPage.getContent()),
+                toResponseList(clientPage.getContent()),
                 clientPage.getNumber(),
                 clientPage.getSize(),
                 clientPage.getTotalElements(),
@@ -56,17 +69,44 @@ public class ClientServiceImpl implements ClientService {
     @Transactional(readOnly = true)
     public PageResponse<ClientResponse> searchClients(String search, int page, int size) {
         log.debug("Recherche de clients avec: '{}' - page: {}, size: {}", search, page, size);
+        if (clientSearchIndex.canServe(search)) {
+            ClientSearchIndex.Hits hits = clientSearchIndex.search(search, page * size, size);
+            int totalPages = size == 0 ? 1 : (int) Math.ceil((double) hits.total() / size);
+            return PageResponse.of(findResponsesInOrder(hits.ids()), page, size, hits.total(), totalPages);
+        }
+
         Pageable pageable = PageRequest.of(page, size, Sort.by("nom", "prenom").ascending());
         Page<Client> clientPage = clientRepository.search(search, pageable);
 
         return PageResponse.of(
-                clientMapper.toResponseList(clientPage.getContent()),
+                toResponseList(clientPage.getContent()),
                 clientPage.getNumber(),
                 clientPage.getSize(),
                 clientPage.getTotalElements(),
                 clientPage.getTotalPages());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<ClientResponse> getAllClientsSlice(int page, int size) {
+        log.debug("Récupération de tous les clients par tranche - page: {}, size: {}", page, size);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("nom", "prenom").ascending());
+        return toSliceResponse(clientRepository.findAllBy(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<ClientResponse> searchClientsSlice(String search, int page, int size) {
+        log.debug("Recherche de clients par tranche avec: '{}' - page: {}, size: {}", search, page, size);
+        if (clientSearchIndex.canServe(search)) {
+            ClientSearchIndex.Hits hits = clientSearchIndex.searchSlice(search, page * size, size);
+            return PageResponse.ofSlice(findResponsesInOrder(hits.ids()), page, size, hits.hasNext());
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("nom", "prenom").ascending());
+        return toSliceResponse(clientRepository.searchSlice(search, pageable));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ClientResponse getClientById(Long id) {
@@ -95,6 +135,7 @@ public class ClientServiceImpl implements ClientService {
 
         Client client = clientMapper.toEntity(request);
         client = clientRepository.save(client);
+        clientSearchIndex.update(client);
 
         log.info("Client créé avec succès - id: {}", client.getId());
         return clientMapper.toResponse(client);
@@ -115,6 +156,7 @@ public class ClientServiceImpl implements ClientService {
 
         clientMapper.updateEntity(client, request);
         client = clientRepository.save(client);
+        clientSearchIndex.update(client);
 
         log.info("Client mis à jour avec succès - id: {}", id);
         return clientMapper.toResponse(client);
@@ -127,9 +169,10 @@ public class ClientServiceImpl implements ClientService {
         Client client = clientRepository.findByIdWithAccounts(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client", "id", id));
 
-        // Vérifier que tous les comptes ont un solde nul
+        // Vérifier que tous les comptes ont un solde nul, sous-soldes verrouillés
+        client.getComptes().forEach(accountShardManager::lockShardBalance);
         boolean hasNonZeroBalance = client.getComptes().stream()
-                .anyMatch(account -> account.getSolde().compareTo(BigDecimal.ZERO) != 0);
+                .anyMatch(account -> account.getSoldeConsolide().compareTo(BigDecimal.ZERO) != 0);
 
         if (hasNonZeroBalance) {
             throw new OperationNotAllowedException(
@@ -144,9 +187,46 @@ public class ClientServiceImpl implements ClientService {
         });
 
         clientRepository.delete(client);
+        clientSearchIndex.remove(client.getId());
+        client.getComptes().forEach(account -> accountDescriptorCache.invalidate(account.getNumeroCompte()));
         log.info("Client supprimé avec succès - id: {}", id);
     }
 
+    /**
+     * Charge les clients d'une page de résultats de l'index, dans l'ordre de l'index
+     */
+    private List<ClientResponse> findResponsesInOrder(List<Long> ids) {
+        Map<Long, Client> clients = clientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        return toResponseList(ids.stream()
+                .map(clients::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Convertit une page de clients : le nombre de comptes et le solde total
+     * viennent d'une seule requête groupée, la collection des comptes n'est
+     * pas chargée
+     */
+    private List<ClientResponse> toResponseList(List<Client> clients) {
+        if (clients.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ClientAccountSummary> resumes = clientRepository
+                .findAccountSummaries(clients.stream().map(Client::getId).toList()).stream()
+                .collect(Collectors.toMap(ClientAccountSummary::clientId, Function.identity()));
+        return clientMapper.toResponseList(clients, resumes);
+    }
+
+    private PageResponse<ClientResponse> toSliceResponse(Slice<Client> clientSlice) {
+        return PageResponse.ofSlice(
+                toResponseList(clientSlice.getContent()),
+                clientSlice.getNumber(),
+                clientSlice.getSize(),
+                clientSlice.hasNext());
+    }
+
     private Client findClientById(Long id) {
         return clientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client", "id", id));
@@ -0,0 +1,116 @@
+package com.ega.egabank.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ega.egabank.dto.request.StatementJobRequest;
+import com.ega.egabank.dto.response.StatementJobResponse;
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.enums.StatutJob;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.StatementJobRepository;
+import com.ega.egabank.service.StatementJobService;
+import com.ega.egabank.statement.StatementJobRunner;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implémentation du service des lots de relevés de masse
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class StatementJobServiceImpl implements StatementJobService {
+
+    private final StatementJobRepository statementJobRepository;
+    private final AccountRepository accountRepository;
+    private final StatementJobRunner statementJobRunner;
+
+    @Override
+    public StatementJobResponse submitJob(StatementJobRequest request) {
+        if (request.getDebut().isAfter(request.getFin())) {
+            throw new OperationNotAllowedException("La date de début doit précéder la date de fin");
+        }
+
+        // Les comptes créés après la soumission ne font pas partie du lot
+        long dernierCompteId = accountRepository.findMaxId();
+        StatementJob job = statementJobRepository.save(StatementJob.builder()
+                .debut(request.getDebut())
+                .fin(request.getFin())
+                .statut(StatutJob.EN_ATTENTE)
+                .dernierCompteId(dernierCompteId)
+                .totalComptes(accountRepository.countActiveUpTo(dernierCompteId))
+                .build());
+        log.info("Lot de relevés {} soumis - {} comptes du {} au {}", job.getId(), job.getTotalComptes(),
+                job.getDebut(), job.getFin());
+
+        Long jobId = job.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                statementJobRunner.enqueue(jobId);
+            }
+        });
+        return StatementJobResponse.of(job);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StatementJobResponse getJob(Long id) {
+        return StatementJobResponse.of(findJob(id));
+    }
+
+    /**
+     * Les PDF sont déjà compressés : compression minimale, l'archive est
+     * produite au rythme de la lecture des fichiers. Aucune connexion n'est
+     * retenue pendant l'envoi.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeArchive(Long id, OutputStream out) throws IOException {
+        StatementJob job = findJob(id);
+        if (job.getStatut() != StatutJob.TERMINE) {
+            throw new OperationNotAllowedException("Le lot de relevés n'est pas terminé");
+        }
+
+        List<Path> fichiers;
+        try (Stream<Path> entries = Files.list(statementJobRunner.directoryOf(id))) {
+            fichiers = entries.filter(fichier -> fichier.getFileName().toString().endsWith(".pdf"))
+                    .sorted()
+                    .toList();
+        }
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED);
+        for (Path fichier : fichiers) {
+            zip.putNextEntry(new ZipEntry(fichier.getFileName().toString()));
+            Files.copy(fichier, zip);
+            zip.closeEntry();
+        }
+        // Termine l'archive sans fermer le flux de l'appelant
+        zip.finish();
+        zip.flush();
+    }
+
+    private StatementJob findJob(Long id) {
+        return statementJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Lot de relevés", "id", id));
+    }
+}
@@ -1,22 +1,40 @@
 package com.ega.egabank.service.impl;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ega.egabank.cache.StatementCache;
 import com.ega.egabank.entity.Account;
-import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.enums.FormatReleve;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.exception.StatementGenerationException;
+import com.ega.egabank.posting.AccountShardManager;
 import com.ega.egabank.repository.AccountRepository;
 import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.repository.projection.PeriodBalances;
+import com.ega.egabank.repository.projection.TransactionView;
 import com.ega.egabank.service.StatementService;
+import com.ega.egabank.statement.StatementFormatWriter;
+import com.ega.egabank.statement.StatementHeader;
+import com.ega.egabank.util.ETags;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFontFactory;
@@ -31,41 +49,101 @@ import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implémentation du service de génération de relevés de compte
+ * <p>
+ * Le relevé est écrit en flux : les transactions de la période sont lues par
+ * tranches (pagination par position (date, id)) et ajoutées à un tableau en
+ * mode « grand tableau », vidé vers le PDF après chaque tranche. La mémoire
+ * utilisée ne dépend pas de la longueur de la période. Les relevés de masse
+ * fournissent leurs lignes déjà lues à {@link #renderStatement}.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StatementServiceImpl implements StatementService {
 
         private final AccountRepository accountRepository;
         private final TransactionRepository transactionRepository;
+        private final StatementCache statementCache;
+        private final AccountShardManager accountShardManager;
+        private final Map<FormatReleve, StatementFormatWriter> formatWriters = new EnumMap<>(FormatReleve.class);
+        private final int chunkSize;
 
         private static final DeviceRgb PRIMARY_COLOR = new DeviceRgb(0, 82, 147);
         private static final DeviceRgb HEADER_BG_COLOR = new DeviceRgb(240, 240, 240);
         private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+        public StatementServiceImpl(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                        StatementCache statementCache, AccountShardManager accountShardManager,
+                        List<StatementFormatWriter> formatWriters,
+                        @Value("${app.statement.chunk-size:500}") int chunkSize) {
+                this.accountRepository = accountRepository;
+                this.transactionRepository = transactionRepository;
+                this.statementCache = statementCache;
+                this.accountShardManager = accountShardManager;
+                formatWriters.forEach(writer -> this.formatWriters.put(writer.format(), writer));
+                this.chunkSize = chunkSize;
+        }
+
         @Override
         public byte[] generateStatement(String numeroCompte, LocalDate debut, LocalDate fin) {
-                log.info("Génération du relevé pour {} du {} au {}", numeroCompte, debut, fin);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                writeStatement(numeroCompte, debut, fin, baos);
+                return baos.toByteArray();
+        }
 
-                Account account = accountRepository.findByNumeroCompteWithClient(numeroCompte)
+        /**
+         * La clé de cache condense la période, la dernière transaction de la
+         * période et les marqueurs de version du compte (solde, sous-soldes,
+         * titulaire) : deux requêtes indexées, sans charger le compte
+         */
+        @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public Resource getStatement(String numeroCompte, LocalDate debut, LocalDate fin) {
+                AccountVersion version = accountRepository.findVersionByNumeroCompte(numeroCompte)
                                 .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+                Long derniereTransactionId = transactionRepository.findMaxIdByCompteIdAndPeriod(
+                                version.id(), debut.atStartOfDay(), fin.atTime(LocalTime.MAX));
+                String cle = ETags.digest(numeroCompte, debut, fin, derniereTransactionId, version.version(),
+                                version.soldeShards(), version.nomTitulaire(), version.prenomTitulaire());
+
+                try {
+                        return statementCache.get(cle, out -> writeStatement(numeroCompte, debut, fin, out));
+                } catch (IOException e) {
+                        log.error("Erreur d'accès au cache des relevés", e);
+                        throw new StatementGenerationException("Erreur lors de la génération du relevé de compte", e);
+                }
+        }
 
-                LocalDateTime debutDateTime = debut.atStartOfDay();
-                LocalDateTime finDateTime = fin.atTime(LocalTime.MAX);
+        /**
+         * Sans transaction englobante : chaque tranche prend une connexion le
+         * temps de sa requête, aucune n'est retenue pendant l'envoi au client
+         */
+        @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public void writeStatement(String numeroCompte, LocalDate debut, LocalDate fin, OutputStream out) {
+                Account account = accountRepository.findByNumeroCompteWithClient(numeroCompte)
+                                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
 
-                List<Transaction> transactions = transactionRepository.findByCompteAndPeriod(
-                                numeroCompte, debutDateTime, finDateTime);
+                renderStatement(account, debut, fin, new PeriodIterator(account.getId(), debut.atStartOfDay(),
+                                fin.atTime(LocalTime.MAX), false), out);
+        }
 
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                        PdfWriter writer = new PdfWriter(baos);
+        @Override
+        public void renderStatement(Account account, LocalDate debut, LocalDate fin,
+                        Iterator<TransactionView> transactions, OutputStream out) {
+                log.info("Génération du relevé pour {} du {} au {}", account.getNumeroCompte(), debut, fin);
+                // Solde consolidé du résumé : sous-soldes lus pour les seuls comptes partagés
+                accountShardManager.loadShardBalance(account);
+
+                try {
+                        PdfWriter writer = new PdfWriter(out);
+                        // Le flux appartient à l'appelant (réponse HTTP, fichier...)
+                        writer.setCloseStream(false);
                         PdfDocument pdf = new PdfDocument(writer);
                         Document document = new Document(pdf, PageSize.A4);
                         document.setMargins(40, 40, 40, 40);
@@ -76,19 +154,18 @@ public class StatementServiceImpl implements StatementService {
                         // Informations du compte
                         addAccountInfo(document, account, debut, fin);
 
-                        // Tableau des transactions
-                        addTransactionsTable(document, transactions);
+                        // Tableau des transactions, écrit tranche par tranche
+                        long count = addTransactionsTable(document, transactions);
 
                         // Résumé
-                        addSummary(document, account, transactions);
+                        addSummary(document, account, count);
 
                         // Pied de page
                         addFooter(document);
 
                         document.close();
 
-                        log.info("Relevé généré avec succès - {} transactions", transactions.size());
-                        return baos.toByteArray();
+                        log.info("Relevé généré avec succès - {} transactions", count);
 
                 } catch (Exception e) {
                         log.error("Erreur lors de la génération du relevé", e);
@@ -96,6 +173,48 @@ public class StatementServiceImpl implements StatementService {
                 }
         }
 
+        /**
+         * Les soldes d'ouverture et de clôture sont calculés avant le parcours,
+         * en une requête, à partir du solde consolidé et des mouvements signés
+         * (voir {@link AccountRepository#findPeriodBalancesById}) : les formats
+         * XML les placent avant les écritures, et les crédits de sous-solde,
+         * sans solde avant/après, y sont comptés. Les écritures sont lues par tranches
+         * chronologiques, sans transaction englobante : comme pour le PDF,
+         * aucune connexion n'est retenue pendant l'envoi au client, un
+         * téléchargement lent n'épuise pas le pool.
+         */
+        @Override
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public void exportStatement(String numeroCompte, LocalDate debut, LocalDate fin, FormatReleve format,
+                        OutputStream out) {
+                StatementFormatWriter writer = formatWriters.get(format);
+                if (writer == null) {
+                        throw new IllegalArgumentException("Format de relevé non pris en charge: " + format);
+                }
+                log.info("Export {} du relevé pour {} du {} au {}", format, numeroCompte, debut, fin);
+
+                Account account = accountRepository.findByNumeroCompteWithClient(numeroCompte)
+                                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+                LocalDateTime debutDateTime = debut.atStartOfDay();
+                LocalDateTime finDateTime = fin.atTime(LocalTime.MAX);
+
+                PeriodBalances soldes = accountRepository
+                                .findPeriodBalancesById(account.getId(), debutDateTime, finDateTime)
+                                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+                StatementHeader entete = new StatementHeader(account.getNumeroCompte(), account.getTypeCompte(),
+                                account.getProprietaire().getNomComplet(), debut, fin, soldes.soldeOuverture(),
+                                soldes.soldeCloture(), LocalDateTime.now());
+
+                try {
+                        long count = writer.write(entete,
+                                        new PeriodIterator(account.getId(), debutDateTime, finDateTime, true), out);
+                        log.info("Relevé {} exporté - {} transactions", format, count);
+                } catch (IOException e) {
+                        log.error("Erreur lors de l'export du relevé", e);
+                        throw new StatementGenerationException("Erreur lors de l'export du relevé de compte", e);
+                }
+        }
+
         private void addHeader(Document document) throws Exception {
                 Paragraph title = new Paragraph("BANQUE EGA")
                                 .setFont(PdfFontFactory.createFont())
@@ -137,14 +256,19 @@ public class StatementServiceImpl implements StatementService {
                 document.add(infoTable);
         }
 
-        private void addTransactionsTable(Document document, List<Transaction> transactions) {
+        /**
+         * Ajoute le tableau des opérations en mode grand tableau : les lignes
+         * mises en page sont libérées par {@link Table#flush()} toutes les
+         * {@code chunkSize} opérations. Retourne le nombre d'opérations écrites.
+         */
+        private long addTransactionsTable(Document document, Iterator<TransactionView> transactions) {
                 document.add(new Paragraph("Détail des opérations")
                                 .setBold()
                                 .setFontSize(12)
                                 .setMarginTop(10)
                                 .setMarginBottom(10));
 
-                Table table = new Table(UnitValue.createPercentArray(new float[] { 15, 25, 20, 20, 20 }))
+                Table table = new Table(UnitValue.createPercentArray(new float[] { 15, 25, 20, 20, 20 }), true)
                                 .setWidth(UnitValue.createPercentValue(100));
 
                 // En-têtes
@@ -154,26 +278,85 @@ public class StatementServiceImpl implements StatementService {
                 addTableHeader(table, "Solde avant");
                 addTableHeader(table, "Solde après");
 
-                // Lignes
-                if (transactions.isEmpty()) {
+                // Le tableau est ajouté avant ses lignes, puis complété au fil des tranches
+                document.add(table);
+
+                long count = 0;
+                while (transactions.hasNext()) {
+                        TransactionView t = transactions.next();
+                        table.addCell(createCell(t.dateTransaction().format(DATETIME_FORMATTER)));
+                        table.addCell(createCell(t.type().getLibelle()));
+                        table.addCell(createAmountCell(t.montant().toString(), t.type().name()));
+                        table.addCell(createCell(t.soldeAvant() != null ? t.soldeAvant().toString() : "-"));
+                        table.addCell(createCell(t.soldeApres() != null ? t.soldeApres().toString() : "-"));
+                        if (++count % chunkSize == 0) {
+                                table.flush();
+                        }
+                }
+
+                if (count == 0) {
                         Cell emptyCell = new Cell(1, 5)
                                         .add(new Paragraph("Aucune transaction sur cette période"))
                                         .setTextAlignment(TextAlignment.CENTER)
                                         .setPadding(20);
                         table.addCell(emptyCell);
-                } else {
-                        for (Transaction t : transactions) {
-                                table.addCell(createCell(t.getDateTransaction().format(DATETIME_FORMATTER)));
-                                table.addCell(createCell(t.getType().getLibelle()));
-                                table.addCell(createAmountCell(t.getMontant().toString(), t.getType().name()));
-                                table.addCell(createCell(
-                                                t.getSoldeAvant() != null ? t.getSoldeAvant().toString() : "-"));
-                                table.addCell(createCell(
-                                                t.getSoldeApres() != null ? t.getSoldeApres().toString() : "-"));
+                }
+
+                table.complete();
+                return count;
+        }
+
+        /**
+         * Parcourt les transactions d'une période par tranches, en reprenant
+         * après la position (date, id) de la dernière ligne lue. Une tranche
+         * incomplète termine le parcours sans requête supplémentaire.
+         */
+        private final class PeriodIterator implements Iterator<TransactionView> {
+
+                private final Long compteId;
+                private final LocalDateTime debut;
+                private final LocalDateTime fin;
+                /** Plus anciennes d'abord (formats d'échange), sinon plus récentes d'abord (PDF) */
+                private final boolean chronologique;
+                private List<TransactionView> tranche;
+                private int position;
+
+                private PeriodIterator(Long compteId, LocalDateTime debut, LocalDateTime fin, boolean chronologique) {
+                        this.compteId = compteId;
+                        this.debut = debut;
+                        this.fin = fin;
+                        this.chronologique = chronologique;
+                }
+
+                @Override
+                public boolean hasNext() {
+                        if (tranche == null) {
+                                tranche = chronologique
+                                                ? transactionRepository.findFirstChronologicalChunkByCompteId(
+                                                                compteId, debut, fin, Limit.of(chunkSize))
+                                                : transactionRepository.findFirstPeriodChunkByCompteId(
+                                                                compteId, debut, fin, Limit.of(chunkSize));
+                        } else if (position == tranche.size() && tranche.size() == chunkSize) {
+                                TransactionView derniere = tranche.get(tranche.size() - 1);
+                                tranche = chronologique
+                                                ? transactionRepository.findChronologicalChunkByCompteIdAfter(compteId,
+                                                                debut, fin, derniere.dateTransaction(), derniere.id(),
+                                                                Limit.of(chunkSize))
+                                                : transactionRepository.findPeriodChunkByCompteIdAfter(compteId,
+                                                                debut, fin, derniere.dateTransaction(), derniere.id(),
+                                                                Limit.of(chunkSize));
+                                position = 0;
                         }
+                        return position < tranche.size();
                 }
 
-                document.add(table);
+                @Override
+                public TransactionView next() {
+                        if (!hasNext()) {
+                                throw new NoSuchElementException();
+                        }
+                        return tranche.get(position++);
+                }
         }
 
         private void addTableHeader(Table table, String text) {
@@ -207,7 +390,7 @@ public class StatementServiceImpl implements StatementService {
                 return cell;
         }
 
-        private void addSummary(Document document, Account account, List<Transaction> transactions) {
+        private void addSummary(Document document, Account account, long count) {
                 document.add(new Paragraph("")
                                 .setMarginTop(20));
 
@@ -218,12 +401,12 @@ public class StatementServiceImpl implements StatementService {
                 summaryTable
                                 .addCell(new Cell().add(new Paragraph("Nombre d'opérations:").setBold())
                                                 .setBorder(Border.NO_BORDER));
-                summaryTable.addCell(new Cell().add(new Paragraph(String.valueOf(transactions.size())))
+                summaryTable.addCell(new Cell().add(new Paragraph(String.valueOf(count)))
                                 .setBorder(Border.NO_BORDER).setTextAlignment(TextAlignment.RIGHT));
 
                 summaryTable.addCell(
                                 new Cell().add(new Paragraph("Solde actuel:").setBold()).setBorder(Border.NO_BORDER));
-                summaryTable.addCell(new Cell().add(new Paragraph(account.getSolde() + " XOF").setBold())
+                summaryTable.addCell(new Cell().add(new Paragraph(account.getSoldeConsolide() + " XOF").setBold())
                                 .setBorder(Border.NO_BORDER).setTextAlignment(TextAlignment.RIGHT));
 
                 document.add(summaryTable);
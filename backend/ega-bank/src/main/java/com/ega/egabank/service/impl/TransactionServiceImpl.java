@@ -4,13 +4,30 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.OperationRequest;
 import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.BatchTransferResponse;
+import com.ega.egabank.dto.response.BatchTransferResponse.LegStatus;
+import com.ega.egabank.dto.response.CursorPageResponse;
 import com.ega.egabank.dto.response.TransactionResponse;
 import com.ega.egabank.entity.Account;
 import com.ega.egabank.entity.Transaction;
@@ -18,16 +35,36 @@ import com.ega.egabank.enums.TypeTransaction;
 import com.ega.egabank.exception.InsufficientBalanceException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.journal.TransactionJournal;
 import com.ega.egabank.mapper.TransactionMapper;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.posting.PostingExecutor;
+import com.ega.egabank.posting.PostingMode;
 import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
 import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+import com.ega.egabank.repository.projection.AccountDescriptor;
+import com.ega.egabank.repository.projection.TransactionHistoryVersion;
+import com.ega.egabank.repository.projection.TransactionView;
 import com.ega.egabank.service.TransactionService;
+import com.ega.egabank.util.ETags;
+import com.ega.egabank.util.KeysetCursor;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implémentation du service des opérations bancaires
+ * <p>
+ * Les imputations (dépôt, retrait, virement) délèguent leur transaction au
+ * {@link PostingExecutor}, qui applique la stratégie de concurrence configurée.
+ * Les lots de virements sont découpés en paquets : chaque paquet charge et
+ * verrouille ses comptes une seule fois et écrit ses transactions par lots JDBC.
+ * Les crédits d'un compte partagé en sous-soldes ({@link AccountShardManager})
+ * ne prennent pas le verrou de ce compte. Lorsque le journal des imputations
+ * est actif ({@link TransactionJournal}), les lignes de transaction sont
+ * journalisées puis insérées en base de façon asynchrone.
  */
 @Slf4j
 @Service
@@ -38,11 +75,194 @@ public class TransactionServiceImpl implements TransactionService {
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
+    private final PostingExecutor postingExecutor;
+    private final TransactionBatchWriter transactionBatchWriter;
+    private final AccountShardManager accountShardManager;
+    private final TransactionJournal transactionJournal;
+    private final AccountDescriptorCache accountDescriptorCache;
+
+    @Value("${app.posting.transfer-batch.chunk-size:1000}")
+    private int transferBatchChunkSize;
+
+    @Value("${app.posting.transfer-batch.max-lock-stripes:8}")
+    private int transferBatchMaxLockStripes;
+
+    @Value("${app.pagination.max-page-size:200}")
+    private int maxPageSize;
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public TransactionResponse deposit(String numeroCompte, OperationRequest request) {
         log.info("Dépôt de {} sur le compte {}", request.getMontant(), numeroCompte);
+        if (accountShardManager.isSharded(numeroCompte)) {
+            return postingExecutor.execute(List.of(), () -> doShardedDeposit(numeroCompte, request));
+        }
+        return postingExecutor.execute(List.of(numeroCompte), () -> isAtomicMode()
+                ? doAtomicDeposit(numeroCompte, request)
+                : doDeposit(numeroCompte, request));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransactionResponse withdraw(String numeroCompte, OperationRequest request) {
+        log.info("Retrait de {} sur le compte {}", request.getMontant(), numeroCompte);
+        if (isAtomicMode(numeroCompte)) {
+            return postingExecutor.execute(List.of(numeroCompte), () -> doAtomicWithdraw(numeroCompte, request));
+        }
+        return postingExecutor.executeReadModifyWrite(List.of(numeroCompte), () -> doWithdraw(numeroCompte, request));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransactionResponse transfer(TransferRequest request) {
+        log.info("Virement de {} de {} vers {}",
+                request.getMontant(), request.getCompteSource(), request.getCompteDestination());
+
+        // Vérifier que source et destination sont différents
+        if (request.getCompteSource().equals(request.getCompteDestination())) {
+            throw new OperationNotAllowedException("Le compte source et destination ne peuvent pas être identiques");
+        }
+
+        // Crédit sur un sous-solde : seul le compte source est verrouillé
+        if (accountShardManager.isSharded(request.getCompteDestination())) {
+            return postingExecutor.executeReadModifyWrite(List.of(request.getCompteSource()),
+                    () -> doShardedTransfer(request));
+        }
+
+        List<String> numerosCompte = List.of(request.getCompteSource(), request.getCompteDestination());
+        if (isAtomicMode(request.getCompteSource())) {
+            return postingExecutor.execute(numerosCompte, () -> doAtomicTransfer(request));
+        }
+        return postingExecutor.executeReadModifyWrite(numerosCompte, () -> doTransfer(request));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BatchTransferResponse transferBatch(List<TransferRequest> virements) {
+        int chunkSize = Math.max(1, transferBatchChunkSize);
+        int maxStripes = Math.max(2, transferBatchMaxLockStripes);
+        log.info("Lot de {} virements ({} par paquet, {} verrous au plus)",
+                virements.size(), chunkSize, maxStripes);
+
+        List<LegStatus> resultats = new ArrayList<>(virements.size());
+        int from = 0;
+        while (from < virements.size()) {
+            int to = chunkEnd(virements, from, chunkSize, maxStripes);
+            resultats.addAll(transferChunk(virements.subList(from, to), from));
+            from = to;
+        }
+
+        BatchTransferResponse response = BatchTransferResponse.of(resultats);
+        log.info("Lot de virements terminé - réussis: {}, échoués: {}", response.getReussis(), response.getEchoues());
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getTransactionHistory(String numeroCompte, LocalDate debut, LocalDate fin) {
+        log.debug("Historique des transactions pour {} du {} au {}", numeroCompte, debut, fin);
+
+        // Résoudre l'identifiant du compte une seule fois (vérifie aussi son existence)
+        AccountDescriptor account = findAccountDescriptor(numeroCompte);
+
+        LocalDateTime debutDateTime = debut.atStartOfDay();
+        LocalDateTime finDateTime = fin.atTime(LocalTime.MAX);
+
+        List<TransactionView> transactions = transactionRepository.findViewsByCompteIdAndPeriod(
+                account.id(), debutDateTime, finDateTime);
+
+        return transactionMapper.toResponseListFromViews(transactions);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getTransactionsETag(String numeroCompte) {
+        AccountDescriptor account = findAccountDescriptor(numeroCompte);
+        // Version du compte et de son historique, dernière transaction : une écriture,
+        // même antidatée, ou une mise à jour du compte changent l'ETag
+        TransactionHistoryVersion version = accountRepository.findHistoryVersionById(account.id())
+                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+        return ETags.strong(version.id(), version.version(), version.historyVersion(),
+                version.derniereTransactionId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getAllTransactionsByAccount(String numeroCompte) {
+        log.debug("Récupération de toutes les transactions pour {}", numeroCompte);
+
+        AccountDescriptor account = findAccountDescriptor(numeroCompte);
+
+        List<TransactionView> transactions = transactionRepository.findViewsByCompteId(account.id());
+
+        return transactionMapper.toResponseListFromViews(transactions);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getTransactionsByAccount(String numeroCompte, String cursor,
+            int size) {
+        int pageSize = pageSize(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        AccountDescriptor account = findAccountDescriptor(numeroCompte);
+
+        // Une ligne de plus que demandé pour savoir s'il existe une page suivante
+        Limit limit = Limit.of(pageSize + 1);
+        List<TransactionView> transactions = position == null
+                ? transactionRepository.findFirstPageByCompteId(account.id(), limit)
+                : transactionRepository.findPageByCompteIdAfter(account.id(),
+                        position.dateTransaction(), position.id(), limit);
+
+        return toCursorPage(transactions, pageSize);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getAllTransactionsByClient(Long clientId) {
+        log.debug("Récupération des transactions du client {}", clientId);
+        return transactionMapper.toResponseListFromViews(transactionRepository.findAllByClientId(clientId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransactionResponse> getClientFeed(Long clientId, String cursor, int size) {
+        int pageSize = pageSize(size);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        Limit limit = Limit.of(pageSize + 1);
+        List<TransactionView> transactions = position == null
+                ? transactionRepository.findFirstFeedPageByClientId(clientId, limit)
+                : transactionRepository.findFeedPageByClientIdAfter(clientId,
+                        position.dateTransaction(), position.id(), limit);
+
+        return toCursorPage(transactions, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getAllTransactions() {
+        log.debug("Récupération de toutes les transactions");
+        return transactionMapper.toResponseListFromViews(transactionRepository.findAllViews());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamAllTransactions(Consumer<TransactionResponse> consumer) {
+        log.debug("Export de toutes les transactions");
+        long count = 0;
+        // Projection : aucune entité n'est attachée au contexte de persistance pendant le parcours
+        try (Stream<TransactionView> transactions = transactionRepository.streamAllForExport()) {
+            Iterator<TransactionView> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(transactionMapper.toResponse(iterator.next()));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private TransactionResponse doDeposit(String numeroCompte, OperationRequest request) {
         Account account = findActiveAccount(numeroCompte);
         BigDecimal soldeAvant = account.getSolde();
 
@@ -60,18 +280,16 @@ public class TransactionServiceImpl implements TransactionService {
                 .build();
 
         accountRepository.save(account);
-        transaction = transactionRepository.save(transaction);
+        transaction = persist(transaction);
 
         log.info("Dépôt effectué - nouveau solde: {}", account.getSolde());
         return transactionMapper.toResponse(transaction);
     }
 
-    @Override
-    public TransactionResponse withdraw(String numeroCompte, OperationRequest request) {
-        log.info("Retrait de {} sur le compte {}", request.getMontant(), numeroCompte);
-
+    private TransactionResponse doWithdraw(String numeroCompte, OperationRequest request) {
         Account account = findActiveAccount(numeroCompte);
-        BigDecimal soldeAvant = account.getSolde();
+        accountShardManager.ensureFunds(account, request.getMontant());
+        BigDecimal soldeAvant = account.getSoldeConsolide();
 
         // Vérifier le solde
         if (!account.soldeEstSuffisant(request.getMontant())) {
@@ -87,29 +305,21 @@ public class TransactionServiceImpl implements TransactionService {
                 .montant(request.getMontant())
                 .description(request.getDescription() != null ? request.getDescription() : "Retrait")
                 .soldeAvant(soldeAvant)
-                .soldeApres(account.getSolde())
+                .soldeApres(account.getSoldeConsolide())
                 .compte(account)
                 .build();
 
         accountRepository.save(account);
-        transaction = transactionRepository.save(transaction);
+        transaction = persist(transaction);
 
         log.info("Retrait effectué - nouveau solde: {}", account.getSolde());
         return transactionMapper.toResponse(transaction);
     }
 
-    @Override
-    public TransactionResponse transfer(TransferRequest request) {
-        log.info("Virement de {} de {} vers {}",
-                request.getMontant(), request.getCompteSource(), request.getCompteDestination());
-
-        // Vérifier que source et destination sont différents
-        if (request.getCompteSource().equals(request.getCompteDestination())) {
-            throw new OperationNotAllowedException("Le compte source et destination ne peuvent pas être identiques");
-        }
-
+    private TransactionResponse doTransfer(TransferRequest request) {
         Account compteSource = findActiveAccount(request.getCompteSource());
         Account compteDestination = findActiveAccount(request.getCompteDestination());
+        accountShardManager.ensureFunds(compteSource, request.getMontant());
 
         // Vérifier le solde du compte source
         if (!compteSource.soldeEstSuffisant(request.getMontant())) {
@@ -117,8 +327,10 @@ public class TransactionServiceImpl implements TransactionService {
                     request.getCompteSource(), compteSource.getSolde(), request.getMontant());
         }
 
-        BigDecimal soldeAvantSource = compteSource.getSolde();
-        BigDecimal soldeAvantDest = compteDestination.getSolde();
+        // Destination partagée créditée sur son solde principal : sous-soldes lus sous verrou
+        accountShardManager.lockShardBalance(compteDestination);
+        BigDecimal soldeAvantSource = compteSource.getSoldeConsolide();
+        BigDecimal soldeAvantDest = compteDestination.getSoldeConsolide();
 
         // Effectuer le virement
         compteSource.debiter(request.getMontant());
@@ -135,7 +347,7 @@ public class TransactionServiceImpl implements TransactionService {
                 .description(description)
                 .compteDestination(request.getCompteDestination())
                 .soldeAvant(soldeAvantSource)
-                .soldeApres(compteSource.getSolde())
+                .soldeApres(compteSource.getSoldeConsolide())
                 .compte(compteSource)
                 .build();
 
@@ -146,14 +358,14 @@ public class TransactionServiceImpl implements TransactionService {
                 .description(description)
                 .compteDestination(request.getCompteSource()) // compte d'origine
                 .soldeAvant(soldeAvantDest)
-                .soldeApres(compteDestination.getSolde())
+                .soldeApres(compteDestination.getSoldeConsolide())
                 .compte(compteDestination)
                 .build();
 
         accountRepository.save(compteSource);
         accountRepository.save(compteDestination);
-        transactionSortante = transactionRepository.save(transactionSortante);
-        transactionRepository.save(transactionEntrante);
+        transactionSortante = persist(transactionSortante);
+        persist(transactionEntrante);
 
         log.info("Virement effectué - source: {}, destination: {}",
                 compteSource.getSolde(), compteDestination.getSolde());
@@ -161,45 +373,371 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionMapper.toResponse(transactionSortante);
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactionHistory(String numeroCompte, LocalDate debut, LocalDate fin) {
-        log.debug("Historique des transactions pour {} du {} au {}", numeroCompte, debut, fin);
+    /**
+     * Fin (exclue) du paquet commençant à {@code from}. En mode verrou, un paquet
+     * détient les verrous de tous ses comptes jusqu'à sa validation : il est
+     * refermé avant de dépasser {@code maxStripes} verrous distincts, pour ne
+     * pas bloquer les imputations unitaires sur l'ensemble des verrous.
+     */
+    private int chunkEnd(List<TransferRequest> virements, int from, int chunkSize, int maxStripes) {
+        BitSet stripes = new BitSet();
+        int to = from;
+        while (to < virements.size() && to - from < chunkSize) {
+            TransferRequest virement = virements.get(to);
+            BitSet avecVirement = (BitSet) stripes.clone();
+            markStripe(avecVirement, virement.getCompteSource());
+            markStripe(avecVirement, virement.getCompteDestination());
+            if (to > from && avecVirement.cardinality() > maxStripes) {
+                break;
+            }
+            stripes = avecVirement;
+            to++;
+        }
+        return to;
+    }
+
+    private void markStripe(BitSet stripes, String numeroCompte) {
+        int stripe = numeroCompte != null ? postingExecutor.lockStripeOf(numeroCompte) : -1;
+        if (stripe >= 0) {
+            stripes.set(stripe);
+        }
+    }
 
-        // Vérifier que le compte existe
-        if (!accountRepository.existsByNumeroCompte(numeroCompte)) {
+    /**
+     * Exécute un paquet de virements dans une seule transaction ; en cas d'échec
+     * technique du paquet, chaque virement est rejoué individuellement
+     */
+    private List<LegStatus> transferChunk(List<TransferRequest> paquet, int offset) {
+        Set<String> numerosCompte = new TreeSet<>();
+        for (TransferRequest virement : paquet) {
+            numerosCompte.add(virement.getCompteSource());
+            numerosCompte.add(virement.getCompteDestination());
+        }
+
+        try {
+            return postingExecutor.execute(numerosCompte, () -> applyTransferChunk(paquet, offset, numerosCompte));
+        } catch (RuntimeException e) {
+            log.warn("Échec du paquet de {} virements, exécution individuelle", paquet.size(), e);
+        }
+
+        List<LegStatus> resultats = new ArrayList<>(paquet.size());
+        for (int i = 0; i < paquet.size(); i++) {
+            try {
+                resultats.add(LegStatus.success(offset + i, transfer(paquet.get(i)).getId()));
+            } catch (RuntimeException e) {
+                resultats.add(LegStatus.failure(offset + i, e.getMessage()));
+            }
+        }
+        return resultats;
+    }
+
+    /**
+     * Applique les virements d'un paquet sur les comptes chargés une seule fois.
+     * Les soldes sont cumulés en mémoire : chaque compte ne reçoit qu'une mise à
+     * jour par paquet, quel que soit le nombre de virements qui le concernent.
+     */
+    private List<LegStatus> applyTransferChunk(List<TransferRequest> paquet, int offset, Set<String> numerosCompte) {
+        Map<String, Account> comptes = accountRepository.findAllForUpdateByNumeroCompteIn(numerosCompte).stream()
+                .collect(Collectors.toMap(Account::getNumeroCompte, Function.identity()));
+
+        List<Transaction> lignes = new ArrayList<>(paquet.size() * 2);
+        Transaction[] sortantes = new Transaction[paquet.size()];
+        String[] erreurs = new String[paquet.size()];
+
+        for (int i = 0; i < paquet.size(); i++) {
+            try {
+                sortantes[i] = applyTransferLeg(paquet.get(i), comptes, lignes);
+            } catch (RuntimeException e) {
+                erreurs[i] = e.getMessage();
+            }
+        }
+
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.record(lignes);
+        } else {
+            transactionBatchWriter.insertAll(lignes);
+        }
+
+        List<LegStatus> resultats = new ArrayList<>(paquet.size());
+        for (int i = 0; i < paquet.size(); i++) {
+            resultats.add(erreurs[i] != null
+                    ? LegStatus.failure(offset + i, erreurs[i])
+                    : LegStatus.success(offset + i, sortantes[i].getId()));
+        }
+        return resultats;
+    }
+
+    private Transaction applyTransferLeg(TransferRequest request, Map<String, Account> comptes,
+            List<Transaction> lignes) {
+        if (request.getCompteSource().equals(request.getCompteDestination())) {
+            throw new OperationNotAllowedException("Le compte source et destination ne peuvent pas être identiques");
+        }
+        Account compteSource = activeAccount(comptes, request.getCompteSource());
+        Account compteDestination = activeAccount(comptes, request.getCompteDestination());
+        accountShardManager.ensureFunds(compteSource, request.getMontant());
+
+        if (!compteSource.soldeEstSuffisant(request.getMontant())) {
+            throw new InsufficientBalanceException(
+                    request.getCompteSource(), compteSource.getSolde(), request.getMontant());
+        }
+
+        // Destination partagée créditée sur son solde principal : sous-soldes lus sous verrou
+        accountShardManager.lockShardBalance(compteDestination);
+        BigDecimal soldeAvantSource = compteSource.getSoldeConsolide();
+        BigDecimal soldeAvantDest = compteDestination.getSoldeConsolide();
+
+        compteSource.debiter(request.getMontant());
+        compteDestination.crediter(request.getMontant());
+
+        String description = request.getDescription() != null
+                ? request.getDescription()
+                : "Virement";
+
+        Transaction transactionSortante = Transaction.builder()
+                .type(TypeTransaction.VIREMENT_SORTANT)
+                .montant(request.getMontant())
+                .description(description)
+                .compteDestination(request.getCompteDestination())
+                .soldeAvant(soldeAvantSource)
+                .soldeApres(compteSource.getSoldeConsolide())
+                .compte(compteSource)
+                .build();
+
+        lignes.add(transactionSortante);
+        lignes.add(Transaction.builder()
+                .type(TypeTransaction.VIREMENT_ENTRANT)
+                .montant(request.getMontant())
+                .description(description)
+                .compteDestination(request.getCompteSource()) // compte d'origine
+                .soldeAvant(soldeAvantDest)
+                .soldeApres(compteDestination.getSoldeConsolide())
+                .compte(compteDestination)
+                .build());
+
+        return transactionSortante;
+    }
+
+    private Account activeAccount(Map<String, Account> comptes, String numeroCompte) {
+        Account account = comptes.get(numeroCompte);
+        if (account == null) {
             throw new ResourceNotFoundException("Compte", "numéro", numeroCompte);
         }
+        if (!account.getActif()) {
+            throw new OperationNotAllowedException("Le compte " + numeroCompte + " est inactif");
+        }
+        return account;
+    }
 
-        LocalDateTime debutDateTime = debut.atStartOfDay();
-        LocalDateTime finDateTime = fin.atTime(LocalTime.MAX);
+    private TransactionResponse doShardedDeposit(String numeroCompte, OperationRequest request) {
+        Long accountId = accountShardManager.credit(numeroCompte, request.getMontant());
 
-        List<Transaction> transactions = transactionRepository.findByCompteAndPeriod(
-                numeroCompte, debutDateTime, finDateTime);
+        // Crédit non sérialisé avec les autres crédits du compte : pas de solde avant/après
+        Transaction transaction = persist(Transaction.builder()
+                .type(TypeTransaction.DEPOT)
+                .montant(request.getMontant())
+                .description(request.getDescription() != null ? request.getDescription() : "Dépôt")
+                .compte(accountRepository.getReferenceById(accountId))
+                .build());
 
-        return transactionMapper.toResponseList(transactions);
+        log.info("Dépôt effectué sur un sous-solde du compte {}", numeroCompte);
+        return transactionMapper.toResponse(transaction, numeroCompte);
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<TransactionResponse> getAllTransactionsByAccount(String numeroCompte) {
-        log.debug("Récupération de toutes les transactions pour {}", numeroCompte);
+    private TransactionResponse doShardedTransfer(TransferRequest request) {
+        BigDecimal montant = request.getMontant();
+        Account compteSource = findActiveAccount(request.getCompteSource());
+        accountShardManager.ensureFunds(compteSource, montant);
 
-        Account account = accountRepository.findByNumeroCompte(numeroCompte)
-                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+        if (!compteSource.soldeEstSuffisant(montant)) {
+            throw new InsufficientBalanceException(request.getCompteSource(), compteSource.getSolde(), montant);
+        }
+
+        BigDecimal soldeAvantSource = compteSource.getSoldeConsolide();
+        compteSource.debiter(montant);
+        accountRepository.save(compteSource);
+
+        Long destinationId = accountShardManager.credit(request.getCompteDestination(), montant);
+
+        String description = request.getDescription() != null
+                ? request.getDescription()
+                : "Virement";
+
+        Transaction transactionSortante = persist(Transaction.builder()
+                .type(TypeTransaction.VIREMENT_SORTANT)
+                .montant(montant)
+                .description(description)
+                .compteDestination(request.getCompteDestination())
+                .soldeAvant(soldeAvantSource)
+                .soldeApres(compteSource.getSoldeConsolide())
+                .compte(compteSource)
+                .build());
 
-        List<Transaction> transactions = transactionRepository
-                .findByCompteIdOrderByDateTransactionDesc(account.getId());
+        persist(Transaction.builder()
+                .type(TypeTransaction.VIREMENT_ENTRANT)
+                .montant(montant)
+                .description(description)
+                .compteDestination(request.getCompteSource()) // compte d'origine
+                .compte(accountRepository.getReferenceById(destinationId))
+                .build());
+
+        log.info("Virement effectué vers un sous-solde - source: {}, destination: {}",
+                compteSource.getSolde(), request.getCompteDestination());
 
-        return transactionMapper.toResponseList(transactions);
+        return transactionMapper.toResponse(transactionSortante, request.getCompteSource());
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<TransactionResponse> getAllTransactions() {
-        log.debug("Récupération de toutes les transactions");
-        List<Transaction> transactions = transactionRepository.findAllByOrderByDateTransactionDesc();
-        return transactionMapper.toResponseList(transactions);
+    private TransactionResponse doAtomicDeposit(String numeroCompte, OperationRequest request) {
+        AccountBalanceView compte = creditOrReject(numeroCompte, request.getMontant());
+
+        Transaction transaction = persist(Transaction.builder()
+                .type(TypeTransaction.DEPOT)
+                .montant(request.getMontant())
+                .description(request.getDescription() != null ? request.getDescription() : "Dépôt")
+                .soldeAvant(compte.getSolde().subtract(request.getMontant()))
+                .soldeApres(compte.getSolde())
+                .compte(accountRepository.getReferenceById(compte.getId()))
+                .build());
+
+        log.info("Dépôt effectué - nouveau solde: {}", compte.getSolde());
+        return transactionMapper.toResponse(transaction, numeroCompte);
+    }
+
+    private TransactionResponse doAtomicWithdraw(String numeroCompte, OperationRequest request) {
+        AccountBalanceView compte = debitOrReject(numeroCompte, request.getMontant());
+
+        Transaction transaction = persist(Transaction.builder()
+                .type(TypeTransaction.RETRAIT)
+                .montant(request.getMontant())
+                .description(request.getDescription() != null ? request.getDescription() : "Retrait")
+                .soldeAvant(compte.getSolde().add(request.getMontant()))
+                .soldeApres(compte.getSolde())
+                .compte(accountRepository.getReferenceById(compte.getId()))
+                .build());
+
+        log.info("Retrait effectué - nouveau solde: {}", compte.getSolde());
+        return transactionMapper.toResponse(transaction, numeroCompte);
+    }
+
+    private TransactionResponse doAtomicTransfer(TransferRequest request) {
+        BigDecimal montant = request.getMontant();
+
+        // Mises à jour toujours dans l'ordre des numéros de compte pour éviter les interblocages en base
+        AccountBalanceView compteSource;
+        AccountBalanceView compteDestination;
+        if (request.getCompteSource().compareTo(request.getCompteDestination()) < 0) {
+            compteSource = debitOrReject(request.getCompteSource(), montant);
+            compteDestination = creditOrReject(request.getCompteDestination(), montant);
+        } else {
+            compteDestination = creditOrReject(request.getCompteDestination(), montant);
+            compteSource = debitOrReject(request.getCompteSource(), montant);
+        }
+
+        String description = request.getDescription() != null
+                ? request.getDescription()
+                : "Virement";
+
+        Transaction transactionSortante = persist(Transaction.builder()
+                .type(TypeTransaction.VIREMENT_SORTANT)
+                .montant(montant)
+                .description(description)
+                .compteDestination(request.getCompteDestination())
+                .soldeAvant(compteSource.getSolde().add(montant))
+                .soldeApres(compteSource.getSolde())
+                .compte(accountRepository.getReferenceById(compteSource.getId()))
+                .build());
+
+        persist(Transaction.builder()
+                .type(TypeTransaction.VIREMENT_ENTRANT)
+                .montant(montant)
+                .description(description)
+                .compteDestination(request.getCompteSource()) // compte d'origine
+                .soldeAvant(compteDestination.getSolde().subtract(montant))
+                .soldeApres(compteDestination.getSolde())
+                .compte(accountRepository.getReferenceById(compteDestination.getId()))
+                .build());
+
+        log.info("Virement effectué - source: {}, destination: {}",
+                compteSource.getSolde(), compteDestination.getSolde());
+
+        return transactionMapper.toResponse(transactionSortante, request.getCompteSource());
+    }
+
+    /**
+     * Débite le compte et relit son nouvel état en une seule requête conditionnelle
+     */
+    private AccountBalanceView debitOrReject(String numeroCompte, BigDecimal montant) {
+        return accountRepository.debitReturningBalance(numeroCompte, montant)
+                .orElseThrow(() -> rejection(numeroCompte, montant));
+    }
+
+    /**
+     * Crédite le compte et relit son nouvel état en une seule requête conditionnelle
+     */
+    private AccountBalanceView creditOrReject(String numeroCompte, BigDecimal montant) {
+        return accountRepository.creditReturningBalance(numeroCompte, montant)
+                .orElseThrow(() -> rejection(numeroCompte, montant));
+    }
+
+    /**
+     * Détermine la cause d'une mise à jour conditionnelle qui n'a modifié aucune ligne
+     */
+    private RuntimeException rejection(String numeroCompte, BigDecimal montant) {
+        AccountBalanceView compte = accountRepository.findBalanceByNumeroCompte(numeroCompte).orElse(null);
+        if (compte == null) {
+            return new ResourceNotFoundException("Compte", "numéro", numeroCompte);
+        }
+        if (!compte.getActif()) {
+            return new OperationNotAllowedException("Le compte " + numeroCompte + " est inactif");
+        }
+        return new InsufficientBalanceException(numeroCompte, compte.getSolde(), montant);
+    }
+
+    private boolean isAtomicMode() {
+        return postingExecutor.getMode() == PostingMode.ATOMIC;
+    }
+
+    /**
+     * Le débit conditionnel en une requête ne voit que le solde principal :
+     * un compte partagé est débité par le chemin qui reverse ses sous-soldes,
+     * sous relance optimiste
+     */
+    private boolean isAtomicMode(String compteDebite) {
+        return isAtomicMode() && !accountShardManager.isSharded(compteDebite);
+    }
+
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    /**
+     * Construit une page à partir de lignes lues avec une ligne de plus que la
+     * taille de page : la ligne excédentaire signale l'existence d'une page suivante
+     */
+    private CursorPageResponse<TransactionResponse> toCursorPage(List<TransactionView> transactions, int pageSize) {
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            TransactionView last = transactions.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.dateTransaction(), last.id()).encode();
+        }
+        return CursorPageResponse.of(transactionMapper.toResponseListFromViews(transactions), pageSize, nextCursor);
+    }
+
+    private AccountDescriptor findAccountDescriptor(String numeroCompte) {
+        return accountDescriptorCache.find(numeroCompte)
+                .orElseThrow(() -> new ResourceNotFoundException("Compte", "numéro", numeroCompte));
+    }
+
+    /**
+     * Enregistre une ligne de transaction, directement ou via le journal des imputations
+     */
+    private Transaction persist(Transaction transaction) {
+        if (!transactionJournal.isEnabled()) {
+            transactionBatchWriter.markHistoryChanged(List.of(transaction));
+            return transactionRepository.save(transaction);
+        }
+        transactionJournal.record(List.of(transaction));
+        return transaction;
     }
 
     private Account findActiveAccount(String numeroCompte) {
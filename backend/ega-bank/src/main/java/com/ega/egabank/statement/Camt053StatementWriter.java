@@ -0,0 +1,150 @@
+package com.ega.egabank.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.repository.projection.TransactionView;
+
+/**
+ * Relevé ISO 20022 camt.053.001.02 (relevé de compte bancaire), écrit en
+ * flux avec StAX : soldes d'ouverture ({@code OPBD}) et de clôture
+ * ({@code CLBD}) puis une écriture {@code Ntry} comptabilisée par
+ * transaction. Les soldes étant connus avant le parcours, ils précèdent les
+ * écritures comme le prévoit le schéma.
+ */
+@Component
+public class Camt053StatementWriter implements StatementFormatWriter {
+
+    private static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:camt.053.001.02";
+    private static final DateTimeFormatter DATE_COMPACTE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATETIME_ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final XMLOutputFactory factory = XMLOutputFactory.newFactory();
+
+    @Override
+    public FormatReleve format() {
+        return FormatReleve.CAMT053;
+    }
+
+    @Override
+    public long write(StatementHeader entete, Iterator<TransactionView> transactions, OutputStream out)
+            throws IOException {
+        String identifiant = entete.numeroCompte() + "-" + entete.debut().format(DATE_COMPACTE) + "-"
+                + entete.fin().format(DATE_COMPACTE);
+        String creation = entete.genereLe().format(DATETIME_ISO);
+        try {
+            XMLStreamWriter xml = factory.createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.setDefaultNamespace(NAMESPACE);
+            xml.writeStartElement(NAMESPACE, "Document");
+            xml.writeDefaultNamespace(NAMESPACE);
+            xml.writeStartElement("BkToCstmrStmt");
+
+            xml.writeStartElement("GrpHdr");
+            element(xml, "MsgId", identifiant);
+            element(xml, "CreDtTm", creation);
+            xml.writeEndElement();
+
+            xml.writeStartElement("Stmt");
+            element(xml, "Id", identifiant);
+            element(xml, "CreDtTm", creation);
+            xml.writeStartElement("FrToDt");
+            element(xml, "FrDtTm", entete.debut().atStartOfDay().format(DATETIME_ISO));
+            element(xml, "ToDtTm", entete.fin().atTime(23, 59, 59).format(DATETIME_ISO));
+            xml.writeEndElement();
+
+            xml.writeStartElement("Acct");
+            xml.writeStartElement("Id");
+            element(xml, "IBAN", entete.numeroCompte());
+            xml.writeEndElement();
+            element(xml, "Ccy", StatementHeader.DEVISE);
+            xml.writeStartElement("Ownr");
+            element(xml, "Nm", entete.titulaire());
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            balance(xml, "OPBD", entete.soldeOuverture(), entete.debut());
+            balance(xml, "CLBD", entete.soldeCloture(), entete.fin());
+
+            long count = 0;
+            while (transactions.hasNext()) {
+                TransactionView t = transactions.next();
+                xml.writeStartElement("Ntry");
+                element(xml, "NtryRef", String.valueOf(t.id()));
+                amount(xml, t.montant());
+                element(xml, "CdtDbtInd", t.type().isDebit() ? "DBIT" : "CRDT");
+                element(xml, "Sts", "BOOK");
+                xml.writeStartElement("BookgDt");
+                element(xml, "DtTm", t.dateTransaction().format(DATETIME_ISO));
+                xml.writeEndElement();
+                xml.writeStartElement("ValDt");
+                element(xml, "Dt", t.dateTransaction().toLocalDate().toString());
+                xml.writeEndElement();
+                xml.writeStartElement("BkTxCd");
+                xml.writeStartElement("Prtry");
+                element(xml, "Cd", t.type().name());
+                xml.writeEndElement();
+                xml.writeEndElement();
+                if (t.description() != null) {
+                    element(xml, "AddtlNtryInf", t.description());
+                }
+                xml.writeEndElement();
+                count++;
+            }
+
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            // Le flux de l'appelant reste ouvert : XMLStreamWriter.close() ne le ferme pas
+            xml.close();
+            return count;
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur d'écriture du relevé camt.053", e);
+        }
+    }
+
+    /**
+     * Solde du relevé : montant positif et sens (créditeur ou débiteur)
+     */
+    private static void balance(XMLStreamWriter xml, String code, BigDecimal solde, LocalDate date)
+            throws XMLStreamException {
+        xml.writeStartElement("Bal");
+        xml.writeStartElement("Tp");
+        xml.writeStartElement("CdOrPrtry");
+        element(xml, "Cd", code);
+        xml.writeEndElement();
+        xml.writeEndElement();
+        amount(xml, solde.abs());
+        element(xml, "CdtDbtInd", solde.signum() < 0 ? "DBIT" : "CRDT");
+        xml.writeStartElement("Dt");
+        element(xml, "Dt", date.toString());
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private static void amount(XMLStreamWriter xml, BigDecimal montant) throws XMLStreamException {
+        xml.writeStartElement("Amt");
+        xml.writeAttribute("Ccy", StatementHeader.DEVISE);
+        xml.writeCharacters(montant.toPlainString());
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String nom, String valeur) throws XMLStreamException {
+        xml.writeStartElement(nom);
+        xml.writeCharacters(valeur);
+        xml.writeEndElement();
+    }
+}
@@ -0,0 +1,92 @@
+package com.ega.egabank.statement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.repository.projection.TransactionView;
+
+/**
+ * Relevé CSV (RFC 4180, UTF-8) : une ligne d'en-têtes puis une ligne par
+ * transaction. Le montant est signé (négatif au débit) ; les champs
+ * contenant un séparateur, un guillemet ou un saut de ligne sont entre
+ * guillemets.
+ */
+@Component
+public class CsvStatementWriter implements StatementFormatWriter {
+
+    private static final String EN_TETES = "id,date,type,libelle,montant,devise,solde_avant,solde_apres,"
+            + "description,compte_destination,numero_compte\r\n";
+    private static final DateTimeFormatter DATETIME_ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    @Override
+    public FormatReleve format() {
+        return FormatReleve.CSV;
+    }
+
+    @Override
+    public long write(StatementHeader entete, Iterator<TransactionView> transactions, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(EN_TETES);
+        long count = 0;
+        while (transactions.hasNext()) {
+            TransactionView t = transactions.next();
+            writer.write(String.valueOf(t.id()));
+            writer.write(',');
+            writer.write(t.dateTransaction().format(DATETIME_ISO));
+            writer.write(',');
+            writer.write(t.type().name());
+            writer.write(',');
+            champ(writer, t.type().getLibelle());
+            writer.write(',');
+            writer.write((t.type().isDebit() ? t.montant().negate() : t.montant()).toPlainString());
+            writer.write(',');
+            writer.write(StatementHeader.DEVISE);
+            writer.write(',');
+            montant(writer, t.soldeAvant());
+            writer.write(',');
+            montant(writer, t.soldeApres());
+            writer.write(',');
+            champ(writer, t.description());
+            writer.write(',');
+            champ(writer, t.compteDestination());
+            writer.write(',');
+            champ(writer, t.numeroCompte());
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void montant(Writer writer, BigDecimal montant) throws IOException {
+        if (montant != null) {
+            writer.write(montant.toPlainString());
+        }
+    }
+
+    private static void champ(Writer writer, String valeur) throws IOException {
+        if (valeur == null) {
+            return;
+        }
+        boolean protege = valeur.indexOf(',') >= 0 || valeur.indexOf('"') >= 0
+                || valeur.indexOf('\n') >= 0 || valeur.indexOf('\r') >= 0;
+        if (!protege) {
+            writer.write(valeur);
+            return;
+        }
+        writer.write('"');
+        writer.write(valeur.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,127 @@
+package com.ega.egabank.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.repository.projection.TransactionView;
+
+/**
+ * Relevé OFX 2.2 (XML), écrit en flux avec StAX : réponse de relevé bancaire
+ * ({@code STMTRS}) avec une opération {@code STMTTRN} par transaction et le
+ * solde de clôture.
+ */
+@Component
+public class OfxStatementWriter implements StatementFormatWriter {
+
+    private static final DateTimeFormatter DATE_OFX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATETIME_OFX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String BANQUE = "EGA";
+
+    private final XMLOutputFactory factory = XMLOutputFactory.newFactory();
+
+    @Override
+    public FormatReleve format() {
+        return FormatReleve.OFX;
+    }
+
+    @Override
+    public long write(StatementHeader entete, Iterator<TransactionView> transactions, OutputStream out)
+            throws IOException {
+        try {
+            XMLStreamWriter xml = factory.createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeProcessingInstruction("OFX", "OFXHEADER=\"200\" VERSION=\"220\" SECURITY=\"NONE\" "
+                    + "OLDFILEUID=\"NONE\" NEWFILEUID=\"NONE\"");
+            xml.writeStartElement("OFX");
+
+            xml.writeStartElement("SIGNONMSGSRSV1");
+            xml.writeStartElement("SONRS");
+            status(xml);
+            element(xml, "DTSERVER", entete.genereLe().format(DATETIME_OFX));
+            element(xml, "LANGUAGE", "FRA");
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("BANKMSGSRSV1");
+            xml.writeStartElement("STMTTRNRS");
+            element(xml, "TRNUID", "0");
+            status(xml);
+            xml.writeStartElement("STMTRS");
+            element(xml, "CURDEF", StatementHeader.DEVISE);
+            xml.writeStartElement("BANKACCTFROM");
+            element(xml, "BANKID", BANQUE);
+            element(xml, "ACCTID", entete.numeroCompte());
+            element(xml, "ACCTTYPE", entete.typeCompte() == TypeCompte.EPARGNE ? "SAVINGS" : "CHECKING");
+            xml.writeEndElement();
+
+            xml.writeStartElement("BANKTRANLIST");
+            element(xml, "DTSTART", entete.debut().format(DATE_OFX));
+            element(xml, "DTEND", entete.fin().format(DATE_OFX));
+            long count = 0;
+            while (transactions.hasNext()) {
+                TransactionView t = transactions.next();
+                xml.writeStartElement("STMTTRN");
+                element(xml, "TRNTYPE", trnType(t.type()));
+                element(xml, "DTPOSTED", t.dateTransaction().format(DATETIME_OFX));
+                element(xml, "TRNAMT", (t.type().isDebit() ? t.montant().negate() : t.montant()).toPlainString());
+                element(xml, "FITID", String.valueOf(t.id()));
+                element(xml, "NAME", t.type().getLibelle());
+                if (t.description() != null) {
+                    element(xml, "MEMO", t.description());
+                }
+                xml.writeEndElement();
+                count++;
+            }
+            xml.writeEndElement();
+
+            xml.writeStartElement("LEDGERBAL");
+            element(xml, "BALAMT", entete.soldeCloture().toPlainString());
+            element(xml, "DTASOF", entete.fin().format(DATE_OFX));
+            xml.writeEndElement();
+
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            // Le flux de l'appelant reste ouvert : XMLStreamWriter.close() ne le ferme pas
+            xml.close();
+            return count;
+        } catch (XMLStreamException e) {
+            throw new IOException("Erreur d'écriture du relevé OFX", e);
+        }
+    }
+
+    private static String trnType(TypeTransaction type) {
+        return switch (type) {
+            case DEPOT -> "DEP";
+            case RETRAIT -> "DEBIT";
+            case VIREMENT_ENTRANT, VIREMENT_SORTANT -> "XFER";
+        };
+    }
+
+    private static void status(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeStartElement("STATUS");
+        element(xml, "CODE", "0");
+        element(xml, "SEVERITY", "INFO");
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String nom, String valeur) throws XMLStreamException {
+        xml.writeStartElement(nom);
+        xml.writeCharacters(valeur);
+        xml.writeEndElement();
+    }
+}
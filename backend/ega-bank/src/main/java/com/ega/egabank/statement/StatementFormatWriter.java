@@ -0,0 +1,24 @@
+package com.ega.egabank.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.repository.projection.TransactionView;
+
+/**
+ * Écrit un relevé dans un format d'échange au fil des transactions, par
+ * ordre chronologique, sans les conserver : la mémoire utilisée ne dépend
+ * pas de la longueur de la période. Le flux n'est pas fermé.
+ */
+public interface StatementFormatWriter {
+
+    FormatReleve format();
+
+    /**
+     * Retourne le nombre de transactions écrites
+     */
+    long write(StatementHeader entete, Iterator<TransactionView> transactions, OutputStream out)
+            throws IOException;
+}
@@ -0,0 +1,25 @@
+package com.ega.egabank.statement;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.ega.egabank.enums.TypeCompte;
+
+/**
+ * En-tête d'un relevé au format d'échange : compte, période et soldes
+ * d'ouverture et de clôture, connus avant le parcours des transactions
+ */
+public record StatementHeader(
+        String numeroCompte,
+        TypeCompte typeCompte,
+        String titulaire,
+        LocalDate debut,
+        LocalDate fin,
+        BigDecimal soldeOuverture,
+        BigDecimal soldeCloture,
+        LocalDateTime genereLe) {
+
+    /** Devise des comptes de la banque */
+    public static final String DEVISE = "XOF";
+}
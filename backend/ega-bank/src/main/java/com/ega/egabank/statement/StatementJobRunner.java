@@ -0,0 +1,380 @@
+package com.ega.egabank.statement;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.enums.StatutJob;
+import com.ega.egabank.exception.StatementGenerationException;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.StatementJobRepository;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.TransactionView;
+import com.ega.egabank.service.StatementService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exécution des lots de relevés de masse.
+ * <p>
+ * Un thread coordinateur prend les lots un par un. Il parcourt les comptes
+ * actifs par identifiant croissant, en tranches de {@code chunk-accounts}
+ * comptes, et confie chaque tranche à un pool borné de {@code workers}
+ * threads (par défaut un par cœur). Un travailleur charge les comptes de sa
+ * tranche avec leur titulaire en une requête, leurs transactions de la
+ * période en une seconde, puis écrit un PDF par compte dans le répertoire du
+ * lot (fichier temporaire puis déplacement atomique).
+ * <p>
+ * Le coordinateur est seul à mettre à jour le lot : à chaque tranche
+ * terminée dans l'ordre de soumission, il enregistre l'avancement et le
+ * point de reprise. Un lot interrompu (arrêt de l'application) est repris au
+ * démarrage suivant après ce point ; les relevés déjà présents sur disque au
+ * delà ne sont pas régénérés.
+ */
+@Slf4j
+@Component
+public class StatementJobRunner implements MeterBinder {
+
+    private static final String EXTENSION = ".pdf";
+    private static final String EXTENSION_TEMPORAIRE = ".tmp";
+    private static final Set<StatutJob> A_REPRENDRE = EnumSet.of(StatutJob.EN_ATTENTE, StatutJob.EN_COURS);
+
+    private final StatementJobRepository statementJobRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final StatementService statementService;
+
+    private final Path directory;
+    private final int workers;
+    private final int chunkAccounts;
+    private final ThreadPoolExecutor pool;
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread coordinator;
+
+    public StatementJobRunner(StatementJobRepository statementJobRepository,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            StatementService statementService,
+            @Value("${app.statement.jobs.directory:data/statement-jobs}") String directory,
+            @Value("${app.statement.jobs.workers:0}") int workers,
+            @Value("${app.statement.jobs.chunk-accounts:100}") int chunkAccounts) {
+        this.statementJobRepository = statementJobRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.statementService = statementService;
+        this.directory = Paths.get(directory);
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.chunkAccounts = Math.max(1, chunkAccounts);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.workers, this.workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "statement-job-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire des lots de relevés inaccessible: " + directory, e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        coordinator = new Thread(this::run, "statement-jobs");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        log.info("Relevés de masse - {} travailleurs, tranches de {} comptes", workers, chunkAccounts);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (coordinator == null) {
+            return;
+        }
+        // Le lot en cours reste EN_COURS : il sera repris au prochain démarrage
+        running = false;
+        coordinator.interrupt();
+        pool.shutdownNow();
+        coordinator.join(TimeUnit.SECONDS.toMillis(30));
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Remet en file les lots non terminés lors du précédent arrêt
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        List<StatementJob> jobs = statementJobRepository.findByStatutInOrderByIdAsc(A_REPRENDRE);
+        jobs.forEach(job -> enqueue(job.getId()));
+        if (!jobs.isEmpty()) {
+            log.info("Relevés de masse - reprise de {} lots", jobs.size());
+        }
+    }
+
+    /**
+     * Place un lot en file d'exécution (sans effet s'il y est déjà)
+     */
+    public synchronized void enqueue(Long jobId) {
+        if (!queue.contains(jobId)) {
+            queue.add(jobId);
+        }
+    }
+
+    /**
+     * Répertoire des relevés d'un lot, un fichier {@code <numéro de compte>.pdf} par compte
+     */
+    public Path directoryOf(Long jobId) {
+        return directory.resolve(String.valueOf(jobId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("egabank.statement.jobs.rendered", rendered, LongAdder::sum)
+                .description("Relevés de masse générés")
+                .register(registry);
+        FunctionCounter.builder("egabank.statement.jobs.skipped", skipped, LongAdder::sum)
+                .description("Relevés de masse déjà présents lors d'une reprise")
+                .register(registry);
+        FunctionCounter.builder("egabank.statement.jobs.failed", failed, LongAdder::sum)
+                .description("Relevés de masse en erreur")
+                .register(registry);
+        Gauge.builder("egabank.statement.jobs.queued", queue, BlockingQueue::size)
+                .description("Lots de relevés en attente")
+                .register(registry);
+        Gauge.builder("egabank.statement.jobs.workers.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Travailleurs occupés à générer une tranche")
+                .register(registry);
+    }
+
+    private void run() {
+        while (running) {
+            Long jobId;
+            try {
+                jobId = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                process(jobId);
+            } catch (InterruptedException e) {
+                log.info("Lot de relevés {} interrompu, reprise au prochain démarrage", jobId);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Échec du lot de relevés {}", jobId, e);
+                fail(jobId, e);
+            }
+        }
+    }
+
+    private void process(Long jobId) throws InterruptedException {
+        StatementJob job = statementJobRepository.findById(jobId).orElse(null);
+        if (job == null || !A_REPRENDRE.contains(job.getStatut())) {
+            return;
+        }
+        long depart = System.nanoTime();
+        Path dossier = prepare(jobId);
+        job.setStatut(StatutJob.EN_COURS);
+        job = statementJobRepository.save(job);
+
+        LocalDate debut = job.getDebut();
+        LocalDate fin = job.getFin();
+        Long dernierCompteId = job.getDernierCompteId();
+        // Au plus deux tranches par travailleur en file : la lecture des identifiants suit le rendu
+        int maxEnCours = workers * 2;
+        Deque<Future<ChunkResult>> enCours = new ArrayDeque<>();
+        try {
+            long apres = job.getCheckpoint();
+            List<Long> ids;
+            do {
+                ids = accountRepository.findActiveIdsAfter(apres, dernierCompteId, Limit.of(chunkAccounts));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                apres = ids.get(ids.size() - 1);
+                List<Long> tranche = ids;
+                while (enCours.size() >= maxEnCours) {
+                    job = record(job, enCours.removeFirst());
+                }
+                enCours.addLast(pool.submit(() -> renderChunk(dossier, tranche, debut, fin)));
+                while (!enCours.isEmpty() && enCours.peekFirst().isDone()) {
+                    job = record(job, enCours.removeFirst());
+                }
+            } while (ids.size() == chunkAccounts);
+            while (!enCours.isEmpty()) {
+                job = record(job, enCours.removeFirst());
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            enCours.forEach(future -> future.cancel(true));
+            throw e;
+        }
+
+        job.setStatut(StatutJob.TERMINE);
+        job.setTermineLe(LocalDateTime.now());
+        statementJobRepository.save(job);
+        log.info("Lot de relevés {} terminé - {} relevés, {} en erreur, en {} ms", jobId, job.getComptesTraites(),
+                job.getComptesEnErreur(), (System.nanoTime() - depart) / 1_000_000);
+    }
+
+    /**
+     * Enregistre le résultat d'une tranche : avancement et point de reprise
+     */
+    private StatementJob record(StatementJob job, Future<ChunkResult> future) throws InterruptedException {
+        ChunkResult resultat;
+        try {
+            resultat = future.get();
+        } catch (ExecutionException e) {
+            throw new StatementGenerationException("Erreur lors de la génération du lot de relevés", e.getCause());
+        }
+        job.setComptesTraites(job.getComptesTraites() + resultat.traites());
+        job.setComptesEnErreur(job.getComptesEnErreur() + resultat.erreurs());
+        job.setCheckpoint(resultat.dernierCompteId());
+        return statementJobRepository.save(job);
+    }
+
+    /**
+     * Génère les relevés d'une tranche de comptes : deux requêtes pour toute
+     * la tranche, puis un fichier par compte. Un relevé en échec est compté
+     * sans interrompre la tranche.
+     */
+    private ChunkResult renderChunk(Path dossier, List<Long> ids, LocalDate debut, LocalDate fin) {
+        List<Account> comptes = new ArrayList<>();
+        long traites = 0;
+        for (Account compte : accountRepository.findAllWithClientByIdIn(ids)) {
+            if (Files.exists(fichier(dossier, compte))) {
+                // Relevé écrit avant l'interruption du lot
+                skipped.increment();
+                traites++;
+            } else {
+                comptes.add(compte);
+            }
+        }
+
+        Map<String, List<TransactionView>> transactions = comptes.isEmpty()
+                ? Map.of()
+                : transactionRepository.findPeriodByCompteIdIn(
+                        comptes.stream().map(Account::getId).toList(),
+                        debut.atStartOfDay(), fin.atTime(LocalTime.MAX))
+                        .stream()
+                        .collect(Collectors.groupingBy(TransactionView::numeroCompte));
+
+        long erreurs = 0;
+        for (Account compte : comptes) {
+            try {
+                write(dossier, compte, debut, fin, transactions.getOrDefault(compte.getNumeroCompte(), List.of()));
+                rendered.increment();
+                traites++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Relevé de masse en erreur pour le compte {}", compte.getNumeroCompte(), e);
+                failed.increment();
+                erreurs++;
+            }
+        }
+        return new ChunkResult(ids.get(ids.size() - 1), traites, erreurs);
+    }
+
+    private void write(Path dossier, Account compte, LocalDate debut, LocalDate fin,
+            List<TransactionView> transactions) throws IOException {
+        Path temporaire = Files.createTempFile(dossier, "releve-", EXTENSION_TEMPORAIRE);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaire))) {
+            statementService.renderStatement(compte, debut, fin, transactions.iterator(), out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+        Files.move(temporaire, fichier(dossier, compte), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Crée le répertoire du lot et supprime les fichiers temporaires laissés
+     * par un arrêt brutal
+     */
+    private Path prepare(Long jobId) {
+        Path dossier = directoryOf(jobId);
+        try {
+            Files.createDirectories(dossier);
+            try (DirectoryStream<Path> temporaires = Files.newDirectoryStream(dossier, "*" + EXTENSION_TEMPORAIRE)) {
+                for (Path temporaire : temporaires) {
+                    Files.deleteIfExists(temporaire);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire du lot de relevés inaccessible: " + dossier, e);
+        }
+        return dossier;
+    }
+
+    private void fail(Long jobId, RuntimeException e) {
+        try {
+            statementJobRepository.findById(jobId).ifPresent(job -> {
+                String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                job.setStatut(StatutJob.ECHOUE);
+                job.setMessage(message != null && message.length() > 500 ? message.substring(0, 500) : message);
+                job.setTermineLe(LocalDateTime.now());
+                statementJobRepository.save(job);
+            });
+        } catch (RuntimeException suivante) {
+            log.error("Impossible d'enregistrer l'échec du lot de relevés {}", jobId, suivante);
+        }
+    }
+
+    private static Path fichier(Path dossier, Account compte) {
+        return dossier.resolve(compte.getNumeroCompte() + EXTENSION);
+    }
+
+    /**
+     * Bilan d'une tranche : dernier compte de la tranche et nombre de relevés
+     */
+    private record ChunkResult(Long dernierCompteId, long traites, long erreurs) {
+    }
+}
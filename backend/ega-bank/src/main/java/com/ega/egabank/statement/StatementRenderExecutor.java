@@ -0,0 +1,120 @@
+package com.ega.egabank.statement;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ega.egabank.exception.CapacityExceededException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool borné dédié à la génération des relevés à la demande.
+ * <p>
+ * La mise en page d'un relevé est coûteuse en CPU et en allocations : elle
+ * ne s'exécute pas sur les threads Tomcat, qui restent disponibles pour les
+ * imputations. Le pool compte {@code workers} threads (par défaut la moitié
+ * des cœurs) et une file de {@code queue-capacity} demandes ; au-delà, la
+ * demande est refusée immédiatement par une {@link CapacityExceededException}
+ * (HTTP 429 avec Retry-After) au lieu d'attendre.
+ */
+@Slf4j
+@Component
+public class StatementRenderExecutor implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public StatementRenderExecutor(
+            @Value("${app.statement.render.workers:0}") int workers,
+            @Value("${app.statement.render.queue-capacity:16}") int queueCapacity,
+            @Value("${app.statement.render.retry-after-seconds:5}") long retryAfterSeconds) {
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), task -> {
+                    Thread thread = new Thread(task, "statement-render-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryAfterSeconds = retryAfterSeconds;
+        log.info("Génération des relevés - {} threads, file de {} demandes", threads, Math.max(1, queueCapacity));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Place une génération dans la file du pool. Le résultat (ou l'exception
+     * de la génération) est transmis par le futur.
+     *
+     * @throws CapacityExceededException si la file est pleine
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> generation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long debut = System.nanoTime();
+                try {
+                    future.complete(generation.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    renders.increment();
+                    renderNanos.add(System.nanoTime() - debut);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new CapacityExceededException("Trop de relevés en cours de génération, veuillez réessayer",
+                    retryAfterSeconds);
+        }
+        return future;
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("egabank.statement.render.queue", this, StatementRenderExecutor::getQueueSize)
+                .description("Relevés en attente de génération")
+                .register(registry);
+        Gauge.builder("egabank.statement.render.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Relevés en cours de génération")
+                .register(registry);
+        FunctionTimer.builder("egabank.statement.render", this,
+                pool -> renders.sum(), pool -> renderNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Durée de génération des relevés, hors attente en file")
+                .register(registry);
+        FunctionCounter.builder("egabank.statement.render.rejected", rejections, LongAdder::sum)
+                .description("Demandes de relevé refusées, file pleine")
+                .register(registry);
+    }
+}
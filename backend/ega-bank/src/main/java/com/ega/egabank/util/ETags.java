@@ -0,0 +1,41 @@
+package com.ega.egabank.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Construction d'ETags forts à partir des marqueurs de version d'une ressource.
+ * <p>
+ * Les marqueurs sont condensés (SHA-256 tronqué) pour ne pas exposer les
+ * versions internes ; deux ensembles de marqueurs égaux donnent le même ETag.
+ */
+public final class ETags {
+
+    private static final int LONGUEUR_OCTETS = 16;
+
+    private ETags() {
+    }
+
+    public static String strong(Object... marqueurs) {
+        return '"' + digest(marqueurs) + '"';
+    }
+
+    /**
+     * Condensé hexadécimal des marqueurs, sans guillemets (clés de cache, noms de fichiers)
+     */
+    public static String digest(Object... marqueurs) {
+        StringBuilder raw = new StringBuilder();
+        for (Object marqueur : marqueurs) {
+            raw.append(marqueur).append('|');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(raw.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, LONGUEUR_OCTETS);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ega.egabank.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.ega.egabank.exception.OperationNotAllowedException;
+
+/**
+ * Position dans une liste de transactions triée par (date, id) décroissants.
+ * <p>
+ * Transmise au client sous forme d'un jeton opaque (Base64 URL) : le client
+ * le renvoie tel quel pour obtenir la page suivante.
+ */
+public record KeysetCursor(LocalDateTime dateTransaction, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = dateTransaction.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un jeton ; retourne null pour un jeton absent (première page)
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new OperationNotAllowedException("Curseur de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.search.AccountNumberIndex;
+import com.ega.egabank.util.IbanGenerator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mesure la latence des suggestions de numéros de compte servies par
+ * l'index trié, sur des IBAN générés.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.accounts=1000000}
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Benchmark de l'index des numéros de compte")
+class AccountNumberIndexBenchmarkTest {
+
+    private static final int PREFIXES = 1_000;
+
+    private final int accounts = Integer.getInteger("benchmark.accounts", 1_000_000);
+
+    @Test
+    @DisplayName("Latence p50 / p99 d'une suggestion de 10 numéros")
+    void measureSuggestLatency() {
+        IbanGenerator generator = new IbanGenerator();
+        String[] numeros = Stream.generate(generator::generate).limit(accounts).toArray(String[]::new);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        when(accountRepository.streamNumerosCompte()).thenReturn(Arrays.stream(numeros));
+        AccountNumberIndex index = new AccountNumberIndex(accountRepository, mock(PlatformTransactionManager.class),
+                true);
+        long debut = System.nanoTime();
+        index.rebuild();
+        log.info("Index de {} numéros construit en {} ms", accounts, (System.nanoTime() - debut) / 1_000_000);
+
+        // Préfixes saisis au fil de la frappe : de 4 caractères à l'IBAN complet
+        Random random = new Random(42);
+        String[] prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String numero = numeros[random.nextInt(accounts)];
+            prefixes[i] = numero.substring(0, 4 + random.nextInt(numero.length() - 3));
+        }
+
+        // Échauffement
+        for (int i = 0; i < 20_000; i++) {
+            index.suggest(prefixes[i % PREFIXES], 10);
+        }
+
+        int iterations = 100_000;
+        long[] durees = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long t = System.nanoTime();
+            index.suggest(prefixes[i % PREFIXES], 10);
+            durees[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(durees);
+        log.info("Suggestion sur {} numéros : p50 = {} ns, p99 = {} ns", accounts,
+                durees[iterations / 2], durees[iterations * 99 / 100]);
+        assertThat(index.suggest(prefixes[0], 10)).isNotEmpty().allMatch(n -> n.startsWith(prefixes[0]));
+    }
+}
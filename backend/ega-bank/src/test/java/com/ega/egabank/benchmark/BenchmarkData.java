@@ -0,0 +1,82 @@
+package com.ega.egabank.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.TransactionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Jeu de données commun aux benchmarks : client, comptes courants vides et
+ * historique inséré en une requête {@code SYSTEM_RANGE} (sans passer par JPA).
+ * À importer avec {@code @Import(BenchmarkData.class)}.
+ */
+@TestComponent
+@RequiredArgsConstructor
+class BenchmarkData {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClientRepository clientRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    Client client(String prenom) {
+        return clientRepository.save(Client.builder()
+                .nom("Benchmark")
+                .prenom(prenom)
+                .dateNaissance(LocalDate.of(1990, 1, 1))
+                .sexe(Sexe.MASCULIN)
+                .build());
+    }
+
+    /**
+     * Comptes courants à solde nul ; un compte restant d'une exécution précédente est remplacé
+     */
+    List<Account> accounts(Client client, List<String> numeros) {
+        List<Account> comptes = new ArrayList<>(numeros.size());
+        for (String numero : numeros) {
+            accountRepository.findByNumeroCompte(numero).ifPresent(accountRepository::delete);
+            comptes.add(Account.builder()
+                    .numeroCompte(numero)
+                    .typeCompte(TypeCompte.COURANT)
+                    .solde(BigDecimal.ZERO)
+                    .actif(true)
+                    .proprietaire(client)
+                    .build());
+        }
+        return accountRepository.saveAll(comptes);
+    }
+
+    Account account(Client client, String numero) {
+        return accounts(client, List.of(numero)).get(0);
+    }
+
+    /**
+     * Dépôts de 10 toutes les dix minutes à partir de l'origine, soldes cohérents
+     */
+    void history(Account compte, LocalDateTime origine, int rows) {
+        jdbcTemplate.update("INSERT INTO transactions (id, type_transaction, montant, date_transaction, "
+                + "solde_avant, solde_apres, account_id) "
+                + "SELECT X, 'DEPOT', 10, DATEADD('MINUTE', X * 10, CAST(? AS TIMESTAMP)), "
+                + "X * 10 - 10, X * 10, CAST(? AS BIGINT) "
+                + "FROM SYSTEM_RANGE(1, CAST(? AS BIGINT))",
+                origine, compte.getId(), rows);
+    }
+
+    void clearTransactions() {
+        transactionRepository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.ClientSearchEntry;
+import com.ega.egabank.search.ClientSearchIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mesure la latence des recherches de clients servies par l'index de
+ * trigrammes, sur une population synthétique.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.clients=1000000}
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Benchmark de l'index de recherche des clients")
+class ClientSearchIndexBenchmarkTest {
+
+    /** Syllabes combinées pour produire des noms variés, comme dans une vraie clientèle */
+    private static final String[] SYLLABES = { "a", "ko", "me", "nsa", "dji", "gbe", "la", "wo", "son", "tcha",
+            "du", "ma", "ri", "pon", "se", "na", "ke", "fi", "yao", "bi", "to", "lo", "de", "ssou", "ga",
+            "ba", "kpo", "dzi", "vi", "zo", "hou", "ny", "ef", "ok", "ul", "tri", "bru", "gna", "mpe", "vo",
+            "che", "jo", "xi", "que", "fla", "sti", "ur", "oa", "ie", "pla", "dro", "cly", "zem", "hwa", "kwe",
+            "gu", "ndi", "mbo", "ru", "eth" };
+    private static final int TERMES = 1_000;
+
+    private final int clients = Integer.getInteger("benchmark.clients", 200_000);
+
+    @Test
+    @DisplayName("Latence p50 / p99 d'une première page de résultats")
+    void measureSearchLatency() {
+        Random random = new Random(42);
+        ClientRepository clientRepository = mock(ClientRepository.class);
+        when(clientRepository.streamSearchEntries()).thenReturn(IntStream.rangeClosed(1, clients)
+                .mapToObj(id -> {
+                    String nom = nom(random, 3);
+                    String prenom = nom(random, 2);
+                    return new ClientSearchEntry((long) id, nom, prenom,
+                            (prenom + "." + nom + id % 1000 + "@exemple.tg").toLowerCase());
+                }));
+        ClientSearchIndex index = new ClientSearchIndex(clientRepository, mock(PlatformTransactionManager.class),
+                true, 1_000);
+        long debut = System.nanoTime();
+        index.rebuild();
+        log.info("Index de {} clients construit en {} ms", clients, (System.nanoTime() - debut) / 1_000_000);
+
+        // Termes saisis au fil de la frappe : débuts de noms de 3 à 6 caractères
+        String[] termes = new String[TERMES];
+        for (int i = 0; i < TERMES; i++) {
+            String nom = nom(random, 3).toLowerCase();
+            termes[i] = nom.substring(0, Math.min(nom.length(), 3 + random.nextInt(4)));
+        }
+
+        // Échauffement
+        for (int i = 0; i < 2_000; i++) {
+            index.search(termes[i % TERMES], 0, 10);
+            index.searchSlice(termes[i % TERMES], 0, 10);
+        }
+
+        mesurer("Recherche paginée", clients, i -> index.search(termes[i % TERMES], 0, 10));
+        mesurer("Recherche par tranche", clients, i -> index.searchSlice(termes[i % TERMES], 0, 10));
+        assertThat(index.size()).isEqualTo(clients);
+    }
+
+    private static void mesurer(String libelle, int clients, IntConsumer recherche) {
+        int iterations = 10_000;
+        long[] durees = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long t = System.nanoTime();
+            recherche.accept(i);
+            durees[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(durees);
+        log.info("{} sur {} clients : p50 = {} µs, p99 = {} µs", libelle, clients,
+                durees[iterations / 2] / 1_000, durees[iterations * 99 / 100] / 1_000);
+    }
+
+    private static String nom(Random random, int syllabes) {
+        StringBuilder nom = new StringBuilder();
+        for (int i = 0; i < syllabes; i++) {
+            nom.append(SYLLABES[random.nextInt(SYLLABES.length)]);
+        }
+        nom.setCharAt(0, Character.toUpperCase(nom.charAt(0)));
+        return nom.toString();
+    }
+}
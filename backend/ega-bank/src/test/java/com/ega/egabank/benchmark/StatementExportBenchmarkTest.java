@@ -0,0 +1,123 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.service.StatementService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compare, sur la même période, la génération du relevé PDF et son export en
+ * CSV, OFX et camt.053 : les formats machine, écrits en flux par tranches
+ * sans mise en page, doivent être d'un ordre de grandeur plus rapides. La
+ * mémoire vivante est relevée à la fin de chaque export.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.rows=1000000}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.ega.egabank=INFO"
+})
+@ActiveProfiles("test")
+@Import(BenchmarkData.class)
+@DisplayName("Benchmark des exports de relevé CSV, OFX et camt.053")
+class StatementExportBenchmarkTest {
+
+    private static final String IBAN = "TG11EGA0000100000000951";
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private BenchmarkData data;
+
+    @Autowired
+    private StatementService statementService;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 100_000);
+
+    @BeforeEach
+    void setUp() {
+        data.clearTransactions();
+        Account compte = data.account(data.client("Export"), IBAN);
+        data.history(compte, ORIGINE, rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.clearTransactions();
+    }
+
+    @Test
+    @DisplayName("Durée du relevé PDF et des exports sur toute l'histoire du compte")
+    void compareFormats() {
+        LocalDate debut = ORIGINE.toLocalDate();
+        LocalDate fin = ORIGINE.plusMinutes(rows * 10L).toLocalDate();
+
+        // Premier passage à blanc pour charger les classes et chauffer le JIT
+        mesurer(out -> statementService.exportStatement(IBAN, debut, debut, FormatReleve.CSV, out));
+        mesurer(out -> statementService.writeStatement(IBAN, debut, debut, out));
+
+        long repos = memoireVivante();
+        Mesure pdf = mesurer(out -> statementService.writeStatement(IBAN, debut, fin, out));
+        log.info("Mémoire vivante au repos : {} Mo", repos / (1024 * 1024));
+        log.info("PDF : {} Ko en {} ms", pdf.octets / 1024, pdf.millis);
+        for (FormatReleve format : new FormatReleve[] { FormatReleve.CSV, FormatReleve.OFX, FormatReleve.CAMT053 }) {
+            Mesure export = mesurer(out -> statementService.exportStatement(IBAN, debut, fin, format, out));
+            log.info("{} ({} opérations) : {} Ko en {} ms, {}x plus rapide que le PDF, mémoire vivante +{} Mo",
+                    format, rows, export.octets / 1024, export.millis,
+                    pdf.millis / Math.max(1, export.millis), (memoireVivante() - repos) / (1024 * 1024));
+            assertThat(export.octets).isPositive();
+        }
+    }
+
+    private static Mesure mesurer(Consumer<OutputStream> ecriture) {
+        Mesure mesure = new Mesure();
+        long depart = System.nanoTime();
+        ecriture.accept(mesure);
+        mesure.millis = (System.nanoTime() - depart) / 1_000_000;
+        return mesure;
+    }
+
+    /**
+     * Flux qui ne fait que compter les octets écrits
+     */
+    private static final class Mesure extends OutputStream {
+
+        private long octets;
+        private long millis;
+
+        @Override
+        public void write(int b) {
+            octets++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            octets += len;
+        }
+    }
+
+    private static long memoireVivante() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
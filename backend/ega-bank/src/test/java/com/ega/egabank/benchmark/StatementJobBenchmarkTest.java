@@ -0,0 +1,156 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.enums.StatutJob;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.StatementJobRepository;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.service.StatementService;
+import com.ega.egabank.statement.StatementJobRunner;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mesure le débit des relevés de masse avec un seul travailleur puis avec un
+ * travailleur par cœur, sur les mêmes comptes et la même période.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.accounts=10000}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.ega.egabank=INFO"
+})
+@ActiveProfiles("test")
+@Import(BenchmarkData.class)
+@DisplayName("Benchmark des relevés de masse")
+class StatementJobBenchmarkTest {
+
+    private static final String IBAN_PREFIXE = "TG11EGA00001009";
+    private static final int OPERATIONS_PAR_COMPTE = 30;
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int TRANCHE = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private StatementJobRepository statementJobRepository;
+
+    @Autowired
+    private BenchmarkData data;
+
+    @Autowired
+    private StatementService statementService;
+
+    private final int accounts = Integer.getInteger("benchmark.accounts", 2_000);
+
+    @BeforeEach
+    void setUp() {
+        data.clearTransactions();
+        List<String> numeros = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            numeros.add(IBAN_PREFIXE + String.format("%08d", i));
+        }
+        data.accounts(data.client("Masse"), numeros);
+
+        // Une opération par jour et par compte sur le mois de janvier
+        jdbcTemplate.update("INSERT INTO transactions (id, type_transaction, montant, date_transaction, "
+                + "solde_avant, solde_apres, account_id) "
+                + "SELECT a.id * 100 + X, 'DEPOT', 10, DATEADD('DAY', X, CAST(? AS TIMESTAMP)), "
+                + "X * 10 - 10, X * 10, a.id "
+                + "FROM accounts a, SYSTEM_RANGE(1, CAST(? AS BIGINT)) "
+                + "WHERE a.numero_compte LIKE ?",
+                ORIGINE, OPERATIONS_PAR_COMPTE, IBAN_PREFIXE + "%");
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementJobRepository.deleteAll();
+        data.clearTransactions();
+    }
+
+    @Test
+    @DisplayName("Débit avec un travailleur puis un travailleur par cœur")
+    void measureThroughput() throws InterruptedException {
+        int coeurs = Runtime.getRuntime().availableProcessors();
+
+        // Échauffement (chargement des polices, compilation)
+        run(coeurs);
+        Mesure seul = run(1);
+        Mesure parallele = run(coeurs);
+
+        log.info("1 travailleur : {} relevés en {} ms ({} relevés/s)",
+                seul.releves, seul.millis, seul.debit());
+        log.info("{} travailleurs : {} relevés en {} ms ({} relevés/s, {}x)",
+                coeurs, parallele.releves, parallele.millis, parallele.debit(),
+                String.format("%.1f", (double) parallele.debit() / Math.max(1, seul.debit())));
+
+        assertThat(parallele.releves).isEqualTo(seul.releves).isGreaterThanOrEqualTo(accounts);
+    }
+
+    private Mesure run(int workers) throws InterruptedException {
+        StatementJobRunner runner = new StatementJobRunner(statementJobRepository, accountRepository,
+                transactionRepository, statementService, "target/statement-jobs-benchmark", workers, TRANCHE);
+        runner.start();
+        try {
+            long dernierCompteId = accountRepository.findMaxId();
+            StatementJob job = statementJobRepository.save(StatementJob.builder()
+                    .debut(ORIGINE.toLocalDate())
+                    .fin(ORIGINE.toLocalDate().plusMonths(1))
+                    .statut(StatutJob.EN_ATTENTE)
+                    .dernierCompteId(dernierCompteId)
+                    .totalComptes(accountRepository.countActiveUpTo(dernierCompteId))
+                    .build());
+
+            long depart = System.nanoTime();
+            runner.enqueue(job.getId());
+            while (job.getStatut() != StatutJob.TERMINE && job.getStatut() != StatutJob.ECHOUE) {
+                Thread.sleep(20);
+                job = statementJobRepository.findById(job.getId()).orElseThrow();
+            }
+            Mesure mesure = new Mesure();
+            mesure.millis = (System.nanoTime() - depart) / 1_000_000;
+            mesure.releves = job.getComptesTraites();
+            assertThat(job.getComptesEnErreur()).isZero();
+            return mesure;
+        } finally {
+            runner.stop();
+        }
+    }
+
+    private static final class Mesure {
+
+        private long releves;
+        private long millis;
+
+        private long debit() {
+            return releves * 1000 / Math.max(1, millis);
+        }
+    }
+}
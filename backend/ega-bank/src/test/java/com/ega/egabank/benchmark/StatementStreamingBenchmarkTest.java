@@ -0,0 +1,132 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.service.StatementService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mesure la mémoire vivante pendant l'écriture en flux d'un relevé, pour une
+ * période courte puis pour toute l'histoire d'un compte : elle doit rester
+ * du même ordre, quelle que soit la longueur de la période.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.rows=1000000}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.ega.egabank=INFO"
+})
+@ActiveProfiles("test")
+@Import(BenchmarkData.class)
+@DisplayName("Benchmark du relevé PDF en flux")
+class StatementStreamingBenchmarkTest {
+
+    private static final String IBAN = "TG11EGA0000100000000950";
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(2020, 1, 1, 0, 0);
+    /** Mesure de la mémoire vivante tous les 512 Ko écrits */
+    private static final long PAS_MESURE = 512L * 1024;
+
+    @Autowired
+    private BenchmarkData data;
+
+    @Autowired
+    private StatementService statementService;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200_000);
+
+    @BeforeEach
+    void setUp() {
+        data.clearTransactions();
+        Account compte = data.account(data.client("Releve"), IBAN);
+        data.history(compte, ORIGINE, rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.clearTransactions();
+    }
+
+    @Test
+    @DisplayName("Mémoire vivante d'un relevé court et d'un relevé complet")
+    void measureLiveHeap() {
+        LocalDate debut = ORIGINE.toLocalDate();
+        LocalDate finComplete = ORIGINE.plusMinutes(rows * 10L).toLocalDate();
+        LocalDate finCourte = ORIGINE.plusMinutes(rows).toLocalDate();
+
+        // Mémoire vivante de l'application et des données H2 avant toute écriture
+        long repos = memoireVivante();
+        Mesure courte = stream(debut, finCourte);
+        Mesure complete = stream(debut, finComplete);
+
+        log.info("Mémoire vivante au repos : {} Mo", repos / (1024 * 1024));
+        log.info("Relevé court : {} Ko écrits, mémoire vivante max +{} Mo, {} ms",
+                courte.octets / 1024, (courte.memoireMax - repos) / (1024 * 1024), courte.millis);
+        log.info("Relevé complet ({} opérations) : {} Ko écrits, mémoire vivante max +{} Mo, {} ms",
+                rows, complete.octets / 1024, (complete.memoireMax - repos) / (1024 * 1024), complete.millis);
+
+        assertThat(complete.octets).isGreaterThan(courte.octets);
+    }
+
+    private Mesure stream(LocalDate debut, LocalDate fin) {
+        Mesure mesure = new Mesure();
+        long depart = System.nanoTime();
+        statementService.writeStatement(IBAN, debut, fin, mesure);
+        mesure.millis = (System.nanoTime() - depart) / 1_000_000;
+        return mesure;
+    }
+
+    /**
+     * Flux qui compte les octets et relève la mémoire vivante (après GC) à intervalles réguliers
+     */
+    private static final class Mesure extends OutputStream {
+
+        private long octets;
+        private long prochaineMesure = PAS_MESURE;
+        private long memoireMax;
+        private long millis;
+
+        @Override
+        public void write(int b) {
+            octets++;
+            mesurer();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            octets += len;
+            mesurer();
+        }
+
+        private void mesurer() {
+            if (octets < prochaineMesure) {
+                return;
+            }
+            prochaineMesure += PAS_MESURE;
+            memoireMax = Math.max(memoireMax, memoireVivante());
+        }
+    }
+
+    private static long memoireVivante() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,151 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.entity.Account;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compare le plan et la latence des requêtes de période d'un compte : filtre
+ * sur le numéro de compte joint avec l'index simple sur {@code account_id},
+ * puis filtre sur {@code account_id} avec l'index (compte, date, id).
+ * <p>
+ * Exclu de la phase de test habituelle ; base H2 dédiée, l'historique partagé
+ * des autres tests n'est jamais vidé.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.rows=10000000}
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:period-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.ega.egabank=INFO"
+})
+@ActiveProfiles("test")
+@Import(BenchmarkData.class)
+@DisplayName("Benchmark des requêtes de période par compte")
+class TransactionPeriodQueryBenchmarkTest {
+
+    private static final String IBAN_PREFIXE = "TG11EGA00001000000";
+    private static final int COMPTES = 100;
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ITERATIONS = 50;
+
+    private static final String REQUETE_JOINTE = "SELECT t.* FROM transactions t "
+            + "JOIN accounts c ON c.id = t.account_id "
+            + "WHERE c.numero_compte = '%s' AND t.date_transaction BETWEEN '%s' AND '%s' "
+            + "ORDER BY t.date_transaction DESC";
+
+    private static final String REQUETE_PAR_ID = "SELECT t.* FROM transactions t "
+            + "WHERE t.account_id = %d AND t.date_transaction BETWEEN '%s' AND '%s' "
+            + "ORDER BY t.date_transaction DESC, t.id DESC";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BenchmarkData data;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200_000);
+
+    private List<Account> comptes;
+
+    @BeforeEach
+    void setUp() {
+        data.clearTransactions();
+        List<String> numeros = new ArrayList<>(COMPTES);
+        for (int i = 0; i < COMPTES; i++) {
+            numeros.add(IBAN_PREFIXE + String.format("%05d", i));
+        }
+        comptes = data.accounts(data.client("Periodes"), numeros);
+
+        // Une seconde d'écart par ligne : chaque compte couvre toute la plage de dates
+        int parCompte = rows / COMPTES;
+        long debut = System.nanoTime();
+        for (int i = 0; i < COMPTES; i++) {
+            jdbcTemplate.update("INSERT INTO transactions (id, type_transaction, montant, date_transaction, "
+                    + "solde_avant, solde_apres, account_id) "
+                    + "SELECT CAST(? AS BIGINT) + X, 'DEPOT', 1, "
+                    + "DATEADD('SECOND', X * CAST(? AS BIGINT) + CAST(? AS BIGINT), CAST(? AS TIMESTAMP)), "
+                    + "0, 1, CAST(? AS BIGINT) "
+                    + "FROM SYSTEM_RANGE(1, CAST(? AS BIGINT))",
+                    (long) i * parCompte, COMPTES, i, ORIGINE, comptes.get(i).getId(), parCompte);
+        }
+        jdbcTemplate.execute("ANALYZE");
+        log.info("{} transactions insérées sur {} comptes en {} ms",
+                parCompte * COMPTES, COMPTES, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.clearTransactions();
+    }
+
+    @Test
+    @DisplayName("Plan et latence avant et après l'index (compte, date, id)")
+    void comparePeriodQueryPlans() {
+        Account compte = comptes.get(COMPTES / 2);
+        // Un dixième de l'historique du compte
+        LocalDateTime debutPeriode = ORIGINE.plusSeconds(rows * 4L / 10);
+        LocalDateTime finPeriode = ORIGINE.plusSeconds(rows * 5L / 10);
+        String jointe = String.format(REQUETE_JOINTE, compte.getNumeroCompte(), debutPeriode, finPeriode);
+        String parId = String.format(REQUETE_PAR_ID, compte.getId(), debutPeriode, finPeriode);
+
+        // Avant : index simple sur account_id, filtre sur le numéro de compte
+        jdbcTemplate.execute("DROP INDEX idx_transaction_compte_date");
+        jdbcTemplate.execute("CREATE INDEX idx_transaction_compte ON transactions (account_id)");
+        String planAvant = explain(jointe);
+        int lignesAvant = jdbcTemplate.queryForList(jointe).size();
+        double avantMs = measure(jointe);
+
+        // Après : index composite, filtre sur account_id
+        jdbcTemplate.execute("DROP INDEX idx_transaction_compte");
+        jdbcTemplate.execute("CREATE INDEX idx_transaction_compte_date "
+                + "ON transactions (account_id, date_transaction, id)");
+        String planApres = explain(parId);
+        int lignesApres = jdbcTemplate.queryForList(parId).size();
+        double apresMs = measure(parId);
+
+        log.info("Plan avant :\n{}", planAvant);
+        log.info("Plan après :\n{}", planApres);
+        log.info("Période de {} lignes sur {} transactions : avant = {} ms, après = {} ms ({}x)",
+                lignesApres, rows, String.format("%.3f", avantMs), String.format("%.3f", apresMs),
+                String.format("%.1f", avantMs / apresMs));
+
+        assertThat(lignesApres).isEqualTo(lignesAvant).isPositive();
+        assertThat(planApres).containsIgnoringCase("idx_transaction_compte_date");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private double measure(String sql) {
+        // Échauffement
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.queryForList(sql);
+        }
+        long debut = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            jdbcTemplate.queryForList(sql);
+        }
+        return (System.nanoTime() - debut) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ega.egabank.benchmark;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ega.egabank.EgaBankApplication;
+import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.BatchTransferResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.service.TransactionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mesure du débit d'insertion des transactions sur le chemin des virements,
+ * sans regroupement JDBC (un aller-retour par ligne, comme avec des
+ * identifiants IDENTITY) puis avec des lots de 50. Chaque mesure démarre sa
+ * propre application, la taille des lots étant fixée par
+ * {@code app.posting.jdbc-batch-size}.
+ * <p>
+ * Exécution : {@code mvn test -Pbenchmark -Dbenchmark.transfers=20000}
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Benchmark des insertions de transactions")
+class TransferInsertBenchmarkTest {
+
+    private static final String SOURCE = "TG11EGA0000100000000901";
+    private static final String DESTINATION = "TG11EGA0000100000000902";
+
+    private final int transfers = Integer.getInteger("benchmark.transfers", 5000);
+
+    @Test
+    @DisplayName("Les lots JDBC devraient insérer plus vite qu'une ligne par aller-retour")
+    void compareInsertThroughput() {
+        double sansLots = run(1);
+        double avecLots = run(50);
+
+        log.info("Insertions sur {} virements ({} lignes) : lot de 1 = {} lignes/s, lot de 50 = {} lignes/s ({}x)",
+                transfers, transfers * 2, Math.round(sansLots), Math.round(avecLots),
+                String.format("%.2f", avecLots / sansLots));
+        assertThat(avecLots).isGreaterThan(sansLots);
+    }
+
+    private double run(int jdbcBatchSize) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EgaBankApplication.class)
+                .profiles("test", "batching")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:insert-benchmark-" + jdbcBatchSize + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.ega.egabank=INFO",
+                        "logging.level.org.springframework.security=INFO",
+                        "app.posting.transfer-batch.chunk-size=1000",
+                        "app.posting.jdbc-batch-size=" + jdbcBatchSize)
+                .run()) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            prepareAccounts(context);
+
+            // Échauffement de la JVM et du pool de connexions
+            transfer(transactionService, Math.min(500, transfers));
+
+            long debut = System.nanoTime();
+            transfer(transactionService, transfers);
+            long duree = System.nanoTime() - debut;
+            return transfers * 2 / (duree / 1_000_000_000.0);
+        }
+    }
+
+    private void transfer(TransactionService transactionService, int count) {
+        List<TransferRequest> virements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            virements.add(TransferRequest.builder()
+                    .compteSource(SOURCE)
+                    .compteDestination(DESTINATION)
+                    .montant(BigDecimal.ONE)
+                    .build());
+        }
+        BatchTransferResponse response = transactionService.transferBatch(virements);
+        assertThat(response.getReussis()).isEqualTo(count);
+    }
+
+    private void prepareAccounts(ConfigurableApplicationContext context) {
+        ClientRepository clientRepository = context.getBean(ClientRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        Client client = clientRepository.save(Client.builder()
+                .nom("Benchmark")
+                .prenom("Insertions")
+                .dateNaissance(LocalDate.of(1990, 1, 1))
+                .sexe(Sexe.MASCULIN)
+                .build());
+        accountRepository.save(account(SOURCE, client, new BigDecimal("100000000.00")));
+        accountRepository.save(account(DESTINATION, client, BigDecimal.ZERO));
+    }
+
+    private Account account(String numero, Client client, BigDecimal solde) {
+        return Account.builder()
+                .numeroCompte(numero)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(solde)
+                .actif(true)
+                .proprietaire(client)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ega.egabank.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.projection.AccountDescriptor;
+
+/**
+ * Tests unitaires pour AccountDescriptorCache
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du cache des descriptions de comptes")
+class AccountDescriptorCacheTest {
+
+    private static final String IBAN = "TG53TG0000000000000000012345678";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private AccountDescriptorCache cache;
+    private AccountDescriptor descriptor;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AccountDescriptorCache(accountRepository, 100, 10);
+        descriptor = new AccountDescriptor(1L, IBAN, 7L, true, TypeCompte.COURANT);
+    }
+
+    @Test
+    @DisplayName("Devrait ne lire la base qu'une fois pour des résolutions répétées")
+    void shouldServeRepeatedLookupsFromCache() {
+        // Arrange
+        when(accountRepository.findDescriptorByNumeroCompte(IBAN)).thenReturn(Optional.of(descriptor));
+
+        // Act
+        cache.find(IBAN);
+        Optional<AccountDescriptor> resultat = cache.find(IBAN);
+
+        // Assert
+        assertThat(resultat).contains(descriptor);
+        verify(accountRepository, times(1)).findDescriptorByNumeroCompte(IBAN);
+    }
+
+    @Test
+    @DisplayName("Devrait relire la base après invalidation")
+    void shouldReloadAfterInvalidation() {
+        // Arrange
+        AccountDescriptor desactive = new AccountDescriptor(1L, IBAN, 7L, false, TypeCompte.COURANT);
+        when(accountRepository.findDescriptorByNumeroCompte(IBAN))
+                .thenReturn(Optional.of(descriptor))
+                .thenReturn(Optional.of(desactive));
+        cache.find(IBAN);
+
+        // Act
+        cache.invalidate(IBAN);
+
+        // Assert
+        assertThat(cache.find(IBAN)).get().extracting(AccountDescriptor::actif).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Devrait ne pas mettre en cache un compte inconnu")
+    void shouldNotCacheUnknownAccount() {
+        // Arrange
+        when(accountRepository.findDescriptorByNumeroCompte(IBAN))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(descriptor));
+
+        // Act
+        Optional<AccountDescriptor> absent = cache.find(IBAN);
+        Optional<AccountDescriptor> cree = cache.find(IBAN);
+
+        // Assert
+        assertThat(absent).isEmpty();
+        assertThat(cree).contains(descriptor);
+    }
+}
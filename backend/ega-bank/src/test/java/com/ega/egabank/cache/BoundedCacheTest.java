@@ -0,0 +1,113 @@
+package com.ega.egabank.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests unitaires pour BoundedCache
+ */
+@DisplayName("Tests du cache borné")
+class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now.get());
+        }
+    };
+
+    @Test
+    @DisplayName("Devrait évincer l'entrée la moins récemment utilisée")
+    void shouldEvictLeastRecentlyUsed() {
+        // Arrange
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, 0, clock);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        // Act
+        cache.put("c", 3);
+
+        // Assert
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer les entrées expirées")
+    void shouldExpireEntries() {
+        // Arrange
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, 100, clock);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Act
+        now.addAndGet(100);
+
+        // Assert
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.purgeExpired()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait rester borné sous des écritures concurrentes réparties entre segments")
+    void shouldStayBoundedUnderConcurrentWrites() throws Exception {
+        // Arrange
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(4096, 0, clock);
+        int threads = 8;
+        int cles = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        try {
+            List<Future<?>> ecritures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int debut = t * cles;
+                ecritures.add(executor.submit(() -> {
+                    for (int k = debut; k < debut + cles; k++) {
+                        cache.put(k, k);
+                        cache.get(k - 1);
+                    }
+                }));
+            }
+            for (Future<?> ecriture : ecritures) {
+                ecriture.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert : borne respectée, chaque entrée absente comptée comme évincée
+        assertThat(cache.size()).isLessThanOrEqualTo(4096);
+        assertThat(cache.size() + cache.getEvictionCount()).isEqualTo((long) threads * cles);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ega.egabank.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Tests unitaires pour StatementCache
+ */
+@DisplayName("Tests du cache des relevés")
+class StatementCacheTest {
+
+    private static final int KO = 1024;
+
+    @TempDir
+    Path directory;
+
+    /** 1 Mo en mémoire, relevés de 1 Ko au plus en mémoire, 1 Mo sur disque */
+    private StatementCache cache;
+
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new StatementCache(directory.toString(), 1, 1, 1);
+    }
+
+    @Test
+    @DisplayName("Devrait servir un petit relevé depuis la mémoire sans le régénérer")
+    void shouldServeSmallStatementFromMemory() throws IOException {
+        // Act
+        Resource premier = cache.get("a", out -> write(out, 600));
+        Resource second = cache.get("a", out -> write(out, 600));
+
+        // Assert
+        assertThat(generations).hasValue(1);
+        assertThat(premier).isInstanceOf(ByteArrayResource.class);
+        assertThat(second).isInstanceOf(ByteArrayResource.class);
+        assertThat(second.contentLength()).isEqualTo(600);
+        assertThat(directory.resolve("a.pdf")).exists();
+        assertThat(cache.getMemoryBytes()).isEqualTo(600);
+    }
+
+    @Test
+    @DisplayName("Devrait servir un gros relevé comme fichier, sans le charger en mémoire")
+    void shouldServeLargeStatementFromDisk() throws IOException {
+        // Act
+        Resource premier = cache.get("b", out -> write(out, 10 * KO));
+        Resource second = cache.get("b", out -> write(out, 10 * KO));
+
+        // Assert
+        assertThat(generations).hasValue(1);
+        assertThat(premier).isNotInstanceOf(ByteArrayResource.class);
+        assertThat(premier.isOpen()).isTrue();
+        assertThat(second.isOpen()).isTrue();
+        assertThat(second.contentLength()).isEqualTo(10 * KO);
+        assertThat(read(second)).isEqualTo(10 * KO);
+        assertThat(cache.getMemoryBytes()).isZero();
+        assertThat(cache.getDiskBytes()).isEqualTo(10 * KO);
+    }
+
+    @Test
+    @DisplayName("Devrait évincer du disque le relevé le moins récemment servi")
+    void shouldEvictLeastRecentlyUsedFromDisk() throws IOException {
+        // Arrange
+        cache.get("ancien", out -> write(out, 400 * KO));
+        cache.get("recent", out -> write(out, 400 * KO));
+        cache.get("ancien", out -> write(out, 400 * KO));
+
+        // Act : le total dépasse 1 Mo
+        cache.get("nouveau", out -> write(out, 400 * KO));
+
+        // Assert
+        assertThat(directory.resolve("recent.pdf")).doesNotExist();
+        assertThat(directory.resolve("ancien.pdf")).exists();
+        assertThat(directory.resolve("nouveau.pdf")).exists();
+        assertThat(cache.getDiskBytes()).isEqualTo(800 * KO);
+    }
+
+    @Test
+    @DisplayName("Devrait servir en entier un relevé évincé pendant sa lecture")
+    void shouldServeStatementEvictedWhileRead() throws IOException {
+        // Arrange
+        cache.get("servi", out -> write(out, 600 * KO));
+        Resource servi = cache.get("servi", out -> write(out, 600 * KO));
+
+        // Act : une génération concurrente évince le relevé avant sa lecture
+        cache.get("suivant", out -> write(out, 600 * KO));
+
+        // Assert
+        assertThat(directory.resolve("servi.pdf")).doesNotExist();
+        assertThat(read(servi)).isEqualTo(600 * KO);
+    }
+
+    @Test
+    @DisplayName("Devrait ne rien garder si la génération échoue")
+    void shouldDiscardFailedGeneration() throws IOException {
+        // Act & Assert
+        assertThatThrownBy(() -> cache.get("c", out -> {
+            out.write(new byte[100]);
+            throw new IllegalStateException("échec");
+        })).isInstanceOf(IllegalStateException.class);
+
+        try (var fichiers = Files.list(directory)) {
+            assertThat(fichiers).isEmpty();
+        }
+        assertThat(cache.get("c", out -> write(out, 100)).contentLength()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre les relevés présents sur disque au démarrage")
+    void shouldReloadDiskEntriesOnStartup() throws IOException {
+        // Arrange
+        cache.get("d", out -> write(out, 10 * KO));
+        Files.writeString(directory.resolve("orphelin.tmp"), "x");
+
+        // Act
+        StatementCache redemarre = new StatementCache(directory.toString(), 1, 1, 1);
+        Resource relu = redemarre.get("d", out -> write(out, 10 * KO));
+
+        // Assert
+        assertThat(generations).hasValue(1);
+        assertThat(relu.isOpen()).isTrue();
+        assertThat(read(relu)).isEqualTo(10 * KO);
+        assertThat(directory.resolve("orphelin.tmp")).doesNotExist();
+    }
+
+    private static long read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private void write(OutputStream out, int taille) throws IOException {
+        generations.incrementAndGet();
+        out.write(new byte[taille]);
+    }
+}
@@ -0,0 +1,216 @@
+package com.ega.egabank.idempotency;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.entity.IdempotencyKey;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.exception.InsufficientBalanceException;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.exception.PostingConflictException;
+import com.ega.egabank.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Tests unitaires pour IdempotencyStore
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du stockage d'idempotence")
+class IdempotencyStoreTest {
+
+    private static final String EMPREINTE = "DEPOT:TG53TG0000000000000000012345678:200.00";
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyStore store;
+    private TransactionResponse response;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(idempotencyKeyRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), 100, 60, 24);
+        response = TransactionResponse.builder()
+                .id(1L)
+                .type(TypeTransaction.DEPOT)
+                .montant(new BigDecimal("200.00"))
+                .dateTransaction(LocalDateTime.now())
+                .build();
+        lenient().when(idempotencyKeyRepository.findById(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Devrait exécuter une seule fois et rejouer la réponse depuis le cache")
+    void shouldReplayFromCache() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        TransactionResponse premier = store.execute("cle-1", EMPREINTE, TransactionResponse.class, () -> {
+            executions.incrementAndGet();
+            return response;
+        });
+        TransactionResponse rejoue = store.execute("cle-1", EMPREINTE, TransactionResponse.class, () -> {
+            executions.incrementAndGet();
+            return response;
+        });
+
+        // Assert
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(rejoue.getId()).isEqualTo(premier.getId());
+        verify(idempotencyKeyRepository, times(1)).findById(anyString());
+        verify(idempotencyKeyRepository, times(1)).insertPending(anyString(), eq(EMPREINTE), any());
+        verify(idempotencyKeyRepository, times(1)).complete(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer depuis la table lorsque la clé n'est plus en cache")
+    void shouldReplayFromDurableStore() throws Exception {
+        // Arrange
+        String json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(response);
+        when(idempotencyKeyRepository.findById(anyString())).thenReturn(Optional.of(IdempotencyKey.builder()
+                .empreinte(EMPREINTE)
+                .reponse(json)
+                .build()));
+
+        // Act
+        TransactionResponse rejoue = store.execute("cle-2", EMPREINTE, TransactionResponse.class, () -> {
+            throw new AssertionError("l'opération ne doit pas être exécutée");
+        });
+
+        // Assert
+        assertThat(rejoue.getId()).isEqualTo(1L);
+        verify(idempotencyKeyRepository, never()).insertPending(any(), any(), any());
+        verify(idempotencyKeyRepository, never()).complete(any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer la réponse dans la transaction de l'imputation, une seule fois")
+    void shouldRecordResponseWithinPosting() {
+        // Act
+        store.execute("cle-5", EMPREINTE, TransactionResponse.class,
+                () -> store.withinPosting(store.currentCall(), () -> response).get());
+
+        // Assert
+        verify(idempotencyKeyRepository, times(1)).complete(anyString(), anyString());
+        assertThat(store.currentCall()).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait libérer la clé d'une opération rejetée sans effet")
+    void shouldReleaseKeyOnRejection() {
+        // Act
+        assertThatThrownBy(() -> store.execute("cle-6", EMPREINTE, TransactionResponse.class,
+                () -> store.<TransactionResponse>withinPosting(store.currentCall(), () -> {
+                    throw new InsufficientBalanceException("TG53", BigDecimal.ZERO, BigDecimal.TEN);
+                }).get()))
+                .isInstanceOf(InsufficientBalanceException.class);
+
+        // Assert
+        verify(idempotencyKeyRepository).deletePending(anyString());
+    }
+
+    @Test
+    @DisplayName("Devrait conserver la clé et refuser la relance si l'issue de l'imputation est inconnue")
+    void shouldKeepKeyPendingOnUnknownOutcome() {
+        // Arrange
+        assertThatThrownBy(() -> store.execute("cle-7", EMPREINTE, TransactionResponse.class,
+                () -> store.<TransactionResponse>withinPosting(store.currentCall(), () -> {
+                    throw new IllegalStateException("échec du commit");
+                }).get()))
+                .isInstanceOf(IllegalStateException.class);
+        when(idempotencyKeyRepository.findById(anyString())).thenReturn(Optional.of(IdempotencyKey.builder()
+                .empreinte(EMPREINTE)
+                .build()));
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.execute("cle-7", EMPREINTE, TransactionResponse.class, () -> response))
+                .isInstanceOf(PostingConflictException.class);
+        verify(idempotencyKeyRepository, never()).deletePending(any());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une clé réutilisée pour une autre opération")
+    void shouldRejectKeyReusedForAnotherOperation() {
+        // Arrange
+        store.execute("cle-3", EMPREINTE, TransactionResponse.class, () -> response);
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.execute("cle-3", "RETRAIT:autre:10", TransactionResponse.class,
+                () -> response))
+                .isInstanceOf(OperationNotAllowedException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait faire attendre les doublons concurrents sur l'exécution en cours")
+    void shouldDeduplicateConcurrentRequests() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch enCours = new CountDownLatch(1);
+        CountDownLatch liberer = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<TransactionResponse> premier = pool.submit(() -> store.execute("cle-4", EMPREINTE,
+                    TransactionResponse.class, () -> {
+                        executions.incrementAndGet();
+                        enCours.countDown();
+                        await(liberer);
+                        return response;
+                    }));
+            assertThat(enCours.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<TransactionResponse> doublon = pool.submit(() -> store.execute("cle-4", EMPREINTE,
+                    TransactionResponse.class, () -> {
+                        executions.incrementAndGet();
+                        return response;
+                    }));
+            liberer.countDown();
+
+            // Assert
+            assertThat(premier.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            assertThat(doublon.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            assertThat(executions.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait exécuter directement sans clé")
+    void shouldExecuteDirectlyWithoutKey() {
+        // Act
+        store.execute(null, EMPREINTE, TransactionResponse.class, () -> response);
+
+        // Assert
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.ega.egabank.journal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ega.egabank.enums.TypeTransaction;
+
+/**
+ * Tests unitaires pour PostingJournal
+ */
+@DisplayName("Tests du journal des imputations")
+class PostingJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Devrait relire à la réouverture les enregistrements forcés sur disque")
+    void shouldRecoverRecordsAfterReopen() {
+        // Arrange
+        UUID requestId = UUID.randomUUID();
+        JournalRecord posting = posting(requestId, 42L, "Dépôt guichet");
+
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            journal.append(posting);
+            journal.append(JournalRecord.marker(JournalRecord.Kind.COMMIT, requestId));
+            journal.force();
+        }
+
+        // Act
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            List<JournalRecord> recovered = journal.recovered();
+
+            // Assert
+            assertThat(recovered).hasSize(2);
+            assertThat(recovered.get(0)).isEqualTo(posting);
+            assertThat(recovered.get(1).kind()).isEqualTo(JournalRecord.Kind.COMMIT);
+            assertThat(recovered.get(1).requestId()).isEqualTo(requestId);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait s'arrêter au premier enregistrement corrompu")
+    void shouldStopAtCorruptedRecord() throws Exception {
+        // Arrange
+        UUID requestId = UUID.randomUUID();
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            journal.append(posting(requestId, 1L, "premier"));
+            journal.append(posting(requestId, 2L, "second"));
+            journal.force();
+        }
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // Altérer un octet du corps du second enregistrement
+            int longueur = file.readInt();
+            long positionSecond = Integer.BYTES * 2L + longueur;
+            file.seek(positionSecond + Integer.BYTES + 20);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        // Act
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            // Assert
+            assertThat(journal.recovered())
+                    .extracting(JournalRecord::transactionId)
+                    .containsExactly(1L);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer un segment plein une fois ses imputations appliquées")
+    void shouldDeleteReleasedSegment() {
+        // Arrange
+        try (PostingJournal journal = new PostingJournal(directory, JournalRecord.maxBodySize() * 3)) {
+            UUID requestId = UUID.randomUUID();
+            long premier = journal.append(posting(requestId, 1L, "x".repeat(1000)));
+            int dansPremier = 1;
+            for (long id = 2; journal.append(posting(requestId, id, "x".repeat(1000))) == premier; id++) {
+                dansPremier++;
+            }
+            assertThat(journal.getSegmentCount()).isEqualTo(2);
+
+            // Act
+            for (int i = 0; i < dansPremier; i++) {
+                journal.release(premier);
+            }
+
+            // Assert
+            assertThat(journal.getSegmentCount()).isEqualTo(1);
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait supprimer les segments relus après rejeu")
+    void shouldDeleteRecoveredSegments() {
+        // Arrange
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            journal.append(posting(UUID.randomUUID(), 1L, null));
+            journal.force();
+        }
+
+        // Act
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            assertThat(journal.recovered()).hasSize(1);
+            journal.deleteRecovered();
+
+            // Assert
+            assertThat(journal.recovered()).isEmpty();
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait tronquer un texte trop long à la limite d'un caractère")
+    void shouldTruncateTextOnCharacterBoundary() {
+        // Arrange : 1023 octets ASCII puis un caractère de deux octets à cheval sur la limite de 1024
+        String description = "a".repeat(1023) + "é";
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            journal.append(posting(UUID.randomUUID(), 1L, description));
+            journal.force();
+        }
+
+        // Act
+        try (PostingJournal journal = new PostingJournal(directory, SEGMENT_SIZE)) {
+            String relue = journal.recovered().get(0).description();
+
+            // Assert
+            assertThat(relue).isEqualTo("a".repeat(1023));
+        }
+    }
+
+    private static JournalRecord posting(UUID requestId, long transactionId, String description) {
+        return new JournalRecord(JournalRecord.Kind.POSTING, requestId, transactionId, 7L,
+                TypeTransaction.VIREMENT_SORTANT, 15_000L, 100_000L, 85_000L, 1_700_000_000_000L,
+                description, "TG53TG0000000000000000012345678");
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.sorted().toList();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
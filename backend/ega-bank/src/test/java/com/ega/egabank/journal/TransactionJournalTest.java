@@ -0,0 +1,298 @@
+package com.ega.egabank.journal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.dto.request.OperationRequest;
+import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.posting.PostingPipeline;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.service.AccountService;
+import com.ega.egabank.service.TransactionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests d'intégration du journal des imputations
+ */
+@SpringBootTest(properties = "app.posting.pipeline.enabled=true")
+@ActiveProfiles("test")
+@DisplayName("Tests du journal des transactions")
+class TransactionJournalTest {
+
+    private static final String IBAN_SOURCE = "TG11EGA0000100000000301";
+    private static final String IBAN_DESTINATION = "TG11EGA0000100000000302";
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("egabank-journal");
+        registry.add("app.journal.enabled", () -> "true");
+        registry.add("app.journal.directory", directory::toString);
+        registry.add("app.journal.segment-size-mb", () -> "1");
+    }
+
+    @TempDir
+    Path replayDirectory;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private PostingPipeline postingPipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AccountShardManager accountShardManager;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account source;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountRepository.findByNumeroCompte(IBAN_SOURCE).ifPresent(accountRepository::delete);
+        accountRepository.findByNumeroCompte(IBAN_DESTINATION).ifPresent(a -> {
+            if (a.isSharded()) {
+                accountService.configureSharding(IBAN_DESTINATION, 0);
+            }
+            accountRepository.deleteById(a.getId());
+        });
+
+        Client client = clientRepository.save(Client.builder()
+                .nom("Journal")
+                .prenom("Test")
+                .dateNaissance(LocalDate.of(1990, 3, 3))
+                .sexe(Sexe.FEMININ)
+                .build());
+        source = accountRepository.save(account(IBAN_SOURCE, client, "1000.00"));
+        accountRepository.save(account(IBAN_DESTINATION, client, "0.00"));
+    }
+
+    @Test
+    @DisplayName("Devrait insérer en base les lignes journalisées après la réponse")
+    void shouldApplyJournaledTransactions() throws Exception {
+        // Act
+        TransactionResponse response = transactionService.transfer(TransferRequest.builder()
+                .compteSource(IBAN_SOURCE)
+                .compteDestination(IBAN_DESTINATION)
+                .montant(new BigDecimal("250.00"))
+                .build());
+
+        // Assert
+        assertThat(response.getId()).isNotNull();
+        assertThat(response.getSoldeApres()).isEqualByComparingTo("750.00");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transactionRepository.count() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(transactionRepository.count()).isEqualTo(2);
+        assertThat(transactionRepository.findById(response.getId()))
+                .get()
+                .extracting(t -> t.getType())
+                .isEqualTo(TypeTransaction.VIREMENT_SORTANT);
+    }
+
+    @Test
+    @DisplayName("Devrait journaliser aussi les imputations du pipeline groupé")
+    void shouldJournalPipelinePostings() throws Exception {
+        // Arrange
+        double journalisees = meterRegistry.get("egabank.journal.records").functionCounter().count();
+
+        // Act
+        TransactionResponse response = postingPipeline.deposit(IBAN_SOURCE, OperationRequest.builder()
+                .montant(new BigDecimal("50.00"))
+                .build());
+
+        // Assert
+        assertThat(response.getSoldeApres()).isEqualByComparingTo("1050.00");
+        assertThat(meterRegistry.get("egabank.journal.records").functionCounter().count())
+                .isEqualTo(journalisees + 1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transactionRepository.findById(response.getId()).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(transactionRepository.findById(response.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("Devrait incrémenter la version de l'historique quand la ligne journalisée est insérée")
+    void shouldBumpHistoryVersionWhenJournaledRowLands() throws Exception {
+        // Arrange
+        long avant = accountRepository.findHistoryVersionById(source.getId()).orElseThrow().historyVersion();
+
+        // Act
+        TransactionResponse response = transactionService.deposit(IBAN_SOURCE, OperationRequest.builder()
+                .montant(new BigDecimal("20.00"))
+                .build());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (transactionRepository.findById(response.getId()).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Assert
+        assertThat(accountRepository.findHistoryVersionById(source.getId())).get().satisfies(v -> {
+            assertThat(v.historyVersion()).isEqualTo(avant + 1);
+            assertThat(v.derniereTransactionId()).isEqualTo(response.getId());
+        });
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer au démarrage les imputations validées ou confirmées par le solde")
+    void shouldReplayCommittedPostings() {
+        // Arrange
+        UUID validee = UUID.randomUUID();
+        UUID annulee = UUID.randomUUID();
+        UUID sansIssueConfirmee = UUID.randomUUID();
+        UUID sansIssueNonConfirmee = UUID.randomUUID();
+        try (PostingJournal journal = new PostingJournal(replayDirectory, 1024 * 1024)) {
+            journal.append(posting(validee, 9_000_001L, 100_000L, 90_000L));
+            journal.append(JournalRecord.marker(JournalRecord.Kind.COMMIT, validee));
+            journal.append(posting(annulee, 9_000_002L, 90_000L, 80_000L));
+            journal.append(JournalRecord.marker(JournalRecord.Kind.ABORT, annulee));
+            // Confirmée par l'imputation suivante du compte, qui part de son solde final
+            journal.append(posting(sansIssueConfirmee, 9_000_003L, 90_000L, 95_000L));
+            // Dernière imputation du compte, solde final différent du solde actuel (1000.00)
+            journal.append(posting(sansIssueNonConfirmee, 9_000_004L, 95_000L, 99_000L));
+            journal.force();
+        }
+        TransactionJournal transactionJournal = new TransactionJournal(transactionBatchWriter, accountRepository,
+                accountShardManager, transactionManager, true, replayDirectory.toString(), 1, 500, 10, 10);
+
+        // Act
+        transactionJournal.start();
+        transactionJournal.stop();
+
+        // Assert
+        assertThat(transactionRepository.findById(9_000_001L)).isPresent();
+        assertThat(transactionRepository.findById(9_000_002L)).isEmpty();
+        assertThat(transactionRepository.findById(9_000_003L)).isPresent();
+        assertThat(transactionRepository.findById(9_000_004L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait insérer dans la transaction de l'imputation les crédits de sous-solde, sans solde")
+    void shouldInsertShardCreditsSynchronously() {
+        // Arrange
+        accountService.configureSharding(IBAN_DESTINATION, 2);
+
+        // Act
+        TransactionResponse depot = transactionService.deposit(IBAN_DESTINATION,
+                OperationRequest.builder().montant(new BigDecimal("15.00")).build());
+
+        // Assert : visible dès la réponse, sans attendre le thread d'écriture
+        assertThat(depot.getSoldeApres()).isNull();
+        assertThat(transactionRepository.findById(depot.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("Devrait borner les tentatives d'insertion et conserver la ligne refusée pour le rejeu")
+    void shouldDeadLetterRejectedRowAndReplayIt() throws Exception {
+        // Arrange : insertion différée toujours refusée, une seule tentative
+        TransactionBatchWriter refuse = mock(TransactionBatchWriter.class);
+        doThrow(new DataIntegrityViolationException("refus")).when(refuse).insertWithIds(anyList());
+        TransactionJournal defaillant = new TransactionJournal(refuse, accountRepository, accountShardManager,
+                transactionManager, true, replayDirectory.toString(), 1, 500, 10, 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        defaillant.bindTo(registry);
+        defaillant.start();
+        Transaction depot = Transaction.builder()
+                .id(9_000_010L)
+                .type(TypeTransaction.DEPOT)
+                .montant(new BigDecimal("10.00"))
+                .soldeAvant(new BigDecimal("1000.00"))
+                .soldeApres(new BigDecimal("1010.00"))
+                .description("Lettre morte")
+                .compte(source)
+                .build();
+
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> defaillant.record(List.of(depot)));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("egabank.journal.dead.letters").functionCounter().count() < 1
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        defaillant.stop();
+        TransactionJournal redemarre = new TransactionJournal(transactionBatchWriter, accountRepository,
+                accountShardManager, transactionManager, true, replayDirectory.toString(), 1, 500, 10, 10);
+        redemarre.start();
+        redemarre.stop();
+
+        // Assert
+        assertThat(registry.get("egabank.journal.dead.letters").functionCounter().count()).isEqualTo(1);
+        assertThat(transactionRepository.findById(9_000_010L)).isPresent();
+    }
+
+    private JournalRecord posting(UUID requestId, long transactionId, long soldeAvant, long soldeApres) {
+        return new JournalRecord(JournalRecord.Kind.POSTING, requestId, transactionId, source.getId(),
+                soldeApres > soldeAvant ? TypeTransaction.DEPOT : TypeTransaction.RETRAIT,
+                Math.abs(soldeApres - soldeAvant), soldeAvant, soldeApres, System.currentTimeMillis(),
+                "Rejeu", null);
+    }
+
+    private Account account(String numero, Client client, String solde) {
+        return Account.builder()
+                .numeroCompte(numero)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal(solde))
+                .actif(true)
+                .proprietaire(client)
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+package com.ega.egabank.posting;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.dto.request.OperationRequest;
+import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.AccountShardRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.PeriodBalances;
+import com.ega.egabank.service.AccountService;
+import com.ega.egabank.service.TransactionService;
+
+/**
+ * Tests d'intégration des comptes partagés en sous-soldes
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests des comptes partagés en sous-soldes")
+class AccountShardManagerTest {
+
+    private static final String IBAN_COLLECTE = "TG11EGA0000100000000201";
+    private static final String IBAN_PAYEUR = "TG11EGA0000100000000202";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountShardManager accountShardManager;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountShardRepository accountShardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account collecte;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountRepository.findByNumeroCompte(IBAN_COLLECTE).ifPresent(a -> {
+            accountService.configureSharding(IBAN_COLLECTE, 0);
+            accountRepository.deleteById(a.getId());
+        });
+        accountRepository.findByNumeroCompte(IBAN_PAYEUR).ifPresent(accountRepository::delete);
+
+        Client client = clientRepository.save(Client.builder()
+                .nom("Collecte")
+                .prenom("Test")
+                .dateNaissance(LocalDate.of(1985, 5, 5))
+                .sexe(Sexe.MASCULIN)
+                .build());
+
+        collecte = accountRepository.save(account(IBAN_COLLECTE, client, "100.00"));
+        accountRepository.save(account(IBAN_PAYEUR, client, "1000.00"));
+        accountService.configureSharding(IBAN_COLLECTE, 4);
+    }
+
+    @Test
+    @DisplayName("Devrait répartir les crédits concurrents sur les sous-soldes sans perte")
+    void shouldSpreadConcurrentCreditsOverShards() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < 200; i++) {
+                futures.add(pool.submit(() -> transactionService.deposit(IBAN_COLLECTE, operation("1.00"))));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        assertThat(accountShardManager.isSharded(IBAN_COLLECTE)).isTrue();
+        assertThat(accountRepository.findById(collecte.getId()).orElseThrow().getSolde())
+                .isEqualByComparingTo("100.00");
+        assertThat(accountShardRepository.sumByAccountId(collecte.getId())).isEqualByComparingTo("200.00");
+        assertThat(accountService.getAccountByNumber(IBAN_COLLECTE).getSolde()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer un crédit de sous-solde sans solde avant ni après")
+    void shouldRecordShardCreditWithoutBalances() {
+        // Act
+        var depot = transactionService.deposit(IBAN_COLLECTE, operation("10.00"));
+
+        // Assert : les crédits concurrents n'étant pas sérialisés, aucun solde ne peut leur être attribué
+        assertThat(depot.getSoldeAvant()).isNull();
+        assertThat(depot.getSoldeApres()).isNull();
+        assertThat(transactionRepository.findById(depot.getId()).orElseThrow().getSoldeApres()).isNull();
+        assertThat(accountService.getAccountByNumber(IBAN_COLLECTE).getSolde()).isEqualByComparingTo("110.00");
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un crédit sur un compte partagé désactivé")
+    void shouldRejectCreditOnInactiveAccount() {
+        // Arrange
+        Account account = accountRepository.findById(collecte.getId()).orElseThrow();
+        account.setActif(false);
+        accountRepository.save(account);
+
+        // Act & Assert
+        assertThatThrownBy(() -> transactionService.deposit(IBAN_COLLECTE, operation("10.00")))
+                .isInstanceOf(OperationNotAllowedException.class);
+        assertThat(transactionRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait reverser les sous-soldes avant un débit que le solde principal ne couvre pas")
+    void shouldFoldShardsBeforeDebit() {
+        // Arrange
+        transactionService.transfer(TransferRequest.builder()
+                .compteSource(IBAN_PAYEUR)
+                .compteDestination(IBAN_COLLECTE)
+                .montant(new BigDecimal("400.00"))
+                .build());
+
+        // Act
+        var retrait = transactionService.withdraw(IBAN_COLLECTE, operation("450.00"));
+
+        // Assert
+        assertThat(retrait.getSoldeAvant()).isEqualByComparingTo("500.00");
+        assertThat(retrait.getSoldeApres()).isEqualByComparingTo("50.00");
+        assertThat(accountShardRepository.sumByAccountId(collecte.getId())).isEqualByComparingTo("0.00");
+        assertThat(accountService.getAccountByNumber(IBAN_COLLECTE).getSolde()).isEqualByComparingTo("50.00");
+        assertThat(accountService.getAccountByNumber(IBAN_PAYEUR).getSolde()).isEqualByComparingTo("600.00");
+    }
+
+    @Test
+    @DisplayName("Devrait inclure les crédits de sous-solde dans les soldes d'ouverture et de clôture du relevé")
+    void shouldIncludeShardCreditsInStatementBalances() {
+        // Arrange
+        LocalDate aujourdhui = LocalDate.now();
+        transactionService.deposit(IBAN_COLLECTE, operation("10.00"));
+        transactionService.withdraw(IBAN_COLLECTE, operation("5.00"));
+        transactionService.deposit(IBAN_COLLECTE, operation("20.00"));
+
+        // Act
+        PeriodBalances soldes = accountRepository.findPeriodBalancesById(collecte.getId(),
+                aujourdhui.atStartOfDay(), aujourdhui.atTime(LocalTime.MAX)).orElseThrow();
+
+        // Assert : les crédits sans solde avant/après comptent dans les mouvements
+        assertThat(soldes.soldeOuverture()).isEqualByComparingTo("100.00");
+        assertThat(soldes.mouvementsPeriode()).isEqualByComparingTo("25.00");
+        assertThat(soldes.soldeCloture()).isEqualByComparingTo("125.00");
+    }
+
+    @Test
+    @DisplayName("Devrait revenir à un compte classique en conservant le solde")
+    void shouldDisableSharding() {
+        // Arrange
+        transactionService.deposit(IBAN_COLLECTE, operation("25.00"));
+
+        // Act
+        accountService.configureSharding(IBAN_COLLECTE, 0);
+
+        // Assert
+        assertThat(accountShardManager.isSharded(IBAN_COLLECTE)).isFalse();
+        Account account = accountRepository.findById(collecte.getId()).orElseThrow();
+        assertThat(account.getSolde()).isEqualByComparingTo("125.00");
+        assertThat(account.getShardCount()).isZero();
+        assertThat(accountShardRepository.count()).isZero();
+    }
+
+    private Account account(String numero, Client client, String solde) {
+        return Account.builder()
+                .numeroCompte(numero)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal(solde))
+                .actif(true)
+                .proprietaire(client)
+                .build();
+    }
+
+    private OperationRequest operation(String montant) {
+        return OperationRequest.builder().montant(new BigDecimal(montant)).build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ega.egabank.posting;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.exception.PostingConflictException;
+import com.ega.egabank.idempotency.IdempotencyStore;
+
+/**
+ * Tests unitaires pour PostingExecutor
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'exécuteur d'imputations")
+class PostingExecutorTest {
+
+    private static final List<String> COMPTES = List.of("TG53EGA0000100000000001");
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private PostingExecutor executor(PostingMode mode, int maxAttempts) {
+        return new PostingExecutor(new PostingLockManager(16), idempotencyStore, transactionManager, mode,
+                maxAttempts, 0, 0);
+    }
+
+    @Nested
+    @DisplayName("Tests du mode optimiste")
+    class OptimisticTests {
+
+        @Test
+        @DisplayName("Devrait rejouer l'imputation après un conflit de version")
+        void shouldRetryAfterVersionConflict() {
+            PostingExecutor executor = executor(PostingMode.OPTIMISTIC, 5);
+            AtomicInteger attempts = new AtomicInteger();
+
+            String result = executor.execute(COMPTES, () -> {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+                }
+                return "ok";
+            });
+
+            assertThat(result).isEqualTo("ok");
+            assertThat(attempts.get()).isEqualTo(3);
+            assertThat(executor.getConflictCount()).isEqualTo(2);
+            assertThat(executor.getRetryCount()).isEqualTo(2);
+            verify(transactionManager, times(3)).getTransaction(any());
+            verify(transactionManager, times(2)).rollback(any());
+        }
+
+        @Test
+        @DisplayName("Devrait abandonner après le nombre maximal de tentatives")
+        void shouldGiveUpAfterMaxAttempts() {
+            PostingExecutor executor = executor(PostingMode.OPTIMISTIC, 3);
+
+            assertThatThrownBy(() -> executor.execute(COMPTES, () -> {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+            })).isInstanceOf(PostingConflictException.class);
+
+            assertThat(executor.getConflictCount()).isEqualTo(3);
+            assertThat(executor.getRetryCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas rejouer les erreurs métier")
+        void shouldNotRetryBusinessErrors() {
+            PostingExecutor executor = executor(PostingMode.OPTIMISTIC, 5);
+            AtomicInteger attempts = new AtomicInteger();
+
+            assertThatThrownBy(() -> executor.execute(COMPTES, () -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("erreur métier");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(attempts.get()).isEqualTo(1);
+            assertThat(executor.getConflictCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests du mode verrou")
+    class LockTests {
+
+        @Test
+        @DisplayName("Devrait exécuter l'imputation dans une transaction sans relance")
+        void shouldRunInSingleTransaction() {
+            PostingExecutor executor = executor(PostingMode.LOCK, 5);
+
+            assertThatThrownBy(() -> executor.execute(COMPTES, () -> {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+            })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+            verify(transactionManager, times(1)).getTransaction(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests du mode atomique")
+    class AtomicTests {
+
+        @Test
+        @DisplayName("Devrait rejouer une relecture-réécriture de compte après un conflit de version")
+        void shouldRetryReadModifyWrite() {
+            PostingExecutor executor = executor(PostingMode.ATOMIC, 5);
+            AtomicInteger attempts = new AtomicInteger();
+
+            String result = executor.executeReadModifyWrite(COMPTES, () -> {
+                if (attempts.incrementAndGet() < 2) {
+                    throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+                }
+                return "ok";
+            });
+
+            assertThat(result).isEqualTo("ok");
+            assertThat(attempts.get()).isEqualTo(2);
+            assertThat(executor.getRetryCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas rejouer une mise à jour atomique")
+        void shouldNotRetryAtomicUpdate() {
+            PostingExecutor executor = executor(PostingMode.ATOMIC, 5);
+
+            assertThatThrownBy(() -> executor.execute(COMPTES, () -> {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1L);
+            })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+            assertThat(executor.getRetryCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ega.egabank.posting;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests unitaires pour PostingLockManager
+ */
+@DisplayName("Tests du gestionnaire de verrous d'imputation")
+class PostingLockManagerTest {
+
+    private static final String IBAN_A = "TG53EGA0000100000000001";
+    private static final String IBAN_B = "TG53EGA0000100000000002";
+
+    @Nested
+    @DisplayName("Tests de configuration")
+    class ConfigurationTests {
+
+        @Test
+        @DisplayName("Devrait arrondir le nombre de verrous à la puissance de 2 supérieure")
+        void shouldRoundStripeCountToPowerOfTwo() {
+            assertThat(new PostingLockManager(50).getStripeCount()).isEqualTo(64);
+            assertThat(new PostingLockManager(64).getStripeCount()).isEqualTo(64);
+            assertThat(new PostingLockManager(1).getStripeCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser un nombre de verrous nul")
+        void shouldRejectZeroStripes() {
+            assertThatThrownBy(() -> new PostingLockManager(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests d'exécution")
+    class ExecutionTests {
+
+        @Test
+        @DisplayName("Devrait sérialiser les imputations concurrentes sur un même compte")
+        void shouldSerializePostingsOnSameAccount() throws Exception {
+            PostingLockManager manager = new PostingLockManager(16);
+            int threads = 8;
+            int iterations = 2_000;
+            long[] solde = new long[1];
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            manager.executeLocked(List.of(IBAN_A), () -> solde[0]++);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertThat(solde[0]).isEqualTo((long) threads * iterations);
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas s'interbloquer sur des virements croisés")
+        void shouldNotDeadlockOnCrossTransfers() throws Exception {
+            PostingLockManager manager = new PostingLockManager(16);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> aToB = pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        manager.executeLocked(List.of(IBAN_A, IBAN_B), () -> null);
+                    }
+                });
+                Future<?> bToA = pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        manager.executeLocked(List.of(IBAN_B, IBAN_A), () -> null);
+                    }
+                });
+
+                aToB.get(30, TimeUnit.SECONDS);
+                bToA.get(30, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("Devrait libérer le verrou si l'opération échoue")
+        void shouldReleaseLockOnFailure() {
+            PostingLockManager manager = new PostingLockManager(16);
+
+            assertThatThrownBy(() -> manager.executeLocked(List.of(IBAN_A), () -> {
+                throw new IllegalStateException("échec");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(manager.executeLocked(List.of(IBAN_A), () -> "ok")).isEqualTo("ok");
+        }
+
+        @Test
+        @DisplayName("Devrait comptabiliser la contention par verrou")
+        void shouldCountContentionPerStripe() throws Exception {
+            PostingLockManager manager = new PostingLockManager(16);
+            int stripe = manager.stripeOf(IBAN_A);
+            CountDownLatch held = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                Future<?> holder = pool.submit(() -> manager.executeLocked(List.of(IBAN_A), () -> {
+                    held.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                }));
+                held.await();
+                Future<?> waiter = pool.submit(() -> manager.executeLocked(List.of(IBAN_A), () -> null));
+                while (manager.getContentionCount(stripe) == 0) {
+                    Thread.onSpinWait();
+                }
+                release.countDown();
+                holder.get(10, TimeUnit.SECONDS);
+                waiter.get(10, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertThat(manager.getContentionCount(stripe)).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.ega.egabank.posting;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.dto.request.OperationRequest;
+import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.exception.CapacityExceededException;
+import com.ega.egabank.exception.InsufficientBalanceException;
+import com.ega.egabank.idempotency.IdempotencyStore;
+import com.ega.egabank.journal.TransactionJournal;
+import com.ega.egabank.mapper.TransactionMapper;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.service.TransactionService;
+
+/**
+ * Tests d'intégration pour PostingPipeline
+ */
+@SpringBootTest(properties = {
+        "app.posting.pipeline.enabled=true",
+        "app.posting.pipeline.batch-size=50",
+        "app.posting.pipeline.max-wait-ms=20"
+})
+@ActiveProfiles("test")
+@DisplayName("Tests du pipeline d'imputation groupée")
+class PostingPipelineTest {
+
+    private static final String IBAN_A = "TG11EGA0000100000000101";
+    private static final String IBAN_B = "TG11EGA0000100000000102";
+
+    @Autowired
+    private PostingPipeline postingPipeline;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account accountA;
+    private Account accountB;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        accountRepository.findByNumeroCompte(IBAN_A).ifPresent(accountRepository::delete);
+        accountRepository.findByNumeroCompte(IBAN_B).ifPresent(accountRepository::delete);
+
+        Client client = clientRepository.save(Client.builder()
+                .nom("Pipeline")
+                .prenom("Test")
+                .dateNaissance(LocalDate.of(1990, 1, 1))
+                .sexe(Sexe.FEMININ)
+                .build());
+
+        accountA = accountRepository.save(Account.builder()
+                .numeroCompte(IBAN_A)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal("100.00"))
+                .actif(true)
+                .proprietaire(client)
+                .build());
+
+        accountB = accountRepository.save(Account.builder()
+                .numeroCompte(IBAN_B)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(BigDecimal.ZERO)
+                .actif(true)
+                .proprietaire(client)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Devrait appliquer un lot de dépôts en conservant l'ordre par compte")
+    void shouldApplyBatchInOrder() throws Exception {
+        List<CompletableFuture<TransactionResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(postingPipeline.submit(IBAN_A, TypeTransaction.DEPOT, operation("1.00")));
+        }
+
+        BigDecimal soldePrecedent = new BigDecimal("100.00");
+        for (CompletableFuture<TransactionResponse> future : futures) {
+            TransactionResponse response = future.get(10, TimeUnit.SECONDS);
+            assertThat(response.getId()).isNotNull();
+            assertThat(response.getNumeroCompte()).isEqualTo(IBAN_A);
+            assertThat(response.getSoldeAvant()).isEqualByComparingTo(soldePrecedent);
+            soldePrecedent = response.getSoldeApres();
+        }
+
+        assertThat(accountRepository.findById(accountA.getId()).orElseThrow().getSolde())
+                .isEqualByComparingTo("300.00");
+        assertThat(transactionRepository.findByCompteIdOrderByDateTransactionDesc(accountA.getId()))
+                .hasSize(200);
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter une demande invalide sans affecter le reste du lot")
+    void shouldIsolateFailingPosting() throws Exception {
+        CompletableFuture<TransactionResponse> depot = postingPipeline.submit(
+                IBAN_A, TypeTransaction.DEPOT, operation("50.00"));
+        CompletableFuture<TransactionResponse> retraitRefuse = postingPipeline.submit(
+                IBAN_B, TypeTransaction.RETRAIT, operation("10.00"));
+        CompletableFuture<TransactionResponse> retrait = postingPipeline.submit(
+                IBAN_A, TypeTransaction.RETRAIT, operation("30.00"));
+
+        assertThat(depot.get(10, TimeUnit.SECONDS).getSoldeApres()).isEqualByComparingTo("150.00");
+        assertThat(retrait.get(10, TimeUnit.SECONDS).getSoldeApres()).isEqualByComparingTo("120.00");
+        assertThatThrownBy(() -> retraitRefuse.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(accountRepository.findById(accountA.getId()).orElseThrow().getSolde())
+                .isEqualByComparingTo("120.00");
+        assertThat(accountRepository.findById(accountB.getId()).orElseThrow().getSolde())
+                .isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    @DisplayName("Devrait rejeter le lot sur une erreur fatale sans arrêter le thread d'écriture")
+    void shouldSurviveFatalErrorInBatch() throws Exception {
+        // Arrange
+        PostingExecutor executor = mock(PostingExecutor.class);
+        when(executor.execute(any(), any()))
+                .thenThrow(new StackOverflowError("lot"))
+                .thenReturn(List.of());
+        PostingPipeline pipeline = isolatedPipeline(executor, 10_000);
+        pipeline.start();
+
+        try {
+            // Act & Assert
+            assertThatThrownBy(() -> pipeline.deposit(IBAN_A, operation("1.00")))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+            CompletableFuture<TransactionResponse> suivante = pipeline.submit(IBAN_A, TypeTransaction.DEPOT,
+                    operation("1.00"));
+            assertThatThrownBy(() -> suivante.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class);
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait borner l'attente et retirer de la file une demande non traitée")
+    void shouldBoundAwaitAndWithdrawQueuedPosting() throws Exception {
+        // Arrange : le premier lot bloque le thread d'écriture
+        CountDownLatch libere = new CountDownLatch(1);
+        PostingExecutor executor = mock(PostingExecutor.class);
+        when(executor.execute(any(), any())).thenAnswer(invocation -> {
+            libere.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        PostingPipeline pipeline = isolatedPipeline(executor, 200);
+        pipeline.start();
+
+        try {
+            CompletableFuture<TransactionResponse> enCours = pipeline.submit(IBAN_A, TypeTransaction.DEPOT,
+                    operation("1.00"));
+            Thread.sleep(100);
+
+            // Act & Assert : la demande encore en file est retirée et peut être renvoyée
+            assertThatThrownBy(() -> pipeline.deposit(IBAN_A, operation("2.00")))
+                    .isInstanceOf(CapacityExceededException.class);
+            assertThat(enCours).isNotDone();
+        } finally {
+            libere.countDown();
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait attendre l'issue d'une demande déjà prélevée au-delà du délai d'attente")
+    void shouldAwaitOutcomeOfPostingAlreadyTaken() throws Exception {
+        // Arrange : le lot dépasse le délai puis échoue, la demande est rejouée seule
+        PostingExecutor executor = mock(PostingExecutor.class);
+        when(executor.execute(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(400);
+            throw new IllegalStateException("lot");
+        });
+        PostingPipeline pipeline = isolatedPipeline(executor, 100);
+        pipeline.start();
+
+        try {
+            // Act
+            long debut = System.nanoTime();
+            Throwable erreur = catchThrowable(() -> pipeline.deposit(IBAN_A, operation("1.00")));
+
+            // Assert : aucune erreur d'issue inconnue, l'appelant a attendu la fin du lot
+            assertThat(erreur).isNull();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut)).isGreaterThanOrEqualTo(400);
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * Pipeline distinct du bean de l'application, sur un exécuteur simulé
+     */
+    private PostingPipeline isolatedPipeline(PostingExecutor executor, long awaitTimeoutMillis) {
+        return new PostingPipeline(mock(TransactionService.class), accountRepository,
+                mock(TransactionBatchWriter.class), mock(TransactionMapper.class), executor,
+                mock(AccountShardManager.class), mock(TransactionJournal.class), mock(IdempotencyStore.class),
+                true, 100, 50, 1, awaitTimeoutMillis);
+    }
+
+    private OperationRequest operation(String montant) {
+        return OperationRequest.builder().montant(new BigDecimal(montant)).build();
+    }
+}
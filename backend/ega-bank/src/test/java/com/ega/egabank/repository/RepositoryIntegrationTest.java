@@ -4,8 +4,11 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,14 +17,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.ega.egabank.entity.Account;
 import com.ega.egabank.entity.Client;
+import com.ega.egabank.entity.Transaction;
 import com.ega.egabank.enums.Sexe;
 import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.repository.projection.TransactionHistoryVersion;
+import com.ega.egabank.repository.projection.TransactionView;
 
 /**
  * Tests d'intégration pour les repositories
@@ -240,6 +250,101 @@ class RepositoryIntegrationTest {
             // Assert
             assertThat(total).isEqualByComparingTo(new BigDecimal("6000.00"));
         }
+
+        @Test
+        @DisplayName("Devrait débiter un compte uniquement si le solde est suffisant et relire son solde")
+        void shouldDebitOnlyIfBalanceIsSufficient() {
+            // Act
+            Optional<AccountBalanceView> debited = accountRepository.debitReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("400.00"));
+            Optional<AccountBalanceView> rejected = accountRepository.debitReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("600.01"));
+            entityManager.clear();
+
+            // Assert
+            assertThat(debited).get().satisfies(view -> {
+                assertThat(view.getId()).isEqualTo(account1.getId());
+                assertThat(view.getSolde()).isEqualByComparingTo("600.00");
+                assertThat(view.getActif()).isTrue();
+            });
+            assertThat(rejected).isEmpty();
+            assertThat(accountRepository.findBalanceByNumeroCompte(account1.getNumeroCompte()))
+                    .get()
+                    .satisfies(view -> assertThat(view.getSolde()).isEqualByComparingTo("600.00"));
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas créditer un compte inactif")
+        void shouldNotCreditInactiveAccount() {
+            // Arrange
+            account2.setActif(false);
+            entityManager.persist(account2);
+            entityManager.flush();
+
+            // Act
+            int credited = accountRepository.creditIfActive(account2.getNumeroCompte(), new BigDecimal("100.00"));
+
+            // Assert
+            assertThat(credited).isZero();
+        }
+
+        @Test
+        @DisplayName("Devrait incrémenter la version lors d'une mise à jour conditionnelle")
+        void shouldIncrementVersionOnConditionalUpdate() {
+            // Arrange
+            Long versionAvant = account1.getVersion();
+
+            // Act
+            Optional<AccountBalanceView> credited = accountRepository.creditReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("100.00"));
+            entityManager.clear();
+
+            // Assert
+            Account reloaded = accountRepository.findById(account1.getId()).orElseThrow();
+            assertThat(credited).get().satisfies(view -> assertThat(view.getSolde()).isEqualByComparingTo("1100.00"));
+            assertThat(reloaded.getVersion()).isEqualTo(versionAvant + 1);
+            assertThat(reloaded.getSolde()).isEqualByComparingTo("1100.00");
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas servir un compte périmé après une mise à jour conditionnelle")
+        void shouldNotServeStaleAccountAfterConditionalUpdate() {
+            // Arrange : compte chargé dans le contexte de persistance
+            Account charge = accountRepository.findById(account1.getId()).orElseThrow();
+            Long versionAvant = charge.getVersion();
+
+            // Act
+            accountRepository.debitReturningBalance(account1.getNumeroCompte(), new BigDecimal("250.00"));
+
+            // Assert : relu en base, sans vider le contexte
+            Account relu = accountRepository.findById(account1.getId()).orElseThrow();
+            assertThat(relu.getSolde()).isEqualByComparingTo("750.00");
+            assertThat(relu.getVersion()).isEqualTo(versionAvant + 1);
+        }
+
+        @Test
+        @DisplayName("Devrait mettre à jour puis relire le solde sans table delta FINAL TABLE")
+        void shouldUpdateThenReadWithoutFinalTable() {
+            // Arrange
+            AccountBalanceUpdates portable = new AccountBalanceUpdatesImpl(entityManager.getEntityManager(), false);
+
+            // Act
+            Optional<AccountBalanceView> debited = portable.debitReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("400.00"));
+            Optional<AccountBalanceView> rejected = portable.debitReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("600.01"));
+            Optional<AccountBalanceView> credited = portable.creditReturningBalance(
+                    account1.getNumeroCompte(), new BigDecimal("50.00"));
+
+            // Assert
+            assertThat(debited).get().satisfies(view -> {
+                assertThat(view.getId()).isEqualTo(account1.getId());
+                assertThat(view.getSolde()).isEqualByComparingTo("600.00");
+                assertThat(view.getActif()).isTrue();
+            });
+            assertThat(rejected).isEmpty();
+            assertThat(credited).get().satisfies(view -> assertThat(view.getSolde()).isEqualByComparingTo("650.00"));
+        }
     }
 
     @Nested
@@ -263,4 +368,181 @@ class RepositoryIntegrationTest {
             assertThat(accountRepository.findByProprietaireId(clientId)).isEmpty();
         }
     }
+
+    @Nested
+    @DisplayName("Tests des marqueurs de version (ETag)")
+    class VersionMarkerTests {
+
+        @Test
+        @DisplayName("Devrait lire la dernière transaction et le titulaire d'un compte en une projection")
+        void shouldReadAccountVersionMarkers() {
+            // Arrange
+            List<Transaction> transactions = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                transactions.add(entityManager.persist(Transaction.builder()
+                        .type(TypeTransaction.DEPOT)
+                        .montant(new BigDecimal("10.00"))
+                        .compte(account1)
+                        .build()));
+            }
+            Long derniereId = transactions.get(transactions.size() - 1).getId();
+            entityManager.flush();
+            entityManager.clear();
+
+            // Act
+            Optional<AccountVersion> version = accountRepository.findVersionByNumeroCompte(account1.getNumeroCompte());
+            Optional<AccountVersion> sansTransaction = accountRepository
+                    .findVersionByNumeroCompte(account2.getNumeroCompte());
+
+            // Assert
+            assertThat(version).get().satisfies(v -> {
+                assertThat(v.id()).isEqualTo(account1.getId());
+                assertThat(v.derniereTransactionId()).isEqualTo(derniereId);
+                assertThat(v.soldeShards()).isEqualByComparingTo("0");
+                assertThat(v.nomTitulaire()).isEqualTo("Dupont");
+            });
+            assertThat(sansTransaction).get().extracting(AccountVersion::derniereTransactionId).isNull();
+        }
+
+        @Test
+        @DisplayName("Devrait lire la version de l'historique et la dernière transaction en tête d'index")
+        void shouldReadHistoryVersionMarkers() {
+            // Arrange
+            Transaction derniere = null;
+            for (int i = 0; i < 3; i++) {
+                derniere = entityManager.persist(Transaction.builder()
+                        .type(TypeTransaction.DEPOT)
+                        .montant(new BigDecimal("10.00"))
+                        .compte(account1)
+                        .build());
+            }
+            Long derniereId = derniere.getId();
+            entityManager.flush();
+            entityManager.clear();
+
+            // Act
+            Optional<TransactionHistoryVersion> version = accountRepository.findHistoryVersionById(account1.getId());
+            Optional<TransactionHistoryVersion> sansTransaction = accountRepository
+                    .findHistoryVersionById(account2.getId());
+
+            // Assert
+            assertThat(version).get().satisfies(v -> {
+                assertThat(v.derniereTransactionId()).isEqualTo(derniereId);
+                assertThat(v.version()).isNotNull();
+                // Valeur par défaut de la colonne : Hibernate ne l'écrit jamais
+                assertThat(v.historyVersion()).isZero();
+            });
+            assertThat(sansTransaction).get().satisfies(v -> {
+                assertThat(v.derniereTransactionId()).isNull();
+                assertThat(v.historyVersion()).isZero();
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de pagination par curseur des transactions")
+    class TransactionKeysetTests {
+
+        @Autowired
+        private TransactionRepository transactionRepository;
+
+        @Test
+        @DisplayName("Devrait parcourir l'historique sans doublon ni omission, y compris à date égale")
+        void shouldWalkHistoryWithSeekQueries() {
+            // Arrange
+            for (int i = 0; i < 5; i++) {
+                entityManager.persist(Transaction.builder()
+                        .type(TypeTransaction.DEPOT)
+                        .montant(new BigDecimal("10.00"))
+                        .compte(account1)
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            // Act
+            List<Long> ids = new ArrayList<>();
+            List<TransactionView> page = transactionRepository.findFirstPageByCompteId(account1.getId(),
+                    Limit.of(2));
+            while (!page.isEmpty() && ids.size() <= 5) {
+                page.forEach(t -> ids.add(t.id()));
+                TransactionView last = page.get(page.size() - 1);
+                page = transactionRepository.findPageByCompteIdAfter(account1.getId(),
+                        last.dateTransaction(), last.id(), Limit.of(2));
+            }
+
+            // Assert
+            assertThat(ids).hasSize(5).doesNotHaveDuplicates();
+        }
+
+        @Test
+        @DisplayName("Devrait fusionner les comptes d'un client dans un fil ordonné")
+        void shouldWalkClientFeedAcrossAccounts() {
+            // Arrange
+            for (int i = 0; i < 3; i++) {
+                for (Account compte : List.of(account1, account2)) {
+                    entityManager.persist(Transaction.builder()
+                            .type(TypeTransaction.DEPOT)
+                            .montant(new BigDecimal("10.00"))
+                            .compte(compte)
+                            .build());
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            // Act
+            List<TransactionView> lues = new ArrayList<>();
+            List<TransactionView> page = transactionRepository.findFirstFeedPageByClientId(client1.getId(),
+                    Limit.of(4));
+            while (!page.isEmpty() && lues.size() <= 6) {
+                lues.addAll(page);
+                TransactionView last = page.get(page.size() - 1);
+                page = transactionRepository.findFeedPageByClientIdAfter(client1.getId(),
+                        last.dateTransaction(), last.id(), Limit.of(4));
+            }
+
+            // Assert
+            assertThat(lues).hasSize(6);
+            assertThat(lues).extracting(TransactionView::numeroCompte)
+                    .contains(account1.getNumeroCompte(), account2.getNumeroCompte());
+            assertThat(lues).extracting(TransactionView::dateTransaction)
+                    .isSortedAccordingTo(Comparator.reverseOrder());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de l'export des transactions")
+    class TransactionExportTests {
+
+        @Autowired
+        private TransactionRepository transactionRepository;
+
+        @Test
+        @DisplayName("Devrait parcourir toutes les transactions avec leur compte")
+        void shouldStreamTransactionsWithAccount() {
+            // Arrange
+            entityManager.persist(Transaction.builder()
+                    .type(TypeTransaction.DEPOT)
+                    .montant(new BigDecimal("10.00"))
+                    .compte(account1)
+                    .build());
+            entityManager.persist(Transaction.builder()
+                    .type(TypeTransaction.RETRAIT)
+                    .montant(new BigDecimal("5.00"))
+                    .compte(account2)
+                    .build());
+            entityManager.flush();
+            entityManager.clear();
+
+            // Act
+            List<String> numeros;
+            try (Stream<TransactionView> transactions = transactionRepository.streamAllForExport()) {
+                numeros = transactions.map(TransactionView::numeroCompte).toList();
+            }
+
+            // Assert
+            assertThat(numeros).containsExactlyInAnyOrder(account1.getNumeroCompte(), account2.getNumeroCompte());
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package com.ega.egabank.search;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ega.egabank.repository.AccountRepository;
+
+/**
+ * Tests unitaires pour AccountNumberIndex
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'index des numéros de compte")
+class AccountNumberIndexTest {
+
+    private static final String IBAN_1 = "TG12EGA0000100000000001";
+    private static final String IBAN_2 = "TG12EGA0000100000000002";
+    private static final String IBAN_3 = "TG12EGA0000170000000000";
+    private static final String IBAN_4 = "TG98EGA0000112345678901";
+    private static final String HORS_FORMAT = "TG12AAA0000000000000000000";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountNumberIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.streamNumerosCompte())
+                .thenReturn(Stream.of(IBAN_4, IBAN_2, HORS_FORMAT, IBAN_1, IBAN_3));
+        index = new AccountNumberIndex(accountRepository, transactionManager, true);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Devrait coder puis décoder un IBAN au format généré")
+    void shouldEncodeAndDecode() {
+        // Act
+        long code = AccountNumberIndex.coder(IBAN_4);
+
+        // Assert
+        assertThat(code).isEqualTo(9_812_345_678_901L);
+        assertThat(AccountNumberIndex.decoder(code)).isEqualTo(IBAN_4);
+        assertThat(AccountNumberIndex.coder(HORS_FORMAT)).isEqualTo(-1);
+        assertThat(AccountNumberIndex.coder("TG12EGA000010000000000X")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Devrait suggérer les numéros d'un préfixe dans l'ordre, fusionnés avec les numéros hors format")
+    void shouldSuggestInOrder() {
+        // Act & Assert
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.suggest("TG12", 10)).containsExactly(HORS_FORMAT, IBAN_1, IBAN_2, IBAN_3);
+        assertThat(index.suggest("TG12EGA000010", 10)).containsExactly(IBAN_1, IBAN_2);
+        assertThat(index.suggest("TG12EGA0000100000000002", 10)).containsExactly(IBAN_2);
+        assertThat(index.suggest("", 2)).containsExactly(HORS_FORMAT, IBAN_1);
+        assertThat(index.suggest("TG98EG", 10)).containsExactly(IBAN_4);
+    }
+
+    @Test
+    @DisplayName("Devrait ne rien suggérer pour un préfixe incompatible avec les numéros")
+    void shouldReturnNothingForUnknownPrefix() {
+        // Act & Assert
+        assertThat(index.suggest("TG13", 10)).isEmpty();
+        assertThat(index.suggest("FR", 10)).isEmpty();
+        assertThat(index.suggest("TG12EGA0000100000000001X", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait tenir compte des ajouts et suppressions")
+    void shouldApplyAddAndRemove() {
+        // Arrange
+        String nouveau = "TG12EGA0000100000000003";
+
+        // Act
+        index.add(nouveau);
+        index.add(nouveau);
+        index.remove(IBAN_1);
+        index.remove(HORS_FORMAT);
+
+        // Assert
+        assertThat(index.suggest("TG12", 10)).containsExactly(IBAN_2, nouveau, IBAN_3);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Devrait normaliser le préfixe saisi")
+    void shouldNormalizePrefix() {
+        // Act & Assert
+        assertThat(AccountNumberIndex.normaliser("tg12 ega0 0001")).isEqualTo("TG12EGA00001");
+        assertThat(AccountNumberIndex.normaliser("TG12%")).isNull();
+        assertThat(AccountNumberIndex.normaliser(null)).isNull();
+    }
+}
@@ -0,0 +1,146 @@
+package com.ega.egabank.search;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.ClientSearchEntry;
+
+/**
+ * Tests unitaires pour ClientSearchIndex
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'index de recherche des clients")
+class ClientSearchIndexTest {
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ClientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(clientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                new ClientSearchEntry(1L, "Dupont", "Jean", "jean.dupont@email.com"),
+                new ClientSearchEntry(2L, "Martin", "Marie", "marie.martin@email.com"),
+                new ClientSearchEntry(3L, "Durand", "Martine", null),
+                new ClientSearchEntry(4L, "Amartin", "Paul", "paul@exemple.tg")));
+        index = new ClientSearchIndex(clientRepository, transactionManager, true, 10_000);
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Devrait trouver une sous-chaîne dans le nom, le prénom ou le courriel, sans casse")
+    void shouldMatchSubstringInAnyField() {
+        // Act
+        ClientSearchIndex.Hits hits = index.search("MARTIN", 0, 10);
+
+        // Assert : tri par (nom, prénom)
+        assertThat(hits.total()).isEqualTo(3);
+        assertThat(hits.ids()).containsExactly(4L, 3L, 2L);
+    }
+
+    @Test
+    @DisplayName("Devrait écarter les candidats qui ont les trigrammes sans la sous-chaîne")
+    void shouldVerifyCandidates() {
+        // Arrange : "abcab" contient tous les trigrammes de "bcabc" (abc, bca, cab)
+        index.update(Client.builder().id(5L).nom("Abcab").prenom("Kodjo").build());
+
+        // Act
+        ClientSearchIndex.Hits hits = index.search("bcabc", 0, 10);
+
+        // Assert
+        assertThat(hits.total()).isZero();
+        assertThat(hits.ids()).isEmpty();
+        assertThat(index.search("abcab", 0, 10).ids()).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Devrait paginer les résultats triés et compter le total")
+    void shouldPageSortedResults() {
+        // Act
+        ClientSearchIndex.Hits page = index.search("mar", 1, 1);
+
+        // Assert
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.ids()).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Devrait suivre les modifications et suppressions de clients")
+    void shouldFollowUpdatesAndRemovals() {
+        // Act
+        index.update(Client.builder().id(1L).nom("Mensah").prenom("Kofi").courriel("kofi@email.com").build());
+        index.remove(2L);
+
+        // Assert
+        assertThat(index.search("dupont", 0, 10).total()).isZero();
+        assertThat(index.search("mensah", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("marie", 0, 10).total()).isZero();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait fusionner dans l'ordre les clients modifiés depuis la construction")
+    void shouldMergeUpdatedClientsInOrder() {
+        // Arrange : un client modifié et un client créé, hors de la numérotation initiale
+        index.update(Client.builder().id(2L).nom("Bamartin").prenom("Marie").build());
+        index.update(Client.builder().id(5L).nom("Zmartin").prenom("Ama").build());
+
+        // Act
+        ClientSearchIndex.Hits hits = index.search("martin", 0, 10);
+
+        // Assert : tri par (nom, prénom) sur le socle et les ajouts
+        assertThat(hits.ids()).containsExactly(4L, 2L, 3L, 5L);
+        assertThat(hits.total()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Devrait plafonner le total et arrêter la tranche après la page")
+    void shouldCapTotalAndStopSliceAfterPage() {
+        // Arrange
+        ClientSearchIndex plafonne = new ClientSearchIndex(clientRepository, transactionManager, true, 2);
+        when(clientRepository.streamSearchEntries()).thenReturn(Stream.of(
+                new ClientSearchEntry(1L, "Dupont", "Jean", null),
+                new ClientSearchEntry(2L, "Martin", "Marie", null),
+                new ClientSearchEntry(3L, "Durand", "Martine", null),
+                new ClientSearchEntry(4L, "Amartin", "Paul", null)));
+        plafonne.rebuild();
+
+        // Act
+        ClientSearchIndex.Hits page = plafonne.search("mar", 0, 1);
+        ClientSearchIndex.Hits tranche = plafonne.searchSlice("mar", 1, 1);
+        ClientSearchIndex.Hits derniere = plafonne.searchSlice("mar", 2, 1);
+
+        // Assert : le total s'arrête au plafond, la page au-delà reste servie
+        assertThat(page.ids()).containsExactly(4L);
+        assertThat(page.total()).isEqualTo(2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(tranche.ids()).containsExactly(3L);
+        assertThat(tranche.hasNext()).isTrue();
+        assertThat(derniere.ids()).containsExactly(2L);
+        assertThat(derniere.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait laisser les termes trop courts à la base")
+    void shouldNotServeShortTerms() {
+        // Assert
+        assertThat(index.canServe("ma")).isFalse();
+        assertThat(index.canServe("mar")).isTrue();
+    }
+}
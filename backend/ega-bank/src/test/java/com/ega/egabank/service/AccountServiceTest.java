@@ -5,6 +5,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +21,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.AccountRequest;
 import com.ega.egabank.dto.response.AccountResponse;
 import com.ega.egabank.dto.response.PageResponse;
@@ -31,8 +34,11 @@ import com.ega.egabank.exception.AccountGenerationException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.mapper.AccountMapper;
+import com.ega.egabank.posting.AccountShardManager;
 import com.ega.egabank.repository.AccountRepository;
 import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.search.AccountNumberIndex;
 import com.ega.egabank.service.impl.AccountServiceImpl;
 import com.ega.egabank.util.IbanGenerator;
 
@@ -55,6 +61,15 @@ class AccountServiceTest {
     @Mock
     private IbanGenerator ibanGenerator;
 
+    @Mock
+    private AccountDescriptorCache accountDescriptorCache;
+
+    @Mock
+    private AccountNumberIndex accountNumberIndex;
+
+    @Mock
+    private AccountShardManager accountShardManager;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -121,6 +136,27 @@ class AccountServiceTest {
             assertThat(result.getTotalElements()).isEqualTo(1);
             verify(accountRepository).findAll(any(Pageable.class));
         }
+
+        @Test
+        @DisplayName("Devrait retourner une tranche sans requête de comptage")
+        void shouldReturnSliceWithoutCount() {
+            // Arrange
+            List<Account> accounts = List.of(account);
+            when(accountRepository.findAllBy(any(Pageable.class)))
+                    .thenReturn(new SliceImpl<>(accounts, PageRequest.of(0, 1), true));
+            when(accountMapper.toResponseList(accounts)).thenReturn(List.of(accountResponse));
+
+            // Act
+            PageResponse<AccountResponse> result = accountService.getAllAccountsSlice(0, 1);
+
+            // Assert
+            assertThat(result.getContent()).hasSize(1);
+            assertThat(result.isHasNext()).isTrue();
+            assertThat(result.isLast()).isFalse();
+            assertThat(result.getTotalElements()).isEqualTo(-1);
+            verify(accountRepository, never()).findAll(any(Pageable.class));
+            verify(accountRepository, never()).count();
+        }
     }
 
     @Nested
@@ -188,6 +224,52 @@ class AccountServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests de suggestAccountNumbers")
+    class SuggestAccountNumbersTests {
+
+        @Test
+        @DisplayName("Devrait servir les suggestions depuis l'index, préfixe normalisé")
+        void shouldSuggestFromIndex() {
+            // Arrange
+            when(accountNumberIndex.isReady()).thenReturn(true);
+            when(accountNumberIndex.suggest("TG53EGA0", 10)).thenReturn(List.of(IBAN));
+
+            // Act
+            List<String> result = accountService.suggestAccountNumbers("tg53 ega0", 10);
+
+            // Assert
+            assertThat(result).containsExactly(IBAN);
+            verifyNoInteractions(accountRepository);
+        }
+
+        @Test
+        @DisplayName("Devrait interroger la base tant que l'index n'est pas prêt")
+        void shouldFallBackToRepository() {
+            // Arrange
+            when(accountNumberIndex.isReady()).thenReturn(false);
+            when(accountRepository.findNumerosCompteStartingWith("TG", PageRequest.of(0, 50)))
+                    .thenReturn(List.of(IBAN));
+
+            // Act : limite plafonnée
+            List<String> result = accountService.suggestAccountNumbers("TG", 1_000);
+
+            // Assert
+            assertThat(result).containsExactly(IBAN);
+        }
+
+        @Test
+        @DisplayName("Devrait ne rien suggérer pour un préfixe invalide")
+        void shouldRejectInvalidPrefix() {
+            // Act
+            List<String> result = accountService.suggestAccountNumbers("TG%", 10);
+
+            // Assert
+            assertThat(result).isEmpty();
+            verifyNoInteractions(accountNumberIndex, accountRepository);
+        }
+    }
+
     @Nested
     @DisplayName("Tests de createAccount")
     class CreateAccountTests {
@@ -209,6 +291,7 @@ class AccountServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.getNumeroCompte()).isEqualTo(IBAN);
             verify(accountRepository).save(any(Account.class));
+            verify(accountNumberIndex).add(IBAN);
         }
 
         @Test
@@ -278,6 +361,8 @@ class AccountServiceTest {
 
             // Assert
             verify(accountRepository).delete(account);
+            verify(accountDescriptorCache).invalidate(account.getNumeroCompte());
+            verify(accountNumberIndex).remove(account.getNumeroCompte());
         }
 
         @Test
@@ -305,6 +390,44 @@ class AccountServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests de getAccountETag")
+    class GetAccountETagTests {
+
+        @Test
+        @DisplayName("Devrait garder le même ETag tant que le compte n'a pas changé")
+        void shouldKeepETagWhileAccountUnchanged() {
+            // Arrange
+            LocalDateTime modification = LocalDateTime.of(2024, 6, 1, 10, 0);
+            AccountVersion version = new AccountVersion(1L, 3L, modification, BigDecimal.ZERO, 41L, "Dupont", "Jean");
+            AccountVersion apresDepot = new AccountVersion(1L, 4L, modification.plusMinutes(1), BigDecimal.ZERO,
+                    42L, "Dupont", "Jean");
+            when(accountRepository.findVersionByNumeroCompte(IBAN))
+                    .thenReturn(Optional.of(version), Optional.of(version), Optional.of(apresDepot));
+
+            // Act
+            String premier = accountService.getAccountETag(IBAN);
+            String inchange = accountService.getAccountETag(IBAN);
+            String modifie = accountService.getAccountETag(IBAN);
+
+            // Assert
+            assertThat(premier).isEqualTo(inchange);
+            assertThat(modifie).isNotEqualTo(premier);
+            verify(accountRepository, never()).findByNumeroCompte(any());
+        }
+
+        @Test
+        @DisplayName("Devrait lancer une exception si le compte n'existe pas")
+        void shouldThrowExceptionIfAccountNotFound() {
+            // Arrange
+            when(accountRepository.findVersionByNumeroCompte("INVALID")).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThatThrownBy(() -> accountService.getAccountETag("INVALID"))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Tests de deactivateAccount")
     class DeactivateAccountTests {
@@ -322,6 +445,7 @@ class AccountServiceTest {
             // Assert
             assertThat(account.getActif()).isFalse();
             verify(accountRepository).save(account);
+            verify(accountDescriptorCache).invalidate(account.getNumeroCompte());
         }
 
         @Test
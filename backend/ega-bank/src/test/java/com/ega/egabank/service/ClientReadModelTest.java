@@ -0,0 +1,148 @@
+package com.ega.egabank.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ega.egabank.dto.response.ClientResponse;
+import com.ega.egabank.dto.response.PageResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.AccountShard;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.AccountShardRepository;
+import com.ega.egabank.repository.ClientRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests d'intégration des listes de clients : nombre de requêtes SQL émises
+ * pour une page, quel que soit le nombre de clients et de comptes
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@DisplayName("Tests du modèle de lecture des clients")
+class ClientReadModelTest {
+
+    private static final String NOM = "Agregat";
+    private static final String IBAN_PREFIXE = "TG11EGA00001000000005";
+    private static final int CLIENTS = 20;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountShardRepository accountShardRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Client> clients = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CLIENTS; i++) {
+            Client client = clientRepository.save(Client.builder()
+                    .nom(NOM)
+                    .prenom(String.format("Client%02d", i))
+                    .dateNaissance(LocalDate.of(1980, 1, 1))
+                    .sexe(Sexe.FEMININ)
+                    .build());
+            clients.add(client);
+            // Deux comptes par client, sauf le dernier qui n'en a pas
+            if (i < CLIENTS - 1) {
+                accountRepository.save(account(client, String.format("%02d0", i), "100.00"));
+                accountRepository.save(account(client, String.format("%02d1", i), "50.00"));
+            }
+        }
+        // Un sous-solde sur un compte du premier client
+        Account partage = accountRepository.findByNumeroCompte(IBAN_PREFIXE + "000").orElseThrow();
+        accountShardRepository.save(AccountShard.builder()
+                .compte(partage)
+                .numero(0)
+                .solde(new BigDecimal("25.00"))
+                .build());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountShardRepository.deleteAll();
+        clients.forEach(client -> accountRepository.deleteAll(accountRepository.findByProprietaireId(client.getId())));
+        clientRepository.deleteAll(clients);
+        clients.clear();
+    }
+
+    @Test
+    @DisplayName("Devrait lister une tranche de clients en deux requêtes, sans charger les comptes")
+    void shouldListClientSliceWithTwoStatements() {
+        // Arrange
+        statistics.clear();
+
+        // Act
+        PageResponse<ClientResponse> tranche = clientService.getAllClientsSlice(0, 1000);
+
+        // Assert : la tranche, puis les agrégats groupés de ses clients
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(tranche.getContent().size());
+
+        List<ClientResponse> nos = tranche.getContent().stream()
+                .filter(c -> NOM.equals(c.getNom()))
+                .toList();
+        assertThat(nos).hasSize(CLIENTS);
+        assertThat(nos.get(0).getNombreComptes()).isEqualTo(2);
+        assertThat(nos.get(0).getSoldeTotal()).isEqualByComparingTo("175.00");
+        assertThat(nos.get(1).getSoldeTotal()).isEqualByComparingTo("150.00");
+        assertThat(nos.get(CLIENTS - 1).getNombreComptes()).isZero();
+        assertThat(nos.get(CLIENTS - 1).getSoldeTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @DisplayName("Devrait lister une page de clients sans requête par client")
+    void shouldListClientPageWithoutPerClientStatements() {
+        // Arrange
+        statistics.clear();
+
+        // Act
+        PageResponse<ClientResponse> page = clientService.getAllClients(0, 1000);
+
+        // Assert : la page, son comptage éventuel et les agrégats groupés
+        assertThat(page.getContent()).filteredOn(c -> NOM.equals(c.getNom())).hasSize(CLIENTS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    private Account account(Client client, String suffixe, String solde) {
+        return Account.builder()
+                .numeroCompte(IBAN_PREFIXE + suffixe)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal(solde))
+                .actif(true)
+                .proprietaire(client)
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,7 +23,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.ClientRequest;
 import com.ega.egabank.dto.response.ClientResponse;
 import com.ega.egabank.dto.response.PageResponse;
@@ -33,7 +36,10 @@ import com.ega.egabank.exception.DuplicateResourceException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
 import com.ega.egabank.mapper.ClientMapper;
+import com.ega.egabank.posting.AccountShardManager;
 import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.projection.ClientAccountSummary;
+import com.ega.egabank.search.ClientSearchIndex;
 import com.ega.egabank.service.impl.ClientServiceImpl;
 
 /**
@@ -49,6 +55,15 @@ class ClientServiceTest {
     @Mock
     private ClientMapper clientMapper;
 
+    @Mock
+    private AccountDescriptorCache accountDescriptorCache;
+
+    @Mock
+    private AccountShardManager accountShardManager;
+
+    @Mock
+    private ClientSearchIndex clientSearchIndex;
+
     @InjectMocks
     private ClientServiceImpl clientService;
 
@@ -109,7 +124,7 @@ class ClientServiceTest {
             Page<Client> clientPage = new PageImpl<>(clients, PageRequest.of(0, 10), 1);
 
             when(clientRepository.findAll(any(Pageable.class))).thenReturn(clientPage);
-            when(clientMapper.toResponseList(clients)).thenReturn(List.of(clientResponse));
+            when(clientMapper.toResponseList(eq(clients), anyMap())).thenReturn(List.of(clientResponse));
 
             // Act
             PageResponse<ClientResponse> result = clientService.getAllClients(0, 10);
@@ -127,7 +142,6 @@ class ClientServiceTest {
             // Arrange
             Page<Client> emptyPage = new PageImpl<>(List.of(), PageRequest.of(0, 10), 0);
             when(clientRepository.findAll(any(Pageable.class))).thenReturn(emptyPage);
-            when(clientMapper.toResponseList(any())).thenReturn(List.of());
 
             // Act
             PageResponse<ClientResponse> result = clientService.getAllClients(0, 10);
@@ -135,6 +149,45 @@ class ClientServiceTest {
             // Assert
             assertThat(result.getContent()).isEmpty();
             assertThat(result.getTotalElements()).isZero();
+            verify(clientRepository, never()).findAccountSummaries(any());
+        }
+
+        @Test
+        @DisplayName("Devrait agréger les comptes de la page en une requête, sans charger les collections")
+        void shouldAggregateAccountsOfPage() {
+            // Arrange
+            List<Client> clients = List.of(client);
+            ClientAccountSummary resume = new ClientAccountSummary(1L, 2L, new BigDecimal("1500.00"));
+            when(clientRepository.findAll(any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(clients, PageRequest.of(0, 10), 1));
+            when(clientRepository.findAccountSummaries(List.of(1L))).thenReturn(List.of(resume));
+            when(clientMapper.toResponseList(clients, Map.of(1L, resume))).thenReturn(List.of(clientResponse));
+
+            // Act
+            PageResponse<ClientResponse> result = clientService.getAllClients(0, 10);
+
+            // Assert
+            assertThat(result.getContent()).containsExactly(clientResponse);
+            verify(clientRepository).findAccountSummaries(List.of(1L));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner une tranche de clients sans total")
+        void shouldReturnSliceOfClients() {
+            // Arrange
+            List<Client> clients = List.of(client);
+            when(clientRepository.findAllBy(any(Pageable.class)))
+                    .thenReturn(new SliceImpl<>(clients, PageRequest.of(0, 1), true));
+            when(clientMapper.toResponseList(eq(clients), anyMap())).thenReturn(List.of(clientResponse));
+
+            // Act
+            PageResponse<ClientResponse> result = clientService.getAllClientsSlice(0, 1);
+
+            // Assert
+            assertThat(result.getContent()).hasSize(1);
+            assertThat(result.isHasNext()).isTrue();
+            assertThat(result.getTotalElements()).isEqualTo(-1);
+            verify(clientRepository, never()).findAll(any(Pageable.class));
         }
     }
 
@@ -151,7 +204,7 @@ class ClientServiceTest {
             Page<Client> clientPage = new PageImpl<>(clients, PageRequest.of(0, 10), 1);
 
             when(clientRepository.search(eq(searchTerm), any(Pageable.class))).thenReturn(clientPage);
-            when(clientMapper.toResponseList(clients)).thenReturn(List.of(clientResponse));
+            when(clientMapper.toResponseList(eq(clients), anyMap())).thenReturn(List.of(clientResponse));
 
             // Act
             PageResponse<ClientResponse> result = clientService.searchClients(searchTerm, 0, 10);
@@ -160,6 +213,50 @@ class ClientServiceTest {
             assertThat(result.getContent()).hasSize(1);
             verify(clientRepository).search(eq(searchTerm), any(Pageable.class));
         }
+
+        @Test
+        @DisplayName("Devrait servir la recherche depuis l'index et ne lire que la page en base")
+        void shouldSearchThroughIndex() {
+            // Arrange
+            Client autre = Client.builder().id(2L).nom("Dupontel").prenom("Albert").build();
+            when(clientSearchIndex.canServe("dupont")).thenReturn(true);
+            when(clientSearchIndex.search("dupont", 10, 10))
+                    .thenReturn(new ClientSearchIndex.Hits(List.of(2L, 1L), 12, false));
+            when(clientRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(client, autre));
+            when(clientMapper.toResponseList(eq(List.of(autre, client)), anyMap()))
+                    .thenReturn(List.of(clientResponse, clientResponse));
+
+            // Act
+            PageResponse<ClientResponse> result = clientService.searchClients("dupont", 1, 10);
+
+            // Assert : ordre de l'index conservé, total fourni par l'index
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(result.getTotalElements()).isEqualTo(12);
+            assertThat(result.getTotalPages()).isEqualTo(2);
+            assertThat(result.isLast()).isTrue();
+            verify(clientRepository, never()).search(anyString(), any(Pageable.class));
+        }
+
+        @Test
+        @DisplayName("Devrait rechercher par tranche sans requête de comptage")
+        void shouldSearchClientsBySliceWithoutCount() {
+            // Arrange
+            String searchTerm = "Dupont";
+            List<Client> clients = List.of(client);
+            when(clientRepository.searchSlice(eq(searchTerm), any(Pageable.class)))
+                    .thenReturn(new SliceImpl<>(clients, PageRequest.of(0, 10), false));
+            when(clientMapper.toResponseList(eq(clients), anyMap())).thenReturn(List.of(clientResponse));
+
+            // Act
+            PageResponse<ClientResponse> result = clientService.searchClientsSlice(searchTerm, 0, 10);
+
+            // Assert
+            assertThat(result.getContent()).hasSize(1);
+            assertThat(result.isHasNext()).isFalse();
+            assertThat(result.isLast()).isTrue();
+            assertThat(result.getTotalPages()).isEqualTo(-1);
+            verify(clientRepository, never()).search(anyString(), any(Pageable.class));
+        }
     }
 
     @Nested
@@ -236,6 +333,7 @@ class ClientServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.getNom()).isEqualTo("Dupont");
             verify(clientRepository).save(client);
+            verify(clientSearchIndex).update(client);
         }
 
         @Test
@@ -0,0 +1,240 @@
+package com.ega.egabank.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+
+import com.ega.egabank.cache.StatementCache;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.AccountVersion;
+import com.ega.egabank.repository.projection.PeriodBalances;
+import com.ega.egabank.repository.projection.TransactionView;
+import com.ega.egabank.service.impl.StatementServiceImpl;
+import com.ega.egabank.statement.Camt053StatementWriter;
+import com.ega.egabank.statement.CsvStatementWriter;
+import com.ega.egabank.statement.OfxStatementWriter;
+
+/**
+ * Tests unitaires pour StatementService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du service de relevés")
+class StatementServiceTest {
+
+    private static final String IBAN = "TG11EGA0000100000000901";
+    private static final LocalDate DEBUT = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2024, 12, 31);
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private StatementCache statementCache;
+
+    @Mock
+    private AccountShardManager accountShardManager;
+
+    private StatementServiceImpl statementService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        statementService = new StatementServiceImpl(accountRepository, transactionRepository, statementCache,
+                accountShardManager,
+                List.of(new CsvStatementWriter(), new OfxStatementWriter(), new Camt053StatementWriter()), 2);
+        account = Account.builder()
+                .id(1L)
+                .numeroCompte(IBAN)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal("300.00"))
+                .actif(true)
+                .proprietaire(Client.builder().id(1L).nom("Dupont").prenom("Jean").build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Devrait parcourir la période par tranches en reprenant après la dernière position")
+    void shouldPageThroughPeriodByPosition() throws IOException {
+        // Arrange
+        TransactionView t3 = view(3L, LocalDateTime.of(2024, 3, 1, 10, 0));
+        TransactionView t2 = view(2L, LocalDateTime.of(2024, 2, 1, 10, 0));
+        TransactionView t1 = view(1L, LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(accountRepository.findByNumeroCompteWithClient(IBAN)).thenReturn(Optional.of(account));
+        when(transactionRepository.findFirstPeriodChunkByCompteId(eq(1L), any(), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(t3, t2));
+        when(transactionRepository.findPeriodChunkByCompteIdAfter(eq(1L), any(), any(),
+                eq(t2.dateTransaction()), eq(2L), eq(Limit.of(2))))
+                .thenReturn(List.of(t1));
+        ClosingAwareOutputStream out = new ClosingAwareOutputStream();
+
+        // Act
+        statementService.writeStatement(IBAN, DEBUT, FIN, out);
+
+        // Assert : tranche incomplète, pas de troisième requête ; le flux reste ouvert
+        assertThat(new String(out.toByteArray(), 0, 5, StandardCharsets.ISO_8859_1)).isEqualTo("%PDF-");
+        assertThat(out.closed).isFalse();
+        verify(transactionRepository).findFirstPeriodChunkByCompteId(eq(1L), any(), any(), any());
+        verify(transactionRepository).findPeriodChunkByCompteIdAfter(eq(1L), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait générer un relevé vide en une seule requête de tranche")
+    void shouldGenerateEmptyStatement() {
+        // Arrange
+        when(accountRepository.findByNumeroCompteWithClient(IBAN)).thenReturn(Optional.of(account));
+        when(transactionRepository.findFirstPeriodChunkByCompteId(eq(1L), any(), any(), any()))
+                .thenReturn(List.of());
+
+        // Act
+        byte[] pdf = statementService.generateStatement(IBAN, DEBUT, FIN);
+
+        // Assert
+        assertThat(pdf).isNotEmpty();
+        verify(transactionRepository, never()).findPeriodChunkByCompteIdAfter(any(), any(), any(), any(), any(),
+                any());
+    }
+
+    @Test
+    @DisplayName("Devrait lancer une exception si le compte n'existe pas")
+    void shouldThrowExceptionIfAccountNotFound() {
+        // Arrange
+        when(accountRepository.findByNumeroCompteWithClient(IBAN)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> statementService.writeStatement(IBAN, DEBUT, FIN, new ByteArrayOutputStream()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait changer de clé de cache dès qu'une écriture tombe dans la période")
+    void shouldChangeCacheKeyWithPeriodContent() throws IOException {
+        // Arrange
+        AccountVersion version = new AccountVersion(1L, 7L, null, BigDecimal.ZERO, 42L, "Dupont", "Jean");
+        when(accountRepository.findVersionByNumeroCompte(IBAN)).thenReturn(Optional.of(version));
+        when(transactionRepository.findMaxIdByCompteIdAndPeriod(eq(1L), any(), any())).thenReturn(40L, 41L);
+        Resource pdf = new ByteArrayResource(new byte[] { 1 });
+        when(statementCache.get(anyString(), any())).thenReturn(pdf);
+
+        // Act
+        Resource premier = statementService.getStatement(IBAN, DEBUT, FIN);
+        statementService.getStatement(IBAN, DEBUT, FIN);
+
+        // Assert
+        assertThat(premier).isSameAs(pdf);
+        ArgumentCaptor<String> cles = ArgumentCaptor.forClass(String.class);
+        verify(statementCache, times(2)).get(cles.capture(), any());
+        assertThat(cles.getAllValues().get(0)).isNotEqualTo(cles.getAllValues().get(1));
+        verify(accountRepository, never()).findByNumeroCompteWithClient(any());
+    }
+
+    @Test
+    @DisplayName("Devrait exporter le relevé en CSV par tranches chronologiques, soldes déduits des mouvements")
+    void shouldExportCsvByChronologicalChunks() {
+        // Arrange
+        TransactionView depot = view(1L, LocalDateTime.of(2024, 1, 5, 9, 30));
+        TransactionView retrait = new TransactionView(2L, TypeTransaction.RETRAIT, new BigDecimal("40.00"),
+                LocalDateTime.of(2024, 2, 1, 10, 0), "Retrait, guichet", null, new BigDecimal("100.00"),
+                new BigDecimal("60.00"), IBAN);
+        when(accountRepository.findByNumeroCompteWithClient(IBAN)).thenReturn(Optional.of(account));
+        when(accountRepository.findPeriodBalancesById(eq(1L), any(), any()))
+                .thenReturn(Optional.of(new PeriodBalances(new BigDecimal("0.00"), new BigDecimal("60.00"))));
+        when(transactionRepository.findFirstChronologicalChunkByCompteId(eq(1L), any(), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(depot, retrait));
+        when(transactionRepository.findChronologicalChunkByCompteIdAfter(eq(1L), any(), any(),
+                eq(retrait.dateTransaction()), eq(2L), eq(Limit.of(2))))
+                .thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        statementService.exportStatement(IBAN, DEBUT, FIN, FormatReleve.CSV, out);
+
+        // Assert : plus anciennes d'abord, reprise après la dernière position de la tranche pleine
+        String[] lignes = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lignes).hasSize(3);
+        assertThat(lignes[1]).startsWith("1,2024-01-05T09:30:00,DEPOT,").contains(",100.00,XOF,");
+        assertThat(lignes[2]).contains(",-40.00,XOF,100.00,60.00,\"Retrait, guichet\",");
+        verify(transactionRepository).findChronologicalChunkByCompteIdAfter(eq(1L), any(), any(), any(), any(),
+                any());
+        verify(transactionRepository, never()).findFirstPeriodChunkByCompteId(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre le solde de clôture en ouverture si la période est vide")
+    void shouldUseClosingBalanceForEmptyPeriod() {
+        // Arrange
+        when(accountRepository.findByNumeroCompteWithClient(IBAN)).thenReturn(Optional.of(account));
+        when(accountRepository.findPeriodBalancesById(eq(1L), any(), any()))
+                .thenReturn(Optional.of(new PeriodBalances(new BigDecimal("100.00"), BigDecimal.ZERO)));
+        when(transactionRepository.findFirstChronologicalChunkByCompteId(eq(1L), any(), any(), any()))
+                .thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        statementService.exportStatement(IBAN, DEBUT, FIN, FormatReleve.CAMT053, out);
+
+        // Assert
+        String xml = out.toString(StandardCharsets.UTF_8);
+        assertThat(xml).contains("<Cd>OPBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"XOF\">100.00</Amt>")
+                .contains("<Cd>CLBD</Cd></CdOrPrtry></Tp><Amt Ccy=\"XOF\">100.00</Amt>")
+                .doesNotContain("<Ntry>");
+    }
+
+    @Test
+    @DisplayName("Devrait refuser le format PDF, servi par la génération mise en cache")
+    void shouldRejectPdfExport() {
+        // Act & Assert
+        assertThatThrownBy(() -> statementService.exportStatement(IBAN, DEBUT, FIN, FormatReleve.PDF,
+                new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private TransactionView view(Long id, LocalDateTime date) {
+        return new TransactionView(id, TypeTransaction.DEPOT, new BigDecimal("100.00"), date, null, null,
+                BigDecimal.ZERO, new BigDecimal("100.00"), IBAN);
+    }
+
+    private static final class ClosingAwareOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ega.egabank.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ega.egabank.dto.response.TransactionResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tests d'intégration du chemin de lecture par projection : nombre de
+ * requêtes SQL émises pour lister un historique
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@DisplayName("Tests du modèle de lecture des transactions")
+class TransactionReadModelTest {
+
+    private static final String IBAN_COURANT = "TG11EGA0000100000000401";
+    private static final String IBAN_EPARGNE = "TG11EGA0000100000000402";
+    private static final int LIGNES = 1000;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Client client;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(Client.builder()
+                .nom("Lecture")
+                .prenom("Test")
+                .dateNaissance(LocalDate.of(1980, 1, 1))
+                .sexe(Sexe.MASCULIN)
+                .build());
+        Account courant = accountRepository.save(account(IBAN_COURANT, TypeCompte.COURANT));
+        Account epargne = accountRepository.save(account(IBAN_EPARGNE, TypeCompte.EPARGNE));
+
+        List<Transaction> lignes = new ArrayList<>(LIGNES);
+        for (int i = 0; i < LIGNES; i++) {
+            lignes.add(Transaction.builder()
+                    .type(TypeTransaction.DEPOT)
+                    .montant(BigDecimal.ONE)
+                    .soldeAvant(BigDecimal.valueOf(i))
+                    .soldeApres(BigDecimal.valueOf(i + 1))
+                    .compte(i % 2 == 0 ? courant : epargne)
+                    .build());
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> transactionBatchWriter.insertAll(lignes));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Les transactions des comptes sont supprimées avec eux (cascade)
+        accountRepository.deleteAll(accountRepository.findByProprietaireId(client.getId()));
+        clientRepository.delete(client);
+    }
+
+    @Test
+    @DisplayName("Devrait lister l'historique d'un compte en une seule requête, sans entité chargée")
+    void shouldListAccountHistoryWithSingleStatement() {
+        // Arrange : la description du compte est déjà en cache
+        transactionService.getAllTransactionsByAccount(IBAN_COURANT);
+        statistics.clear();
+
+        // Act
+        List<TransactionResponse> historique = transactionService.getAllTransactionsByAccount(IBAN_COURANT);
+
+        // Assert
+        assertThat(historique).hasSize(LIGNES / 2)
+                .allSatisfy(t -> assertThat(t.getNumeroCompte()).isEqualTo(IBAN_COURANT));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait lister les transactions de tous les comptes d'un client en une seule requête")
+    void shouldListClientTransactionsWithSingleStatement() {
+        // Arrange
+        statistics.clear();
+
+        // Act
+        List<TransactionResponse> transactions = transactionService.getAllTransactionsByClient(client.getId());
+
+        // Assert
+        assertThat(transactions).hasSize(LIGNES)
+                .extracting(TransactionResponse::getNumeroCompte)
+                .containsOnly(IBAN_COURANT, IBAN_EPARGNE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private Account account(String numero, TypeCompte type) {
+        return Account.builder()
+                .numeroCompte(numero)
+                .typeCompte(type)
+                .solde(BigDecimal.ZERO)
+                .actif(true)
+                .proprietaire(client)
+                .build();
+    }
+}
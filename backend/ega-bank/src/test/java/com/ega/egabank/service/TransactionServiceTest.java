@@ -7,8 +7,11 @@ import static org.mockito.Mockito.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,9 +22,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.ega.egabank.cache.AccountDescriptorCache;
 import com.ega.egabank.dto.request.OperationRequest;
 import com.ega.egabank.dto.request.TransferRequest;
+import com.ega.egabank.dto.response.BatchTransferResponse;
+import com.ega.egabank.dto.response.CursorPageResponse;
 import com.ega.egabank.dto.response.TransactionResponse;
 import com.ega.egabank.entity.Account;
 import com.ega.egabank.entity.Transaction;
@@ -30,10 +38,20 @@ import com.ega.egabank.enums.TypeTransaction;
 import com.ega.egabank.exception.InsufficientBalanceException;
 import com.ega.egabank.exception.OperationNotAllowedException;
 import com.ega.egabank.exception.ResourceNotFoundException;
+import com.ega.egabank.journal.TransactionJournal;
 import com.ega.egabank.mapper.TransactionMapper;
+import com.ega.egabank.posting.AccountShardManager;
+import com.ega.egabank.posting.PostingExecutor;
+import com.ega.egabank.posting.PostingMode;
 import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.TransactionBatchWriter;
 import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.repository.projection.AccountBalanceView;
+import com.ega.egabank.repository.projection.AccountDescriptor;
+import com.ega.egabank.repository.projection.TransactionHistoryVersion;
+import com.ega.egabank.repository.projection.TransactionView;
 import com.ega.egabank.service.impl.TransactionServiceImpl;
+import com.ega.egabank.util.KeysetCursor;
 
 /**
  * Tests unitaires pour TransactionService
@@ -51,6 +69,21 @@ class TransactionServiceTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private PostingExecutor postingExecutor;
+
+    @Mock
+    private TransactionBatchWriter transactionBatchWriter;
+
+    @Mock
+    private AccountShardManager accountShardManager;
+
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private AccountDescriptorCache accountDescriptorCache;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -66,6 +99,11 @@ class TransactionServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(postingExecutor.execute(anyCollection(), any()))
+                .thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+        lenient().when(postingExecutor.executeReadModifyWrite(anyCollection(), any()))
+                .thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+
         sourceAccount = Account.builder()
                 .id(1L)
                 .numeroCompte(SOURCE_IBAN)
@@ -304,6 +342,191 @@ class TransactionServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests du mode de mise à jour atomique")
+    class AtomicModeTests {
+
+        @BeforeEach
+        void enableAtomicMode() {
+            when(postingExecutor.getMode()).thenReturn(PostingMode.ATOMIC);
+        }
+
+        private AccountBalanceView balance(Account account, String solde) {
+            AccountBalanceView view = mock(AccountBalanceView.class);
+            lenient().when(view.getId()).thenReturn(account.getId());
+            lenient().when(view.getSolde()).thenReturn(new BigDecimal(solde));
+            lenient().when(view.getActif()).thenReturn(account.getActif());
+            return view;
+        }
+
+        @Test
+        @DisplayName("Devrait débiter en une requête conditionnelle sans charger le compte")
+        void shouldWithdrawWithConditionalUpdate() {
+            // Arrange
+            AccountBalanceView apres = balance(sourceAccount, "850.00");
+            when(accountRepository.debitReturningBalance(SOURCE_IBAN, withdrawRequest.getMontant()))
+                    .thenReturn(Optional.of(apres));
+            when(accountRepository.getReferenceById(sourceAccount.getId())).thenReturn(sourceAccount);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+            when(transactionMapper.toResponse(any(Transaction.class), eq(SOURCE_IBAN))).thenReturn(transactionResponse);
+
+            // Act
+            transactionService.withdraw(SOURCE_IBAN, withdrawRequest);
+
+            // Assert
+            ArgumentCaptor<Transaction> transactionCaptor = ArgumentCaptor.forClass(Transaction.class);
+            verify(transactionRepository).save(transactionCaptor.capture());
+            assertThat(transactionCaptor.getValue().getSoldeAvant()).isEqualByComparingTo("1000.00");
+            assertThat(transactionCaptor.getValue().getSoldeApres()).isEqualByComparingTo("850.00");
+            verify(accountRepository, never()).findByNumeroCompte(any());
+            verify(accountRepository, never()).findBalanceByNumeroCompte(any());
+            verify(accountRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Devrait lever InsufficientBalanceException si aucune ligne n'est débitée")
+        void shouldThrowInsufficientBalanceIfNoRowUpdated() {
+            // Arrange
+            AccountBalanceView actuel = balance(sourceAccount, "100.00");
+            when(accountRepository.debitReturningBalance(SOURCE_IBAN, withdrawRequest.getMontant()))
+                    .thenReturn(Optional.empty());
+            when(accountRepository.findBalanceByNumeroCompte(SOURCE_IBAN)).thenReturn(Optional.of(actuel));
+
+            // Act & Assert
+            assertThatThrownBy(() -> transactionService.withdraw(SOURCE_IBAN, withdrawRequest))
+                    .isInstanceOf(InsufficientBalanceException.class);
+            verify(transactionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Devrait signaler un compte inactif si aucune ligne n'est créditée")
+        void shouldThrowOperationNotAllowedIfAccountInactive() {
+            // Arrange
+            sourceAccount.setActif(false);
+            AccountBalanceView actuel = balance(sourceAccount, "1000.00");
+            when(accountRepository.creditReturningBalance(SOURCE_IBAN, depositRequest.getMontant()))
+                    .thenReturn(Optional.empty());
+            when(accountRepository.findBalanceByNumeroCompte(SOURCE_IBAN)).thenReturn(Optional.of(actuel));
+
+            // Act & Assert
+            assertThatThrownBy(() -> transactionService.deposit(SOURCE_IBAN, depositRequest))
+                    .isInstanceOf(OperationNotAllowedException.class)
+                    .hasMessageContaining("inactif");
+        }
+
+        @Test
+        @DisplayName("Devrait signaler un compte inexistant si aucune ligne n'est créditée")
+        void shouldThrowResourceNotFoundIfAccountMissing() {
+            // Arrange
+            when(accountRepository.creditReturningBalance("INVALID", depositRequest.getMontant()))
+                    .thenReturn(Optional.empty());
+            when(accountRepository.findBalanceByNumeroCompte("INVALID")).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThatThrownBy(() -> transactionService.deposit("INVALID", depositRequest))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de transferBatch")
+    class TransferBatchTests {
+
+        private static final String THIRD_IBAN = "TG53TG0000000000000000011111111";
+
+        private Account thirdAccount;
+
+        @BeforeEach
+        void setUpBatch() {
+            ReflectionTestUtils.setField(transactionService, "transferBatchChunkSize", 2);
+            thirdAccount = Account.builder()
+                    .id(3L)
+                    .numeroCompte(THIRD_IBAN)
+                    .typeCompte(TypeCompte.COURANT)
+                    .solde(BigDecimal.ZERO)
+                    .actif(true)
+                    .build();
+            lenient().when(accountRepository.findAllForUpdateByNumeroCompteIn(anyCollection()))
+                    .thenReturn(List.of(sourceAccount, destinationAccount, thirdAccount));
+        }
+
+        private TransferRequest leg(String destination, String montant) {
+            return TransferRequest.builder()
+                    .compteSource(SOURCE_IBAN)
+                    .compteDestination(destination)
+                    .montant(new BigDecimal(montant))
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Devrait charger les comptes et écrire les transactions une fois par paquet")
+        void shouldLoadAccountsOncePerChunk() {
+            // Arrange
+            List<TransferRequest> virements = List.of(
+                    leg(DEST_IBAN, "100.00"), leg(THIRD_IBAN, "200.00"), leg(DEST_IBAN, "300.00"));
+            List<Integer> tailles = new ArrayList<>();
+            doAnswer(i -> tailles.add(i.<List<Transaction>>getArgument(0).size()))
+                    .when(transactionBatchWriter).insertAll(anyList());
+
+            // Act
+            BatchTransferResponse response = transactionService.transferBatch(virements);
+
+            // Assert
+            assertThat(response.getTotal()).isEqualTo(3);
+            assertThat(response.getReussis()).isEqualTo(3);
+            verify(postingExecutor, times(2)).execute(anyCollection(), any());
+            verify(accountRepository, times(2)).findAllForUpdateByNumeroCompteIn(anyCollection());
+            verify(accountRepository, never()).findByNumeroCompte(any());
+            verify(transactionRepository, never()).save(any());
+            assertThat(tailles).containsExactly(4, 2);
+            assertThat(sourceAccount.getSolde()).isEqualByComparingTo("400.00");
+            assertThat(destinationAccount.getSolde()).isEqualByComparingTo("900.00");
+            assertThat(thirdAccount.getSolde()).isEqualByComparingTo("200.00");
+        }
+
+        @Test
+        @DisplayName("Devrait refermer le paquet avant de dépasser le nombre maximal de verrous")
+        void shouldCapChunkLockStripes() {
+            // Arrange
+            ReflectionTestUtils.setField(transactionService, "transferBatchChunkSize", 1000);
+            ReflectionTestUtils.setField(transactionService, "transferBatchMaxLockStripes", 2);
+            when(postingExecutor.lockStripeOf(SOURCE_IBAN)).thenReturn(0);
+            when(postingExecutor.lockStripeOf(DEST_IBAN)).thenReturn(1);
+            when(postingExecutor.lockStripeOf(THIRD_IBAN)).thenReturn(2);
+            List<TransferRequest> virements = List.of(
+                    leg(DEST_IBAN, "100.00"), leg(DEST_IBAN, "50.00"), leg(THIRD_IBAN, "200.00"));
+
+            // Act
+            BatchTransferResponse response = transactionService.transferBatch(virements);
+
+            // Assert : {source, destination} puis {source, tiers}
+            assertThat(response.getReussis()).isEqualTo(3);
+            verify(postingExecutor, times(2)).execute(anyCollection(), any());
+            assertThat(thirdAccount.getSolde()).isEqualByComparingTo("200.00");
+        }
+
+        @Test
+        @DisplayName("Devrait rejeter un virement invalide sans affecter le reste du paquet")
+        void shouldReportFailingLegs() {
+            // Arrange
+            List<TransferRequest> virements = List.of(
+                    leg(DEST_IBAN, "5000.00"), leg("INVALID", "10.00"), leg(THIRD_IBAN, "100.00"));
+
+            // Act
+            BatchTransferResponse response = transactionService.transferBatch(virements);
+
+            // Assert
+            assertThat(response.getReussis()).isEqualTo(1);
+            assertThat(response.getEchoues()).isEqualTo(2);
+            assertThat(response.getResultats())
+                    .extracting(BatchTransferResponse.LegStatus::getIndex, BatchTransferResponse.LegStatus::isSucces)
+                    .containsExactly(tuple(0, false), tuple(1, false), tuple(2, true));
+            assertThat(response.getResultats().get(0).getMessage()).contains("Solde insuffisant");
+            assertThat(sourceAccount.getSolde()).isEqualByComparingTo("900.00");
+            assertThat(destinationAccount.getSolde()).isEqualByComparingTo("500.00");
+        }
+    }
+
     @Nested
     @DisplayName("Tests de getTransactionHistory")
     class GetTransactionHistoryTests {
@@ -314,28 +537,27 @@ class TransactionServiceTest {
             // Arrange
             LocalDate debut = LocalDate.now().minusDays(30);
             LocalDate fin = LocalDate.now();
-            List<Transaction> transactions = List.of(
-                    Transaction.builder().id(1L).type(TypeTransaction.DEPOT).montant(new BigDecimal("100")).build());
+            List<TransactionView> transactions = List.of(view(1L, TypeTransaction.DEPOT, "100"));
 
-            when(accountRepository.existsByNumeroCompte(SOURCE_IBAN)).thenReturn(true);
-            when(transactionRepository.findByCompteAndPeriod(eq(SOURCE_IBAN), any(LocalDateTime.class),
+            when(accountDescriptorCache.find(SOURCE_IBAN)).thenReturn(Optional.of(sourceDescriptor()));
+            when(transactionRepository.findViewsByCompteIdAndPeriod(eq(1L), any(LocalDateTime.class),
                     any(LocalDateTime.class)))
                     .thenReturn(transactions);
-            when(transactionMapper.toResponseList(transactions)).thenReturn(List.of(transactionResponse));
+            when(transactionMapper.toResponseListFromViews(transactions)).thenReturn(List.of(transactionResponse));
 
             // Act
             List<TransactionResponse> result = transactionService.getTransactionHistory(SOURCE_IBAN, debut, fin);
 
             // Assert
             assertThat(result).hasSize(1);
-            verify(transactionRepository).findByCompteAndPeriod(eq(SOURCE_IBAN), any(), any());
+            verify(transactionRepository).findViewsByCompteIdAndPeriod(eq(1L), any(), any());
         }
 
         @Test
         @DisplayName("Devrait lancer une exception si le compte n'existe pas")
         void shouldThrowExceptionIfAccountNotFound() {
             // Arrange
-            when(accountRepository.existsByNumeroCompte("INVALID")).thenReturn(false);
+            when(accountDescriptorCache.find("INVALID")).thenReturn(Optional.empty());
 
             // Act & Assert
             assertThatThrownBy(
@@ -352,14 +574,14 @@ class TransactionServiceTest {
         @DisplayName("Devrait retourner toutes les transactions d'un compte")
         void shouldReturnAllTransactions() {
             // Arrange
-            List<Transaction> transactions = List.of(
-                    Transaction.builder().id(1L).type(TypeTransaction.DEPOT).montant(new BigDecimal("100")).build(),
-                    Transaction.builder().id(2L).type(TypeTransaction.RETRAIT).montant(new BigDecimal("50")).build());
+            List<TransactionView> transactions = List.of(
+                    view(1L, TypeTransaction.DEPOT, "100"),
+                    view(2L, TypeTransaction.RETRAIT, "50"));
 
-            when(accountRepository.findByNumeroCompte(SOURCE_IBAN)).thenReturn(Optional.of(sourceAccount));
-            when(transactionRepository.findByCompteIdOrderByDateTransactionDesc(sourceAccount.getId()))
+            when(accountDescriptorCache.find(SOURCE_IBAN)).thenReturn(Optional.of(sourceDescriptor()));
+            when(transactionRepository.findViewsByCompteId(sourceAccount.getId()))
                     .thenReturn(transactions);
-            when(transactionMapper.toResponseList(transactions))
+            when(transactionMapper.toResponseListFromViews(transactions))
                     .thenReturn(List.of(transactionResponse, transactionResponse));
 
             // Act
@@ -368,5 +590,154 @@ class TransactionServiceTest {
             // Assert
             assertThat(result).hasSize(2);
         }
+
+        @Test
+        @DisplayName("Devrait changer d'ETag à chaque écriture, même antidatée, ou mise à jour, sans lire l'historique")
+        void shouldChangeETagWithHistoryVersion() {
+            // Arrange
+            Long id = sourceAccount.getId();
+            when(accountDescriptorCache.find(SOURCE_IBAN)).thenReturn(Optional.of(sourceDescriptor()));
+            when(accountRepository.findHistoryVersionById(id)).thenReturn(
+                    Optional.of(new TransactionHistoryVersion(id, 3L, 10L, 41L)),
+                    Optional.of(new TransactionHistoryVersion(id, 3L, 10L, 41L)),
+                    Optional.of(new TransactionHistoryVersion(id, 3L, 11L, 42L)),
+                    Optional.of(new TransactionHistoryVersion(id, 3L, 12L, 42L)),
+                    Optional.of(new TransactionHistoryVersion(id, 4L, 12L, 42L)));
+
+            // Act
+            String premier = transactionService.getTransactionsETag(SOURCE_IBAN);
+            String inchange = transactionService.getTransactionsETag(SOURCE_IBAN);
+            String apresDepot = transactionService.getTransactionsETag(SOURCE_IBAN);
+            String apresAntidatee = transactionService.getTransactionsETag(SOURCE_IBAN);
+            String apresMiseAJour = transactionService.getTransactionsETag(SOURCE_IBAN);
+
+            // Assert
+            assertThat(premier).startsWith("\"").endsWith("\"").isEqualTo(inchange);
+            assertThat(List.of(premier, apresDepot, apresAntidatee, apresMiseAJour)).doesNotHaveDuplicates();
+            verify(transactionRepository, never()).findViewsByCompteId(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de getTransactionsByAccount")
+    class GetTransactionsByAccountTests {
+
+        private final LocalDateTime date = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(transactionService, "maxPageSize", 2);
+            lenient().when(accountDescriptorCache.find(SOURCE_IBAN)).thenReturn(Optional.of(sourceDescriptor()));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner la première page et le curseur de la suivante")
+        void shouldReturnFirstPageWithCursor() {
+            // Arrange
+            List<TransactionView> transactions = List.of(transaction(5L), transaction(4L), transaction(3L));
+            when(transactionRepository.findFirstPageByCompteId(1L, Limit.of(3))).thenReturn(transactions);
+            when(transactionMapper.toResponseListFromViews(anyList()))
+                    .thenReturn(List.of(transactionResponse, transactionResponse));
+
+            // Act
+            CursorPageResponse<TransactionResponse> page = transactionService.getTransactionsByAccount(
+                    SOURCE_IBAN, null, 50);
+
+            // Assert
+            assertThat(page.getSize()).isEqualTo(2);
+            assertThat(page.isHasNext()).isTrue();
+            assertThat(KeysetCursor.decode(page.getNextCursor())).isEqualTo(new KeysetCursor(date, 4L));
+        }
+
+        @Test
+        @DisplayName("Devrait reprendre après la position du curseur")
+        void shouldSeekAfterCursor() {
+            // Arrange
+            String cursor = new KeysetCursor(date, 4L).encode();
+            when(transactionRepository.findPageByCompteIdAfter(1L, date, 4L, Limit.of(3)))
+                    .thenReturn(List.of(transaction(3L)));
+            when(transactionMapper.toResponseListFromViews(anyList()))
+                    .thenReturn(List.of(transactionResponse));
+
+            // Act
+            CursorPageResponse<TransactionResponse> page = transactionService.getTransactionsByAccount(
+                    SOURCE_IBAN, cursor, 2);
+
+            // Assert
+            assertThat(page.isHasNext()).isFalse();
+            assertThat(page.getNextCursor()).isNull();
+            verify(transactionRepository, never()).findFirstPageByCompteId(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("Devrait rejeter un curseur invalide")
+        void shouldRejectInvalidCursor() {
+            // Act & Assert
+            assertThatThrownBy(() -> transactionService.getTransactionsByAccount(SOURCE_IBAN, "pas-un-curseur", 2))
+                    .isInstanceOf(OperationNotAllowedException.class);
+        }
+
+        private TransactionView transaction(long id) {
+            return new TransactionView(id, TypeTransaction.DEPOT, new BigDecimal("10"), date,
+                    null, null, null, null, SOURCE_IBAN);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de streamAllTransactions")
+    class StreamAllTransactionsTests {
+
+        @Test
+        @DisplayName("Devrait transmettre chaque transaction du flux")
+        void shouldStreamTransactions() {
+            // Arrange
+            when(transactionRepository.streamAllForExport()).thenReturn(Stream.of(
+                    view(1L, TypeTransaction.DEPOT, "10"),
+                    view(2L, TypeTransaction.RETRAIT, "5")));
+            when(transactionMapper.toResponse(any(TransactionView.class))).thenReturn(transactionResponse);
+            List<TransactionResponse> recues = new ArrayList<>();
+
+            // Act
+            long count = transactionService.streamAllTransactions(recues::add);
+
+            // Assert
+            assertThat(count).isEqualTo(2);
+            assertThat(recues).hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de getClientFeed")
+    class GetClientFeedTests {
+
+        @Test
+        @DisplayName("Devrait lire le fil d'un client en une seule requête, quel que soit le nombre de comptes")
+        void shouldReadFeedWithSingleQuery() {
+            // Arrange
+            ReflectionTestUtils.setField(transactionService, "maxPageSize", 50);
+            List<TransactionView> transactions = List.of(
+                    view(2L, TypeTransaction.DEPOT, "10"),
+                    view(1L, TypeTransaction.DEPOT, "20"));
+            when(transactionRepository.findFirstFeedPageByClientId(10L, Limit.of(21))).thenReturn(transactions);
+            when(transactionMapper.toResponseListFromViews(transactions))
+                    .thenReturn(List.of(transactionResponse, transactionResponse));
+
+            // Act
+            CursorPageResponse<TransactionResponse> page = transactionService.getClientFeed(10L, null, 20);
+
+            // Assert
+            assertThat(page.getContent()).hasSize(2);
+            assertThat(page.isHasNext()).isFalse();
+            verifyNoInteractions(accountRepository, accountDescriptorCache);
+        }
+    }
+
+    private AccountDescriptor sourceDescriptor() {
+        return new AccountDescriptor(1L, SOURCE_IBAN, 10L, true, TypeCompte.COURANT);
+    }
+
+    private TransactionView view(long id, TypeTransaction type, String montant) {
+        return new TransactionView(id, type, new BigDecimal(montant), LocalDateTime.now(),
+                null, null, null, null, SOURCE_IBAN);
     }
 }
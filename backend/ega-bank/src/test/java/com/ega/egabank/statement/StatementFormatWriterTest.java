@@ -0,0 +1,146 @@
+package com.ega.egabank.statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.ega.egabank.enums.FormatReleve;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.repository.projection.TransactionView;
+
+/**
+ * Tests unitaires pour les formats de relevé CSV, OFX et camt.053
+ */
+@DisplayName("Tests des formats de relevé")
+class StatementFormatWriterTest {
+
+    private static final String IBAN = "TG11EGA0000100000000901";
+
+    private final StatementHeader entete = new StatementHeader(IBAN, TypeCompte.EPARGNE, "Jean Dupont",
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), new BigDecimal("100.00"),
+            new BigDecimal("-20.00"), LocalDateTime.of(2024, 2, 1, 8, 0));
+
+    private final List<TransactionView> transactions = List.of(
+            new TransactionView(1L, TypeTransaction.DEPOT, new BigDecimal("30.00"),
+                    LocalDateTime.of(2024, 1, 2, 9, 0), "Dépôt <espèces> & chèque", null,
+                    new BigDecimal("100.00"), new BigDecimal("130.00"), IBAN),
+            new TransactionView(2L, TypeTransaction.VIREMENT_SORTANT, new BigDecimal("150.00"),
+                    LocalDateTime.of(2024, 1, 3, 14, 15, 30), "Loyer \"janvier\"\nappartement",
+                    "TG11EGA0000100000000902", new BigDecimal("130.00"), new BigDecimal("-20.00"), IBAN));
+
+    @Test
+    @DisplayName("Devrait écrire un CSV RFC 4180 avec montants signés et champs protégés")
+    void shouldWriteCsv() throws IOException {
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = new CsvStatementWriter().write(entete, transactions.iterator(), out);
+
+        // Assert
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(count).isEqualTo(2);
+        assertThat(csv).startsWith("id,date,type,libelle,montant,devise,")
+                .contains("\r\n1,2024-01-02T09:00:00,DEPOT,Dépôt,30.00,XOF,100.00,130.00,Dépôt <espèces> & chèque,,")
+                .contains("\r\n2,2024-01-03T14:15:30,VIREMENT_SORTANT,Virement émis,-150.00,XOF,130.00,-20.00,"
+                        + "\"Loyer \"\"janvier\"\"\nappartement\",TG11EGA0000100000000902," + IBAN + "\r\n");
+    }
+
+    @Test
+    @DisplayName("Devrait écrire un OFX bien formé avec opérations et solde de clôture")
+    void shouldWriteOfx() throws Exception {
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = new OfxStatementWriter().write(entete, transactions.iterator(), out);
+
+        // Assert
+        Document ofx = parse(out);
+        assertThat(count).isEqualTo(2);
+        assertThat(text(ofx, "ACCTID", 0)).isEqualTo(IBAN);
+        assertThat(text(ofx, "ACCTTYPE", 0)).isEqualTo("SAVINGS");
+        assertThat(ofx.getElementsByTagName("STMTTRN").getLength()).isEqualTo(2);
+        assertThat(text(ofx, "TRNTYPE", 1)).isEqualTo("XFER");
+        assertThat(text(ofx, "TRNAMT", 1)).isEqualTo("-150.00");
+        assertThat(text(ofx, "DTPOSTED", 1)).isEqualTo("20240103141530");
+        assertThat(text(ofx, "MEMO", 0)).isEqualTo("Dépôt <espèces> & chèque");
+        assertThat(text(ofx, "BALAMT", 0)).isEqualTo("-20.00");
+    }
+
+    @Test
+    @DisplayName("Devrait écrire un camt.053 bien formé avec soldes d'ouverture et de clôture")
+    void shouldWriteCamt053() throws Exception {
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = new Camt053StatementWriter().write(entete, transactions.iterator(), out);
+
+        // Assert
+        Document camt = parse(out);
+        assertThat(count).isEqualTo(2);
+        assertThat(camt.getDocumentElement().getNamespaceURI())
+                .isEqualTo("urn:iso:std:iso:20022:tech:xsd:camt.053.001.02");
+        NodeList soldes = camt.getElementsByTagName("Bal");
+        assertThat(soldes.getLength()).isEqualTo(2);
+        assertThat(soldes.item(0).getTextContent()).startsWith("OPBD100.00CRDT");
+        assertThat(soldes.item(1).getTextContent()).startsWith("CLBD20.00DBIT");
+        NodeList ecritures = camt.getElementsByTagName("Ntry");
+        assertThat(ecritures.getLength()).isEqualTo(2);
+        Element virement = (Element) ecritures.item(1);
+        assertThat(virement.getElementsByTagName("CdtDbtInd").item(0).getTextContent()).isEqualTo("DBIT");
+        assertThat(virement.getElementsByTagName("DtTm").item(0).getTextContent()).isEqualTo("2024-01-03T14:15:30");
+    }
+
+    @Test
+    @DisplayName("Devrait laisser ouvert le flux de l'appelant")
+    void shouldLeaveOutputStreamOpen() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                throw new AssertionError("flux fermé par l'écrivain");
+            }
+        };
+
+        // Act & Assert
+        for (StatementFormatWriter writer : List.of(new CsvStatementWriter(), new OfxStatementWriter(),
+                new Camt053StatementWriter())) {
+            assertThat(writer.format()).isNotEqualTo(FormatReleve.PDF);
+            writer.write(entete, transactions.iterator(), out);
+        }
+        assertThat(out.size()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Devrait reconnaître un format par son code ou son type de contenu")
+    void shouldResolveFormat() {
+        // Act & Assert
+        assertThat(FormatReleve.fromCode("CSV")).contains(FormatReleve.CSV);
+        assertThat(FormatReleve.fromCode("camt.053")).contains(FormatReleve.CAMT053);
+        assertThat(FormatReleve.fromCode("xls")).isEmpty();
+        assertThat(FormatReleve.fromMediaType("application/x-ofx")).contains(FormatReleve.OFX);
+        assertThat(FormatReleve.fromMediaType("image/png")).isEmpty();
+    }
+
+    private static Document parse(ByteArrayOutputStream out) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static String text(Document document, String tag, int index) {
+        return document.getElementsByTagName(tag).item(index).getTextContent();
+    }
+}
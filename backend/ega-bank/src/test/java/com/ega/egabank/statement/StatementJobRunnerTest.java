@@ -0,0 +1,227 @@
+package com.ega.egabank.statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.ega.egabank.dto.request.StatementJobRequest;
+import com.ega.egabank.dto.response.StatementJobResponse;
+import com.ega.egabank.entity.Account;
+import com.ega.egabank.entity.Client;
+import com.ega.egabank.entity.StatementJob;
+import com.ega.egabank.entity.Transaction;
+import com.ega.egabank.enums.Sexe;
+import com.ega.egabank.enums.StatutJob;
+import com.ega.egabank.enums.TypeCompte;
+import com.ega.egabank.enums.TypeTransaction;
+import com.ega.egabank.exception.OperationNotAllowedException;
+import com.ega.egabank.repository.AccountRepository;
+import com.ega.egabank.repository.ClientRepository;
+import com.ega.egabank.repository.StatementJobRepository;
+import com.ega.egabank.repository.TransactionRepository;
+import com.ega.egabank.service.StatementJobService;
+
+/**
+ * Tests d'intégration des relevés de masse : exécution complète, archive et
+ * reprise d'un lot interrompu
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Tests des relevés de masse")
+class StatementJobRunnerTest {
+
+    private static final String IBAN_A = "TG11EGA0000100000000701";
+    private static final String IBAN_B = "TG11EGA0000100000000702";
+    private static final String IBAN_INACTIF = "TG11EGA0000100000000703";
+    private static final LocalDate AUJOURD_HUI = LocalDate.now();
+
+    /** Dossier propre à chaque exécution : les identifiants de lot repartent de 1 avec la base */
+    @DynamicPropertySource
+    static void jobProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("egabank-statement-jobs");
+        registry.add("app.statement.jobs.directory", directory::toString);
+    }
+
+    @Autowired
+    private StatementJobService statementJobService;
+
+    @Autowired
+    private StatementJobRunner statementJobRunner;
+
+    @Autowired
+    private StatementJobRepository statementJobRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final List<Account> comptes = new ArrayList<>();
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(Client.builder()
+                .nom("Masse")
+                .prenom("Releve")
+                .dateNaissance(LocalDate.of(1985, 1, 1))
+                .sexe(Sexe.MASCULIN)
+                .build());
+        comptes.add(account(IBAN_A, true));
+        comptes.add(account(IBAN_B, true));
+        comptes.add(account(IBAN_INACTIF, false));
+        for (Account compte : comptes) {
+            transactionRepository.save(Transaction.builder()
+                    .type(TypeTransaction.DEPOT)
+                    .montant(new BigDecimal("100.00"))
+                    .soldeAvant(BigDecimal.ZERO)
+                    .soldeApres(new BigDecimal("100.00"))
+                    .compte(compte)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementJobRepository.deleteAll();
+        comptes.forEach(compte -> transactionRepository.deleteAll(
+                transactionRepository.findByCompteIdOrderByDateTransactionDesc(compte.getId())));
+        accountRepository.deleteAll(comptes);
+        clientRepository.delete(client);
+        comptes.clear();
+    }
+
+    @Test
+    @DisplayName("Devrait générer un relevé par compte actif et les servir en archive")
+    void shouldRenderEveryActiveAccount() throws Exception {
+        // Act
+        StatementJobResponse soumis = statementJobService.submitJob(new StatementJobRequest(AUJOURD_HUI, AUJOURD_HUI));
+        StatementJobResponse termine = awaitEnd(soumis.getId());
+
+        // Assert
+        assertThat(termine.getStatut()).isEqualTo(StatutJob.TERMINE);
+        assertThat(termine.getComptesEnErreur()).isZero();
+        assertThat(termine.getComptesTraites()).isEqualTo(soumis.getTotalComptes());
+        assertThat(termine.getProgression()).isEqualTo(100);
+
+        Path dossier = statementJobRunner.directoryOf(soumis.getId());
+        assertThat(Files.readAllBytes(dossier.resolve(IBAN_A + ".pdf"))).startsWith("%PDF-".getBytes());
+        assertThat(dossier.resolve(IBAN_B + ".pdf")).exists();
+        assertThat(dossier.resolve(IBAN_INACTIF + ".pdf")).doesNotExist();
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        statementJobService.writeArchive(soumis.getId(), archive);
+        assertThat(entries(archive.toByteArray()))
+                .contains(IBAN_A + ".pdf", IBAN_B + ".pdf")
+                .doesNotContain(IBAN_INACTIF + ".pdf")
+                .hasSize((int) termine.getComptesTraites());
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre un lot interrompu sans régénérer les relevés déjà écrits")
+    void shouldResumeInterruptedJob() throws Exception {
+        // Arrange : lot interrompu après l'écriture du relevé du compte A
+        long dernierCompteId = accountRepository.findMaxId();
+        StatementJob job = statementJobRepository.save(StatementJob.builder()
+                .debut(AUJOURD_HUI)
+                .fin(AUJOURD_HUI)
+                .statut(StatutJob.EN_COURS)
+                .dernierCompteId(dernierCompteId)
+                .totalComptes(accountRepository.countActiveUpTo(dernierCompteId))
+                .build());
+        Path dossier = Files.createDirectories(statementJobRunner.directoryOf(job.getId()));
+        Files.writeString(dossier.resolve(IBAN_A + ".pdf"), "deja ecrit");
+        Files.writeString(dossier.resolve("releve-orphelin.tmp"), "x");
+
+        // Act
+        statementJobRunner.resume();
+        StatementJobResponse termine = awaitEnd(job.getId());
+
+        // Assert
+        assertThat(termine.getStatut()).isEqualTo(StatutJob.TERMINE);
+        assertThat(termine.getComptesTraites()).isEqualTo(job.getTotalComptes());
+        assertThat(Files.readString(dossier.resolve(IBAN_A + ".pdf"))).isEqualTo("deja ecrit");
+        assertThat(dossier.resolve(IBAN_B + ".pdf")).exists();
+        assertThat(dossier.resolve("releve-orphelin.tmp")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une période dont le début suit la fin")
+    void shouldRejectInvertedPeriod() {
+        // Act & Assert
+        assertThatThrownBy(() -> statementJobService.submitJob(
+                new StatementJobRequest(AUJOURD_HUI, AUJOURD_HUI.minusDays(1))))
+                .isInstanceOf(OperationNotAllowedException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'archive d'un lot non terminé")
+    void shouldRejectArchiveOfUnfinishedJob() {
+        // Arrange : lot en attente, jamais mis en file
+        StatementJob job = statementJobRepository.save(StatementJob.builder()
+                .debut(AUJOURD_HUI)
+                .fin(AUJOURD_HUI)
+                .statut(StatutJob.EN_ATTENTE)
+                .dernierCompteId(0L)
+                .build());
+
+        // Act & Assert
+        assertThatThrownBy(() -> statementJobService.writeArchive(job.getId(), new ByteArrayOutputStream()))
+                .isInstanceOf(OperationNotAllowedException.class);
+    }
+
+    private StatementJobResponse awaitEnd(Long jobId) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        StatementJobResponse job = statementJobService.getJob(jobId);
+        while (job.getStatut() != StatutJob.TERMINE && job.getStatut() != StatutJob.ECHOUE
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+            job = statementJobService.getJob(jobId);
+        }
+        return job;
+    }
+
+    private List<String> entries(byte[] archive) throws IOException {
+        List<String> noms = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                noms.add(entry.getName());
+            }
+        }
+        return noms;
+    }
+
+    private Account account(String iban, boolean actif) {
+        return accountRepository.save(Account.builder()
+                .numeroCompte(iban)
+                .typeCompte(TypeCompte.COURANT)
+                .solde(new BigDecimal("100.00"))
+                .actif(actif)
+                .proprietaire(client)
+                .build());
+    }
+}
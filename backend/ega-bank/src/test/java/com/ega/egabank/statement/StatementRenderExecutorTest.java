@@ -0,0 +1,102 @@
+package com.ega.egabank.statement;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.ega.egabank.exception.CapacityExceededException;
+import com.ega.egabank.exception.ResourceNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests unitaires pour StatementRenderExecutor
+ */
+@DisplayName("Tests du pool de génération des relevés")
+class StatementRenderExecutorTest {
+
+    /** Un thread, une place en file, Retry-After de 7 secondes */
+    private StatementRenderExecutor executor;
+
+    private final CountDownLatch demarre = new CountDownLatch(1);
+    private final CountDownLatch libere = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = new StatementRenderExecutor(1, 1, 7);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        libere.countDown();
+        executor.stop();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser immédiatement une demande au-delà de la file")
+    void shouldRejectBeyondQueue() throws Exception {
+        // Arrange : un relevé en cours, un en file
+        CompletableFuture<String> enCours = executor.submit(this::bloquer);
+        assertThat(demarre.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> enFile = executor.submit(() -> "second");
+
+        // Act & Assert
+        assertThatThrownBy(() -> executor.submit(() -> "troisieme"))
+                .isInstanceOfSatisfying(CapacityExceededException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(7));
+        assertThat(executor.getQueueSize()).isEqualTo(1);
+        assertThat(executor.getRejections()).isEqualTo(1);
+
+        libere.countDown();
+        assertThat(enCours.get(5, TimeUnit.SECONDS)).isEqualTo("premier");
+        assertThat(enFile.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName("Devrait transmettre l'exception de la génération par le futur")
+    void shouldPropagateGenerationFailure() {
+        // Act
+        CompletableFuture<String> future = executor.submit(() -> {
+            throw new ResourceNotFoundException("Compte", "numéro", "X");
+        });
+
+        // Assert
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Devrait exposer la file, la durée de génération et les refus")
+    void shouldExposeMetrics() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor.bindTo(registry);
+
+        // Act
+        executor.submit(() -> "releve").get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(registry.get("egabank.statement.render.queue").gauge().value()).isZero();
+        assertThat(registry.get("egabank.statement.render.rejected").functionCounter().count()).isZero();
+        assertThat(registry.get("egabank.statement.render").functionTimer()).isNotNull();
+    }
+
+    private String bloquer() {
+        demarre.countDown();
+        try {
+            libere.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "premier";
+    }
+}